@@ -11,6 +11,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 
 // Estiende de ArrayAdapter porque éste hereda de ListAdapter y además implementa la intefaz
@@ -18,93 +20,104 @@ import java.util.Locale;
 class ConceptosAdapter extends ArrayAdapter<Concepto> {
 
     private final ArrayList<Concepto> mConceptos;
-    private final ArrayList<Concepto> mSugerencias;
     private final LayoutInflater mInflador;
+    private final Filter mFiltro = new ConceptosFilter();
+    // Índice de búsqueda. Se construye la primera vez que se filtra, en el
+    // hilo del filtro.
+    private IndiceConceptos mIndice;
+    // Sugerencias mostradas actualmente (lista inmutable).
+    private List<Concepto> mSugerencias = Collections.emptyList();
 
     public ConceptosAdapter(Context contexto, ArrayList<Concepto> conceptos) {
         // Se llama al constructor del padre. El segundo parámetro no es
         // usado. El tercer parámetro corresponde al resId del TextView que
-        // contendrá el texto.
-        super(contexto, R.layout.activity_main_item, R.id.lblEnglish,
-                conceptos);
+        // contendrá el texto. Los datos mostrados son las sugerencias, que
+        // se obtienen con getCount() y getItem().
+        super(contexto, R.layout.activity_main_item, R.id.lblEnglish);
         mInflador = LayoutInflater.from(contexto);
-        // Se crea una copia del ArrayList de datos, ya que se verá afectado
-        // por el filtro.
-        //noinspection unchecked
-        mConceptos = (ArrayList<Concepto>) conceptos.clone();
-        // El ArrayList de sugerencias está inicialmente vacío.
-        mSugerencias = new ArrayList<>();
+        // Se crea una copia del ArrayList de datos, a partir de la que se
+        // construirá el índice.
+        mConceptos = new ArrayList<>(conceptos);
+    }
+
+    // Retorna el índice de búsqueda, construyéndolo si es necesario.
+    private synchronized IndiceConceptos getIndice() {
+        if (mIndice == null) {
+            mIndice = new IndiceConceptos(mConceptos, Locale.getDefault());
+        }
+        return mIndice;
+    }
+
+    // Retorna el número de sugerencias.
+    @Override
+    public int getCount() {
+        return mSugerencias.size();
+    }
+
+    // Retorna la sugerencia que ocupa esa posición.
+    @Override
+    public Concepto getItem(int position) {
+        return mSugerencias.get(position);
     }
 
     // Retorna el objeto Filter que va a filtrar el adaptador.
     @NonNull
     @Override
     public Filter getFilter() {
-        // Se retorna un nuevo filtro subclase de Filter (inline).
-        return new Filter() {
-            // Se ejecuta cuando se debe filtrar. Recibe la cadena ya
-            // introducida.
-            @Override
-            protected FilterResults performFiltering(CharSequence constraint) {
-                // Se crea el objeto resultado del filtro, inicialmente
-                // vacío.
-                FilterResults filterResults = new FilterResults();
-                // Si ya se ha introducido texto.
-                if (constraint != null) {
-                    // Se vacía el ArrayList de sugerencias.
-                    mSugerencias.clear();
-                    // Se comprueba concepto a concepto para incluirlo o no
-                    // en las sugerencias.
-                    // OJO se comprueba en el ArrayList con TODOS los
-                    // conceptos.
-                    for (Concepto concepto : mConceptos) {
-                        // Si comienza igual se añade a las sugerencias.
-                        if (concepto
-                                .getEnglish()
-                                .toLowerCase(Locale.getDefault())
-                                .contains(
-                                        constraint.toString().toLowerCase(
-                                                Locale.getDefault()))) {
-                            mSugerencias.add(concepto);
-                        }
-                    }
-                    // Se establecen las sugerencias como resultado del
-                    // filtro.
-                    filterResults.values = mSugerencias;
-                    filterResults.count = mSugerencias.size();
-                }
-                // Se retorna el resultado del filtrado.
-                return filterResults;
-            }
+        return mFiltro;
+    }
 
-            // Se encarga de publicar el resultado seleccionado en el
-            // widget.
-            @Override
-            protected void publishResults(CharSequence constraint,
-                                          FilterResults results) {
-                // Si hay sugerencias se añaden los resultados filtrados
-                // como únicos datos del adaptador.
-                if (results != null && results.count > 0) {
-                    clear();
-                    //noinspection unchecked
-                    for (Concepto concepto : (ArrayList<Concepto>) results.values) {
-                        add(concepto);
-                    }
-                    // Se fuerza el repintado.
-                    notifyDataSetChanged();
-                }
+    // Filtro que busca las sugerencias en el índice. Al ir escribiendo, cada
+    // búsqueda parte del resultado de la anterior en vez de recorrer todos los
+    // conceptos.
+    private class ConceptosFilter extends Filter {
+
+        // Resultado de la última búsqueda. Solo se usa desde el hilo del
+        // filtro.
+        private IndiceConceptos.Resultado mAnterior;
+
+        // Se ejecuta en el hilo del filtro cuando se debe filtrar. Recibe la
+        // cadena ya introducida.
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            FilterResults filterResults = new FilterResults();
+            List<Concepto> sugerencias = Collections.emptyList();
+            if (constraint != null) {
+                IndiceConceptos indice = getIndice();
+                mAnterior = indice.buscar(indice.normalizar(constraint), mAnterior);
+                sugerencias = mAnterior;
+            } else {
+                mAnterior = null;
             }
+            // El resultado es una lista inmutable, que se publica tal cual.
+            filterResults.values = sugerencias;
+            filterResults.count = sugerencias.size();
+            return filterResults;
+        }
 
-            // Retorna la cadena que debe escribirse en el widget. Recibe el
-            // objeto seleccionado
-            @Override
-            public CharSequence convertResultToString(Object resultValue) {
-                // Se obtiene el concepto y se retorna la cadena.
-                Concepto concepto = (Concepto) resultValue;
-                return concepto.getEnglish();
+        // Se encarga de publicar el resultado seleccionado en el
+        // widget.
+        @Override
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            // Se sustituyen las sugerencias de una vez, sin copiarlas.
+            //noinspection unchecked
+            mSugerencias = (List<Concepto>) results.values;
+            if (results.count > 0) {
+                notifyDataSetChanged();
+            } else {
+                notifyDataSetInvalidated();
             }
+        }
+
+        // Retorna la cadena que debe escribirse en el widget. Recibe el
+        // objeto seleccionado
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            // Se obtiene el concepto y se retorna la cadena.
+            Concepto concepto = (Concepto) resultValue;
+            return concepto.getEnglish();
+        }
 
-        };
     }
 
     @NonNull
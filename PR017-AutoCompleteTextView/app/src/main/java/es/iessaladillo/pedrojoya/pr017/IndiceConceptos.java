@@ -0,0 +1,252 @@
+package es.iessaladillo.pedrojoya.pr017;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+// Índice de búsqueda de conceptos por su nombre en inglés. Se construye una
+// sola vez con los nombres ya normalizados (en minúsculas) y ordenados, de
+// manera que los que empiezan por la consulta forman un rango contiguo que se
+// localiza por búsqueda binaria. Para los que solo la contienen se usa un
+// índice de trigramas, o bien el resultado de la consulta anterior si la
+// nueva la contiene (al ir escribiendo), en vez de recorrer todos los nombres.
+// Es inmutable una vez construido, por lo que puede usarse desde cualquier
+// hilo.
+class IndiceConceptos {
+
+    // Longitud de los n-gramas del índice.
+    private static final int N = 3;
+    private static final int[] VACIO = new int[0];
+
+    private final Locale mLocale;
+    // Conceptos ordenados por su nombre normalizado.
+    private final Concepto[] mConceptos;
+    // Nombres normalizados, en el mismo orden.
+    private final String[] mClaves;
+    // Para cada trigrama, posiciones (ascendentes) de los nombres que lo
+    // contienen.
+    private final HashMap<String, int[]> mTrigramas;
+
+    // Constructor. Recibe los conceptos a indexar y el locale con el que se
+    // normalizan los nombres.
+    public IndiceConceptos(List<Concepto> conceptos, Locale locale) {
+        mLocale = locale;
+        int total = conceptos.size();
+        // Se normaliza cada nombre una única vez y se ordena.
+        final String[] claves = new String[total];
+        Integer[] orden = new Integer[total];
+        for (int i = 0; i < total; i++) {
+            claves[i] = normalizar(conceptos.get(i).getEnglish());
+            orden[i] = i;
+        }
+        Arrays.sort(orden, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return claves[a].compareTo(claves[b]);
+            }
+        });
+        mConceptos = new Concepto[total];
+        mClaves = new String[total];
+        for (int i = 0; i < total; i++) {
+            mConceptos[i] = conceptos.get(orden[i]);
+            mClaves[i] = claves[orden[i]];
+        }
+        mTrigramas = crearTrigramas(mClaves);
+    }
+
+    // Retorna el texto normalizado tal y como se compara con el índice.
+    public String normalizar(CharSequence texto) {
+        return texto.toString().toLowerCase(mLocale);
+    }
+
+    // Retorna el número de conceptos indexados.
+    public int getTamano() {
+        return mConceptos.length;
+    }
+
+    // Busca los conceptos cuyo nombre contiene la consulta (ya normalizada).
+    // Recibe el resultado de la consulta anterior (o null), que se aprovecha
+    // si la nueva consulta lo contiene.
+    public Resultado buscar(String consulta, Resultado anterior) {
+        // Los que empiezan por la consulta forman un rango.
+        int desde = buscarPrimero(consulta);
+        int hasta = buscarPrimero(consulta + Character.MAX_VALUE);
+        // El resto se busca entre los candidatos.
+        int[] otros;
+        int candidatos;
+        if (anterior != null && consulta.contains(anterior.mConsulta)) {
+            otros = filtrarAnterior(anterior, consulta, desde, hasta);
+            candidatos = anterior.size();
+        } else if (consulta.length() >= N) {
+            int[] posiciones = getTrigramaMenosFrecuente(consulta);
+            otros = filtrar(posiciones, consulta, desde, hasta);
+            candidatos = posiciones.length;
+        } else {
+            otros = filtrarTodos(consulta, desde, hasta);
+            candidatos = mClaves.length;
+        }
+        return new Resultado(consulta, desde, hasta, otros, candidatos);
+    }
+
+    // Retorna la primera posición cuya clave no es menor que la recibida.
+    private int buscarPrimero(String clave) {
+        int bajo = 0;
+        int alto = mClaves.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (mClaves[medio].compareTo(clave) < 0) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    // Retorna las posiciones fuera del rango [desde, hasta) de entre las del
+    // resultado anterior cuya clave contiene la consulta.
+    private int[] filtrarAnterior(Resultado anterior, String consulta, int desde, int hasta) {
+        int[] encontrados = new int[anterior.size()];
+        int num = 0;
+        for (int i = anterior.mDesde; i < anterior.mHasta; i++) {
+            if ((i < desde || i >= hasta) && mClaves[i].contains(consulta)) {
+                encontrados[num++] = i;
+            }
+        }
+        for (int posicion : anterior.mOtros) {
+            if ((posicion < desde || posicion >= hasta) && mClaves[posicion].contains(consulta)) {
+                encontrados[num++] = posicion;
+            }
+        }
+        int[] otros = Arrays.copyOf(encontrados, num);
+        // Los del rango anterior y los otros pueden estar intercalados.
+        Arrays.sort(otros);
+        return otros;
+    }
+
+    // Igual que el anterior, pero con los candidatos recibidos (ascendentes).
+    private int[] filtrar(int[] candidatos, String consulta, int desde, int hasta) {
+        int[] encontrados = new int[candidatos.length];
+        int num = 0;
+        for (int posicion : candidatos) {
+            if ((posicion < desde || posicion >= hasta) && mClaves[posicion].contains(consulta)) {
+                encontrados[num++] = posicion;
+            }
+        }
+        return Arrays.copyOf(encontrados, num);
+    }
+
+    // Igual que el anterior, pero recorriendo todas las claves. Solo se usa
+    // para consultas más cortas que un trigrama.
+    private int[] filtrarTodos(String consulta, int desde, int hasta) {
+        int[] encontrados = new int[mClaves.length];
+        int num = 0;
+        for (int i = 0; i < mClaves.length; i++) {
+            if ((i < desde || i >= hasta) && mClaves[i].contains(consulta)) {
+                encontrados[num++] = i;
+            }
+        }
+        return Arrays.copyOf(encontrados, num);
+    }
+
+    // Retorna las posiciones del trigrama de la consulta que aparece en menos
+    // claves (todas las que contienen la consulta lo contienen).
+    private int[] getTrigramaMenosFrecuente(String consulta) {
+        int[] menor = null;
+        for (int i = 0; i + N <= consulta.length(); i++) {
+            int[] posiciones = mTrigramas.get(consulta.substring(i, i + N));
+            if (posiciones == null) {
+                // Ninguna clave contiene ese trigrama.
+                return VACIO;
+            }
+            if (menor == null || posiciones.length < menor.length) {
+                menor = posiciones;
+            }
+        }
+        return menor;
+    }
+
+    // Crea el índice de trigramas de las claves recibidas. Se recorren dos
+    // veces: una para contar las claves de cada trigrama y otra para llenar
+    // los arrays, sin listas intermedias.
+    private static HashMap<String, int[]> crearTrigramas(String[] claves) {
+        // Para cada trigrama: {número de claves, última clave contada}.
+        HashMap<String, int[]> contadores = new HashMap<>();
+        for (int i = 0; i < claves.length; i++) {
+            for (int j = 0; j + N <= claves[i].length(); j++) {
+                String trigrama = claves[i].substring(j, j + N);
+                int[] contador = contadores.get(trigrama);
+                if (contador == null) {
+                    contadores.put(trigrama, new int[]{1, i});
+                } else if (contador[1] != i) {
+                    contador[0]++;
+                    contador[1] = i;
+                }
+            }
+        }
+        HashMap<String, int[]> trigramas = new HashMap<>(contadores.size() * 2);
+        for (String trigrama : contadores.keySet()) {
+            int[] contador = contadores.get(trigrama);
+            trigramas.put(trigrama, new int[contador[0]]);
+            // A partir de aquí el contador indica la siguiente posición libre.
+            contador[0] = 0;
+            contador[1] = -1;
+        }
+        for (int i = 0; i < claves.length; i++) {
+            for (int j = 0; j + N <= claves[i].length(); j++) {
+                String trigrama = claves[i].substring(j, j + N);
+                int[] contador = contadores.get(trigrama);
+                if (contador[1] != i) {
+                    trigramas.get(trigrama)[contador[0]++] = i;
+                    contador[1] = i;
+                }
+            }
+        }
+        return trigramas;
+    }
+
+    // Resultado inmutable de una búsqueda. Se comporta como una lista de solo
+    // lectura con primero los conceptos que empiezan por la consulta y después
+    // los que solo la contienen, ambos por orden alfabético. No copia los
+    // conceptos, sino que accede a los del índice.
+    public class Resultado extends AbstractList<Concepto> {
+
+        private final String mConsulta;
+        private final int mDesde;
+        private final int mHasta;
+        private final int[] mOtros;
+        // Claves que se han recorrido para obtener el resultado.
+        private final int mCandidatos;
+
+        private Resultado(String consulta, int desde, int hasta, int[] otros, int candidatos) {
+            mConsulta = consulta;
+            mDesde = desde;
+            mHasta = hasta;
+            mOtros = otros;
+            mCandidatos = candidatos;
+        }
+
+        int getCandidatos() {
+            return mCandidatos;
+        }
+
+        @Override
+        public Concepto get(int posicion) {
+            int enRango = mHasta - mDesde;
+            if (posicion < enRango) {
+                return mConceptos[mDesde + posicion];
+            }
+            return mConceptos[mOtros[posicion - enRango]];
+        }
+
+        @Override
+        public int size() {
+            return mHasta - mDesde + mOtros.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,163 @@
+package es.iessaladillo.pedrojoya.pr017;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Compara, al ir escribiendo con un diccionario de 50.000 palabras, el
+// recorrido lineal que hacía el filtro con el índice. Se comprueba el número
+// de nombres que se recorren en cada pulsación, que no depende de la
+// máquina; el tiempo por pulsación solo se informa.
+public class IndiceConceptosBenchmarkTest {
+
+    private static final int NUM_PALABRAS = 50000;
+    private static final int NUM_ESCRITAS = 300;
+    // El índice debe recorrer de media menos de 1/FRACCION_CANDIDATOS de los
+    // nombres que recorre el filtro lineal en cada pulsación. Con una o dos
+    // letras aún recorre muchos, ya que no hay trigrama que usar.
+    private static final int FRACCION_CANDIDATOS = 4;
+    private static final String LETRAS = "aeioulnrstcdmpbgfhvyqjzxkw";
+
+    private static ArrayList<Concepto> sConceptos;
+    private static IndiceConceptos sIndice;
+    private static double sMsConstruccion;
+
+    @BeforeClass
+    public static void setUpClass() {
+        Random random = new Random(42);
+        sConceptos = new ArrayList<>(NUM_PALABRAS);
+        for (int i = 0; i < NUM_PALABRAS; i++) {
+            sConceptos.add(new Concepto(0, nuevaPalabra(random), ""));
+        }
+        long inicio = System.nanoTime();
+        sIndice = new IndiceConceptos(sConceptos, Locale.US);
+        sMsConstruccion = (System.nanoTime() - inicio) / 1e6;
+    }
+
+    @Test
+    public void resultadosIgualesAlRecorridoLineal() {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            String palabra = sConceptos.get(random.nextInt(NUM_PALABRAS)).getEnglish();
+            IndiceConceptos.Resultado anterior = null;
+            // Se escribe la palabra letra a letra desde una posición cualquiera.
+            int inicio = random.nextInt(palabra.length());
+            for (int fin = inicio + 1; fin <= palabra.length(); fin++) {
+                String consulta = sIndice.normalizar(palabra.substring(inicio, fin));
+                anterior = sIndice.buscar(consulta, anterior);
+                List<Concepto> esperados = filtrarLineal(consulta);
+                assertEquals(esperados.size(), anterior.size());
+                assertEquals(new HashSet<>(esperados), new HashSet<>(anterior));
+                // Primero los que empiezan por la consulta.
+                boolean prefijo = true;
+                for (Concepto concepto : anterior) {
+                    boolean empieza = sIndice.normalizar(concepto.getEnglish()).startsWith(
+                            consulta);
+                    assertTrue(prefijo || !empieza);
+                    prefijo = empieza;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void benchmarkEscritura() {
+        Random random = new Random(13);
+        List<String> palabras = new ArrayList<>(NUM_ESCRITAS);
+        for (int i = 0; i < NUM_ESCRITAS; i++) {
+            palabras.add(sConceptos.get(random.nextInt(NUM_PALABRAS)).getEnglish());
+        }
+        // Calentamiento.
+        escribirLineal(palabras.subList(0, 20));
+        escribirIndice(palabras.subList(0, 20));
+        double[] lineal = escribirLineal(palabras);
+        double[] indice = escribirIndice(palabras);
+        String medidas = String.format("Recorrido lineal: %.3f ms/pulsación (máx %.3f), %d "
+                        + "nombres/pulsación. Índice de %d palabras (construido en %.1f ms): "
+                        + "%.3f ms/pulsación (máx %.3f), %.1f nombres/pulsación (máx %.0f)",
+                lineal[0], lineal[1], NUM_PALABRAS, NUM_PALABRAS, sMsConstruccion, indice[0],
+                indice[1], indice[2], indice[3]);
+        System.out.println(medidas);
+        // El filtro lineal recorre siempre todos los nombres.
+        assertTrue(medidas, indice[3] <= NUM_PALABRAS);
+        assertTrue(medidas, indice[2] * FRACCION_CANDIDATOS < NUM_PALABRAS);
+    }
+
+    // Retorna {media, máximo} en ms por pulsación y {media, máximo} de los
+    // nombres recorridos por pulsación al escribir las palabras letra a letra
+    // usando el índice.
+    private double[] escribirIndice(List<String> palabras) {
+        long total = 0;
+        long maximo = 0;
+        long candidatos = 0;
+        int maxCandidatos = 0;
+        int pulsaciones = 0;
+        for (String palabra : palabras) {
+            IndiceConceptos.Resultado anterior = null;
+            for (int fin = 1; fin <= palabra.length(); fin++) {
+                long inicio = System.nanoTime();
+                anterior = sIndice.buscar(sIndice.normalizar(palabra.substring(0, fin)),
+                        anterior);
+                long duracion = System.nanoTime() - inicio;
+                total += duracion;
+                maximo = Math.max(maximo, duracion);
+                candidatos += anterior.getCandidatos();
+                maxCandidatos = Math.max(maxCandidatos, anterior.getCandidatos());
+                pulsaciones++;
+            }
+        }
+        return new double[]{total / 1e6 / pulsaciones, maximo / 1e6,
+                (double) candidatos / pulsaciones, maxCandidatos};
+    }
+
+    // Igual que el anterior, pero recorriendo la lista completa como hacía el
+    // filtro original.
+    private double[] escribirLineal(List<String> palabras) {
+        long total = 0;
+        long maximo = 0;
+        int pulsaciones = 0;
+        for (String palabra : palabras) {
+            for (int fin = 1; fin <= palabra.length(); fin++) {
+                long inicio = System.nanoTime();
+                filtrarLineal(palabra.substring(0, fin));
+                long duracion = System.nanoTime() - inicio;
+                total += duracion;
+                maximo = Math.max(maximo, duracion);
+                pulsaciones++;
+            }
+        }
+        return new double[]{total / 1e6 / pulsaciones, maximo / 1e6};
+    }
+
+    // Filtrado original: se pasa a minúsculas cada concepto en cada pulsación.
+    private static List<Concepto> filtrarLineal(String consulta) {
+        ArrayList<Concepto> sugerencias = new ArrayList<>();
+        for (Concepto concepto : sConceptos) {
+            if (concepto.getEnglish().toLowerCase(Locale.US).contains(
+                    consulta.toLowerCase(Locale.US))) {
+                sugerencias.add(concepto);
+            }
+        }
+        return sugerencias;
+    }
+
+    private static String nuevaPalabra(Random random) {
+        int longitud = 4 + random.nextInt(9);
+        StringBuilder palabra = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            // Las letras más frecuentes aparecen más, como en un idioma real.
+            char letra = LETRAS.charAt((int) (LETRAS.length() * Math.pow(random.nextDouble(), 2)));
+            palabra.append(i == 0 ? Character.toUpperCase(letra) : letra);
+        }
+        return palabra.toString();
+    }
+
+}
@@ -1,15 +1,18 @@
 package es.iessaladillo.pedrojoya.pr027.bd;
 
 import android.content.ContentResolver;
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 import es.iessaladillo.pedrojoya.pr027.modelos.Alumno;
+import es.iessaladillo.pedrojoya.pr027.utils.MapaColumnas;
 
 /**
  * Clase de acceso a los datos de la base de datos. Utiliza un objeto de un
@@ -23,9 +26,53 @@ public class Dao {
 
     private static Dao sInstance;
 
+    // Sentencias SQL precompiladas. Se usan parámetros (?) para que SQLite
+    // pueda reutilizar la sentencia compilada en cada llamada.
+    private static final String SQL_INSERT = "INSERT INTO " + DbContract.Alumno.TABLA + " ("
+            + DbContract.Alumno.NOMBRE + ", " + DbContract.Alumno.CURSO + ", "
+            + DbContract.Alumno.TELEFONO + ", " + DbContract.Alumno.DIRECCION
+            + ") VALUES (?, ?, ?, ?)";
+    private static final String SQL_UPDATE = "UPDATE " + DbContract.Alumno.TABLA + " SET "
+            + DbContract.Alumno.NOMBRE + " = ?, " + DbContract.Alumno.CURSO + " = ?, "
+            + DbContract.Alumno.TELEFONO + " = ?, " + DbContract.Alumno.DIRECCION + " = ? WHERE "
+            + DbContract.Alumno._ID + " = ?";
+    private static final String SQL_DELETE = "DELETE FROM " + DbContract.Alumno.TABLA + " WHERE "
+            + DbContract.Alumno._ID + " = ?";
+    // La consulta por _id no puede hacerse con un SQLiteStatement (retorna
+    // varias columnas), pero al ser siempre la misma cadena SQL con parámetros
+    // se aprovecha la caché de sentencias compiladas de la conexión.
+    private static final String SQL_QUERY_BY_ID = "SELECT " + DbContract.Alumno._ID + ", "
+            + DbContract.Alumno.NOMBRE + ", " + DbContract.Alumno.CURSO + ", "
+            + DbContract.Alumno.TELEFONO + ", " + DbContract.Alumno.DIRECCION + " FROM "
+            + DbContract.Alumno.TABLA + " WHERE " + DbContract.Alumno._ID + " = ?";
+
+    // Columnas leídas al convertir un registro en un Alumno, y su posición en
+    // el array.
+    private static final String[] COLUMNAS_ALUMNO = {DbContract.Alumno._ID,
+            DbContract.Alumno.NOMBRE, DbContract.Alumno.CURSO, DbContract.Alumno.TELEFONO,
+            DbContract.Alumno.DIRECCION};
+    private static final int COL_ID = 0;
+    private static final int COL_NOMBRE = 1;
+    private static final int COL_CURSO = 2;
+    private static final int COL_TELEFONO = 3;
+    private static final int COL_DIRECCION = 4;
+
     private final DbHelper mHelper; // Ayudante para la creación y gestión de la BD.
     private final ContentResolver mContentResolver;
 
+    // Si es true la conexión se mantiene abierta durante toda la vida del
+    // proceso. Si es false se abre y se cierra en cada operación.
+    private boolean mConexionPersistente = true;
+    // Conexión actual y sentencias compiladas sobre ella.
+    private SQLiteDatabase mBd;
+    private SQLiteStatement mStmtInsert;
+    private SQLiteStatement mStmtUpdate;
+    private SQLiteStatement mStmtDelete;
+    // Veces que se ha abierto la conexión y que se han compilado sentencias,
+    // para comprobar que se reutilizan.
+    private int mAperturas;
+    private int mCompilaciones;
+
     // Constructor. Recibe el contexto.
     private Dao(Context contexto) {
         // Se obtiene el mHelper.
@@ -49,10 +96,113 @@ public class Dao {
     }
 
     // Cierra la base de datos.
-    public void closeDatabase() {
+    public synchronized void closeDatabase() {
+        cerrarSentencias();
+        mBd = null;
         mHelper.close();
     }
 
+    // Establece si la conexión debe mantenerse abierta entre operaciones
+    // (por defecto) o abrirse y cerrarse en cada una de ellas.
+    public synchronized void setConexionPersistente(boolean conexionPersistente) {
+        mConexionPersistente = conexionPersistente;
+        if (!conexionPersistente) {
+            closeDatabase();
+        }
+    }
+
+    public synchronized boolean isConexionPersistente() {
+        return mConexionPersistente;
+    }
+
+    synchronized int getAperturas() {
+        return mAperturas;
+    }
+
+    synchronized int getCompilaciones() {
+        return mCompilaciones;
+    }
+
+    // Retorna la conexión con la base de datos, abriéndola si es necesario. Al
+    // estar activado el WAL en el helper, el mismo objeto SQLiteDatabase
+    // reparte las lecturas concurrentes entre su pool de conexiones.
+    private synchronized SQLiteDatabase getDatabase() {
+        if (mBd == null || !mBd.isOpen()) {
+            // Las sentencias compiladas sobre una conexión anterior ya no son válidas.
+            cerrarSentencias();
+            mBd = mHelper.getWritableDatabase();
+            mAperturas++;
+        }
+        return mBd;
+    }
+
+    // Libera la conexión tras una operación, salvo que sea persistente.
+    private synchronized void liberarDatabase() {
+        if (!mConexionPersistente) {
+            closeDatabase();
+        }
+    }
+
+    private synchronized SQLiteStatement getStmtInsert() {
+        SQLiteDatabase bd = getDatabase();
+        if (mStmtInsert == null) {
+            mStmtInsert = bd.compileStatement(SQL_INSERT);
+            mCompilaciones++;
+        }
+        return mStmtInsert;
+    }
+
+    private synchronized SQLiteStatement getStmtUpdate() {
+        SQLiteDatabase bd = getDatabase();
+        if (mStmtUpdate == null) {
+            mStmtUpdate = bd.compileStatement(SQL_UPDATE);
+            mCompilaciones++;
+        }
+        return mStmtUpdate;
+    }
+
+    private synchronized SQLiteStatement getStmtDelete() {
+        SQLiteDatabase bd = getDatabase();
+        if (mStmtDelete == null) {
+            mStmtDelete = bd.compileStatement(SQL_DELETE);
+            mCompilaciones++;
+        }
+        return mStmtDelete;
+    }
+
+    // Cierra las sentencias compiladas.
+    private void cerrarSentencias() {
+        if (mStmtInsert != null) {
+            mStmtInsert.close();
+            mStmtInsert = null;
+        }
+        if (mStmtUpdate != null) {
+            mStmtUpdate.close();
+            mStmtUpdate = null;
+        }
+        if (mStmtDelete != null) {
+            mStmtDelete.close();
+            mStmtDelete = null;
+        }
+    }
+
+    // Establece los valores del alumno en los cuatro primeros parámetros de
+    // la sentencia, en el mismo orden que en SQL_INSERT y SQL_UPDATE.
+    private static void bindAlumno(SQLiteStatement stmt, Alumno alumno) {
+        bindStringOrNull(stmt, 1, alumno.getNombre());
+        bindStringOrNull(stmt, 2, alumno.getCurso());
+        bindStringOrNull(stmt, 3, alumno.getTelefono());
+        bindStringOrNull(stmt, 4, alumno.getDireccion());
+    }
+
+    private static void bindStringOrNull(SQLiteStatement stmt, int index, String valor) {
+        if (valor == null) {
+            stmt.bindNull(index);
+        } else {
+            stmt.bindString(index, valor);
+        }
+    }
+
     // CRUD (Create-Read-Update-Delete) de la tabla alumnos
 
     // Inserta un alumno en la tabla de alumnmos.
@@ -60,14 +210,19 @@ public class Dao {
     // Retorna el _id del alumna una vez insertado o -1 si se ha producido un
     // error.
     public long createAlumno(Alumno alumno) {
-        // Se abre la base de datos.
-        SQLiteDatabase bd = mHelper.getWritableDatabase();
-        // Se crea la lista de pares campo-valor para realizar la inserción.
-        ContentValues valores = alumno.toContentValues();
-        // Se realiza el insert
-        long resultado = bd.insert(DbContract.Alumno.TABLA, null, valores);
-        // Se cierra la base de datos.
-        mHelper.close();
+        long resultado;
+        // Se obtiene la sentencia precompilada (abriendo la BD si es necesario).
+        SQLiteStatement stmt = getStmtInsert();
+        // La sentencia guarda los parámetros, así que no puede compartirse
+        // entre hilos a la vez.
+        synchronized (stmt) {
+            stmt.clearBindings();
+            bindAlumno(stmt, alumno);
+            // Se realiza el insert
+            resultado = stmt.executeInsert();
+        }
+        // Se libera la base de datos.
+        liberarDatabase();
         // Se notifica.
         mContentResolver.notifyChange(
                 Uri.parse(DbContract.Alumno.URI), null);
@@ -78,13 +233,17 @@ public class Dao {
     // Borra de la BD un alumno. Recibe el _id del alumno a borrar. Retorna true
     // si se ha realizado la eliminación con éxito.
     public boolean deleteAlumno(long id) {
-        // Se abre la base de datos.
-        SQLiteDatabase bd = mHelper.getWritableDatabase();
-        // Se realiza el delete.
-        long resultado = bd.delete(DbContract.Alumno.TABLA, DbContract.Alumno._ID + " = "
-                + id, null);
-        // Se cierra la base de datos.
-        mHelper.close();
+        long resultado;
+        // Se obtiene la sentencia precompilada (abriendo la BD si es necesario).
+        SQLiteStatement stmt = getStmtDelete();
+        synchronized (stmt) {
+            stmt.clearBindings();
+            stmt.bindLong(1, id);
+            // Se realiza el delete.
+            resultado = stmt.executeUpdateDelete();
+        }
+        // Se libera la base de datos.
+        liberarDatabase();
         // Se notifica.
         //mContentResolver.notifyChange(
         //        Uri.parse(Instituto.Alumno.URI), null);
@@ -96,15 +255,18 @@ public class Dao {
     // Actualiza en la BD los datos de un alumno. Recibe el alumno. Retorna true
     // si la actualización se ha realizado con éxito.
     public boolean updateAlumno(Alumno alumno) {
-        // Se abre la base de datos.
-        SQLiteDatabase bd = mHelper.getWritableDatabase();
-        // Se crea la lista de pares clave-valor con cada campo-valor.
-        ContentValues valores = alumno.toContentValues();
-        // Se realiza el update.
-        long resultado = bd.update(DbContract.Alumno.TABLA, valores, DbContract.Alumno._ID
-                + " = " + alumno.getId(), null);
-        // Se cierra la base de datos.
-        mHelper.close();
+        long resultado;
+        // Se obtiene la sentencia precompilada (abriendo la BD si es necesario).
+        SQLiteStatement stmt = getStmtUpdate();
+        synchronized (stmt) {
+            stmt.clearBindings();
+            bindAlumno(stmt, alumno);
+            stmt.bindLong(5, alumno.getId());
+            // Se realiza el update.
+            resultado = stmt.executeUpdateDelete();
+        }
+        // Se libera la base de datos.
+        liberarDatabase();
         // Se notifica.
         mContentResolver.notifyChange(
                 Uri.parse(DbContract.Alumno.URI), null);
@@ -113,24 +275,118 @@ public class Dao {
 
     }
 
+    // Operaciones masivas. Se realizan en una única transacción reutilizando
+    // la sentencia precompilada, y se notifica una sola vez al confirmarla.
+
+    // Inserta en la BD una colección de alumnos. Retorna el número de alumnos
+    // insertados. Si alguna inserción falla se deshace toda la operación.
+    public int createAlumnos(Collection<Alumno> alumnos) {
+        int insertados = 0;
+        SQLiteDatabase bd = getDatabase();
+        SQLiteStatement stmt = getStmtInsert();
+        synchronized (stmt) {
+            bd.beginTransaction();
+            try {
+                for (Alumno alumno : alumnos) {
+                    stmt.clearBindings();
+                    bindAlumno(stmt, alumno);
+                    long id = stmt.executeInsert();
+                    if (id == -1) {
+                        throw new SQLException("No se ha podido insertar el alumno "
+                                + alumno.getNombre());
+                    }
+                    alumno.setId(id);
+                    insertados++;
+                }
+                bd.setTransactionSuccessful();
+            } finally {
+                bd.endTransaction();
+            }
+        }
+        // Se libera la base de datos.
+        liberarDatabase();
+        // Se notifica una única vez.
+        if (insertados > 0) {
+            mContentResolver.notifyChange(Uri.parse(DbContract.Alumno.URI), null);
+        }
+        return insertados;
+    }
+
+    // Actualiza en la BD los datos de una colección de alumnos. Retorna el
+    // número de alumnos actualizados.
+    public int updateAlumnos(Collection<Alumno> alumnos) {
+        int actualizados = 0;
+        SQLiteDatabase bd = getDatabase();
+        SQLiteStatement stmt = getStmtUpdate();
+        synchronized (stmt) {
+            bd.beginTransaction();
+            try {
+                for (Alumno alumno : alumnos) {
+                    stmt.clearBindings();
+                    bindAlumno(stmt, alumno);
+                    stmt.bindLong(5, alumno.getId());
+                    actualizados += stmt.executeUpdateDelete();
+                }
+                bd.setTransactionSuccessful();
+            } finally {
+                bd.endTransaction();
+            }
+        }
+        // Se libera la base de datos.
+        liberarDatabase();
+        // Se notifica una única vez.
+        if (actualizados > 0) {
+            mContentResolver.notifyChange(Uri.parse(DbContract.Alumno.URI), null);
+        }
+        return actualizados;
+    }
+
+    // Borra de la BD los alumnos cuyos _id se reciben. Retorna el número de
+    // alumnos eliminados.
+    public int deleteAlumnos(long[] ids) {
+        int eliminados = 0;
+        SQLiteDatabase bd = getDatabase();
+        SQLiteStatement stmt = getStmtDelete();
+        synchronized (stmt) {
+            bd.beginTransaction();
+            try {
+                for (long id : ids) {
+                    stmt.clearBindings();
+                    stmt.bindLong(1, id);
+                    eliminados += stmt.executeUpdateDelete();
+                }
+                bd.setTransactionSuccessful();
+            } finally {
+                bd.endTransaction();
+            }
+        }
+        // Se libera la base de datos.
+        liberarDatabase();
+        // Se notifica una única vez.
+        if (eliminados > 0) {
+            mContentResolver.notifyChange(Uri.parse(DbContract.Alumno.URI), null);
+        }
+        return eliminados;
+    }
+
     // Consulta en la BD los datos de un alumno. Recibe el _id del alumno a
     // consultar. Retorna el objeto Alumno o null si no existe.
     public Alumno queryAlumno(long id) {
         // Se abre la base de datos.
-        SQLiteDatabase bd = mHelper.getWritableDatabase();
-        // Se realiza la query SQL sobre la BD.
-        Cursor cursor = bd.query(true, DbContract.Alumno.TABLA,
-                DbContract.Alumno.TODOS, DbContract.Alumno._ID + " = " + id,
-                null, null, null, null, null);
+        SQLiteDatabase bd = getDatabase();
+        // Se realiza la query SQL parametrizada sobre la BD.
+        Cursor cursor = bd.rawQuery(SQL_QUERY_BY_ID, new String[]{String.valueOf(id)});
         // Se mueve al primer registro del cursor.
         Alumno alumno = null;
         if (cursor != null) {
-            cursor.moveToFirst();
-            // Retorno el objeto Alumno correspondiente.
-            alumno = cursorToAlumno(cursor);
+            if (cursor.moveToFirst()) {
+                // Retorno el objeto Alumno correspondiente.
+                alumno = cursorToAlumno(cursor);
+            }
+            cursor.close();
         }
-        // Se cierra la base de datos.
-        mHelper.close();
+        // Se libera la base de datos.
+        liberarDatabase();
         // Se retorna el alumno o null.
         return alumno;
     }
@@ -140,7 +396,7 @@ public class Dao {
     // por nombre.
     public Cursor queryAllAlumnos() {
         // Se abre la base de datos.
-        SQLiteDatabase bd = mHelper.getWritableDatabase();
+        SQLiteDatabase bd = getDatabase();
         // Se realiza la consulta y se retorna el cursor.
         return  bd.query(DbContract.Alumno.TABLA, DbContract.Alumno.TODOS, null,
                 null, null, null, DbContract.Alumno.NOMBRE);
@@ -154,21 +410,24 @@ public class Dao {
         Cursor cursor = this.queryAllAlumnos();
         if (cursor != null) {
             lista = cursorToAlumnos(cursor);
+            // Se cierra el cursor (IMPORTANTE).
+            cursor.close();
         }
-        // Se cierra el cursor (IMPORTANTE).
-        cursor.close();
-        // Se cierra la base de datos.
-        mHelper.close();
+        // Se libera la base de datos.
+        liberarDatabase();
         // Se retorna la lista.
         return lista;
     }
 
     public static ArrayList<Alumno> cursorToAlumnos(Cursor cursor) {
-        ArrayList<Alumno> lista = new ArrayList<>();
+        ArrayList<Alumno> lista = new ArrayList<>(cursor.getCount());
+        // Los índices de las columnas se resuelven una sola vez para todo el
+        // cursor.
+        int[] indices = MapaColumnas.resolver(cursor, COLUMNAS_ALUMNO);
         // Se convierte cada registro del cursor en un elemento de la lista.
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
-            Alumno alumno = cursorToAlumno(cursor);
+            Alumno alumno = cursorToAlumno(cursor, indices);
             lista.add(alumno);
             cursor.moveToNext();
         }
@@ -180,19 +439,20 @@ public class Dao {
     // el cursor y retorna un nuevo objeto Alumno cargado con los datos del
     // registro actual del cursor.
     public static Alumno cursorToAlumno(Cursor cursorAlumno) {
+        return cursorToAlumno(cursorAlumno, MapaColumnas.resolver(cursorAlumno, COLUMNAS_ALUMNO));
+    }
+
+    // Igual que el anterior, pero recibe los índices de COLUMNAS_ALUMNO en el
+    // cursor ya resueltos.
+    private static Alumno cursorToAlumno(Cursor cursorAlumno, int[] indices) {
         // Crea un objeto Alumno y guarda los valores provenientes
         // del registro actual del cursor.
         Alumno alumno = new Alumno();
-        alumno.setId(cursorAlumno.getLong(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno._ID)));
-        alumno.setNombre(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.NOMBRE)));
-        alumno.setCurso(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.CURSO)));
-        alumno.setTelefono(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.TELEFONO)));
-        alumno.setDireccion(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.DIRECCION)));
+        alumno.setId(cursorAlumno.getLong(indices[COL_ID]));
+        alumno.setNombre(cursorAlumno.getString(indices[COL_NOMBRE]));
+        alumno.setCurso(cursorAlumno.getString(indices[COL_CURSO]));
+        alumno.setTelefono(cursorAlumno.getString(indices[COL_TELEFONO]));
+        alumno.setDireccion(cursorAlumno.getString(indices[COL_DIRECCION]));
         // Se retorna el objeto Alumno.
         return alumno;
     }
@@ -339,10 +339,4 @@ public class ListaAlumnosFragment extends Fragment implements AlumnosAdapter
         mAdaptador.swapData(null);
     }
 
-    @Override
-    public void onDestroyView() {
-        mDao.closeDatabase();
-        super.onDestroyView();
-    }
-
 }
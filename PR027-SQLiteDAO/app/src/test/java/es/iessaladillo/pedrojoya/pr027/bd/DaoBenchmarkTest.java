@@ -0,0 +1,112 @@
+package es.iessaladillo.pedrojoya.pr027.bd;
+
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import es.iessaladillo.pedrojoya.pr027.BuildConfig;
+import es.iessaladillo.pedrojoya.pr027.modelos.Alumno;
+
+import static org.junit.Assert.assertEquals;
+
+// Compara el Dao cuando abre y cierra la conexión en cada operación con
+// cuando la mantiene abierta con sentencias precompiladas. Se comprueban las
+// veces que se abre la conexión y se compilan las sentencias, que no
+// dependen de la máquina; las operaciones por segundo solo se registran.
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class DaoBenchmarkTest {
+
+    private static final String TAG = DaoBenchmarkTest.class.getSimpleName();
+    private static final int NUM_OPERACIONES = 10000;
+    private static final int NUM_CALENTAMIENTO = 500;
+
+    @Test
+    public void benchmarkCrudMixto() throws Exception {
+        Dao dao = Dao.getInstance(RuntimeEnvironment.application);
+        // Antes: se abre y se cierra la conexión en cada operación.
+        dao.setConexionPersistente(false);
+        ejecutarCrudMixto(dao, NUM_CALENTAMIENTO);
+        int aperturas = dao.getAperturas();
+        int compilaciones = dao.getCompilaciones();
+        int[] escrituras = new int[1];
+        double opsAntes = ejecutarCrudMixto(dao, NUM_OPERACIONES, escrituras);
+        int aperturasAntes = dao.getAperturas() - aperturas;
+        int compilacionesAntes = dao.getCompilaciones() - compilaciones;
+        // Después: conexión persistente y sentencias precompiladas.
+        dao.setConexionPersistente(true);
+        ejecutarCrudMixto(dao, NUM_CALENTAMIENTO);
+        aperturas = dao.getAperturas();
+        compilaciones = dao.getCompilaciones();
+        double opsDespues = ejecutarCrudMixto(dao, NUM_OPERACIONES);
+        int aperturasDespues = dao.getAperturas() - aperturas;
+        int compilacionesDespues = dao.getCompilaciones() - compilaciones;
+        dao.closeDatabase();
+        String medidas = String.format("CRUD mixto (%d ops): antes %.0f ops/s, %d aperturas "
+                        + "y %d compilaciones; después %.0f ops/s, %d aperturas y %d "
+                        + "compilaciones", NUM_OPERACIONES, opsAntes, aperturasAntes,
+                compilacionesAntes, opsDespues, aperturasDespues, compilacionesDespues);
+        Log.d(TAG, medidas);
+        // Antes cada operación abre la conexión y cada escritura compila su
+        // sentencia.
+        assertEquals(medidas, NUM_OPERACIONES, aperturasAntes);
+        assertEquals(medidas, escrituras[0], compilacionesAntes);
+        // Después se reutilizan la conexión y las sentencias del calentamiento.
+        assertEquals(medidas, 0, aperturasDespues);
+        assertEquals(medidas, 0, compilacionesDespues);
+    }
+
+    private double ejecutarCrudMixto(Dao dao, int numOperaciones) {
+        return ejecutarCrudMixto(dao, numOperaciones, new int[1]);
+    }
+
+    // Ejecuta una mezcla de inserciones, consultas, actualizaciones y borrados.
+    // Retorna las operaciones por segundo y deja en escrituras[0] el número
+    // de inserciones, actualizaciones y borrados.
+    private double ejecutarCrudMixto(Dao dao, int numOperaciones, int[] escrituras) {
+        Random random = new Random(42);
+        ArrayList<Long> ids = new ArrayList<>();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < numOperaciones; i++) {
+            int tipo = ids.isEmpty() ? 0 : random.nextInt(4);
+            if (tipo != 1) {
+                escrituras[0]++;
+            }
+            switch (tipo) {
+                case 0:
+                    ids.add(dao.createAlumno(nuevoAlumno(i)));
+                    break;
+                case 1:
+                    dao.queryAlumno(ids.get(random.nextInt(ids.size())));
+                    break;
+                case 2:
+                    Alumno alumno = nuevoAlumno(i);
+                    alumno.setId(ids.get(random.nextInt(ids.size())));
+                    dao.updateAlumno(alumno);
+                    break;
+                default:
+                    dao.deleteAlumno(ids.remove(random.nextInt(ids.size())));
+                    break;
+            }
+        }
+        long duracion = System.nanoTime() - inicio;
+        return numOperaciones / (duracion / 1e9);
+    }
+
+    private Alumno nuevoAlumno(int i) {
+        Alumno alumno = new Alumno();
+        alumno.setNombre("Alumno " + i);
+        alumno.setCurso("2º CFGS DAM");
+        alumno.setTelefono("666 " + i);
+        alumno.setDireccion("Calle " + i);
+        return alumno;
+    }
+
+}
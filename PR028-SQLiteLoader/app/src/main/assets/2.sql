@@ -0,0 +1,10 @@
+create table alumnos (
+    _id integer primary key autoincrement, 
+    avatar text,
+    nombre text not null,
+    curso text not null,
+    telefono text not null,
+    direccion text
+);
+-- Índice para la paginación por clave (nombre, _id).
+create index idx_alumnos_nombre_id on alumnos (nombre, _id);
@@ -6,7 +6,7 @@ public class DbContract {
 
     // Constantes generales de la BD.
     public static final String BD_NOMBRE = "instituto";
-    public static final int BD_VERSION = 1;
+    public static final int BD_VERSION = 2;
 
     // Tabla Alumno.
     public abstract static class Alumno implements BaseColumns {
@@ -7,7 +7,6 @@ import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.LoaderManager;
 import android.support.v4.app.LoaderManager.LoaderCallbacks;
-import android.support.v4.content.CursorLoader;
 import android.support.v4.content.Loader;
 import android.util.SparseBooleanArray;
 import android.view.ActionMode;
@@ -17,6 +16,7 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.AbsListView.MultiChoiceModeListener;
 import android.widget.AdapterView;
 import android.widget.AdapterView.OnItemClickListener;
@@ -28,6 +28,7 @@ import es.iessaladillo.pedrojoya.pr028.R;
 import es.iessaladillo.pedrojoya.pr028.adaptadores.AlumnosAdapter;
 import es.iessaladillo.pedrojoya.pr028.bd.DbContract;
 import es.iessaladillo.pedrojoya.pr028.modelos.Alumno;
+import es.iessaladillo.pedrojoya.pr028.proveedores.AlumnosPaginadosLoader;
 import es.iessaladillo.pedrojoya.pr028.proveedores.DbAsyncQueryHandler;
 import es.iessaladillo.pedrojoya.pr028.proveedores.DbContentProvider;
 
@@ -35,6 +36,11 @@ public class ListaAlumnosFragment extends Fragment implements
         LoaderCallbacks<Cursor>, DbAsyncQueryHandler.Callbacks {
 
     private static final int TOKEN_DELETE = 0;
+    private static final int LOADER_ALUMNOS = 0;
+    private static final int TAMANO_PAGINA = 50;
+    // Elementos restantes por mostrar a partir de los cuales se carga la
+    // siguiente página.
+    private static final int UMBRAL_CARGA = 10;
     private DbAsyncQueryHandler mAlumnoAsyncQueryHandler;
 
     // Interfaz de comunicación con la actividad.
@@ -82,6 +88,24 @@ public class ListaAlumnosFragment extends Fragment implements
             }
         });
         lstAlumnos.setEmptyView(rlListaVacia);
+        // Al acercarse al final de la lista se carga la siguiente página.
+        lstAlumnos.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem,
+                                 int visibleItemCount, int totalItemCount) {
+                if (totalItemCount > 0
+                        && firstVisibleItem + visibleItemCount >= totalItemCount - UMBRAL_CARGA) {
+                    Loader<Cursor> loader = gestor.getLoader(LOADER_ALUMNOS);
+                    if (loader != null) {
+                        ((AlumnosPaginadosLoader) loader).cargarMas();
+                    }
+                }
+            }
+        });
         // Al hacer click sobre un elemento de la lista.
         lstAlumnos.setOnItemClickListener(new OnItemClickListener() {
 
@@ -169,7 +193,7 @@ public class ListaAlumnosFragment extends Fragment implements
 
     private void cargarAlumnos() {
         // Se inicializa el cargador.
-        gestor.initLoader(0, null, this);
+        gestor.initLoader(LOADER_ALUMNOS, null, this);
         // Se establece el adaptador para la lista, que inicialmente manejará un cursor nulo.
         String[] from = {DbContract.Alumno.NOMBRE, DbContract.Alumno.CURSO,
                          DbContract.Alumno.TELEFONO, DbContract.Alumno.DIRECCION};
@@ -222,25 +246,24 @@ public class ListaAlumnosFragment extends Fragment implements
     // Cuando se crea el cargador. Retorna el cargador del cursor.
     @Override
     public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        // Se retorna el cargador del cursor. Se le pasa el contexto, la uri en
-        // la que consultar los datos y las columnas a obtener.
-        return new CursorLoader(getActivity(),
-                DbContentProvider.CONTENT_URI_ALUMNOS, DbContract.Alumno.TODOS,
-                null, null, null);
+        // Se retorna el cargador del cursor, que obtiene los alumnos por
+        // páginas según se vaya desplazando la lista.
+        return new AlumnosPaginadosLoader(getActivity(), TAMANO_PAGINA);
     }
 
     // Cuando terminan de cargarse los datos en el cargador.
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
-        // Se cambia el cursor del adaptador por el que tiene datos.
-        adaptador.changeCursor(data);
+        // Se cambia el cursor del adaptador por el que tiene datos. No se
+        // cierra el anterior, ya que el cargador reutiliza sus páginas.
+        adaptador.swapCursor(data);
     }
 
     // Cuando se resetea el cargador.
     @Override
     public void onLoaderReset(Loader<Cursor> loader) {
         // Se vacía de datos el adaptador.
-        adaptador.changeCursor(null);
+        adaptador.swapCursor(null);
     }
 
     @Override
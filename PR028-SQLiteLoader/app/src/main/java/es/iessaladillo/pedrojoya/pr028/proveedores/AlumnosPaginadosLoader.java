@@ -0,0 +1,286 @@
+package es.iessaladillo.pedrojoya.pr028.proveedores;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.DataSetObserver;
+import android.database.MergeCursor;
+import android.support.v4.content.AsyncTaskLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import es.iessaladillo.pedrojoya.pr028.bd.DbContract;
+
+// Cargador que obtiene los alumnos del content provider por páginas
+// (paginación por clave). Cada vez que se llama a cargarMas() se consulta solo
+// la página siguiente, y se entrega un cursor que une todas las páginas
+// cargadas hasta el momento, sin volver a consultar las anteriores. Si cambian
+// los datos se vuelven a consultar, página a página, las que ya se habían
+// cargado.
+// El receptor debe usar swapCursor() (y no changeCursor()) en el adaptador,
+// ya que las páginas del cursor anterior se reutilizan en el nuevo (el propio
+// Loader cierra el cursor anterior y las páginas que ya no se usan).
+public class AlumnosPaginadosLoader extends AsyncTaskLoader<Cursor> {
+
+    private final int mTamanoPagina;
+    // Observador de los cambios en los alumnos, registrado una sola vez en el
+    // ContentResolver (y no en cada página).
+    private final ForceLoadContentObserver mObserver;
+    private boolean mObservando;
+    // Cursor entregado actualmente.
+    private volatile PaginasCursor mCursor;
+    // Si se deben volver a consultar las páginas ya cargadas.
+    private volatile boolean mRecargar;
+    // Si hay una carga de la página siguiente en curso.
+    private boolean mCargandoMas;
+
+    // Constructor. Recibe el contexto y el número de alumnos por página.
+    public AlumnosPaginadosLoader(Context context, int tamanoPagina) {
+        super(context);
+        mTamanoPagina = tamanoPagina;
+        mObserver = new ForceLoadContentObserver();
+    }
+
+    // Solicita la carga de la siguiente página, si la hay.
+    public void cargarMas() {
+        if (!mCargandoMas && mCursor != null && mCursor.hayMas()) {
+            mCargandoMas = true;
+            forceLoad();
+        }
+    }
+
+    // Retorna si quedan páginas por cargar.
+    public boolean hayMas() {
+        return mCursor == null || mCursor.hayMas();
+    }
+
+    // Se ejecuta en un hilo secundario. Retorna el cursor a entregar.
+    @Override
+    public Cursor loadInBackground() {
+        PaginasCursor anterior = mCursor;
+        ArrayList<Pagina> paginas = new ArrayList<>();
+        if (anterior == null || mRecargar) {
+            // Se consultan de nuevo tantas páginas como hubiera cargadas.
+            mRecargar = false;
+            int numPaginas = anterior == null ? 1 : anterior.getPaginas().size();
+            Pagina pagina = null;
+            for (int i = 0; i < numPaginas && (pagina == null || pagina.completa); i++) {
+                pagina = consultarPagina(pagina);
+                paginas.add(pagina);
+            }
+        } else {
+            // Se reutilizan las páginas ya cargadas y se consulta la siguiente.
+            paginas.addAll(anterior.getPaginas());
+            paginas.add(consultarPagina(paginas.get(paginas.size() - 1)));
+        }
+        return new PaginasCursor(paginas);
+    }
+
+    // Consulta la página situada tras la recibida (o la primera si es null).
+    private Pagina consultarPagina(Pagina anterior) {
+        Cursor cursor = getContext().getContentResolver().query(
+                DbContentProvider.getUriPaginaAlumnos(mTamanoPagina,
+                        anterior == null ? null : anterior.ultimoNombre,
+                        anterior == null ? 0 : anterior.ultimoId),
+                DbContract.Alumno.TODOS, null, null, null);
+        if (cursor == null) {
+            throw new IllegalStateException("No se ha podido consultar la página de alumnos");
+        }
+        // Se llena la ventana del cursor, que solo contiene la página.
+        int count = cursor.getCount();
+        // Se guarda la clave del último alumno para consultar la siguiente.
+        String ultimoNombre = null;
+        long ultimoId = 0;
+        if (cursor.moveToLast()) {
+            ultimoNombre = cursor.getString(
+                    cursor.getColumnIndexOrThrow(DbContract.Alumno.NOMBRE));
+            ultimoId = cursor.getLong(cursor.getColumnIndexOrThrow(DbContract.Alumno._ID));
+        }
+        cursor.moveToPosition(-1);
+        return new Pagina(cursor, count == mTamanoPagina, ultimoNombre, ultimoId);
+    }
+
+    // Entrega el cursor en el hilo de la UI.
+    @Override
+    public void deliverResult(Cursor cursor) {
+        PaginasCursor nuevo = (PaginasCursor) cursor;
+        // Si han llegado los datos cuando ya se había parado el Loader,
+        // se cierra el cursor y no se entrega nada.
+        if (isReset()) {
+            cerrarPaginasNoUsadas(nuevo, mCursor);
+            nuevo.close();
+            return;
+        }
+        PaginasCursor anterior = mCursor;
+        mCursor = nuevo;
+        mCargandoMas = false;
+        if (isStarted()) {
+            super.deliverResult(nuevo);
+        }
+        // Se cierra el cursor anterior y las páginas suyas que ya no se usan.
+        if (anterior != null && anterior != nuevo) {
+            cerrarPaginasNoUsadas(anterior, nuevo);
+            anterior.close();
+        }
+    }
+
+    // Cuando se solicitan los datos.
+    @Override
+    protected void onStartLoading() {
+        if (!mObservando) {
+            getContext().getContentResolver().registerContentObserver(
+                    DbContentProvider.CONTENT_URI_ALUMNOS, true, mObserver);
+            mObservando = true;
+        }
+        if (mCursor != null) {
+            deliverResult(mCursor);
+        }
+        if (takeContentChanged() || mCursor == null) {
+            forceLoad();
+        }
+    }
+
+    // Cuando cambian los datos de alguna página.
+    @Override
+    public void onContentChanged() {
+        mRecargar = true;
+        super.onContentChanged();
+    }
+
+    // Cuando se para el Loader.
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    // Cuando se cancela la carga.
+    @Override
+    public void onCanceled(Cursor cursor) {
+        if (cursor != null) {
+            cerrarPaginasNoUsadas((PaginasCursor) cursor, mCursor);
+            cursor.close();
+        }
+    }
+
+    // Cuando se resetea el Loader.
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        if (mObservando) {
+            getContext().getContentResolver().unregisterContentObserver(mObserver);
+            mObservando = false;
+        }
+        if (mCursor != null) {
+            cerrarPaginasNoUsadas(mCursor, null);
+            mCursor.close();
+        }
+        mCursor = null;
+        mCargandoMas = false;
+    }
+
+    // Cierra las páginas de origen que no estén en destino (que puede ser null).
+    private static void cerrarPaginasNoUsadas(PaginasCursor origen, PaginasCursor destino) {
+        for (Pagina pagina : origen.getPaginas()) {
+            if ((destino == null || !destino.getPaginas().contains(pagina))
+                    && !pagina.cursor.isClosed()) {
+                pagina.cursor.close();
+            }
+        }
+    }
+
+    // Página de alumnos consultada.
+    private static class Pagina {
+
+        final Cursor cursor;
+        // Si la página está completa (puede haber más a continuación).
+        final boolean completa;
+        final String ultimoNombre;
+        final long ultimoId;
+
+        Pagina(Cursor cursor, boolean completa, String ultimoNombre, long ultimoId) {
+            this.cursor = cursor;
+            this.completa = completa;
+            this.ultimoNombre = ultimoNombre;
+            this.ultimoId = ultimoId;
+        }
+
+    }
+
+    // Cursor que une las páginas cargadas. Cerrarlo no cierra las páginas, que
+    // pueden seguir en uso en el cursor siguiente, sino que solo las desliga
+    // de él; las páginas se cierran con cerrarPaginasNoUsadas().
+    private static class PaginasCursor extends MergeCursor {
+
+        private final List<Pagina> mPaginas;
+
+        PaginasCursor(List<Pagina> paginas) {
+            super(toCursores(paginas));
+            mPaginas = paginas;
+        }
+
+        List<Pagina> getPaginas() {
+            return mPaginas;
+        }
+
+        boolean hayMas() {
+            return !mPaginas.isEmpty() && mPaginas.get(mPaginas.size() - 1).completa;
+        }
+
+        private static Cursor[] toCursores(List<Pagina> paginas) {
+            Cursor[] cursores = new Cursor[paginas.size()];
+            for (int i = 0; i < cursores.length; i++) {
+                cursores[i] = new VistaPagina(paginas.get(i).cursor);
+            }
+            return cursores;
+        }
+
+    }
+
+    // Envoltorio de una página dentro de un PaginasCursor. Al cerrarlo se
+    // quitan de la página los observadores que registró el MergeCursor a
+    // través de él, pero la página queda abierta.
+    private static class VistaPagina extends CursorWrapper {
+
+        private final ArrayList<DataSetObserver> mObservadores = new ArrayList<>();
+        private boolean mCerrada;
+
+        VistaPagina(Cursor pagina) {
+            super(pagina);
+        }
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+            mObservadores.add(observer);
+            super.registerDataSetObserver(observer);
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            mObservadores.remove(observer);
+            super.unregisterDataSetObserver(observer);
+        }
+
+        @Override
+        public void deactivate() {
+            // La página la desactiva o cierra el Loader, no el MergeCursor.
+        }
+
+        @Override
+        public void close() {
+            for (DataSetObserver observador : mObservadores) {
+                super.unregisterDataSetObserver(observador);
+            }
+            mObservadores.clear();
+            mCerrada = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return mCerrada || super.isClosed();
+        }
+
+    }
+
+}
@@ -1,9 +1,12 @@
 package es.iessaladillo.pedrojoya.pr028.proveedores;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
@@ -12,8 +15,10 @@ import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Set;
 
 import es.iessaladillo.pedrojoya.pr028.BuildConfig;
 import es.iessaladillo.pedrojoya.pr028.bd.DbContract;
@@ -43,6 +48,16 @@ public class DbContentProvider extends ContentProvider {
             ContentResolver.CURSOR_ITEM_BASE_TYPE,
             AUTHORITY,
             BASE_PATH_ALUMNOS); // Tipo MIME alumno.
+    // Parámetros de consulta para obtener los alumnos por páginas. Las páginas
+    // se ordenan por (nombre, _id) y cada una empieza tras la clave del último
+    // alumno de la anterior, de manera que su coste no depende de su posición.
+    public static final String PARAM_LIMITE = "limite";
+    public static final String PARAM_DESPUES_NOMBRE = "despues_nombre";
+    public static final String PARAM_DESPUES_ID = "despues_id";
+    private static final String ORDEN_PAGINAS = DbContract.Alumno.NOMBRE + ", "
+            + DbContract.Alumno._ID;
+    private static final String WHERE_DESPUES_DE = "(" + DbContract.Alumno.NOMBRE + " > ? OR ("
+            + DbContract.Alumno.NOMBRE + " = ? AND " + DbContract.Alumno._ID + " > ?))";
     // Constantes para tipos de Uris (deben tener todos un valor diferente).
     private static final int URI_TYPE_ALUMNOS_LIST = 10; // Tipo para alumnos.
     private static final int URI_TYPE_ALUMNOS_ID = 20; // Tipo para alumno.
@@ -59,6 +74,19 @@ public class DbContentProvider extends ContentProvider {
                 URI_TYPE_ALUMNOS_ID);
     }
 
+    // Retorna la uri para consultar una página de como máximo limite alumnos
+    // situados tras el alumno con dicho nombre e _id. Si despuesNombre es null
+    // se obtiene la primera página.
+    public static Uri getUriPaginaAlumnos(int limite, String despuesNombre, long despuesId) {
+        Uri.Builder builder = CONTENT_URI_ALUMNOS.buildUpon()
+                .appendQueryParameter(PARAM_LIMITE, String.valueOf(limite));
+        if (despuesNombre != null) {
+            builder.appendQueryParameter(PARAM_DESPUES_NOMBRE, despuesNombre)
+                    .appendQueryParameter(PARAM_DESPUES_ID, String.valueOf(despuesId));
+        }
+        return builder.build();
+    }
+
     // Retorna el tipo de uri recibida.
     @Override
     public String getType(@NonNull Uri uri) {
@@ -75,6 +103,9 @@ public class DbContentProvider extends ContentProvider {
     }
 
     private DbHelper mHelper;
+    // Uris pendientes de notificar mientras el hilo actual está aplicando un
+    // lote de operaciones (null si no hay lote en curso).
+    private final ThreadLocal<Set<Uri>> mUrisPendientes = new ThreadLocal<>();
 
     // Retorna si ha ido bien.
     @Override
@@ -93,6 +124,7 @@ public class DbContentProvider extends ContentProvider {
         SQLiteDatabase bd = mHelper.getReadableDatabase();
         // Se crea un constructor de consultas.
         SQLiteQueryBuilder builder = new SQLiteQueryBuilder();
+        String limite = null;
         // Dependiendo de la uri solicitada.
         int tipoURI = validadorURIs.match(uri);
         switch (tipoURI) {
@@ -102,6 +134,22 @@ public class DbContentProvider extends ContentProvider {
                 checkColumns(DbContract.Alumno.TODOS, projection);
                 // Se establece la tabla para la consulta.
                 builder.setTables(DbContract.Alumno.TABLA);
+                // Si se solicita una página, se limita y se ordena por la
+                // clave (nombre, _id), que está indexada.
+                limite = uri.getQueryParameter(PARAM_LIMITE);
+                if (limite != null) {
+                    checkLimite(limite);
+                    sortOrder = ORDEN_PAGINAS;
+                    String despuesNombre = uri.getQueryParameter(PARAM_DESPUES_NOMBRE);
+                    String despuesId = uri.getQueryParameter(PARAM_DESPUES_ID);
+                    if (despuesNombre != null && despuesId != null) {
+                        selection = TextUtils.isEmpty(selection) ? WHERE_DESPUES_DE
+                                : WHERE_DESPUES_DE + " AND (" + selection + ")";
+                        selectionArgs = concatArgs(
+                                new String[]{despuesNombre, despuesNombre, despuesId},
+                                selectionArgs);
+                    }
+                }
                 break;
             case URI_TYPE_ALUMNOS_ID:
                 // Se compueba si el llamador ha solicitado una columna que no
@@ -118,9 +166,11 @@ public class DbContentProvider extends ContentProvider {
         }
         // Se realiza la consulta.
         Cursor cursor = builder.query(bd, projection, selection, selectionArgs,
-                null, null, sortOrder);
-        // Se notifica a los escuchadores del content provider.
-        cursor.setNotificationUri(getContext().getContentResolver(), uri);
+                null, null, sortOrder, limite);
+        // Se notifica a los escuchadores del content provider (las páginas se
+        // notifican a través de la uri sin parámetros).
+        cursor.setNotificationUri(getContext().getContentResolver(),
+                uri.buildUpon().clearQuery().build());
         return cursor;
     }
 
@@ -152,7 +202,7 @@ public class DbContentProvider extends ContentProvider {
         }
         // Se notifica de los cambios a todos los listener.
         if (filasBorradas > 0) {
-            getContext().getContentResolver().notifyChange(uri, null);
+            notificarCambio(uri);
         }
         return filasBorradas;
     }
@@ -174,7 +224,7 @@ public class DbContentProvider extends ContentProvider {
                 throw new IllegalArgumentException("URI desconocida: " + uri);
         }
         // Se notifica a los escuchadores del content provider.
-        getContext().getContentResolver().notifyChange(uri, null);
+        notificarCambio(uri);
         // Se retorna la URI del registro insertado.
         return ContentUris.withAppendedId(uri, id);
     }
@@ -208,12 +258,134 @@ public class DbContentProvider extends ContentProvider {
         }
         // Se notifica a los listeners.
         if (filasActualizadas > 0) {
-            getContext().getContentResolver().notifyChange(uri, null);
+            notificarCambio(uri);
         }
         // Se retorna el número de registros actualizados.
         return filasActualizadas;
     }
 
+    // Inserta todos los registros en una transacción, cediendo el paso a otros
+    // hilos que esperen la base de datos entre inserción e inserción. Retorna
+    // el número de registros insertados. Se notifica una sola vez.
+    // La operación NO es atómica: cada vez que se cede el paso se confirma lo
+    // insertado hasta ese momento, por lo que si falla una inserción sólo se
+    // deshacen las realizadas desde la última cesión. Si se necesita
+    // atomicidad debe usarse applyBatch() sin withYieldAllowed().
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+        int insertados = 0;
+        // Se obtiene la base de datos.
+        SQLiteDatabase bd = mHelper.getWritableDatabase();
+        boolean loteExterno = mUrisPendientes.get() != null;
+        Set<Uri> pendientes = iniciarLote();
+        bd.beginTransaction();
+        try {
+            for (ContentValues valores : values) {
+                if (ContentUris.parseId(insert(uri, valores)) != -1) {
+                    insertados++;
+                }
+                bd.yieldIfContendedSafely();
+            }
+            bd.setTransactionSuccessful();
+        } finally {
+            bd.endTransaction();
+            // Se notifica aunque falle, ya que al ceder el paso se confirma lo
+            // insertado hasta ese momento.
+            if (!loteExterno) {
+                mUrisPendientes.remove();
+                notificarPendientes(pendientes);
+            }
+        }
+        return insertados;
+    }
+
+    // Aplica todas las operaciones (inserción, actualización o borrado sobre
+    // cualquier uri) en una transacción, cediendo el paso antes de las que lo
+    // permitan (withYieldAllowed). Se notifica una sola vez por cada uri
+    // distinta. Al ceder el paso se confirman las operaciones anteriores, que
+    // no se deshacen si falla una posterior; sin puntos de cesión el lote es
+    // atómico.
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(
+            @NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        // Se obtiene la base de datos.
+        SQLiteDatabase bd = mHelper.getWritableDatabase();
+        boolean loteExterno = mUrisPendientes.get() != null;
+        Set<Uri> pendientes = iniciarLote();
+        bd.beginTransaction();
+        try {
+            int numOperaciones = operations.size();
+            ContentProviderResult[] resultados = new ContentProviderResult[numOperaciones];
+            for (int i = 0; i < numOperaciones; i++) {
+                ContentProviderOperation operacion = operations.get(i);
+                if (i > 0 && operacion.isYieldAllowed()) {
+                    bd.yieldIfContendedSafely();
+                }
+                resultados[i] = operacion.apply(this, resultados, i);
+            }
+            bd.setTransactionSuccessful();
+            return resultados;
+        } finally {
+            bd.endTransaction();
+            if (!loteExterno) {
+                mUrisPendientes.remove();
+                notificarPendientes(pendientes);
+            }
+        }
+    }
+
+    // Comienza un lote en el hilo actual. Retorna el conjunto en el que se
+    // acumularán las uris a notificar.
+    private Set<Uri> iniciarLote() {
+        Set<Uri> pendientes = mUrisPendientes.get();
+        if (pendientes == null) {
+            pendientes = new HashSet<>();
+            mUrisPendientes.set(pendientes);
+        }
+        return pendientes;
+    }
+
+    // Notifica el cambio en la uri, o lo deja pendiente si hay un lote en curso.
+    private void notificarCambio(Uri uri) {
+        Set<Uri> pendientes = mUrisPendientes.get();
+        if (pendientes != null) {
+            pendientes.add(uri);
+        } else {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+    }
+
+    private void notificarPendientes(Set<Uri> pendientes) {
+        for (Uri uri : pendientes) {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+    }
+
+    // Comprueba que el límite de la página es un entero positivo.
+    private void checkLimite(String limite) {
+        try {
+            if (Integer.parseInt(limite) <= 0) {
+                throw new IllegalArgumentException("Límite no válido: " + limite);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Límite no válido: " + limite, e);
+        }
+    }
+
+    // Retorna un array con los argumentos de ambos arrays (el segundo puede ser
+    // null).
+    private String[] concatArgs(String[] primeros, String[] segundos) {
+        if (segundos == null || segundos.length == 0) {
+            return primeros;
+        }
+        String[] args = new String[primeros.length + segundos.length];
+        System.arraycopy(primeros, 0, args, 0, primeros.length);
+        System.arraycopy(segundos, 0, args, primeros.length, segundos.length);
+        return args;
+    }
+
     // Comprueba si todas las columnas están entre las disponibles.
     @SuppressWarnings("SameParameterValue")
     private void checkColumns(String[] disponibles, String[] columnas) {
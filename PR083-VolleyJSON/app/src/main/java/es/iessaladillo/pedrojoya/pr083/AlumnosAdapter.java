@@ -12,6 +12,7 @@ import android.widget.TextView;
 import com.squareup.picasso.Picasso;
 
 import java.util.ArrayList;
+import java.util.List;
 
 @SuppressWarnings("unused")
 public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHolder> {
@@ -134,6 +135,13 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
         notifyItemInserted(position);
     }
 
+    // Añade al final de la lista los elementos recibidos.
+    public void addItems(List<Alumno> alumnos) {
+        int posicion = mDatos.size();
+        mDatos.addAll(alumnos);
+        notifyItemRangeInserted(posicion, alumnos.size());
+    }
+
     // Retorna si la lista está vacía.
     public boolean isEmpty() {
         return mDatos == null || mDatos.size() <= 0;
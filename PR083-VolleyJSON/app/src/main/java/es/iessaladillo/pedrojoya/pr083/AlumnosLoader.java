@@ -8,7 +8,6 @@ import com.android.volley.RequestQueue;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonArrayRequest;
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import org.json.JSONArray;
@@ -27,9 +26,24 @@ class AlumnosLoader extends
 
     private static final String URL_DATOS =
             "https://dl.dropboxusercontent.com/u/67422/Android/json/datos.json";
+    // Número de alumnos tras el que se entrega un resultado parcial.
+    private static final int TAMANO_PARCIAL = 100;
+    private static final Type TIPO_LISTA_ALUMNOS = new TypeToken<List<Alumno>>() {
+    }.getType();
     private final RequestQueue mColaPeticiones;
 
     private ArrayList<Alumno> mDatos;
+    private OnParcialListener mOnParcialListener;
+    // Número de alumnos entregados como resultado parcial en la carga actual.
+    private int mProcesados;
+
+    // Interfaz que debe implementar quien quiera recibir los resultados
+    // parciales. Recibe los nuevos alumnos y la posición que ocupa el primero
+    // de ellos en la lista completa. Los resultados parciales no se cachean
+    // ni sustituyen al resultado final, que se entrega con deliverResult().
+    public interface OnParcialListener {
+        void onAlumnosParciales(ArrayList<Alumno> nuevos, int posicion);
+    }
 
     public AlumnosLoader(Context context) {
         super(context);
@@ -52,6 +66,7 @@ class AlumnosLoader extends
 
     @Override
     protected void onForceLoad() {
+        mProcesados = 0;
         // realizarPeticionJSON();
         realizarPeticionGson();
     }
@@ -65,6 +80,11 @@ class AlumnosLoader extends
         super.deliverResult(datos);
     }
 
+    // Establece el listener de resultados parciales (null para quitarlo).
+    public void setOnParcialListener(OnParcialListener listener) {
+        mOnParcialListener = listener;
+    }
+
     // Añade a la cola de peticiones una petición JSON.
     private void realizarPeticionJSON() {
         // Se crea el listener para la respuesta.
@@ -119,13 +139,27 @@ class AlumnosLoader extends
             }
 
         };
-        // Se crea la petición.
-        Gson gson = new Gson();
-        Type tipo = new TypeToken<List<Alumno>>() {
-        }.getType();
-        GsonArrayRequest<ArrayList<Alumno>> peticion = new GsonArrayRequest<>(
-                Request.Method.GET, URL_DATOS, tipo, listener, errorListener,
-                gson);
+        // Se crea el listener de resultados parciales, que no pasan por
+        // deliverResult() para no confundirlos con el resultado final.
+        GsonArrayRequest.ParcialListener<Alumno> parcialListener =
+                new GsonArrayRequest.ParcialListener<Alumno>() {
+
+            @Override
+            public void onParcial(ArrayList<Alumno> nuevos) {
+                int posicion = mProcesados;
+                mProcesados += nuevos.size();
+                // Solo se entregan si el cargador está iniciado.
+                if (isStarted() && mOnParcialListener != null) {
+                    mOnParcialListener.onAlumnosParciales(nuevos, posicion);
+                }
+            }
+
+        };
+        // Se crea la petición, que procesa los alumnos según se leen y entrega
+        // resultados parciales para mostrar antes los primeros.
+        GsonArrayRequest<Alumno> peticion = new GsonArrayRequest<>(
+                Request.Method.GET, URL_DATOS, Alumno.class, listener, errorListener);
+        peticion.setParcialListener(TAMANO_PARCIAL, parcialListener);
         // Se añade la petición a la cola de Volley.
         mColaPeticiones.add(peticion);
     }
@@ -162,12 +196,8 @@ class AlumnosLoader extends
 
     // Procesa la cadena JSON y retorna el ArrayList de alumnos.
     private ArrayList<Alumno> procesarGSON(String result) {
-        // Se crea el objeto Gson.
-        Gson gson = new Gson();
-        Type tipoListaAlumnos = new TypeToken<List<Alumno>>() {
-        }.getType();
-        // Se procesa la cadena JSON y se retorna.
-        return gson.fromJson(result, tipoListaAlumnos);
+        // Se procesa la cadena JSON con el objeto Gson compartido y se retorna.
+        return GsonStreamRequest.getGson().fromJson(result, TIPO_LISTA_ALUMNOS);
     }
 
 }
\ No newline at end of file
@@ -1,53 +1,116 @@
 package es.iessaladillo.pedrojoya.pr083;
 
-import com.android.volley.NetworkResponse;
-import com.android.volley.ParseError;
-import com.android.volley.Request;
-import com.android.volley.Response;
+import android.os.Handler;
+import android.os.Looper;
+
 import com.android.volley.Response.ErrorListener;
 import com.android.volley.Response.Listener;
-import com.android.volley.toolbox.HttpHeaderParser;
+import com.android.volley.VolleyError;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+
+// Petición de un array JSON cuyos elementos se procesan uno a uno con GSON.
+// Recibe el tipo de los elementos (no el de la lista). Opcionalmente puede
+// entregar resultados parciales mientras se procesa la respuesta.
+class GsonArrayRequest<E> extends GsonStreamRequest<ArrayList<E>> {
+
+    // Interfaz que debe implementar el listener de resultados parciales.
+    // Recibe en el hilo principal únicamente los elementos procesados desde
+    // la entrega parcial anterior.
+    public interface ParcialListener<E> {
+        void onParcial(ArrayList<E> nuevos);
+    }
 
-class GsonArrayRequest<T> extends Request<T> {
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
 
-    private final Listener<T> listener;
-    private final Gson gson;
-    private final Type type;
+    private final TypeAdapter<E> adapter;
+    private ParcialListener<E> parcialListener;
+    private int tamanoParcial;
+    // Se activa al entregar la respuesta final o el error, tras lo que se
+    // descartan las entregas parciales que aún estén pendientes.
+    private volatile boolean finalizada;
+
+    @SuppressWarnings("unchecked")
+    public GsonArrayRequest(int method, String url, Type elementType,
+                            Listener<ArrayList<E>> listener, ErrorListener errorListener,
+                            Gson gson) {
+        super(method, url, listener, errorListener);
+        this.adapter = (TypeAdapter<E>) gson.getAdapter(TypeToken.get(elementType));
+    }
 
     @SuppressWarnings("SameParameterValue")
-    public GsonArrayRequest(int method, String url, Type type,
-                            Listener<T> listener, ErrorListener errorListener, Gson gson) {
-        super(method, url, errorListener);
-        this.type = type;
-        this.listener = listener;
-        this.gson = gson;
+    public GsonArrayRequest(int method, String url, Type elementType,
+                            Listener<ArrayList<E>> listener, ErrorListener errorListener) {
+        this(method, url, elementType, listener, errorListener, getGson());
+    }
+
+    // Establece el listener que recibirá en el hilo principal, cada vez que se
+    // procesen tamano elementos más, esos nuevos elementos.
+    public void setParcialListener(int tamano, ParcialListener<E> listener) {
+        this.tamanoParcial = tamano;
+        this.parcialListener = listener;
     }
 
+    // Se ejecuta en el hilo de red de Volley.
     @Override
-    protected Response<T> parseNetworkResponse(NetworkResponse response) {
-        try {
-            // Se obtiene la cadena JSON a partir de la respuesta (con el
-            // charset adecuado).
-            String json = new String(response.data,
-                    HttpHeaderParser.parseCharset(response.headers));
-            // Se procesa la cadena JSON.
-            T datos = gson.fromJson(json, type);
-            // Se crea y retorna la respuesta.
-            return Response.success(datos,
-                    HttpHeaderParser.parseCacheHeaders(response));
-        } catch (Exception e) {
-            return Response.error(new ParseError(e));
+    protected ArrayList<E> parse(JsonReader reader) throws IOException {
+        ArrayList<E> datos = new ArrayList<>();
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return datos;
+        }
+        // Bloque de elementos aún no entregados como resultado parcial. Una
+        // vez entregado se crea uno nuevo, por lo que no hace falta copiarlo.
+        ArrayList<E> bloque = null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            E elemento = adapter.read(reader);
+            datos.add(elemento);
+            if (parcialListener != null) {
+                if (bloque == null) {
+                    bloque = new ArrayList<>(tamanoParcial);
+                }
+                bloque.add(elemento);
+                if (bloque.size() == tamanoParcial) {
+                    entregarParcial(bloque);
+                    bloque = null;
+                }
+            }
         }
+        reader.endArray();
+        return datos;
     }
 
-    // Envía la respuesta al listener
     @Override
-    protected void deliverResponse(T response) {
-        // Se llama al método onResponse del listener pasándole la respuesta.
-        listener.onResponse(response);
+    protected void deliverResponse(ArrayList<E> response) {
+        finalizada = true;
+        super.deliverResponse(response);
+    }
+
+    @Override
+    public void deliverError(VolleyError error) {
+        finalizada = true;
+        super.deliverError(error);
+    }
+
+    // Entrega un resultado parcial en el hilo principal, salvo que la petición
+    // haya sido cancelada o ya se haya entregado el resultado final.
+    private void entregarParcial(final ArrayList<E> nuevos) {
+        sHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!isCanceled() && !finalizada) {
+                    parcialListener.onParcial(nuevos);
+                }
+            }
+        });
     }
 
 }
@@ -0,0 +1,36 @@
+package es.iessaladillo.pedrojoya.pr083;
+
+import com.android.volley.Response.ErrorListener;
+import com.android.volley.Response.Listener;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+// Petición de un objeto JSON que será procesado por la librería GSON.
+@SuppressWarnings("unused")
+class GsonObjectRequest<T> extends GsonStreamRequest<T> {
+
+    private final TypeAdapter<T> adapter;
+
+    @SuppressWarnings("unchecked")
+    public GsonObjectRequest(int method, String url, Type type,
+                             Listener<T> listener, ErrorListener errorListener, Gson gson) {
+        super(method, url, listener, errorListener);
+        this.adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(type));
+    }
+
+    public GsonObjectRequest(int method, String url, Type type,
+                             Listener<T> listener, ErrorListener errorListener) {
+        this(method, url, type, listener, errorListener, getGson());
+    }
+
+    @Override
+    protected T parse(JsonReader reader) throws IOException {
+        return adapter.read(reader);
+    }
+
+}
@@ -0,0 +1,77 @@
+package es.iessaladillo.pedrojoya.pr083;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.Response.ErrorListener;
+import com.android.volley.Response.Listener;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+// Petición cuya respuesta JSON se procesa con GSON en streaming, leyendo
+// directamente de los bytes de la respuesta en vez de copiarlos antes en un
+// String. Gson guarda internamente los TypeAdapter que crea, por lo que se
+// debe reutilizar la misma instancia (ver getGson()) en todas las peticiones.
+abstract class GsonStreamRequest<T> extends Request<T> {
+
+    private static Gson sGson;
+
+    private final Listener<T> listener;
+
+    GsonStreamRequest(int method, String url, Listener<T> listener,
+                      ErrorListener errorListener) {
+        super(method, url, errorListener);
+        this.listener = listener;
+    }
+
+    // Retorna la instancia de Gson compartida.
+    public static synchronized Gson getGson() {
+        if (sGson == null) {
+            sGson = new Gson();
+        }
+        return sGson;
+    }
+
+    // Procesa los datos leídos del lector.
+    protected abstract T parse(JsonReader reader) throws IOException;
+
+    @Override
+    protected Response<T> parseNetworkResponse(NetworkResponse response) {
+        JsonReader reader = null;
+        try {
+            // Se lee de los bytes de la respuesta (con el charset adecuado).
+            reader = new JsonReader(new InputStreamReader(
+                    new ByteArrayInputStream(response.data),
+                    HttpHeaderParser.parseCharset(response.headers)));
+            // Se procesa el JSON.
+            T datos = parse(reader);
+            // Se crea y retorna la respuesta.
+            return Response.success(datos,
+                    HttpHeaderParser.parseCacheHeaders(response));
+        } catch (Exception e) {
+            return Response.error(new ParseError(e));
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Envía la respuesta al listener
+    @Override
+    protected void deliverResponse(T response) {
+        // Se llama al método onResponse del listener pasándole la respuesta.
+        listener.onResponse(response);
+    }
+
+}
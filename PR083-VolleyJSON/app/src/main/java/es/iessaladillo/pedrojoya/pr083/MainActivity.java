@@ -17,7 +17,7 @@ import java.util.ArrayList;
 
 public class MainActivity extends AppCompatActivity implements
         SwipeRefreshLayout.OnRefreshListener,
-        LoaderManager.LoaderCallbacks<ArrayList<Alumno>>{
+        LoaderManager.LoaderCallbacks<ArrayList<Alumno>>, AlumnosLoader.OnParcialListener {
 
     private static final int LOADER_ID = 1;
 
@@ -31,8 +31,12 @@ public class MainActivity extends AppCompatActivity implements
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         initVistas();
-        // Se inicia el cargador. La actividad actuará como ArrayListener.
-        getSupportLoaderManager().initLoader(LOADER_ID, null, this);
+        // Se inicia el cargador. La actividad actuará como ArrayListener y
+        // recibirá también los resultados parciales (el cargador sobrevive a
+        // la actividad, por lo que se vuelve a registrar cada vez).
+        Loader<ArrayList<Alumno>> cargador = getSupportLoaderManager().initLoader(LOADER_ID,
+                null, this);
+        ((AlumnosLoader) cargador).setOnParcialListener(this);
     }
 
     // Obtiene e inicializa las vistas.
@@ -98,7 +102,9 @@ public class MainActivity extends AppCompatActivity implements
     @Override
     public void onRefresh() {
         // Se reinicia el cargador.
-        getSupportLoaderManager().restartLoader(LOADER_ID, null, this);
+        Loader<ArrayList<Alumno>> cargador = getSupportLoaderManager().restartLoader(LOADER_ID,
+                null, this);
+        ((AlumnosLoader) cargador).setOnParcialListener(this);
     }
 
     // Cuando se debe crear el loader. Retorna el cargador.
@@ -120,6 +126,19 @@ public class MainActivity extends AppCompatActivity implements
         checkAdapterIsEmpty();
     }
 
+    // Cuando el loader entrega un resultado parcial. Se muestra sin esperar al
+    // resto, salvo que falte algún resultado parcial anterior (por ejemplo, si
+    // se perdió mientras el cargador estaba detenido).
+    @Override
+    public void onAlumnosParciales(ArrayList<Alumno> nuevos, int posicion) {
+        if (posicion == 0) {
+            mAdaptador.swapData(nuevos);
+        } else if (posicion == mAdaptador.getItemCount()) {
+            mAdaptador.addItems(nuevos);
+        }
+        checkAdapterIsEmpty();
+    }
+
     @Override
     public void onLoaderReset(Loader<ArrayList<Alumno>> loader) {
         Log.d(getString(R.string.app_name), "onLoaderReset");
@@ -129,6 +148,10 @@ public class MainActivity extends AppCompatActivity implements
 
     @Override
     protected void onDestroy() {
+        Loader<ArrayList<Alumno>> cargador = getSupportLoaderManager().getLoader(LOADER_ID);
+        if (cargador != null) {
+            ((AlumnosLoader) cargador).setOnParcialListener(null);
+        }
         mAdaptador.unregisterAdapterDataObserver(mObservador);
         super.onDestroy();
     }
@@ -10,32 +10,55 @@ import com.android.volley.toolbox.BasicNetwork;
 import com.android.volley.toolbox.DiskBasedCache;
 import com.android.volley.toolbox.HttpStack;
 import com.android.volley.toolbox.HurlStack;
-import com.android.volley.toolbox.ImageLoader;
 
 import java.io.File;
 
 public class App extends Application {
 
     // Constantes.
-    private static final int MAX_MEMORY_CACHE_SIZE_KB = 25 * 1024;
+    // El pool de bitmaps reutilizables ocupa como máximo esta fracción de la
+    // caché en memoria.
+    private static final int FRACCION_POOL = 4;
     private static final int MAX_DISK_CACHE_SIZE_B = 25 * 1024 * 1024;
     private static final String DEFAULT_DISK_CACHE_DIR = "fotos";
 
     // Variables.
     private static RequestQueue colaPeticiones;
-    private static ImageLoader cargadorImagenes;
+    private static PoolImageLoader cargadorImagenes;
+    private static BitmapMemCache cacheMemoria;
 
     // Al iniciar la aplicación.
     @Override
     public void onCreate() {
+        super.onCreate();
         // Se crea la cola de peticiones de Volley.
         // Con caché en disco L2 en directorio por defecto.
         // colaPeticiones = Volley.newRequestQueue(this);
         // Con caché en disco L2 en directorio de soporte externo.
         colaPeticiones = newRequestQueue(this);
-        // Se crea el cargador de imágenes indicándole la caché en memoria L1.
-        cargadorImagenes = new ImageLoader(colaPeticiones, new BitmapMemCache(
-                MAX_MEMORY_CACHE_SIZE_KB));
+        // Se crea el cargador de imágenes indicándole la caché en memoria L1,
+        // dimensionada según la memoria asignada a la aplicación, y el pool
+        // de bitmaps reutilizables que se alimenta de ella.
+        int tamanoCacheKB = BitmapMemCache.getTamanoRecomendado(this);
+        BitmapPool pool = new BitmapPool(tamanoCacheKB / FRACCION_POOL * 1024);
+        cacheMemoria = new BitmapMemCache(tamanoCacheKB, pool);
+        cargadorImagenes = new PoolImageLoader(colaPeticiones, cacheMemoria, pool);
+    }
+
+    // Cuando el sistema solicita liberar memoria.
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_MODERATE) {
+            // La aplicación está en segundo plano y puede ser eliminada.
+            cacheMemoria.evictAll();
+            cargadorImagenes.getPool().vaciar();
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // La interfaz ya no es visible. Se reduce la caché a la mitad y
+            // se libera el pool (incluidos los bitmaps recién expulsados).
+            cacheMemoria.trimToSize(cacheMemoria.maxSize() / 2);
+            cargadorImagenes.getPool().vaciar();
+        }
     }
 
     // Retorna la cola de peticiones de Volley.
@@ -48,7 +71,7 @@ public class App extends Application {
     }
 
     // Retorna el cargador de imágenes.
-    public static ImageLoader getImageLoader() {
+    public static PoolImageLoader getImageLoader() {
         return cargadorImagenes;
     }
 
@@ -1,30 +1,62 @@
 package es.iessaladillo.pedrojoya.pr084;
 
+import android.app.ActivityManager;
+import android.content.Context;
 import android.graphics.Bitmap;
 import android.support.v4.util.LruCache;
 
 import com.android.volley.toolbox.ImageLoader.ImageCache;
 
 //Clase que gestiona la caché de imágenes en memoria.
+// La clave la genera ImageLoader e incluye la url y el tamaño máximo con el que
+// se ha decodificado la imagen, por lo que la misma foto mostrada a distintos
+// tamaños ocupa entradas distintas. Los bitmaps expulsados se entregan al pool
+// para que puedan reutilizarse en siguientes decodificaciones una vez que no
+// estén en pantalla.
 public class BitmapMemCache extends LruCache<String, Bitmap> implements
         ImageCache {
 
+    // Fracción de la memoria disponible para la aplicación que se dedica a la
+    // caché.
+    private static final int FRACCION_MEMORIA = 8;
+
+    private final BitmapPool mPool;
+
     // Constructores.
-    public BitmapMemCache() {
-        // Se llama al otro constructor con el tamaño en KB, calculado como el
-        // máximo posible para la JVM.
-        this((int) (Runtime.getRuntime().maxMemory() / 1024) / 8);
+    public BitmapMemCache(Context context, BitmapPool pool) {
+        // Se llama al otro constructor con el tamaño en KB, calculado a partir
+        // de la memoria que el sistema asigna a la aplicación.
+        this(getTamanoRecomendado(context), pool);
     }
 
-    public BitmapMemCache(int sizeInKiloBytes) {
+    public BitmapMemCache(int sizeInKiloBytes, BitmapPool pool) {
         super(sizeInKiloBytes);
+        mPool = pool;
+    }
+
+    // Retorna el tamaño recomendado en KB para la caché, en función de la
+    // memoria asignada a la aplicación (getMemoryClass() retorna MB).
+    public static int getTamanoRecomendado(Context context) {
+        ActivityManager gestorActividades = (ActivityManager) context.getSystemService(
+                Context.ACTIVITY_SERVICE);
+        return gestorActividades.getMemoryClass() * 1024 / FRACCION_MEMORIA;
     }
 
     // Retorna el tamaño en KB de una imagen de la caché.
     // Recibe la key del elemento y la imagen.
     @Override
     protected int sizeOf(String key, Bitmap bitmap) {
-        return bitmap.getByteCount() / 1024;
+        return Math.max(BitmapPool.getTamano(bitmap) / 1024, 1);
+    }
+
+    // Cuando se expulsa o sustituye una imagen de la caché se entrega al pool,
+    // que no la reutilizará mientras alguna vista la siga mostrando.
+    @Override
+    protected void entryRemoved(boolean evicted, String key, Bitmap oldValue,
+            Bitmap newValue) {
+        if (mPool != null && oldValue != newValue) {
+            mPool.put(oldValue);
+        }
     }
 
     // Retorna si existe en la caché una imagen con esa clave.
@@ -38,9 +70,9 @@ public class BitmapMemCache extends LruCache<String, Bitmap> implements
     }
 
     // Escribe una imagen en la caché.
-    // Utiliza la url como clave.
-    public void putBitmap(String url, Bitmap bitmap) {
-        put(url, bitmap);
+    // Utiliza como clave la generada por ImageLoader.
+    public void putBitmap(String key, Bitmap bitmap) {
+        put(key, bitmap);
     }
 
-}
\ No newline at end of file
+}
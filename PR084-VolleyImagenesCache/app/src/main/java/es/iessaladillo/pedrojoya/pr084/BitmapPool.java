@@ -0,0 +1,173 @@
+package es.iessaladillo.pedrojoya.pr084;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Set;
+
+// Pool de bitmaps reutilizables. Se alimenta con los bitmaps que expulsa la
+// caché en memoria, y se usa al decodificar (BitmapFactory.Options.inBitmap)
+// para escribir la nueva imagen sobre la memoria de un bitmap ya existente en
+// vez de reservar uno nuevo. Un bitmap expulsado que aún se está mostrando en
+// alguna vista (ver PoolNetworkImageView) no entra en el pool hasta que la
+// última vista lo libera.
+public class BitmapPool {
+
+    private final int mTamanoMaximo;
+    // Bitmaps disponibles, el más reciente al principio.
+    private final LinkedList<Bitmap> mBitmaps = new LinkedList<>();
+    private int mTamano;
+    // Número de vistas que muestran cada bitmap.
+    private final IdentityHashMap<Bitmap, Integer> mEnUso = new IdentityHashMap<>();
+    // Bitmaps expulsados de la caché que esperan a que ninguna vista los
+    // muestre para entrar en el pool.
+    private final Set<Bitmap> mPendientes = Collections.newSetFromMap(
+            new IdentityHashMap<Bitmap, Boolean>());
+    // Estadísticas.
+    private int mReutilizados;
+    private int mNuevos;
+
+    // Constructor. Recibe el tamaño máximo del pool en bytes.
+    public BitmapPool(int tamanoMaximo) {
+        mTamanoMaximo = tamanoMaximo;
+    }
+
+    // Añade un bitmap al pool. Si no es reutilizable se descarta, y si alguna
+    // vista lo está mostrando se aplaza hasta que la última lo libere.
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        if (mEnUso.containsKey(bitmap)) {
+            mPendientes.add(bitmap);
+            return;
+        }
+        int tamano = getTamano(bitmap);
+        if (tamano > mTamanoMaximo) {
+            return;
+        }
+        mBitmaps.addFirst(bitmap);
+        mTamano += tamano;
+        // Se descartan los más antiguos hasta respetar el tamaño máximo.
+        while (mTamano > mTamanoMaximo) {
+            mTamano -= getTamano(mBitmaps.removeLast());
+        }
+    }
+
+    // Indica que una vista ha empezado a mostrar el bitmap.
+    public synchronized void retener(Bitmap bitmap) {
+        Integer vistas = mEnUso.get(bitmap);
+        mEnUso.put(bitmap, vistas == null ? 1 : vistas + 1);
+    }
+
+    // Indica que una vista ha dejado de mostrar el bitmap. Si ya se había
+    // expulsado de la caché y nadie más lo muestra, pasa al pool.
+    public synchronized void liberar(Bitmap bitmap) {
+        Integer vistas = mEnUso.get(bitmap);
+        if (vistas == null) {
+            return;
+        }
+        if (vistas > 1) {
+            mEnUso.put(bitmap, vistas - 1);
+        } else {
+            mEnUso.remove(bitmap);
+            if (mPendientes.remove(bitmap)) {
+                put(bitmap);
+            }
+        }
+    }
+
+    // Configura las opciones de decodificación para que se reutilice un bitmap
+    // del pool, si hay alguno adecuado. Recibe las dimensiones finales de la
+    // imagen decodificada. Las opciones deben tener ya establecidos
+    // inSampleSize, inScaled e inPreferredConfig.
+    public void prepararOpciones(BitmapFactory.Options opciones, int ancho, int alto) {
+        // El bitmap decodificado debe poder reutilizarse más adelante.
+        opciones.inMutable = true;
+        Bitmap reutilizable = obtener(opciones, ancho, alto);
+        if (reutilizable != null) {
+            opciones.inBitmap = reutilizable;
+        }
+    }
+
+    // Retira del pool y retorna un bitmap en el que se pueda decodificar una
+    // imagen de las dimensiones recibidas, o null si no hay ninguno.
+    private synchronized Bitmap obtener(BitmapFactory.Options opciones, int ancho, int alto) {
+        Iterator<Bitmap> iterador = mBitmaps.iterator();
+        while (iterador.hasNext()) {
+            Bitmap bitmap = iterador.next();
+            if (bitmap.isRecycled()) {
+                iterador.remove();
+                mTamano -= getTamano(bitmap);
+            } else if (esReutilizable(bitmap, opciones, ancho, alto)) {
+                iterador.remove();
+                mTamano -= getTamano(bitmap);
+                mReutilizados++;
+                return bitmap;
+            }
+        }
+        mNuevos++;
+        return null;
+    }
+
+    // Vacía el pool. Los bitmaps que siguen en pantalla dejan de estar
+    // pendientes de entrar en él.
+    public synchronized void vaciar() {
+        mBitmaps.clear();
+        mPendientes.clear();
+        mTamano = 0;
+    }
+
+    // Retorna el número de decodificaciones que han reutilizado un bitmap.
+    public synchronized int getReutilizados() {
+        return mReutilizados;
+    }
+
+    // Retorna el número de decodificaciones que han tenido que reservar un
+    // bitmap nuevo.
+    public synchronized int getNuevos() {
+        return mNuevos;
+    }
+
+    // Retorna si una imagen de las dimensiones recibidas se puede decodificar
+    // con esas opciones sobre el bitmap recibido.
+    private static boolean esReutilizable(Bitmap bitmap, BitmapFactory.Options opciones,
+            int ancho, int alto) {
+        if (bitmap.getConfig() != opciones.inPreferredConfig) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Basta con que el bitmap tenga memoria suficiente.
+            return ancho * alto * getBytesPorPixel(bitmap.getConfig()) <= getTamano(bitmap);
+        }
+        // Antes de KitKat las dimensiones deben coincidir exactamente y no se
+        // admite submuestreo ni escalado.
+        return opciones.inSampleSize <= 1 && !opciones.inScaled
+                && bitmap.getWidth() == ancho && bitmap.getHeight() == alto;
+    }
+
+    // Retorna los bytes ocupados por un bitmap.
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    public static int getTamano(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+
+    private static int getBytesPorPixel(Bitmap.Config config) {
+        if (config == Bitmap.Config.ARGB_8888) {
+            return 4;
+        } else if (config == Bitmap.Config.ALPHA_8) {
+            return 1;
+        }
+        return 2;
+    }
+
+}
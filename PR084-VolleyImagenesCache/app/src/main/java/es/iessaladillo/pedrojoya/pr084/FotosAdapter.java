@@ -7,7 +7,6 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.android.volley.toolbox.ImageLoader;
-import com.android.volley.toolbox.NetworkImageView;
 
 import java.util.ArrayList;
 
@@ -80,7 +79,7 @@ public class FotosAdapter extends RecyclerView.Adapter<FotosAdapter
 
         // El contenedor de vistas para un elemento de la lista debe contener...
         private final TextView lblDescripcion;
-        private final NetworkImageView imgFoto;
+        private final PoolNetworkImageView imgFoto;
 
         // El constructor recibe la vista correspondiente al elemento.
         public ViewHolder(View itemView) {
@@ -88,7 +87,7 @@ public class FotosAdapter extends RecyclerView.Adapter<FotosAdapter
             super(itemView);
             // Se obtienen las subvistas de la vista correspondiente al elemento.
             lblDescripcion = (TextView) itemView.findViewById(R.id.lblDescripcion);
-            imgFoto = (NetworkImageView) itemView.findViewById(R.id.imgFoto);
+            imgFoto = (PoolNetworkImageView) itemView.findViewById(R.id.imgFoto);
         }
 
     }
@@ -191,4 +191,13 @@ public class MainActivity extends AppCompatActivity implements SwipeRefreshLayou
         mEndlessScrollListener.reset(0, true);
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Estadísticas de reutilización de bitmaps al decodificar.
+        BitmapPool pool = App.getImageLoader().getPool();
+        Log.d("Mia", "Bitmaps reutilizados: " + pool.getReutilizados() + ", nuevos: "
+                + pool.getNuevos());
+    }
+
 }
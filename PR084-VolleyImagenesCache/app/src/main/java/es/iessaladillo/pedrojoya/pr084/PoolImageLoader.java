@@ -0,0 +1,48 @@
+package es.iessaladillo.pedrojoya.pr084;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView.ScaleType;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.ImageLoader;
+
+// Cargador de imágenes con dos niveles de caché: en memoria (BitmapMemCache,
+// con las imágenes ya decodificadas al tamaño de la vista) y en disco (la
+// caché de la cola de peticiones, con los bytes comprimidos). Las imágenes se
+// decodifican con PoolImageRequest, reutilizando los bitmaps que expulsa la
+// caché en memoria.
+public class PoolImageLoader extends ImageLoader {
+
+    private final BitmapPool mPool;
+
+    public PoolImageLoader(RequestQueue cola, BitmapMemCache cache, BitmapPool pool) {
+        super(cola, cache);
+        mPool = pool;
+    }
+
+    // Crea la petición para una imagen que no está en la caché en memoria.
+    @Override
+    protected Request<Bitmap> makeImageRequest(String requestUrl, int maxWidth, int maxHeight,
+            ScaleType scaleType, final String cacheKey) {
+        return new PoolImageRequest(requestUrl, new Response.Listener<Bitmap>() {
+            @Override
+            public void onResponse(Bitmap response) {
+                onGetImageSuccess(cacheKey, response);
+            }
+        }, maxWidth, maxHeight, scaleType, Bitmap.Config.RGB_565, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                onGetImageError(cacheKey, error);
+            }
+        }, mPool);
+    }
+
+    // Retorna el pool de bitmaps reutilizables.
+    public BitmapPool getPool() {
+        return mPool;
+    }
+
+}
@@ -0,0 +1,172 @@
+package es.iessaladillo.pedrojoya.pr084;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.widget.ImageView.ScaleType;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+
+// Petición de imagen que, a diferencia de ImageRequest de Volley, decodifica
+// la imagen directamente al tamaño de destino (submuestreo más escalado en la
+// propia decodificación, sin crear un bitmap intermedio) y reutiliza los
+// bitmaps del pool mediante inBitmap.
+public class PoolImageRequest extends Request<Bitmap> {
+
+    // Mismos parámetros de reintento que ImageRequest.
+    private static final int TIMEOUT_MS = 1000;
+    private static final int MAX_REINTENTOS = 2;
+    private static final float MULTIPLICADOR_ESPERA = 2f;
+
+    // Se decodifica de una en una para no disparar el consumo de memoria.
+    private static final Object sDecodeLock = new Object();
+
+    private final Response.Listener<Bitmap> mListener;
+    private final BitmapPool mPool;
+    private final int mMaxAncho;
+    private final int mMaxAlto;
+    private final ScaleType mScaleType;
+    private final Bitmap.Config mConfig;
+
+    public PoolImageRequest(String url, Response.Listener<Bitmap> listener, int maxAncho,
+            int maxAlto, ScaleType scaleType, Bitmap.Config config,
+            Response.ErrorListener errorListener, BitmapPool pool) {
+        super(Method.GET, url, errorListener);
+        setRetryPolicy(new DefaultRetryPolicy(TIMEOUT_MS, MAX_REINTENTOS,
+                MULTIPLICADOR_ESPERA));
+        mListener = listener;
+        mPool = pool;
+        mMaxAncho = maxAncho;
+        mMaxAlto = maxAlto;
+        mScaleType = scaleType;
+        mConfig = config;
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.LOW;
+    }
+
+    // Se ejecuta en un hilo secundario.
+    @Override
+    protected Response<Bitmap> parseNetworkResponse(NetworkResponse response) {
+        synchronized (sDecodeLock) {
+            try {
+                return decodificar(response);
+            } catch (OutOfMemoryError e) {
+                return Response.error(new ParseError(e));
+            }
+        }
+    }
+
+    private Response<Bitmap> decodificar(NetworkResponse response) {
+        byte[] datos = response.data;
+        BitmapFactory.Options opciones = new BitmapFactory.Options();
+        opciones.inPreferredConfig = mConfig;
+        // Se leen solo las dimensiones de la imagen.
+        opciones.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(datos, 0, datos.length, opciones);
+        int anchoReal = opciones.outWidth;
+        int altoReal = opciones.outHeight;
+        if (anchoReal <= 0 || altoReal <= 0) {
+            return Response.error(new ParseError(response));
+        }
+        int ancho = Math.max(1,
+                getDimensionDestino(mMaxAncho, mMaxAlto, anchoReal, altoReal, mScaleType));
+        int alto = Math.max(1,
+                getDimensionDestino(mMaxAlto, mMaxAncho, altoReal, anchoReal, mScaleType));
+        opciones.inJustDecodeBounds = false;
+        // Primero se submuestrea por potencias de 2 (lo más barato)...
+        opciones.inSampleSize = getMuestreo(anchoReal, altoReal, ancho, alto);
+        int anchoMuestreado = anchoReal / opciones.inSampleSize;
+        if (anchoMuestreado > ancho) {
+            // ... y el resto del escalado se hace también al decodificar, en vez
+            // de con Bitmap.createScaledBitmap() sobre un bitmap intermedio.
+            opciones.inScaled = true;
+            opciones.inDensity = anchoMuestreado;
+            opciones.inTargetDensity = ancho;
+        } else {
+            opciones.inScaled = false;
+            ancho = anchoMuestreado;
+            alto = altoReal / opciones.inSampleSize;
+        }
+        if (mPool != null) {
+            // Si se escala se deja un margen de un píxel por el redondeo.
+            int margen = opciones.inScaled ? 1 : 0;
+            mPool.prepararOpciones(opciones, ancho + margen, alto + margen);
+        }
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeByteArray(datos, 0, datos.length, opciones);
+        } catch (IllegalArgumentException e) {
+            // El bitmap del pool no era válido para esta imagen. Se decodifica
+            // sobre uno nuevo.
+            opciones.inBitmap = null;
+            bitmap = BitmapFactory.decodeByteArray(datos, 0, datos.length, opciones);
+        }
+        if (bitmap == null) {
+            return Response.error(new ParseError(response));
+        }
+        if (opciones.inScaled) {
+            // Se restaura la densidad para que la vista no vuelva a escalarla.
+            bitmap.setDensity(Resources.getSystem().getDisplayMetrics().densityDpi);
+        }
+        return Response.success(bitmap, HttpHeaderParser.parseCacheHeaders(response));
+    }
+
+    @Override
+    protected void deliverResponse(Bitmap response) {
+        mListener.onResponse(response);
+    }
+
+    // Retorna la dimensión de destino (igual que ImageRequest). Recibe los
+    // máximos y las dimensiones reales, primero la que se quiere calcular.
+    private static int getDimensionDestino(int maxPrincipal, int maxSecundaria,
+            int realPrincipal, int realSecundaria, ScaleType scaleType) {
+        // Si no hay máximo se usa la dimensión real.
+        if (maxPrincipal == 0 && maxSecundaria == 0) {
+            return realPrincipal;
+        }
+        if (scaleType == ScaleType.FIT_XY) {
+            return maxPrincipal == 0 ? realPrincipal : maxPrincipal;
+        }
+        // Si solo se limita la otra dimensión se mantiene la proporción.
+        if (maxPrincipal == 0) {
+            double ratio = (double) maxSecundaria / (double) realSecundaria;
+            return (int) (realPrincipal * ratio);
+        }
+        if (maxSecundaria == 0) {
+            return maxPrincipal;
+        }
+        double ratio = (double) realSecundaria / (double) realPrincipal;
+        int resultado = maxPrincipal;
+        if (scaleType == ScaleType.CENTER_CROP) {
+            // Se debe cubrir todo el destino.
+            if (resultado * ratio < maxSecundaria) {
+                resultado = (int) (maxSecundaria / ratio);
+            }
+            return resultado;
+        }
+        if (resultado * ratio > maxSecundaria) {
+            resultado = (int) (maxSecundaria / ratio);
+        }
+        return resultado;
+    }
+
+    // Retorna la mayor potencia de 2 que se puede usar como inSampleSize sin
+    // quedar por debajo de las dimensiones de destino.
+    private static int getMuestreo(int anchoReal, int altoReal, int ancho, int alto) {
+        double ratio = Math.min((double) anchoReal / ancho, (double) altoReal / alto);
+        int muestreo = 1;
+        while (muestreo * 2 <= ratio) {
+            muestreo *= 2;
+        }
+        return muestreo;
+    }
+
+}
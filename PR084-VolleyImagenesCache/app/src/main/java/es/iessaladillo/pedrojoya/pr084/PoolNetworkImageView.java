@@ -0,0 +1,67 @@
+package es.iessaladillo.pedrojoya.pr084;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.AttributeSet;
+
+import com.android.volley.toolbox.NetworkImageView;
+
+// NetworkImageView que avisa al pool de bitmaps de qué bitmap está mostrando,
+// para que un bitmap expulsado de la caché en memoria no se reutilice (y se
+// sobrescriba con inBitmap) mientras siga en pantalla. NetworkImageView pasa
+// por setImageBitmap() al mostrar la imagen, al cambiar de url y al
+// desvincularse de la ventana, y por setImageResource() al mostrar la imagen
+// por defecto o la de error.
+public class PoolNetworkImageView extends NetworkImageView {
+
+    private Bitmap mBitmap;
+
+    public PoolNetworkImageView(Context context) {
+        super(context);
+    }
+
+    public PoolNetworkImageView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public PoolNetworkImageView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    @Override
+    public void setImageBitmap(Bitmap bitmap) {
+        super.setImageBitmap(bitmap);
+        cambiarBitmap(bitmap);
+    }
+
+    @Override
+    public void setImageResource(int resId) {
+        super.setImageResource(resId);
+        cambiarBitmap(null);
+    }
+
+    // Libera el bitmap mostrado hasta ahora y retiene el nuevo.
+    private void cambiarBitmap(Bitmap bitmap) {
+        if (bitmap == mBitmap) {
+            return;
+        }
+        BitmapPool pool = getPool();
+        if (pool != null) {
+            if (bitmap != null) {
+                pool.retener(bitmap);
+            }
+            if (mBitmap != null) {
+                pool.liberar(mBitmap);
+            }
+        }
+        mBitmap = bitmap;
+    }
+
+    // Retorna el pool de bitmaps de la aplicación (null en el editor de
+    // layouts).
+    private BitmapPool getPool() {
+        PoolImageLoader cargador = App.getImageLoader();
+        return cargador != null ? cargador.getPool() : null;
+    }
+
+}
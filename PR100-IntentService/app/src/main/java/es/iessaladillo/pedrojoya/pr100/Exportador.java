@@ -0,0 +1,345 @@
+package es.iessaladillo.pedrojoya.pr100;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+// Exporta las filas de una fuente a un flujo de salida en CSV o JSON,
+// opcionalmente comprimido con gzip. Las filas se leen de la fuente a medida
+// que se escriben, a través de un búfer, y se procesan por bloques. Al
+// terminar cada bloque se informa del progreso y se comprueba si se ha
+// cancelado la exportación, lo que puede hacerse desde cualquier hilo.
+public class Exportador {
+
+    // Formatos de exportación.
+    public enum Formato {
+        CSV("csv"), JSON("json");
+
+        private final String mExtension;
+
+        Formato(String extension) {
+            mExtension = extension;
+        }
+
+        // Retorna la extensión de los archivos con este formato.
+        public String getExtension() {
+            return mExtension;
+        }
+    }
+
+    // Interfaz que debe implementar quien quiera conocer el progreso de la
+    // exportación. Se llama desde el hilo que exporta.
+    public interface Progreso {
+        // Recibe las filas exportadas, los bytes escritos (sin comprimir) y
+        // los nanosegundos transcurridos desde el inicio.
+        void onProgreso(long filas, long bytes, long nanos);
+    }
+
+    public static final int FILAS_POR_BLOQUE = 1000;
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Formato mFormato;
+    private final boolean mGzip;
+    private int mFilasPorBloque = FILAS_POR_BLOQUE;
+    private Progreso mProgreso;
+    private volatile boolean mCancelado;
+
+    public Exportador(Formato formato, boolean gzip) {
+        mFormato = formato;
+        mGzip = gzip;
+    }
+
+    public void setFilasPorBloque(int filasPorBloque) {
+        mFilasPorBloque = filasPorBloque;
+    }
+
+    public void setProgreso(Progreso progreso) {
+        mProgreso = progreso;
+    }
+
+    // Cancela la exportación, que termina al acabar el bloque actual.
+    public void cancelar() {
+        mCancelado = true;
+    }
+
+    // Exporta las filas de la fuente a la salida, que se cierra al terminar.
+    // La fuente no se cierra.
+    public Resultado exportar(FuenteFilas fuente, OutputStream salida) throws IOException {
+        long inicio = System.nanoTime();
+        ContadorBytes contador;
+        if (mGzip) {
+            contador = new ContadorBytes(new GZIPOutputStream(salida, TAMANO_BUFFER));
+        } else {
+            contador = new ContadorBytes(salida);
+        }
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(contador, UTF_8),
+                TAMANO_BUFFER);
+        long filas = 0;
+        try {
+            String[] columnas = fuente.getColumnas();
+            Formateador formateador = mFormato == Formato.CSV ? new FormateadorCsv(columnas)
+                    : new FormateadorJson(columnas);
+            formateador.escribirInicio(escritor);
+            boolean quedanFilas = true;
+            while (quedanFilas && !mCancelado) {
+                int filasBloque = 0;
+                while (filasBloque < mFilasPorBloque && (quedanFilas = fuente.moverSiguiente())) {
+                    formateador.escribirFila(escritor, fuente, filas == 0);
+                    filas++;
+                    filasBloque++;
+                }
+                if (mProgreso != null) {
+                    mProgreso.onProgreso(filas, contador.mBytes, System.nanoTime() - inicio);
+                }
+            }
+            if (!mCancelado) {
+                formateador.escribirFin(escritor);
+            }
+        } finally {
+            escritor.close();
+        }
+        return new Resultado(filas, contador.mBytes, System.nanoTime() - inicio, mCancelado);
+    }
+
+    // Resultado de una exportación.
+    public static class Resultado {
+
+        private final long mFilas;
+        private final long mBytes;
+        private final long mNanos;
+        private final boolean mCancelado;
+
+        Resultado(long filas, long bytes, long nanos, boolean cancelado) {
+            mFilas = filas;
+            mBytes = bytes;
+            mNanos = nanos;
+            mCancelado = cancelado;
+        }
+
+        public long getFilas() {
+            return mFilas;
+        }
+
+        // Retorna los bytes escritos, sin comprimir.
+        public long getBytes() {
+            return mBytes;
+        }
+
+        public long getNanos() {
+            return mNanos;
+        }
+
+        public boolean isCancelado() {
+            return mCancelado;
+        }
+
+        // Retorna los MB (sin comprimir) escritos por segundo.
+        public double getMbPorSegundo() {
+            return Exportador.getMbPorSegundo(mBytes, mNanos);
+        }
+
+    }
+
+    // Retorna los MB por segundo correspondientes a los bytes escritos en los
+    // nanosegundos recibidos.
+    public static double getMbPorSegundo(long bytes, long nanos) {
+        return nanos == 0 ? 0 : bytes / (1024.0 * 1024.0) / (nanos / 1e9);
+    }
+
+    // Escribe las filas en un formato concreto.
+    private abstract static class Formateador {
+
+        final String[] mColumnas;
+
+        Formateador(String[] columnas) {
+            mColumnas = columnas;
+        }
+
+        abstract void escribirInicio(Writer escritor) throws IOException;
+
+        abstract void escribirFila(Writer escritor, FuenteFilas fuente, boolean primera)
+                throws IOException;
+
+        abstract void escribirFin(Writer escritor) throws IOException;
+
+    }
+
+    // Una línea de cabecera con los nombres de las columnas y una por fila.
+    // Los valores con separadores, comillas o saltos de línea se escriben
+    // entre comillas, duplicando las que contienen.
+    private static class FormateadorCsv extends Formateador {
+
+        FormateadorCsv(String[] columnas) {
+            super(columnas);
+        }
+
+        @Override
+        void escribirInicio(Writer escritor) throws IOException {
+            for (int i = 0; i < mColumnas.length; i++) {
+                if (i > 0) {
+                    escritor.write(',');
+                }
+                escribirValor(escritor, mColumnas[i]);
+            }
+            escritor.write('\n');
+        }
+
+        @Override
+        void escribirFila(Writer escritor, FuenteFilas fuente, boolean primera)
+                throws IOException {
+            for (int i = 0; i < mColumnas.length; i++) {
+                if (i > 0) {
+                    escritor.write(',');
+                }
+                escribirValor(escritor, fuente.getValor(i));
+            }
+            escritor.write('\n');
+        }
+
+        @Override
+        void escribirFin(Writer escritor) {
+        }
+
+        private static void escribirValor(Writer escritor, String valor) throws IOException {
+            if (valor == null) {
+                return;
+            }
+            if (!necesitaComillas(valor)) {
+                escritor.write(valor);
+                return;
+            }
+            escritor.write('"');
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == '"') {
+                    escritor.write('"');
+                }
+                escritor.write(c);
+            }
+            escritor.write('"');
+        }
+
+        private static boolean necesitaComillas(String valor) {
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    // Un array con un objeto por fila, en una línea cada uno. Los nombres de
+    // las columnas se escapan una sola vez.
+    private static class FormateadorJson extends Formateador {
+
+        private final String[] mClaves;
+
+        FormateadorJson(String[] columnas) {
+            super(columnas);
+            mClaves = new String[columnas.length];
+        }
+
+        @Override
+        void escribirInicio(Writer escritor) throws IOException {
+            for (int i = 0; i < mColumnas.length; i++) {
+                StringWriter clave = new StringWriter();
+                clave.write(i == 0 ? '{' : ',');
+                escribirCadena(clave, mColumnas[i]);
+                clave.write(':');
+                mClaves[i] = clave.toString();
+            }
+            escritor.write('[');
+        }
+
+        @Override
+        void escribirFila(Writer escritor, FuenteFilas fuente, boolean primera)
+                throws IOException {
+            escritor.write(primera ? "\n" : ",\n");
+            for (int i = 0; i < mClaves.length; i++) {
+                escritor.write(mClaves[i]);
+                String valor = fuente.getValor(i);
+                if (valor == null) {
+                    escritor.write("null");
+                } else {
+                    escribirCadena(escritor, valor);
+                }
+            }
+            escritor.write(mClaves.length == 0 ? "{}" : "}");
+        }
+
+        @Override
+        void escribirFin(Writer escritor) throws IOException {
+            escritor.write("\n]\n");
+        }
+
+        private static void escribirCadena(Writer destino, String valor) throws IOException {
+            destino.write('"');
+            int inicio = 0;
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c != '"' && c != '\\' && c >= 0x20) {
+                    continue;
+                }
+                // Se escribe de una vez lo anterior, que no hay que escapar.
+                destino.write(valor, inicio, i - inicio);
+                inicio = i + 1;
+                switch (c) {
+                    case '"':
+                        destino.write("\\\"");
+                        break;
+                    case '\\':
+                        destino.write("\\\\");
+                        break;
+                    case '\n':
+                        destino.write("\\n");
+                        break;
+                    case '\r':
+                        destino.write("\\r");
+                        break;
+                    case '\t':
+                        destino.write("\\t");
+                        break;
+                    default:
+                        destino.write(String.format("\\u%04x", (int) c));
+                }
+            }
+            destino.write(valor, inicio, valor.length() - inicio);
+            destino.write('"');
+        }
+
+    }
+
+    // Cuenta los bytes que se escriben en el flujo.
+    private static class ContadorBytes extends FilterOutputStream {
+
+        private long mBytes;
+
+        ContadorBytes(OutputStream salida) {
+            super(salida);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            mBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            mBytes += len;
+        }
+
+    }
+
+}
@@ -1,14 +1,15 @@
 package es.iessaladillo.pedrojoya.pr100;
 
 import android.app.IntentService;
+import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Environment;
 import android.support.v4.content.LocalBroadcastManager;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
@@ -17,62 +18,164 @@ import java.util.concurrent.TimeUnit;
 public class ExportarService extends IntentService {
 
     // Constantes.
-    public static final String EXTRA_DATOS = "extra_datos";
+    public static final String EXTRA_FUENTE = "extra_fuente";
+    public static final String EXTRA_FORMATO = "extra_formato";
+    public static final String EXTRA_GZIP = "extra_gzip";
     public static final String EXTRA_FILENAME = "extra_filename";
+    public static final String EXTRA_FILAS = "extra_filas";
+    public static final String EXTRA_MB_POR_SEGUNDO = "extra_mb_por_segundo";
     public static final String ACTION_COMPLETADA =
             "es.iessaladillo.pedrojoya.pr100.action_completada";
-    private static final long ESPERA = 2;
+    public static final String ACTION_PROGRESO =
+            "es.iessaladillo.pedrojoya.pr100.action_progreso";
+    public static final String ACTION_FALLIDA =
+            "es.iessaladillo.pedrojoya.pr100.action_fallida";
     private static final String SERVICE_NAME = "exportar";
+    // Tiempo mínimo entre dos informes de progreso.
+    private static final long INTERVALO_PROGRESO = TimeUnit.MILLISECONDS.toNanos(500);
+
+    // Exportación en curso y su archivo pendiente, para poder cancelarla.
+    // Se protegen con sCerrojo, de manera que una cancelación no se pierda
+    // entre que el servicio abre el archivo y empieza a exportar.
+    private static final Object sCerrojo = new Object();
+    private static File sPendiente;
+    private static Exportador sExportador;
 
     // Constructor.
     public ExportarService() {
         // El constructor del padre requiere que se le pase un nombre al
         // servicio.
         super(SERVICE_NAME);
+        // Si el sistema destruye el proceso durante la exportación, el
+        // Intent se vuelve a entregar, ya que la fuente sigue en disco.
+        setIntentRedelivery(true);
+    }
+
+    // Inicia el servicio para exportar las filas del archivo pendiente
+    // recibido (ver FuentesPendientes). Solo se envía en el Intent su ruta.
+    public static void start(Context context, File pendiente, Exportador.Formato formato,
+            boolean gzip) {
+        Intent intent = new Intent(context, ExportarService.class);
+        intent.putExtra(EXTRA_FUENTE, pendiente.getAbsolutePath());
+        intent.putExtra(EXTRA_FORMATO, formato.name());
+        intent.putExtra(EXTRA_GZIP, gzip);
+        context.startService(intent);
+    }
+
+    // Cancela la exportación del archivo pendiente recibido. Si ya está en
+    // curso, el archivo a medio escribir se elimina. Si aún está en cola, se
+    // elimina el archivo pendiente y el servicio la descartará al llegarle.
+    public static void cancelar(File pendiente) {
+        synchronized (sCerrojo) {
+            if (pendiente.equals(sPendiente)) {
+                sExportador.cancelar();
+            } else {
+                //noinspection ResultOfMethodCallIgnored
+                pendiente.delete();
+            }
+        }
     }
 
     // Cuando se procesa cada llamada.
     @Override
     protected void onHandleIntent(Intent intent) {
+        final String ruta = intent.getStringExtra(EXTRA_FUENTE);
+        File pendiente = new File(ruta);
+        Exportador.Formato formato = Exportador.Formato.valueOf(
+                intent.getStringExtra(EXTRA_FORMATO));
+        boolean gzip = intent.getBooleanExtra(EXTRA_GZIP, false);
+        File outputFile = getFichero(formato, gzip);
+        Exportador exportador = new Exportador(formato, gzip);
+        exportador.setProgreso(new Exportador.Progreso() {
+            private long mUltimoInforme;
+
+            @Override
+            public void onProgreso(long filas, long bytes, long nanos) {
+                if (nanos - mUltimoInforme >= INTERVALO_PROGRESO) {
+                    mUltimoInforme = nanos;
+                    informarProgreso(ruta, filas, Exportador.getMbPorSegundo(bytes, nanos));
+                }
+            }
+        });
+        FuenteFilas fuente;
+        synchronized (sCerrojo) {
+            if (!pendiente.exists()) {
+                // Se ha cancelado antes de empezar.
+                return;
+            }
+            try {
+                fuente = FuentesPendientes.abrir(pendiente);
+            } catch (IOException e) {
+                e.printStackTrace();
+                informarFallo(ruta);
+                return;
+            }
+            sPendiente = pendiente;
+            sExportador = exportador;
+        }
         try {
-            // Se simula que tarda en ejecutarse dos segundos.
-            TimeUnit.SECONDS.sleep(ESPERA);
-            // Se crea el fichero y se escriben en él los datos recibidos.
-            File outputFile = getFichero();
-            exportar(outputFile, intent.getStringArrayExtra(EXTRA_DATOS));
-            // Se informa de la finalización de la exportación.
-            informar(outputFile);
-        } catch (Exception e) {
+            // Se crea el fichero y se escriben en él las filas de la fuente.
+            Exportador.Resultado resultado = exportador.exportar(fuente,
+                    new FileOutputStream(outputFile));
+            if (resultado.isCancelado()) {
+                //noinspection ResultOfMethodCallIgnored
+                outputFile.delete();
+            } else {
+                // Se informa de la finalización de la exportación.
+                informar(ruta, outputFile, resultado);
+            }
+        } catch (IOException e) {
             e.printStackTrace();
+            //noinspection ResultOfMethodCallIgnored
+            outputFile.delete();
+            informarFallo(ruta);
+        } finally {
+            synchronized (sCerrojo) {
+                sPendiente = null;
+                sExportador = null;
+            }
+            try {
+                fuente.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
     }
 
+    // Envía un broadcast al llamador para informar del progreso de la
+    // exportación. Los broadcasts incluyen la ruta del archivo pendiente, para
+    // que el llamador sepa a qué exportación se refieren.
+    private void informarProgreso(String ruta, long filas, double mbPorSegundo) {
+        Intent progresoIntent = new Intent(ACTION_PROGRESO);
+        progresoIntent.putExtra(EXTRA_FUENTE, ruta);
+        progresoIntent.putExtra(EXTRA_FILAS, filas);
+        progresoIntent.putExtra(EXTRA_MB_POR_SEGUNDO, mbPorSegundo);
+        LocalBroadcastManager.getInstance(this).sendBroadcast(progresoIntent);
+    }
+
     // Envía un broadcast al llamador para informar de la finalización de
-    // la exportación, incluyendo como extra la uri del archivo generado.
-    private void informar(File outputFile) {
+    // la exportación, incluyendo como extra la uri del archivo generado, el
+    // número de filas exportadas y la velocidad de escritura.
+    private void informar(String ruta, File outputFile, Exportador.Resultado resultado) {
         Intent respuestaIntent = new Intent(ACTION_COMPLETADA);
+        respuestaIntent.putExtra(EXTRA_FUENTE, ruta);
         respuestaIntent.putExtra(EXTRA_FILENAME, Uri.fromFile(outputFile));
-        try {
-            Thread.sleep(3000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        respuestaIntent.putExtra(EXTRA_FILAS, resultado.getFilas());
+        respuestaIntent.putExtra(EXTRA_MB_POR_SEGUNDO, resultado.getMbPorSegundo());
         LocalBroadcastManager.getInstance(this).sendBroadcast(
                 respuestaIntent);
     }
 
-    // Escribe los datos recibidos en el archivo recibido.
-    private void exportar(File outputFile, String[] alumnos)
-            throws FileNotFoundException {
-        PrintWriter escritor = new PrintWriter(outputFile);
-        for (String alumno : alumnos) {
-            escritor.println(alumno);
-        }
-        escritor.close();
+    // Envía un broadcast al llamador para informar de que la exportación no
+    // se ha podido realizar.
+    private void informarFallo(String ruta) {
+        Intent falloIntent = new Intent(ACTION_FALLIDA);
+        falloIntent.putExtra(EXTRA_FUENTE, ruta);
+        LocalBroadcastManager.getInstance(this).sendBroadcast(falloIntent);
     }
 
     // Retorna el fichero en el que realizar la exportación.
-    private File getFichero() {
+    private File getFichero(Exportador.Formato formato, boolean gzip) {
         final String nombre = "alumnos";
         // Se obtiene el directorio en el que crear el archivo (preferiblemente
         // en almacenamiento externo).
@@ -90,7 +193,8 @@ public class ExportarService extends IntentService {
         SimpleDateFormat formateadorFecha = new SimpleDateFormat(
                 "yyyyMMddHHmm", Locale.getDefault());
         String nombreArchivo = nombre
-                + formateadorFecha.format(new Date()) + ".txt";
+                + formateadorFecha.format(new Date()) + "." + formato.getExtension()
+                + (gzip ? ".gz" : "");
         return new File(rootDir, nombreArchivo);
     }
 
@@ -0,0 +1,20 @@
+package es.iessaladillo.pedrojoya.pr100;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Origen de las filas a exportar. Se recorren de una en una, como un cursor,
+// de manera que no es necesario tenerlas todas en memoria.
+public interface FuenteFilas extends Closeable {
+
+    // Retorna los nombres de las columnas.
+    String[] getColumnas();
+
+    // Avanza a la siguiente fila. Retorna false si no quedan más.
+    boolean moverSiguiente() throws IOException;
+
+    // Retorna el valor de la columna indicada en la fila actual (puede ser
+    // null).
+    String getValor(int columna);
+
+}
@@ -0,0 +1,147 @@
+package es.iessaladillo.pedrojoya.pr100;
+
+import android.content.Context;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+// Fuentes de filas pendientes de exportar. Los datos se guardan en un archivo
+// de la caché y el Intent del servicio solo lleva su ruta, en vez de los
+// propios datos, que estarían limitados por el tamaño máximo de una
+// transacción del Binder y se copiarían al empaquetarse. Al estar en disco,
+// la fuente sobrevive a que el sistema reinicie el proceso, y eliminar el
+// archivo antes de que el servicio lo abra descarta la exportación.
+// Cada valor se guarda como su longitud en bytes UTF-8 seguida de los bytes
+// (o solo NULO si es null), sin el límite de 64 KB de writeUTF().
+final class FuentesPendientes {
+
+    private static final String DIRECTORIO = "pendientes";
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // Longitud que indica un valor null.
+    private static final int NULO = -1;
+
+    private FuentesPendientes() {
+    }
+
+    // Guarda los valores de una sola columna en un nuevo archivo pendiente,
+    // que retorna.
+    static File guardar(Context context, String columna, List<String> valores)
+            throws IOException {
+        File directorio = new File(context.getCacheDir(), DIRECTORIO);
+        //noinspection ResultOfMethodCallIgnored
+        directorio.mkdirs();
+        File archivo = File.createTempFile("fuente", ".bin", directorio);
+        DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(archivo), TAMANO_BUFFER));
+        try {
+            escribir(salida, columna);
+            for (String valor : valores) {
+                escribir(salida, valor);
+            }
+        } catch (IOException e) {
+            salida.close();
+            //noinspection ResultOfMethodCallIgnored
+            archivo.delete();
+            throw e;
+        }
+        salida.close();
+        return archivo;
+    }
+
+    // Escribe el valor (que puede ser null) precedido de su longitud.
+    private static void escribir(DataOutputStream salida, String valor) throws IOException {
+        if (valor == null) {
+            salida.writeInt(NULO);
+        } else {
+            byte[] bytes = valor.getBytes(UTF_8);
+            salida.writeInt(bytes.length);
+            salida.write(bytes);
+        }
+    }
+
+    // Abre el archivo pendiente como fuente de filas. El archivo se elimina al
+    // cerrar la fuente.
+    static FuenteFilas abrir(File archivo) throws IOException {
+        return new FuenteArchivo(archivo);
+    }
+
+    // Fuente de filas de una sola columna que lee los valores del archivo a
+    // medida que se recorren.
+    private static class FuenteArchivo implements FuenteFilas {
+
+        private final File mArchivo;
+        private final DataInputStream mEntrada;
+        private final String[] mColumnas;
+        private String mValor;
+        // Buffer reutilizado para leer los bytes de cada valor.
+        private byte[] mBytes = new byte[256];
+
+        FuenteArchivo(File archivo) throws IOException {
+            mArchivo = archivo;
+            mEntrada = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(archivo), TAMANO_BUFFER));
+            try {
+                mColumnas = new String[]{leer(mEntrada.readInt())};
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public String[] getColumnas() {
+            return mColumnas;
+        }
+
+        @Override
+        public boolean moverSiguiente() throws IOException {
+            int longitud;
+            try {
+                longitud = mEntrada.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            mValor = leer(longitud);
+            return true;
+        }
+
+        // Lee el valor de la longitud recibida (que puede ser NULO).
+        private String leer(int longitud) throws IOException {
+            if (longitud == NULO) {
+                return null;
+            }
+            if (longitud > mBytes.length) {
+                mBytes = new byte[Math.max(longitud, 2 * mBytes.length)];
+            }
+            mEntrada.readFully(mBytes, 0, longitud);
+            return new String(mBytes, 0, longitud, UTF_8);
+        }
+
+        @Override
+        public String getValor(int columna) {
+            return mValor;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                mEntrada.close();
+            } finally {
+                //noinspection ResultOfMethodCallIgnored
+                mArchivo.delete();
+            }
+        }
+
+    }
+
+}
@@ -2,9 +2,11 @@ package es.iessaladillo.pedrojoya.pr100;
 
 import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
 import android.support.design.widget.Snackbar;
@@ -12,6 +14,7 @@ import android.support.v4.app.Fragment;
 import android.support.v4.content.FileProvider;
 import android.support.v4.content.LocalBroadcastManager;
 import android.support.v4.view.ViewCompat;
+import android.support.v7.app.AlertDialog;
 import android.util.SparseBooleanArray;
 import android.view.ActionMode;
 import android.view.LayoutInflater;
@@ -24,15 +27,28 @@ import android.widget.ArrayAdapter;
 import android.widget.ListView;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class MainFragment extends Fragment {
 
+    private static final String COLUMNA_NOMBRE = "nombre";
+    private static final String STATE_PENDIENTE = "pendiente";
+    // Formato y compresión de cada opción de R.array.formatos_exportacion.
+    private static final Exportador.Formato[] FORMATOS = {Exportador.Formato.CSV,
+            Exportador.Formato.JSON, Exportador.Formato.CSV, Exportador.Formato.JSON};
+    private static final boolean[] COMPRIMIDOS = {false, false, true, true};
+
     private ListView lstAlumnos;
     private BroadcastReceiver mExportarReceiver;
     private ArrayAdapter<String> mAdaptador;
     private LocalBroadcastManager mGestor;
+    // Archivo pendiente de la última exportación solicitada y snackbar que
+    // muestra su progreso.
+    private File mPendiente;
+    private Snackbar mSnackbarExportando;
 
     public MainFragment() {
     }
@@ -45,6 +61,19 @@ public class MainFragment extends Fragment {
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setRetainInstance(true);
+        // Si el sistema había destruido el proceso, se recupera la
+        // exportación en curso (el servicio vuelve a recibir su Intent).
+        if (savedInstanceState != null && savedInstanceState.containsKey(STATE_PENDIENTE)) {
+            mPendiente = new File(savedInstanceState.getString(STATE_PENDIENTE));
+        }
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (mPendiente != null) {
+            outState.putString(STATE_PENDIENTE, mPendiente.getAbsolutePath());
+        }
     }
 
     @Override
@@ -67,14 +96,69 @@ public class MainFragment extends Fragment {
 
             @Override
             public void onReceive(Context context, Intent intent) {
-                // Se informa de la localización del archivo generado.
-                Uri uri = intent.getParcelableExtra(ExportarService
-                        .EXTRA_FILENAME);
-                mostrarSnackbar(uri);
+                boolean actual = isExportacionActual(intent);
+                switch (intent.getAction()) {
+                    case ExportarService.ACTION_PROGRESO:
+                        if (actual) {
+                            mostrarProgreso(intent.getLongExtra(ExportarService.EXTRA_FILAS, 0),
+                                    intent.getDoubleExtra(
+                                            ExportarService.EXTRA_MB_POR_SEGUNDO, 0));
+                        }
+                        break;
+                    case ExportarService.ACTION_COMPLETADA:
+                        if (actual) {
+                            mPendiente = null;
+                        }
+                        // Se informa de la localización del archivo generado.
+                        Uri uri = intent.getParcelableExtra(ExportarService
+                                .EXTRA_FILENAME);
+                        mostrarSnackbar(uri);
+                        break;
+                    case ExportarService.ACTION_FALLIDA:
+                        if (actual) {
+                            mPendiente = null;
+                        }
+                        Snackbar.make(lstAlumnos, R.string.error_exportando,
+                                Snackbar.LENGTH_LONG).show();
+                        break;
+                }
             }
         };
     }
 
+    // Retorna si el broadcast del servicio corresponde a la última
+    // exportación solicitada.
+    private boolean isExportacionActual(Intent intent) {
+        return mPendiente != null && mPendiente.getAbsolutePath().equals(
+                intent.getStringExtra(ExportarService.EXTRA_FUENTE));
+    }
+
+    // Muestra el progreso de la exportación en curso, con la acción cancelar.
+    private void mostrarProgreso(long filas, double mbPorSegundo) {
+        String texto = getString(R.string.exportando_progreso, filas, mbPorSegundo);
+        if (mSnackbarExportando != null && mSnackbarExportando.isShownOrQueued()) {
+            mSnackbarExportando.setText(texto);
+        } else {
+            mostrarSnackbarExportando(texto);
+        }
+    }
+
+    // Muestra una snackbar con el mensaje y la acción cancelar la exportación
+    // en curso.
+    private void mostrarSnackbarExportando(CharSequence texto) {
+        mSnackbarExportando = Snackbar.make(lstAlumnos, texto, Snackbar.LENGTH_LONG).setAction(
+                R.string.cancelar, new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        if (mPendiente != null) {
+                            ExportarService.cancelar(mPendiente);
+                            mPendiente = null;
+                        }
+                    }
+                });
+        mSnackbarExportando.show();
+    }
+
     // Muestra una snackbar con el mensaje y la accion deshacer.
     private void mostrarSnackbar(final Uri uri) {
         Snackbar.make(lstAlumnos, R.string.listado_exportado, Snackbar.LENGTH_LONG).setAction(
@@ -94,7 +178,7 @@ public class MainFragment extends Fragment {
                         "es.iessaladillo.pedrojoya.pr100.fileprovider",
                         new File(uri.getPath()));
 
-        intent.setDataAndType(uriProvider, "text/plain");
+        intent.setDataAndType(uriProvider, getTipoMime(uri.getPath()));
         intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
         try {
             startActivity(intent);
@@ -103,6 +187,16 @@ public class MainFragment extends Fragment {
         }
     }
 
+    // Retorna el tipo MIME del archivo exportado según su extensión.
+    private static String getTipoMime(String ruta) {
+        if (ruta.endsWith(".gz")) {
+            return "application/gzip";
+        } else if (ruta.endsWith("." + Exportador.Formato.JSON.getExtension())) {
+            return "application/json";
+        }
+        return "text/plain";
+    }
+
     private void initVistas(View view) {
         setupListView(view);
     }
@@ -170,27 +264,88 @@ public class MainFragment extends Fragment {
 
     }
 
-    // Exporta la lista de alumnos.
+    // Exporta la lista de alumnos en el formato que elija el usuario.
     public void exportar() {
+        if (mAdaptador.getCount() > 0) {
+            new AlertDialog.Builder(getActivity()).setTitle(R.string.exportar_como).setItems(
+                    R.array.formatos_exportacion, new DialogInterface.OnClickListener() {
+                        @Override
+                        public void onClick(DialogInterface dialog, int which) {
+                            exportar(FORMATOS[which], COMPRIMIDOS[which]);
+                        }
+                    }).show();
+        }
+    }
+
+    private void exportar(Exportador.Formato formato, boolean gzip) {
         int numAlumnos = mAdaptador.getCount();
         if (numAlumnos > 0) {
-            // Se obtiene la lista de alumnos.
-            String[] alumnos = new String[numAlumnos];
+            // Se copian las referencias a los alumnos, ya que la lista puede
+            // seguir modificándose durante la exportación. La copia se
+            // escribe en el archivo pendiente en segundo plano.
+            ArrayList<String> alumnos = new ArrayList<>(numAlumnos);
             for (int i = 0; i < numAlumnos; i++) {
-                alumnos[i] = mAdaptador.getItem(i);
+                alumnos.add(mAdaptador.getItem(i));
+            }
+            new GuardarPendienteTask(getActivity().getApplicationContext(), alumnos, formato,
+                    gzip).execute();
+        }
+    }
+
+    // Guarda en segundo plano la copia de la lista en un archivo pendiente
+    // y después inicia el servicio, que recibe la ruta del archivo en vez de
+    // los propios datos. La opción de cancelar se muestra una vez conocido el
+    // archivo pendiente.
+    private class GuardarPendienteTask extends AsyncTask<Void, Void, File> {
+
+        private final Context mContexto;
+        private final List<String> mAlumnos;
+        private final Exportador.Formato mFormato;
+        private final boolean mGzip;
+
+        GuardarPendienteTask(Context contexto, List<String> alumnos, Exportador.Formato formato,
+                boolean gzip) {
+            mContexto = contexto;
+            mAlumnos = alumnos;
+            mFormato = formato;
+            mGzip = gzip;
+        }
+
+        @Override
+        protected File doInBackground(Void... params) {
+            try {
+                return FuentesPendientes.guardar(mContexto, COLUMNA_NOMBRE, mAlumnos);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
             }
-            // Se inicia el servicio enviando como extra el array de datos.
-            Intent i = new Intent(getActivity(), ExportarService.class);
-            i.putExtra(ExportarService.EXTRA_DATOS, alumnos);
-            getActivity().startService(i);
         }
+
+        @Override
+        protected void onPostExecute(File pendiente) {
+            if (pendiente == null) {
+                if (isAdded()) {
+                    Snackbar.make(lstAlumnos, R.string.error_exportando,
+                            Snackbar.LENGTH_LONG).show();
+                }
+                return;
+            }
+            mPendiente = pendiente;
+            ExportarService.start(mContexto, pendiente, mFormato, mGzip);
+            if (isAdded()) {
+                mostrarSnackbarExportando(getString(R.string.exportando));
+            }
+        }
+
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        // Se registra el receptor para la acción.
+        // Se registra el receptor para las acciones.
         IntentFilter exportarFilter = new IntentFilter(ExportarService.ACTION_COMPLETADA);
+        exportarFilter.addAction(ExportarService.ACTION_PROGRESO);
+        exportarFilter.addAction(ExportarService.ACTION_FALLIDA);
         mGestor.registerReceiver(mExportarReceiver, exportarFilter);
     }
 
@@ -0,0 +1,228 @@
+package es.iessaladillo.pedrojoya.pr100;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Comprueba los formatos de exportación y la cancelación, y exporta 1.000.000
+// de filas sintéticas en CSV, JSON y CSV comprimido. Las filas se escriben en
+// un flujo que las descarta, de manera que se mide el exportador y no el
+// disco. Se comprueban los bytes y el número de escrituras, que no dependen
+// de la máquina; los MB/s solo se informan.
+public class ExportadorBenchmarkTest {
+
+    private static final int NUM_FILAS = 1000000;
+    private static final String UTF_8 = "UTF-8";
+    // Tamaño medio mínimo de cada escritura en la salida: se escribe por
+    // bloques y no por filas.
+    private static final int BYTES_POR_ESCRITURA = 4096;
+
+    @Test
+    public void exportaCsvEscapandoValores() throws IOException {
+        String csv = exportar(Exportador.Formato.CSV, false, new Filas(new String[]{"nombre",
+                "direccion"}, new String[][]{{"Baldomero", "c/ Mayor, 1"},
+                {"Germán \"Ginés\"", null}}));
+        assertEquals("nombre,direccion\nBaldomero,\"c/ Mayor, 1\"\n\"Germán \"\"Ginés\"\"\",\n",
+                csv);
+    }
+
+    @Test
+    public void exportaJsonEscapandoValores() throws IOException {
+        String json = exportar(Exportador.Formato.JSON, false, new Filas(new String[]{"nombre",
+                "direccion"}, new String[][]{{"Baldomero", "c/ Mayor\n1"},
+                {"Germán \"Ginés\"", null}}));
+        assertEquals("[\n{\"nombre\":\"Baldomero\",\"direccion\":\"c/ Mayor\\n1\"},\n"
+                + "{\"nombre\":\"Germán \\\"Ginés\\\"\",\"direccion\":null}\n]\n", json);
+    }
+
+    @Test
+    public void exportaJsonSinFilas() throws IOException {
+        String json = exportar(Exportador.Formato.JSON, false,
+                new Filas(new String[]{"nombre"}, new String[0][]));
+        assertEquals("[\n]\n", json);
+    }
+
+    @Test
+    public void exportaComprimido() throws IOException {
+        Filas filas = new Filas(new String[]{"nombre"}, new String[][]{{"Baldomero"},
+                {"Rigoberto"}});
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        new Exportador(Exportador.Formato.CSV, true).exportar(filas, salida);
+        InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(
+                salida.toByteArray()));
+        ByteArrayOutputStream descomprimido = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int leidos;
+        while ((leidos = entrada.read(buffer)) != -1) {
+            descomprimido.write(buffer, 0, leidos);
+        }
+        assertEquals("nombre\nBaldomero\nRigoberto\n", descomprimido.toString(UTF_8));
+    }
+
+    @Test
+    public void cancelarDetieneLaExportacionAlAcabarElBloque() throws IOException {
+        final Exportador exportador = new Exportador(Exportador.Formato.CSV, false);
+        exportador.setFilasPorBloque(100);
+        exportador.setProgreso(new Exportador.Progreso() {
+            @Override
+            public void onProgreso(long filas, long bytes, long nanos) {
+                if (filas >= 300) {
+                    exportador.cancelar();
+                }
+            }
+        });
+        Exportador.Resultado resultado = exportador.exportar(new FilasSinteticas(NUM_FILAS),
+                new Descarte());
+        assertTrue(resultado.isCancelado());
+        assertEquals(300, resultado.getFilas());
+    }
+
+    @Test
+    public void benchmarkExportar() throws IOException {
+        // Calentamiento.
+        for (Exportador.Formato formato : Exportador.Formato.values()) {
+            new Exportador(formato, false).exportar(new FilasSinteticas(NUM_FILAS / 10),
+                    new Descarte());
+        }
+        medir("CSV", Exportador.Formato.CSV, false);
+        medir("JSON", Exportador.Formato.JSON, false);
+        medir("CSV con gzip", Exportador.Formato.CSV, true);
+    }
+
+    private static void medir(String nombre, Exportador.Formato formato, boolean gzip)
+            throws IOException {
+        Descarte salida = new Descarte();
+        Exportador.Resultado resultado = new Exportador(formato, gzip).exportar(
+                new FilasSinteticas(NUM_FILAS), salida);
+        String medidas = String.format("%s: %d filas, %.1f MB en %.0f ms, %.1f MB/s "
+                        + "(%.1f MB escritos)", nombre, resultado.getFilas(),
+                resultado.getBytes() / (1024.0 * 1024.0), resultado.getNanos() / 1e6,
+                resultado.getMbPorSegundo(), salida.mBytes / (1024.0 * 1024.0));
+        medidas += String.format(" en %d escrituras", salida.mEscrituras);
+        System.out.println(medidas);
+        assertEquals(medidas, NUM_FILAS, resultado.getFilas());
+        assertTrue(medidas, salida.mEscrituras <= salida.mBytes / BYTES_POR_ESCRITURA + 1);
+        // Con gzip se escriben menos bytes de los exportados, y sin él los mismos.
+        if (gzip) {
+            assertTrue(medidas, salida.mBytes < resultado.getBytes());
+        } else {
+            assertEquals(medidas, resultado.getBytes(), salida.mBytes);
+        }
+    }
+
+    private static String exportar(Exportador.Formato formato, boolean gzip, FuenteFilas filas)
+            throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        new Exportador(formato, gzip).exportar(filas, salida);
+        return salida.toString(UTF_8);
+    }
+
+    // Fuente con las filas recibidas.
+    private static class Filas implements FuenteFilas {
+
+        private final String[] mColumnas;
+        private final String[][] mFilas;
+        private int mPosicion = -1;
+
+        Filas(String[] columnas, String[][] filas) {
+            mColumnas = columnas;
+            mFilas = filas;
+        }
+
+        @Override
+        public String[] getColumnas() {
+            return mColumnas;
+        }
+
+        @Override
+        public boolean moverSiguiente() {
+            return ++mPosicion < mFilas.length;
+        }
+
+        @Override
+        public String getValor(int columna) {
+            return mFilas[mPosicion][columna];
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    // Fuente que genera las filas a medida que se recorren, sin tenerlas en
+    // memoria, como haría un cursor.
+    private static class FilasSinteticas implements FuenteFilas {
+
+        private static final String[] COLUMNAS = {"id", "nombre", "curso", "direccion"};
+        private static final String[] CURSOS = {"1º CFGS DAM", "2º CFGS DAM", "1º CFGM SMR",
+                "2º CFGM SMR"};
+
+        private final int mNumFilas;
+        private final String[] mValores = new String[COLUMNAS.length];
+        private int mFila;
+
+        FilasSinteticas(int numFilas) {
+            mNumFilas = numFilas;
+        }
+
+        @Override
+        public String[] getColumnas() {
+            return Arrays.copyOf(COLUMNAS, COLUMNAS.length);
+        }
+
+        @Override
+        public boolean moverSiguiente() {
+            if (mFila == mNumFilas) {
+                return false;
+            }
+            mFila++;
+            mValores[0] = String.valueOf(mFila);
+            mValores[1] = "Alumno " + mFila;
+            mValores[2] = CURSOS[mFila % CURSOS.length];
+            // Una de cada diez direcciones debe ir entre comillas.
+            mValores[3] = mFila % 10 == 0 ? "c/ Mayor, " + mFila : "c/ Su casa nº " + mFila;
+            return true;
+        }
+
+        @Override
+        public String getValor(int columna) {
+            return mValores[columna];
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    // Descarta lo que se escribe, contando los bytes y las escrituras.
+    private static class Descarte extends OutputStream {
+
+        private long mBytes;
+        private long mEscrituras;
+
+        @Override
+        public void write(int b) {
+            mBytes++;
+            mEscrituras++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            mBytes += len;
+            mEscrituras++;
+        }
+
+    }
+
+}
@@ -0,0 +1,118 @@
+package pedrojoya.iessaladillo.es.pr107;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.test.ProviderTestCase2;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+
+// Carga masiva de previsiones a través del proveedor: 50.000 filas insertadas
+// con bulkInsert() y con applyBatch() frente a inserciones individuales.
+public class DBProviderTest extends ProviderTestCase2<DBProvider> {
+
+    private static final String TAG = DBProviderTest.class.getSimpleName();
+    private static final int NUM_FILAS = 50000;
+    // Las inserciones individuales son mucho más lentas, así que se mide una
+    // muestra menor y se extrapola.
+    private static final int NUM_FILAS_INDIVIDUALES = 1000;
+
+    private long mLocalidadId;
+
+    public DBProviderTest() {
+        super(DBProvider.class, DBContract.CONTENT_AUTHORITY);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ContentValues localidad = new ContentValues();
+        localidad.put(DBContract.Localidad.TEXTO_CONSULTA, "Algeciras,es");
+        localidad.put(DBContract.Localidad.NOMBRE_CIUDAD, "Algeciras");
+        localidad.put(DBContract.Localidad.COORD_LATITUD, 36.13);
+        localidad.put(DBContract.Localidad.COORD_LONGITUD, -5.45);
+        Uri uri = getMockContentResolver().insert(DBContract.Localidad.CONTENT_URI, localidad);
+        mLocalidadId = Long.parseLong(uri.getLastPathSegment());
+    }
+
+    public void testBulkInsert() {
+        ContentValues[] valores = crearPrevisiones(NUM_FILAS);
+        long inicio = SystemClock.elapsedRealtime();
+        int insertadas = getMockContentResolver().bulkInsert(DBContract.Meteo.CONTENT_URI,
+                valores);
+        long duracion = SystemClock.elapsedRealtime() - inicio;
+        Log.i(TAG, String.format("bulkInsert: %d filas en %d ms (%.0f filas/s)",
+                insertadas, duracion, insertadas * 1000.0 / Math.max(duracion, 1)));
+        assertEquals(NUM_FILAS, insertadas);
+        assertEquals(NUM_FILAS, contarPrevisiones());
+    }
+
+    public void testApplyBatch() throws Exception {
+        ContentValues[] valores = crearPrevisiones(NUM_FILAS);
+        ArrayList<ContentProviderOperation> operaciones =
+                new ArrayList<ContentProviderOperation>(NUM_FILAS);
+        for (int i = 0; i < valores.length; i++) {
+            operaciones.add(ContentProviderOperation.newInsert(DBContract.Meteo.CONTENT_URI)
+                    .withValues(valores[i])
+                    .withYieldAllowed(i % 500 == 0)
+                    .build());
+        }
+        long inicio = SystemClock.elapsedRealtime();
+        getMockContentResolver().applyBatch(DBContract.CONTENT_AUTHORITY, operaciones);
+        long duracion = SystemClock.elapsedRealtime() - inicio;
+        Log.i(TAG, String.format("applyBatch: %d filas en %d ms (%.0f filas/s)",
+                NUM_FILAS, duracion, NUM_FILAS * 1000.0 / Math.max(duracion, 1)));
+        assertEquals(NUM_FILAS, contarPrevisiones());
+    }
+
+    public void testInsertIndividual() {
+        ContentValues[] valores = crearPrevisiones(NUM_FILAS_INDIVIDUALES);
+        long inicio = SystemClock.elapsedRealtime();
+        for (ContentValues valor : valores) {
+            getMockContentResolver().insert(DBContract.Meteo.CONTENT_URI, valor);
+        }
+        long duracion = SystemClock.elapsedRealtime() - inicio;
+        Log.i(TAG, String.format("insert individual: %d filas en %d ms (%.0f filas/s)",
+                NUM_FILAS_INDIVIDUALES, duracion,
+                NUM_FILAS_INDIVIDUALES * 1000.0 / Math.max(duracion, 1)));
+        assertEquals(NUM_FILAS_INDIVIDUALES, contarPrevisiones());
+    }
+
+    // Crea previsiones para días consecutivos (la tabla solo admite una por
+    // día y localidad).
+    private ContentValues[] crearPrevisiones(int numFilas) {
+        ContentValues[] valores = new ContentValues[numFilas];
+        Calendar calendario = Calendar.getInstance();
+        for (int i = 0; i < numFilas; i++) {
+            ContentValues valor = new ContentValues();
+            valor.put(DBContract.Meteo.LOCALIDAD_ID, mLocalidadId);
+            valor.put(DBContract.Meteo.FECHA, DBContract.dateToString(new Date(
+                    calendario.getTimeInMillis())));
+            valor.put(DBContract.Meteo.DESCRIPCION_CORTA, "Soleado");
+            valor.put(DBContract.Meteo.METEO_ID, 800);
+            valor.put(DBContract.Meteo.TEMPERATURA_MINIMA, 12.5);
+            valor.put(DBContract.Meteo.TEMPERATURA_MAXIMA, 24.0);
+            valor.put(DBContract.Meteo.HUMEDAD, 60.0);
+            valor.put(DBContract.Meteo.PRESION, 1013.0);
+            valor.put(DBContract.Meteo.VELOCIDAD_VIENTO, 5.5);
+            valor.put(DBContract.Meteo.GRADOS, 90.0);
+            valores[i] = valor;
+            calendario.add(Calendar.DAY_OF_YEAR, 1);
+        }
+        return valores;
+    }
+
+    private int contarPrevisiones() {
+        Cursor cursor = getMockContentResolver().query(DBContract.Meteo.CONTENT_URI, null, null,
+                null, null);
+        int count = cursor.getCount();
+        cursor.close();
+        return count;
+    }
+
+}
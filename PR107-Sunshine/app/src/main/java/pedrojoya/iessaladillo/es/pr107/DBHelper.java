@@ -21,7 +21,8 @@ import android.database.sqlite.SQLiteOpenHelper;
 
 public class DBHelper extends SQLiteOpenHelper {
 
-    private static final int DATABASE_VERSION = 1;
+    // Versión 2: se crea la tabla de localidades, que antes quedaba vacía.
+    private static final int DATABASE_VERSION = 2;
 
     public static final String DATABASE_NAME = "sunshine.db";
 
@@ -37,7 +38,12 @@ public class DBHelper extends SQLiteOpenHelper {
          * https://www.udacity.com/course/viewer#!/c-ud853/l-1639338560/e-1633698599/m-1633698600
          **/
 
-        final String SQL_CREATE_TABLE_LOCALIDAD = "";
+        final String SQL_CREATE_TABLE_LOCALIDAD = "CREATE TABLE " + DBContract.Localidad.NOMBRE_TABLA + " (" +
+                DBContract.Localidad._ID + " INTEGER PRIMARY KEY," +
+                DBContract.Localidad.TEXTO_CONSULTA + " TEXT UNIQUE NOT NULL, " +
+                DBContract.Localidad.NOMBRE_CIUDAD + " TEXT NOT NULL, " +
+                DBContract.Localidad.COORD_LATITUD + " REAL NOT NULL, " +
+                DBContract.Localidad.COORD_LONGITUD + " REAL NOT NULL);";
 
         final String SQL_CREATE_TABLE_METEO = "CREATE TABLE " + DBContract.Meteo.NOMBRE_TABLA + " (" +
                 // Why AutoIncrement here, and not above?
@@ -1,7 +1,11 @@
 package pedrojoya.iessaladillo.es.pr107;// /*
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentUris;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.SQLException;
@@ -9,11 +13,19 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
 public class DBProvider extends ContentProvider {
 
      // The URI Matcher used by this content provider.
      private static final UriMatcher sUriMatcher = buildUriMatcher();
      private DBHelper mOpenHelper;
+     // Uris pendientes de notificar mientras el hilo actual está aplicando un
+     // lote de operaciones (null si no hay lote en curso). Se notifica una sola
+     // vez por Uri al confirmar la transacción.
+     private final ThreadLocal<Set<Uri>> mUrisPendientes = new ThreadLocal<Set<Uri>>();
 
      private static final int METEO = 100;
      private static final int METEO_CON_LOCALIDAD = 101;
@@ -146,11 +158,32 @@ public class DBProvider extends ContentProvider {
                  break;
              }
 
-             /**
-              * TODO YOUR CODE BELOW HERE FOR QUIZ
-              * QUIZ - 4b - Implement Location_ID queries
-              * https://www.udacity.com/course/viewer#!/c-ud853/l-1576308909/e-1675098551/m-1675098552
-              **/
+             // "localidad"
+             case LOCALIDAD: {
+                 retCursor = mOpenHelper.getReadableDatabase().query(
+                         DBContract.Localidad.NOMBRE_TABLA,
+                         projection,
+                         selection,
+                         selectionArgs,
+                         null,
+                         null,
+                         sortOrder
+                 );
+                 break;
+             }
+             // "localidad/#"
+             case LOCALIDAD_ID: {
+                 retCursor = mOpenHelper.getReadableDatabase().query(
+                         DBContract.Localidad.NOMBRE_TABLA,
+                         projection,
+                         seleccionPorId(uri, selection),
+                         selectionArgs,
+                         null,
+                         null,
+                         sortOrder
+                 );
+                 break;
+             }
 
              default:
                  throw new UnsupportedOperationException("Unknown uri: " + uri);
@@ -173,11 +206,10 @@ public class DBProvider extends ContentProvider {
              case METEO:
                  return DBContract.Meteo.CONTENT_TYPE;
 
-             /**
-              * TODO YOUR CODE BELOW HERE FOR QUIZ
-              * QUIZ - 4b - Coding the Content Provider : getType
-              * https://www.udacity.com/course/viewer#!/c-ud853/l-1576308909/e-1675098546/m-1675098547
-              **/
+             case LOCALIDAD:
+                 return DBContract.Localidad.CONTENT_TYPE;
+             case LOCALIDAD_ID:
+                 return DBContract.Localidad.CONTENT_ITEM_TYPE;
 
              default:
                  throw new UnsupportedOperationException("Unknown uri: " + uri);
@@ -210,7 +242,7 @@ public class DBProvider extends ContentProvider {
              default:
                  throw new UnsupportedOperationException("Unknown uri: " + uri);
          }
-         getContext().getContentResolver().notifyChange(uri, null);
+         notificarCambio(uri);
          return returnUri;
      }
 
@@ -228,12 +260,16 @@ public class DBProvider extends ContentProvider {
                  rowsDeleted = db.delete(
                          DBContract.Localidad.NOMBRE_TABLA, selection, selectionArgs);
                  break;
+             case LOCALIDAD_ID:
+                 rowsDeleted = db.delete(DBContract.Localidad.NOMBRE_TABLA,
+                         seleccionPorId(uri, selection), selectionArgs);
+                 break;
              default:
                  throw new UnsupportedOperationException("Unknown uri: " + uri);
          }
          // Because a null deletes all rows
          if (selection == null || rowsDeleted != 0) {
-             getContext().getContentResolver().notifyChange(uri, null);
+             notificarCambio(uri);
          }
          return rowsDeleted;
      }
@@ -241,37 +277,128 @@ public class DBProvider extends ContentProvider {
      @Override
      public int update(
              Uri uri, ContentValues values, String selection, String[] selectionArgs) {
-         /**
-          * TODO YOUR CODE BELOW HERE FOR QUIZ
-          * QUIZ - 4b - Updating and Deleting
-          * https://www.udacity.com/course/viewer#!/c-ud853/l-1576308909/e-1675098563/m-1675098564
-          **/
-         return 0;
+         final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+         final int match = sUriMatcher.match(uri);
+         int rowsUpdated;
+         switch (match) {
+             case METEO:
+                 rowsUpdated = db.update(
+                         DBContract.Meteo.NOMBRE_TABLA, values, selection, selectionArgs);
+                 break;
+             case LOCALIDAD:
+                 rowsUpdated = db.update(
+                         DBContract.Localidad.NOMBRE_TABLA, values, selection, selectionArgs);
+                 break;
+             case LOCALIDAD_ID:
+                 rowsUpdated = db.update(DBContract.Localidad.NOMBRE_TABLA, values,
+                         seleccionPorId(uri, selection), selectionArgs);
+                 break;
+             default:
+                 throw new UnsupportedOperationException("Unknown uri: " + uri);
+         }
+         if (rowsUpdated != 0) {
+             notificarCambio(uri);
+         }
+         return rowsUpdated;
      }
 
+     // Inserta todos los registros en una transacción, cediendo el paso a otros
+     // hilos que esperen la base de datos entre inserción e inserción. Se
+     // notifica una sola vez al terminar.
+     // No es atómica: al ceder el paso se confirman las filas ya insertadas, y
+     // si después falla una inserción sólo se deshace lo posterior a la última
+     // cesión. Para un lote atómico se usa applyBatch() sin withYieldAllowed().
      @Override
      public int bulkInsert(Uri uri, ContentValues[] values) {
          final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
-         final int match = sUriMatcher.match(uri);
-         switch (match) {
-             case METEO:
-                 db.beginTransaction();
-                 int returnCount = 0;
-                 try {
-                     for (ContentValues value : values) {
-                         long _id = db.insert(DBContract.Meteo.NOMBRE_TABLA, null, value);
-                         if (_id != -1) {
-                             returnCount++;
-                         }
-                     }
-                     db.setTransactionSuccessful();
-                 } finally {
-                     db.endTransaction();
+         final boolean loteExterno = mUrisPendientes.get() != null;
+         final Set<Uri> pendientes = iniciarLote();
+         int returnCount = 0;
+         db.beginTransaction();
+         try {
+             for (ContentValues value : values) {
+                 // insert() lanza excepción si la uri no es válida o si
+                 // falla la inserción.
+                 insert(uri, value);
+                 returnCount++;
+                 db.yieldIfContendedSafely();
+             }
+             db.setTransactionSuccessful();
+         } finally {
+             db.endTransaction();
+             // Se notifica aunque falle, ya que al ceder el paso se confirma
+             // lo insertado hasta ese momento.
+             if (!loteExterno) {
+                 mUrisPendientes.remove();
+                 notificarPendientes(pendientes);
+             }
+         }
+         return returnCount;
+     }
+
+     // Aplica todas las operaciones en una transacción, cediendo el paso antes
+     // de las operaciones que lo permitan (withYieldAllowed). Se notifica una
+     // sola vez por cada Uri distinta al terminar. Lo aplicado antes de ceder el
+     // paso queda confirmado aunque falle una operación posterior; si ninguna
+     // permite ceder, el lote es atómico.
+     @Override
+     public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
+             throws OperationApplicationException {
+         final SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+         final boolean loteExterno = mUrisPendientes.get() != null;
+         final Set<Uri> pendientes = iniciarLote();
+         db.beginTransaction();
+         try {
+             final int numOperations = operations.size();
+             final ContentProviderResult[] results = new ContentProviderResult[numOperations];
+             for (int i = 0; i < numOperations; i++) {
+                 final ContentProviderOperation operation = operations.get(i);
+                 if (i > 0 && operation.isYieldAllowed()) {
+                     db.yieldIfContendedSafely();
                  }
-                 getContext().getContentResolver().notifyChange(uri, null);
-                 return returnCount;
-             default:
-                 return super.bulkInsert(uri, values);
+                 results[i] = operation.apply(this, results, i);
+             }
+             db.setTransactionSuccessful();
+             return results;
+         } finally {
+             db.endTransaction();
+             if (!loteExterno) {
+                 mUrisPendientes.remove();
+                 notificarPendientes(pendientes);
+             }
+         }
+     }
+
+     // Comienza un lote en el hilo actual. Retorna el conjunto en el que se
+     // acumularán las uris a notificar.
+     private Set<Uri> iniciarLote() {
+         Set<Uri> pendientes = mUrisPendientes.get();
+         if (pendientes == null) {
+             pendientes = new HashSet<Uri>();
+             mUrisPendientes.set(pendientes);
          }
+         return pendientes;
+     }
+
+     // Notifica el cambio en la uri, o lo deja pendiente si hay un lote en curso.
+     private void notificarCambio(Uri uri) {
+         Set<Uri> pendientes = mUrisPendientes.get();
+         if (pendientes != null) {
+             pendientes.add(uri);
+         } else {
+             getContext().getContentResolver().notifyChange(uri, null);
+         }
+     }
+
+     private void notificarPendientes(Set<Uri> pendientes) {
+         for (Uri uri : pendientes) {
+             getContext().getContentResolver().notifyChange(uri, null);
+         }
+     }
+
+     // Añade a la selección el _id indicado en la uri.
+     private static String seleccionPorId(Uri uri, String selection) {
+         String seleccionId = DBContract.Localidad._ID + " = " + ContentUris.parseId(uri);
+         return selection == null ? seleccionId : seleccionId + " AND (" + selection + ")";
      }
 }
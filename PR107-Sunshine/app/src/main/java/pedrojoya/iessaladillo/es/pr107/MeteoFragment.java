@@ -1,13 +1,17 @@
 package pedrojoya.iessaladillo.es.pr107;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.SharedPreferences;
-import android.net.Uri;
+import android.database.Cursor;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.v4.app.Fragment;
-import android.util.Log;
+import android.support.v4.app.LoaderManager;
+import android.support.v4.content.CursorLoader;
+import android.support.v4.content.Loader;
+import android.support.v4.widget.CursorAdapter;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -15,25 +19,14 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
 import android.widget.ListView;
+import android.widget.TextView;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 
 
-public class MeteoFragment extends Fragment {
+public class MeteoFragment extends Fragment implements LoaderManager.LoaderCallbacks<Cursor> {
 
     private String mLocalidad;
     private String mUnidad;
@@ -45,11 +38,26 @@ public class MeteoFragment extends Fragment {
 
     // Constantes.
     private static final String ARG_CIUDAD = "ciudad";
+    private static final int LOADER_METEO = 0;
+    // Columnas que se muestran en la lista.
+    private static final String[] PROYECCION = {
+            DBContract.Meteo.NOMBRE_TABLA + "." + DBContract.Meteo._ID + " AS "
+                    + DBContract.Meteo._ID,
+            DBContract.Meteo.FECHA,
+            DBContract.Meteo.DESCRIPCION_CORTA,
+            DBContract.Meteo.TEMPERATURA_MAXIMA,
+            DBContract.Meteo.TEMPERATURA_MINIMA
+    };
+    private static final int COL_FECHA = 1;
+    private static final int COL_DESCRIPCION = 2;
+    private static final int COL_MAXIMA = 3;
+    private static final int COL_MINIMA = 4;
 
     // Variables a nivel de clase.
     private String mCiudad;
     private CallbackListener mListener;
-    private ArrayAdapter<String> mAdaptador;
+    private MeteoAdapter mAdaptador;
+    private final SimpleDateFormat mFormatoLegible = new SimpleDateFormat("E, MMM d");
 
     // Vistas.
     private ListView lstMeteo;
@@ -80,20 +88,32 @@ public class MeteoFragment extends Fragment {
     public boolean onOptionsItemSelected(MenuItem item) {
         switch (item.getItemId()) {
             case R.id.mnuRefrescar:
-                actualizarMeteo();
+                actualizarMeteo(true);
                 return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
-    // Refresca los datos de la lista.
-    private void actualizarMeteo() {
+    // Lee las preferencias y sincroniza los datos de la localidad. Si no se
+    // fuerza y los datos son recientes no se accede a la red. La lista se
+    // actualiza sola a través del cargador cuando cambian los datos.
+    private void actualizarMeteo(boolean forzar) {
         // Se obtienen las preferencias.
         SharedPreferences preferencias = PreferenceManager.getDefaultSharedPreferences(getActivity());
-        mLocalidad = preferencias.getString(getActivity().getString(R.string.prefLocalidadKey), "Madrid");
-        mUnidad = preferencias.getString(getActivity().getString(R.string.prefUnidadKey), "metric");
-        ObtenerDatosMeteo tarea = new ObtenerDatosMeteo();
-        tarea.execute(mLocalidad);
+        String localidad = preferencias.getString(getActivity().getString(R.string.prefLocalidadKey), "Madrid");
+        String unidad = preferencias.getString(getActivity().getString(R.string.prefUnidadKey), "metric");
+        if (mLocalidad != null && !mLocalidad.equals(localidad)) {
+            // Ha cambiado la localidad, así que cambia la consulta.
+            mLocalidad = localidad;
+            getLoaderManager().restartLoader(LOADER_METEO, null, this);
+        }
+        mLocalidad = localidad;
+        if (!unidad.equals(mUnidad)) {
+            // Solo cambia el formato de las temperaturas.
+            mUnidad = unidad;
+            mAdaptador.notifyDataSetChanged();
+        }
+        new SincronizarMeteo(getActivity(), forzar).execute(mLocalidad);
     }
 
     // Al crearse el fragmento.
@@ -119,7 +139,7 @@ public class MeteoFragment extends Fragment {
     @Override
     public void onStart() {
         super.onStart();
-        actualizarMeteo();
+        actualizarMeteo(false);
     }
 
     // Al crearse completamente la actividad.
@@ -128,23 +148,27 @@ public class MeteoFragment extends Fragment {
         super.onActivityCreated(savedInstanceState);
         // Se obtienen e inicializan las vistas.
         initVistas();
+        // Se lee la localidad antes de crear el cargador.
+        SharedPreferences preferencias = PreferenceManager.getDefaultSharedPreferences(getActivity());
+        mLocalidad = preferencias.getString(getActivity().getString(R.string.prefLocalidadKey), "Madrid");
+        mUnidad = preferencias.getString(getActivity().getString(R.string.prefUnidadKey), "metric");
+        // Tras un cambio de orientación el cargador retiene el cursor, por lo
+        // que no se vuelve a consultar ni a descargar nada.
+        getLoaderManager().initLoader(LOADER_METEO, null, this);
     }
 
     // Obtiene e inicializa las vistas.
     private void initVistas() {
         // Se carga de datos el adaptador para la lista.
         lstMeteo = (ListView) getView().findViewById(R.id.lstMeteo);
-        mAdaptador = new ArrayAdapter<String>(
-                getActivity(),
-                R.layout.fragment_meteo_item,
-                R.id.lblMeteo,
-                new ArrayList<String>());
+        mAdaptador = new MeteoAdapter(getActivity());
         lstMeteo.setAdapter(mAdaptador);
         lstMeteo.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                if (mListener != null) {
-                    mListener.onItemClick(mAdaptador.getItem(position));
+                Cursor cursor = (Cursor) mAdaptador.getItem(position);
+                if (mListener != null && cursor != null) {
+                    mListener.onItemClick(formatearPrevision(cursor));
                 }
             }
         });
@@ -170,105 +194,83 @@ public class MeteoFragment extends Fragment {
         mListener = null;
     }
 
-    // Tarea asíncrona que obtiene los datos para la lista.
-    public class ObtenerDatosMeteo extends AsyncTask<String, Void, String[]> {
+    // Cuando se crea el cargador. Consulta la previsión de la localidad a
+    // partir de hoy.
+    @Override
+    public Loader<Cursor> onCreateLoader(int id, Bundle args) {
+        return new CursorLoader(getActivity(),
+                DBContract.Meteo.getMeteoLocalidadConFechaInicioUri(mLocalidad,
+                        DBContract.dateToString(new Date())),
+                PROYECCION, null, null, DBContract.Meteo.FECHA + " ASC");
+    }
+
+    // Cuando terminan de cargarse los datos en el cargador.
+    @Override
+    public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
+        mAdaptador.swapCursor(data);
+    }
+
+    // Cuando se resetea el cargador.
+    @Override
+    public void onLoaderReset(Loader<Cursor> loader) {
+        mAdaptador.swapCursor(null);
+    }
+
+    // Tarea asíncrona que sincroniza los datos de la localidad con la BD.
+    private static class SincronizarMeteo extends AsyncTask<String, Void, Integer> {
 
-        // Recibe el nombre de la localidad y la unidad de medida.
+        private final SincronizadorMeteo mSincronizador;
+        private final boolean mForzar;
+
+        SincronizarMeteo(Context context, boolean forzar) {
+            mSincronizador = new SincronizadorMeteo(context.getApplicationContext());
+            mForzar = forzar;
+        }
+
+        // Recibe el nombre de la localidad.
         @Override
-        protected String[] doInBackground(String... params) {
+        protected Integer doInBackground(String... params) {
             // Si no hay parámetros no se hace nada.
             if (params.length == 0) {
-                return null;
+                return 0;
             }
-            HttpURLConnection conexion = null;
-            BufferedReader lector = null;
-            String resultadoJson = null;
-            try {
-                // Se construye la URL de consulta para la API OpenWeatherMap.
-                final String URL_BASE = "http://api.openweathermap.org/data/2.5/forecast/daily?";
-                final String PARAM_TERMINO = "q";
-                final String PARAM_FORMATO = "mode";
-                final String PARAM_UNIDADES = "units";
-                final String PARAM_DIAS = "cnt";
-                Uri uri = Uri.parse(URL_BASE)
-                        .buildUpon()
-                        .appendQueryParameter(PARAM_TERMINO, params[0])
-                        .appendQueryParameter(PARAM_FORMATO, "json")
-                        .appendQueryParameter(PARAM_UNIDADES, "metric")
-                        .appendQueryParameter(PARAM_DIAS, "7")
-                        .build();
-                URL url = new URL(uri.toString());
-                // Se realiza la petición GET.
-                conexion = (HttpURLConnection) url.openConnection();
-                conexion.setRequestMethod("GET");
-                conexion.connect();
-                // Se obtiene el flujo de entrada de la conexión y se crea el lector.
-                InputStream inputStream = conexion.getInputStream();
-                if (inputStream == null) {
-                    // Nothing to do.
-                    resultadoJson = null;
-                }
-                lector = new BufferedReader(new InputStreamReader(inputStream));
-                // Se lee línea a línea el resultado.
-                StringBuffer buffer = new StringBuffer();
-                String line;
-                while ((line = lector.readLine()) != null) {
-                    buffer.append(line + "\n");
-                }
+            return mSincronizador.sincronizar(params[0], mForzar);
+        }
 
-                if (buffer.length() == 0) {
-                    // Stream was empty.  No point in parsing.
-                    resultadoJson = null;
-                }
-                resultadoJson = buffer.toString();
-            } catch (IOException e) {
-                Log.e("PlaceholderFragment", "Error ", e);
-                // If the code didn't successfully get the weather data, there's no point in attemping
-                // to parse it.
-                resultadoJson = null;
-            } finally {
-                if (conexion != null) {
-                    conexion.disconnect();
-                }
-                if (lector != null) {
-                    try {
-                        lector.close();
-                    } catch (final IOException e) {
-                        Log.e("PlaceholderFragment", "Error closing stream", e);
-                    }
-                }
-            }
-            // Se parsea el resultado y retornamos el array de strings resultante.
-            try {
-                return getWeatherDataFromJson(resultadoJson, 7);
-            } catch (JSONException e) {
-                e.printStackTrace();
-            }
-            return null;
+    }
+
+    // Adaptador para la lista de previsiones.
+    private class MeteoAdapter extends CursorAdapter {
+
+        MeteoAdapter(Context context) {
+            super(context, null, 0);
         }
 
         @Override
-        protected void onPostExecute(String[] strings) {
-            super.onPostExecute(strings);
-            if (strings != null) {
-                mAdaptador.clear();
-                for (String item : strings) {
-                    mAdaptador.add(item);
-                }
-            }
+        public View newView(Context context, Cursor cursor, ViewGroup parent) {
+            return LayoutInflater.from(context).inflate(R.layout.fragment_meteo_item, parent,
+                    false);
+        }
+
+        @Override
+        public void bindView(View view, Context context, Cursor cursor) {
+            ((TextView) view.findViewById(R.id.lblMeteo)).setText(formatearPrevision(cursor));
         }
 
     }
 
-    /* The date/time conversion code is going to be moved outside the asynctask later,
- * so for convenience we're breaking it out into its own method now.
- */
-    private String getReadableDateString(long time) {
-        // Because the API returns a unix timestamp (measured in seconds),
-        // it must be converted to milliseconds in order to be converted to valid date.
-        Date date = new Date(time * 1000);
-        SimpleDateFormat format = new SimpleDateFormat("E, MMM d");
-        return format.format(date).toString();
+    // Retorna el texto a mostrar para la previsión del registro actual del
+    // cursor, con el formato "Día - descripción - máxima/mínima".
+    private String formatearPrevision(Cursor cursor) {
+        return getReadableDateString(cursor.getString(COL_FECHA)) + " - "
+                + cursor.getString(COL_DESCRIPCION) + " - "
+                + formatHighLows(cursor.getDouble(COL_MAXIMA), cursor.getDouble(COL_MINIMA));
+    }
+
+    // Convierte la fecha almacenada en la BD en una legible.
+    private String getReadableDateString(String fecha) {
+        Date date = DBContract.stringToDate(fecha);
+        return date != null ? mFormatoLegible.format(date) : fecha;
     }
 
     /**
@@ -276,7 +278,7 @@ public class MeteoFragment extends Fragment {
      */
     private String formatHighLows(double high, double low) {
         // Se pasa al sistema imperial si así se ha configurado.
-        if (mUnidad.equals("imperial")) {
+        if ("imperial".equals(mUnidad)) {
             high = (high * 1.8) + 32;
             low = (low * 1.8) + 32;
         }
@@ -288,59 +290,4 @@ public class MeteoFragment extends Fragment {
         return highLowStr;
     }
 
-    /**
-     * Take the String representing the complete forecast in JSON Format and
-     * pull out the data we need to construct the Strings needed for the wireframes.
-     * <p/>
-     * Fortunately parsing is easy:  constructor takes the JSON string and converts it
-     * into an Object hierarchy for us.
-     */
-    private String[] getWeatherDataFromJson(String forecastJsonStr, int numDays)
-            throws JSONException {
-
-        // These are the names of the JSON objects that need to be extracted.
-        final String OWM_LIST = "list";
-        final String OWM_WEATHER = "weather";
-        final String OWM_TEMPERATURE = "temp";
-        final String OWM_MAX = "max";
-        final String OWM_MIN = "min";
-        final String OWM_DATETIME = "dt";
-        final String OWM_DESCRIPTION = "main";
-
-        JSONObject forecastJson = new JSONObject(forecastJsonStr);
-        JSONArray weatherArray = forecastJson.getJSONArray(OWM_LIST);
-
-        String[] resultStrs = new String[numDays];
-        for (int i = 0; i < weatherArray.length(); i++) {
-            // For now, using the format "Day, description, hi/low"
-            String day;
-            String description;
-            String highAndLow;
-
-            // Get the JSON object representing the day
-            JSONObject dayForecast = weatherArray.getJSONObject(i);
-
-            // The date/time is returned as a long.  We need to convert that
-            // into something human-readable, since most people won't read "1400356800" as
-            // "this saturday".
-            long dateTime = dayForecast.getLong(OWM_DATETIME);
-            day = getReadableDateString(dateTime);
-
-            // description is in a child array called "weather", which is 1 element long.
-            JSONObject weatherObject = dayForecast.getJSONArray(OWM_WEATHER).getJSONObject(0);
-            description = weatherObject.getString(OWM_DESCRIPTION);
-
-            // Temperatures are in a child object called "temp".  Try not to name variables
-            // "temp" when working with temperature.  It confuses everybody.
-            JSONObject temperatureObject = dayForecast.getJSONObject(OWM_TEMPERATURE);
-            double high = temperatureObject.getDouble(OWM_MAX);
-            double low = temperatureObject.getDouble(OWM_MIN);
-
-            highAndLow = formatHighLows(high, low);
-            resultStrs[i] = day + " - " + description + " - " + highAndLow;
-        }
-
-        return resultStrs;
-    }
-
 }
@@ -0,0 +1,279 @@
+package pedrojoya.iessaladillo.es.pr107;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+
+// Sincroniza la previsión de una localidad con la base de datos local. La
+// respuesta de OpenWeatherMap se parsea en streaming (sin cargarla antes en
+// un String) y se guarda con DBProvider.bulkInsert(). La tabla meteo tiene
+// una restricción UNIQUE (fecha, localidad_id) ON CONFLICT REPLACE, por lo que
+// cada inserción actualiza la previsión de ese día si ya existía.
+// Si la última sincronización de la localidad es reciente no se accede a la
+// red.
+public class SincronizadorMeteo {
+
+    private static final String TAG = SincronizadorMeteo.class.getSimpleName();
+
+    // Tiempo durante el que se consideran válidos los datos descargados.
+    public static final long VENTANA_FRESCURA = 60 * 60 * 1000; // 1 hora.
+
+    private static final String PREFS_SINCRONIZACION = "sincronizacion_meteo";
+    private static final String PREF_ULTIMA_PREFIJO = "ultima_";
+
+    private static final String URL_BASE = "http://api.openweathermap.org/data/2.5/forecast/daily?";
+    private static final String PARAM_TERMINO = "q";
+    private static final String PARAM_FORMATO = "mode";
+    private static final String PARAM_UNIDADES = "units";
+    private static final String PARAM_DIAS = "cnt";
+    private static final int NUM_DIAS = 7;
+
+    // Nombres de los elementos JSON de la respuesta.
+    private static final String OWM_CITY = "city";
+    private static final String OWM_CITY_NAME = "name";
+    private static final String OWM_COORD = "coord";
+    private static final String OWM_LATITUDE = "lat";
+    private static final String OWM_LONGITUDE = "lon";
+    private static final String OWM_LIST = "list";
+    private static final String OWM_DATETIME = "dt";
+    private static final String OWM_PRESSURE = "pressure";
+    private static final String OWM_HUMIDITY = "humidity";
+    private static final String OWM_WINDSPEED = "speed";
+    private static final String OWM_WIND_DIRECTION = "deg";
+    private static final String OWM_TEMPERATURE = "temp";
+    private static final String OWM_MAX = "max";
+    private static final String OWM_MIN = "min";
+    private static final String OWM_WEATHER = "weather";
+    private static final String OWM_WEATHER_ID = "id";
+    private static final String OWM_DESCRIPTION = "main";
+
+    private final ContentResolver mContentResolver;
+    private final SharedPreferences mPreferencias;
+
+    public SincronizadorMeteo(Context context) {
+        mContentResolver = context.getContentResolver();
+        mPreferencias = context.getSharedPreferences(PREFS_SINCRONIZACION,
+                Context.MODE_PRIVATE);
+    }
+
+    // Retorna si los datos de la localidad se han sincronizado hace menos de
+    // VENTANA_FRESCURA.
+    public boolean isActualizada(String localidad) {
+        long ultima = mPreferencias.getLong(PREF_ULTIMA_PREFIJO + localidad, 0);
+        long ahora = System.currentTimeMillis();
+        return ultima <= ahora && ahora - ultima < VENTANA_FRESCURA;
+    }
+
+    // Sincroniza los datos de la localidad. Si forzar es false y los datos son
+    // recientes no se hace nada. Retorna el número de previsiones guardadas
+    // (0 si no ha sido necesario acceder a la red o se ha producido un error).
+    public int sincronizar(String localidad, boolean forzar) {
+        if (!forzar && isActualizada(localidad)) {
+            return 0;
+        }
+        HttpURLConnection conexion = null;
+        JsonReader lector = null;
+        try {
+            Uri uri = Uri.parse(URL_BASE)
+                    .buildUpon()
+                    .appendQueryParameter(PARAM_TERMINO, localidad)
+                    .appendQueryParameter(PARAM_FORMATO, "json")
+                    .appendQueryParameter(PARAM_UNIDADES, "metric")
+                    .appendQueryParameter(PARAM_DIAS, String.valueOf(NUM_DIAS))
+                    .build();
+            conexion = (HttpURLConnection) new URL(uri.toString()).openConnection();
+            conexion.setRequestMethod("GET");
+            conexion.connect();
+            // Se parsea directamente desde el flujo de entrada.
+            lector = new JsonReader(new InputStreamReader(
+                    new BufferedInputStream(conexion.getInputStream()), "UTF-8"));
+            int guardadas = leerRespuesta(lector, localidad);
+            // Solo se consideran frescos los datos si se ha guardado alguna
+            // previsión; si no, la siguiente llamada vuelve a intentarlo.
+            if (guardadas > 0) {
+                mPreferencias.edit()
+                        .putLong(PREF_ULTIMA_PREFIJO + localidad, System.currentTimeMillis())
+                        .apply();
+            }
+            return guardadas;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al sincronizar la previsión de " + localidad, e);
+            return 0;
+        } catch (IllegalStateException e) {
+            // Respuesta con un formato inesperado.
+            Log.e(TAG, "Error al parsear la previsión de " + localidad, e);
+            return 0;
+        } finally {
+            if (lector != null) {
+                try {
+                    lector.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error al cerrar el flujo", e);
+                }
+            }
+            if (conexion != null) {
+                conexion.disconnect();
+            }
+        }
+    }
+
+    // Lee la respuesta y guarda la localidad y sus previsiones. La ciudad
+    // puede aparecer antes o después de la lista, así que las previsiones se
+    // acumulan hasta conocer el _id de la localidad.
+    private int leerRespuesta(JsonReader lector, String localidad) throws IOException {
+        ContentValues ciudad = null;
+        ArrayList<ContentValues> previsiones = new ArrayList<ContentValues>(NUM_DIAS);
+        lector.beginObject();
+        while (lector.hasNext()) {
+            String nombre = lector.nextName();
+            if (OWM_CITY.equals(nombre)) {
+                ciudad = leerCiudad(lector, localidad);
+            } else if (OWM_LIST.equals(nombre)) {
+                lector.beginArray();
+                while (lector.hasNext()) {
+                    previsiones.add(leerPrevision(lector));
+                }
+                lector.endArray();
+            } else {
+                lector.skipValue();
+            }
+        }
+        lector.endObject();
+        if (ciudad == null || previsiones.isEmpty()) {
+            return 0;
+        }
+        long localidadId = guardarLocalidad(ciudad);
+        ContentValues[] valores = new ContentValues[previsiones.size()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = previsiones.get(i);
+            valores[i].put(DBContract.Meteo.LOCALIDAD_ID, localidadId);
+        }
+        return mContentResolver.bulkInsert(DBContract.Meteo.CONTENT_URI, valores);
+    }
+
+    private ContentValues leerCiudad(JsonReader lector, String localidad) throws IOException {
+        ContentValues valores = new ContentValues();
+        valores.put(DBContract.Localidad.TEXTO_CONSULTA, localidad);
+        valores.put(DBContract.Localidad.NOMBRE_CIUDAD, localidad);
+        valores.put(DBContract.Localidad.COORD_LATITUD, 0.0);
+        valores.put(DBContract.Localidad.COORD_LONGITUD, 0.0);
+        lector.beginObject();
+        while (lector.hasNext()) {
+            String nombre = lector.nextName();
+            if (OWM_CITY_NAME.equals(nombre)) {
+                valores.put(DBContract.Localidad.NOMBRE_CIUDAD, lector.nextString());
+            } else if (OWM_COORD.equals(nombre)) {
+                lector.beginObject();
+                while (lector.hasNext()) {
+                    String coordenada = lector.nextName();
+                    if (OWM_LATITUDE.equals(coordenada)) {
+                        valores.put(DBContract.Localidad.COORD_LATITUD, lector.nextDouble());
+                    } else if (OWM_LONGITUDE.equals(coordenada)) {
+                        valores.put(DBContract.Localidad.COORD_LONGITUD, lector.nextDouble());
+                    } else {
+                        lector.skipValue();
+                    }
+                }
+                lector.endObject();
+            } else {
+                lector.skipValue();
+            }
+        }
+        lector.endObject();
+        return valores;
+    }
+
+    private ContentValues leerPrevision(JsonReader lector) throws IOException {
+        ContentValues valores = new ContentValues();
+        lector.beginObject();
+        while (lector.hasNext()) {
+            String nombre = lector.nextName();
+            if (OWM_DATETIME.equals(nombre)) {
+                // La API retorna segundos desde epoch.
+                valores.put(DBContract.Meteo.FECHA,
+                        DBContract.dateToString(new Date(lector.nextLong() * 1000)));
+            } else if (OWM_PRESSURE.equals(nombre)) {
+                valores.put(DBContract.Meteo.PRESION, lector.nextDouble());
+            } else if (OWM_HUMIDITY.equals(nombre)) {
+                valores.put(DBContract.Meteo.HUMEDAD, lector.nextDouble());
+            } else if (OWM_WINDSPEED.equals(nombre)) {
+                valores.put(DBContract.Meteo.VELOCIDAD_VIENTO, lector.nextDouble());
+            } else if (OWM_WIND_DIRECTION.equals(nombre)) {
+                valores.put(DBContract.Meteo.GRADOS, lector.nextDouble());
+            } else if (OWM_TEMPERATURE.equals(nombre)) {
+                lector.beginObject();
+                while (lector.hasNext()) {
+                    String temperatura = lector.nextName();
+                    if (OWM_MAX.equals(temperatura)) {
+                        valores.put(DBContract.Meteo.TEMPERATURA_MAXIMA, lector.nextDouble());
+                    } else if (OWM_MIN.equals(temperatura)) {
+                        valores.put(DBContract.Meteo.TEMPERATURA_MINIMA, lector.nextDouble());
+                    } else {
+                        lector.skipValue();
+                    }
+                }
+                lector.endObject();
+            } else if (OWM_WEATHER.equals(nombre) && lector.peek() == JsonToken.BEGIN_ARRAY) {
+                // Solo interesa el primer elemento.
+                lector.beginArray();
+                if (lector.hasNext()) {
+                    lector.beginObject();
+                    while (lector.hasNext()) {
+                        String dato = lector.nextName();
+                        if (OWM_WEATHER_ID.equals(dato)) {
+                            valores.put(DBContract.Meteo.METEO_ID, lector.nextInt());
+                        } else if (OWM_DESCRIPTION.equals(dato)) {
+                            valores.put(DBContract.Meteo.DESCRIPCION_CORTA, lector.nextString());
+                        } else {
+                            lector.skipValue();
+                        }
+                    }
+                    lector.endObject();
+                }
+                while (lector.hasNext()) {
+                    lector.skipValue();
+                }
+                lector.endArray();
+            } else {
+                lector.skipValue();
+            }
+        }
+        lector.endObject();
+        return valores;
+    }
+
+    // Inserta la localidad si no existía. Retorna su _id.
+    private long guardarLocalidad(ContentValues ciudad) {
+        String textoConsulta = ciudad.getAsString(DBContract.Localidad.TEXTO_CONSULTA);
+        Cursor cursor = mContentResolver.query(DBContract.Localidad.CONTENT_URI,
+                new String[]{DBContract.Localidad._ID},
+                DBContract.Localidad.TEXTO_CONSULTA + " = ?", new String[]{textoConsulta},
+                null);
+        if (cursor != null) {
+            try {
+                if (cursor.moveToFirst()) {
+                    return cursor.getLong(0);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        Uri uri = mContentResolver.insert(DBContract.Localidad.CONTENT_URI, ciudad);
+        return Long.parseLong(uri.getLastPathSegment());
+    }
+
+}
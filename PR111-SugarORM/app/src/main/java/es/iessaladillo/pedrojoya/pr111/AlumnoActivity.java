@@ -13,6 +13,7 @@ import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.util.Collections;
 import java.util.Random;
 
 import butterknife.BindView;
@@ -122,8 +123,7 @@ public class AlumnoActivity extends AppCompatActivity {
             mAlumno = new Alumno();
             mAlumno.setAvatar(getRandomAvatarUrl());
             vistasToAlumno();
-            mAlumno.save();
-            finish();
+            guardarAlumno();
         } else {
             Toast.makeText(this, "Nombre y teléfono son obligatorios", Toast.LENGTH_SHORT).show();
         }
@@ -133,13 +133,33 @@ public class AlumnoActivity extends AppCompatActivity {
         if (!TextUtils.isEmpty(txtNombre.getText().toString()) && !TextUtils.isEmpty(
                 txtTelefono.getText().toString())) {
             vistasToAlumno();
-            mAlumno.save();
-            finish();
+            guardarAlumno();
         } else {
             Toast.makeText(this, "Nombre y teléfono son obligatorios", Toast.LENGTH_SHORT).show();
         }
     }
 
+    // Guarda el alumno en segundo plano y finaliza la actividad cuando está
+    // guardado. Mientras tanto se deshabilita el botón de guardar.
+    private void guardarAlumno() {
+        btnGuardar.setEnabled(false);
+        AlumnosRepository.getInstance().guardar(Collections.singletonList(mAlumno),
+                new AlumnosRepository.Callback<Void>() {
+                    @Override
+                    public void onSuccess(Void resultado) {
+                        finish();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        e.printStackTrace();
+                        btnGuardar.setEnabled(true);
+                        Toast.makeText(AlumnoActivity.this, R.string.error_guardar,
+                                Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
     // Establece el color y estilo del TextView dependiendo de si el
     // EditText correspondiente tiene el foco o no.
     private void setColorSegunFoco(TextView lbl, boolean hasFocus) {
@@ -0,0 +1,126 @@
+package es.iessaladillo.pedrojoya.pr111;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.orm.SugarRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+// Acceso a los alumnos de la base de datos. Las operaciones se ejecutan de una
+// en una en un hilo secundario y su resultado se entrega en el hilo principal.
+// Los alumnos se obtienen por páginas y se guardan y eliminan en bloque, en
+// una sola transacción.
+public class AlumnosRepository {
+
+    // Número de alumnos de cada página.
+    public static final int TAMANO_PAGINA = 50;
+    // Id anterior al de cualquier alumno, para obtener la primera página.
+    public static final long PRIMERA_PAGINA = 0;
+
+    private static AlumnosRepository instance = null;
+
+    private final Executor mEjecutorFondo = Executors.newSingleThreadExecutor();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // Interfaz que debe implementar quien recibe el resultado de una
+    // operación.
+    public interface Callback<T> {
+        void onSuccess(T resultado);
+
+        void onError(Exception e);
+    }
+
+    public static synchronized AlumnosRepository getInstance() {
+        if (instance == null) {
+            instance = new AlumnosRepository();
+        }
+        return instance;
+    }
+
+    private AlumnosRepository() {
+    }
+
+    // Obtiene la página de alumnos que sigue al del id recibido (o la primera
+    // si es PRIMERA_PAGINA), en orden de id. Se avanza por la clave primaria
+    // en vez de con OFFSET, de manera que cada página cuesta lo mismo aunque
+    // se hayan eliminado alumnos de las anteriores. La última página tiene
+    // menos de TAMANO_PAGINA alumnos.
+    public void getPagina(final long idAnterior, Callback<List<Alumno>> callback) {
+        ejecutar(new Operacion<List<Alumno>>(callback) {
+            @Override
+            List<Alumno> ejecutar() {
+                return SugarRecord.find(Alumno.class, "id > ?",
+                        new String[]{String.valueOf(idAnterior)}, null, "id",
+                        String.valueOf(TAMANO_PAGINA));
+            }
+        });
+    }
+
+    // Guarda los alumnos en una sola transacción.
+    public void guardar(Collection<Alumno> alumnos, Callback<Void> callback) {
+        final List<Alumno> copia = new ArrayList<>(alumnos);
+        ejecutar(new Operacion<Void>(callback) {
+            @Override
+            Void ejecutar() {
+                SugarRecord.saveInTx(copia);
+                return null;
+            }
+        });
+    }
+
+    // Elimina los alumnos en una sola transacción.
+    public void eliminar(Collection<Alumno> alumnos, Callback<Void> callback) {
+        final List<Alumno> copia = new ArrayList<>(alumnos);
+        ejecutar(new Operacion<Void>(callback) {
+            @Override
+            Void ejecutar() {
+                SugarRecord.deleteInTx(copia);
+                return null;
+            }
+        });
+    }
+
+    private <T> void ejecutar(final Operacion<T> operacion) {
+        mEjecutorFondo.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final T resultado = operacion.ejecutar();
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            operacion.mCallback.onSuccess(resultado);
+                        }
+                    });
+                } catch (final Exception e) {
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            operacion.mCallback.onError(e);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    // Operación a ejecutar en el hilo secundario, junto a quien recibe su
+    // resultado.
+    private abstract static class Operacion<T> {
+
+        private final Callback<T> mCallback;
+
+        Operacion(Callback<T> callback) {
+            mCallback = callback;
+        }
+
+        abstract T ejecutar();
+
+    }
+
+}
@@ -13,6 +13,7 @@ import android.widget.AdapterView;
 import android.widget.ListView;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,6 +25,10 @@ import butterknife.OnClick;
 @SuppressWarnings({"WeakerAccess", "unused", "CanBeFinal"})
 public class MainActivity extends AppCompatActivity {
 
+    // Alumnos que deben quedar por mostrar al desplazarse para que se
+    // cargue la siguiente página.
+    private static final int UMBRAL_CARGA = 10;
+
     @BindView(R.id.lstAlumnos)
     ListView mLstAlumnos;
     @BindView(R.id.lblNoHayAlumnos)
@@ -32,12 +37,20 @@ public class MainActivity extends AppCompatActivity {
     RelativeLayout rlListaVacia;
 
     private AlumnosAdapter mAdaptador;
+    private AlumnosRepository mRepositorio;
+    // Se incrementa cada vez que se vuelve a cargar la lista, para descartar
+    // las páginas de cargas anteriores.
+    private int mGeneracion;
+    private boolean mCargando;
+    private boolean mUltimaPagina;
+    private long mUltimoId;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         ButterKnife.bind(this);
+        mRepositorio = AlumnosRepository.getInstance();
         // Se inicializan las vistas.
         initVistas();
     }
@@ -89,13 +102,7 @@ public class MainActivity extends AppCompatActivity {
                                 // quita la selección).
                                 ArrayList<Alumno> alumnos = getElementosSeleccionados(
                                         mLstAlumnos, true);
-                                // Se eliminan del mAdaptador.
-                                for (Alumno alumno : alumnos) {
-                                    alumno.delete();
-                                    mAdaptador.remove(alumno);
-                                }
-                                // Se notifica al mAdaptador que ha habido cambios.
-                                // mAdaptador.notifyDataSetChanged();
+                                eliminarAlumnos(alumnos);
                                 break;
                         }
                         // Se retorna que se ha procesado el evento.
@@ -123,6 +130,21 @@ public class MainActivity extends AppCompatActivity {
                 startActivity(intent);
             }
         });
+        // Al acercarse al final de la lista se carga la siguiente página.
+        mLstAlumnos.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                    int totalItemCount) {
+                if (totalItemCount > 0
+                        && firstVisibleItem + visibleItemCount >= totalItemCount - UMBRAL_CARGA) {
+                    cargarPagina();
+                }
+            }
+        });
 
     }
 
@@ -139,17 +161,78 @@ public class MainActivity extends AppCompatActivity {
         cargarAlumnos();
     }
 
-    // Carga en la lista los alumnos de la base de datos.
+    @Override
+    protected void onDestroy() {
+        // Se descarta la página que se esté cargando.
+        mGeneracion++;
+        super.onDestroy();
+    }
+
+    // Vuelve a cargar en la lista los alumnos de la base de datos. Solo se
+    // carga la primera página; el resto se carga al desplazarse por la lista.
     private void cargarAlumnos() {
-        // Si la tabla aún no está creada lanza una excepción.
-        List<Alumno> alumnos;
-        try {
-            alumnos = Alumno.listAll(Alumno.class);
-            mAdaptador.clear();
-            mAdaptador.addAll(alumnos);
-        } catch (Exception e) {
-            e.printStackTrace();
+        mGeneracion++;
+        mCargando = false;
+        mUltimaPagina = false;
+        mUltimoId = AlumnosRepository.PRIMERA_PAGINA;
+        mAdaptador.clear();
+        cargarPagina();
+    }
+
+    // Carga en segundo plano la siguiente página de alumnos, si no se está
+    // cargando ya y quedan alumnos por cargar.
+    private void cargarPagina() {
+        if (mCargando || mUltimaPagina) {
+            return;
         }
+        mCargando = true;
+        final int generacion = mGeneracion;
+        mRepositorio.getPagina(mUltimoId, new AlumnosRepository.Callback<List<Alumno>>() {
+            @Override
+            public void onSuccess(List<Alumno> alumnos) {
+                if (generacion != mGeneracion) {
+                    return;
+                }
+                mCargando = false;
+                mUltimaPagina = alumnos.size() < AlumnosRepository.TAMANO_PAGINA;
+                if (!alumnos.isEmpty()) {
+                    mUltimoId = alumnos.get(alumnos.size() - 1).getId();
+                    mAdaptador.addAll(alumnos);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // Si la tabla aún no está creada se produce una excepción.
+                e.printStackTrace();
+                if (generacion == mGeneracion) {
+                    mCargando = false;
+                    mUltimaPagina = true;
+                }
+            }
+        });
+    }
+
+    // Elimina de la base de datos los alumnos, en una sola transacción, y
+    // después de la lista, notificando al adaptador una sola vez.
+    private void eliminarAlumnos(final List<Alumno> alumnos) {
+        mRepositorio.eliminar(alumnos, new AlumnosRepository.Callback<Void>() {
+            @Override
+            public void onSuccess(Void resultado) {
+                mAdaptador.setNotifyOnChange(false);
+                for (Alumno alumno : alumnos) {
+                    mAdaptador.remove(alumno);
+                }
+                mAdaptador.notifyDataSetChanged();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                e.printStackTrace();
+                Toast.makeText(MainActivity.this, R.string.error_eliminar, Toast.LENGTH_SHORT)
+                        .show();
+            }
+        });
     }
 
     // Retorna un ArrayList con los elementos seleccionados. Recibe la lista y
@@ -17,6 +17,8 @@ public class EndlessListView extends ListView implements AbsListView.OnScrollLis
     private LoadAgent mListener;
     // Flag de si se está cargando en la actualidad.
     private boolean mIsLoading;
+    // Flag de si quedan datos por cargar.
+    private boolean mHasMore = true;
 
     // Constructores.
     public EndlessListView(Context context) {
@@ -48,9 +50,10 @@ public class EndlessListView extends ListView implements AbsListView.OnScrollLis
         if (getAdapter() == null || getAdapter().getCount() == 0) {
             return;
         }
-        // Si se ha llegado al final del scroll y no se está cargando ya.
+        // Si se ha llegado al final del scroll, no se está cargando ya y
+        // quedan datos por cargar.
         int l = visibleItemCount + firstVisibleItem;
-        if (l >= totalItemCount && !mIsLoading) {
+        if (l >= totalItemCount && !mIsLoading && mHasMore) {
             if (mListener != null) {
                 // Se cargan más datos.
                 mIsLoading = true;
@@ -69,4 +72,12 @@ public class EndlessListView extends ListView implements AbsListView.OnScrollLis
         mIsLoading = false;
     }
 
+    // Establece el fin de la carga de datos, indicando si quedan más por
+    // cargar. Si no quedan, no se vuelve a solicitar la carga al llegar al
+    // final del scroll hasta que se indique lo contrario.
+    public void setLoaded(boolean hasMore) {
+        mIsLoading = false;
+        mHasMore = hasMore;
+    }
+
 }
@@ -0,0 +1,25 @@
+package es.iessaladillo.pedrojoya.pr115;
+
+// Datos de una llamada ya preparados para mostrarse en la lista. Se crea en
+// segundo plano al consultar la página, de manera que el adaptador solo tiene
+// que escribirlos en las vistas.
+class Llamada {
+
+    final String nombre;
+    final String numero;
+    final String fecha;
+    final String duracion;
+    final int resIdTipo;
+    final int resIdFondoTipo;
+
+    Llamada(String nombre, String numero, String fecha, String duracion, int resIdTipo,
+            int resIdFondoTipo) {
+        this.nombre = nombre;
+        this.numero = numero;
+        this.fecha = fecha;
+        this.duracion = duracion;
+        this.resIdTipo = resIdTipo;
+        this.resIdFondoTipo = resIdFondoTipo;
+    }
+
+}
@@ -0,0 +1,402 @@
+package es.iessaladillo.pedrojoya.pr115;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MergeCursor;
+import android.provider.CallLog;
+import android.support.v4.content.AsyncTaskLoader;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+// Cargador que obtiene el historial de llamadas por páginas, usando como
+// clave de paginación (DATE, _ID), de manera que cada consulta solo lee las
+// filas de la página solicitada. Siempre mantiene consultada por adelantado la
+// página siguiente, por lo que al llamar a cargarMas() ésta se entrega de
+// inmediato (unida a las anteriores en un único cursor, sin volver a
+// consultarlas) y se consulta en segundo plano la que le sigue.
+// El receptor debe usar swapCursor() (y no changeCursor()) en el adaptador,
+// ya que las páginas del cursor anterior se reutilizan en el nuevo.
+// Al consultar cada página se preparan también en segundo plano los datos a
+// mostrar de cada llamada (textos y recursos), que el adaptador obtiene con
+// getLlamada() sin tener que leer ni formatear nada del cursor.
+@SuppressWarnings("WeakerAccess")
+public class LlamadasLoader extends AsyncTaskLoader<Cursor> {
+
+    private static final String TAG = LlamadasLoader.class.getSimpleName();
+
+    public static final String[] CAMPOS = {CallLog.Calls._ID, CallLog.Calls.NUMBER,
+                                           CallLog.Calls.CACHED_NAME, CallLog.Calls.TYPE,
+                                           CallLog.Calls.CACHED_NUMBER_LABEL,
+                                           CallLog.Calls.DATE, CallLog.Calls.DURATION};
+    // Posición de cada columna en CAMPOS.
+    private static final int COL_ID = 0;
+    private static final int COL_NUMERO = 1;
+    private static final int COL_NOMBRE = 2;
+    private static final int COL_TIPO = 3;
+    private static final int COL_FECHA = 5;
+    private static final int COL_DURACION = 6;
+    private static final String ORDEN = CallLog.Calls.DATE + " DESC, " + CallLog.Calls._ID
+            + " DESC LIMIT ";
+    private static final String WHERE_DESPUES_DE = CallLog.Calls.DATE + " < ? OR ("
+            + CallLog.Calls.DATE + " = ? AND " + CallLog.Calls._ID + " < ?)";
+    private static final String FORMATO_FECHA_HORA = "dd/MM HH:mm";
+    private static final long SEGS_EN_HORA = 3600;
+    private static final long MINS_EN_HORA = 60;
+
+    private final int mTamanoPagina;
+    // Observador de los cambios en las páginas.
+    private final ForceLoadContentObserver mObserver;
+    // Cursor entregado actualmente (incluye la página consultada por
+    // adelantado).
+    private volatile PaginasCursor mCursor;
+    // Si se deben volver a consultar las páginas ya cargadas.
+    private volatile boolean mRecargar;
+    // Si hay una consulta en curso de la página siguiente.
+    private boolean mConsultando;
+    // Si se ha solicitado una página antes de que estuviera disponible.
+    private boolean mPendiente;
+    // Número total de filas leídas del proveedor.
+    private int mFilasLeidas;
+    // Usados solo desde el hilo secundario al preparar las llamadas.
+    private final SimpleDateFormat mFormateadorFechas;
+    private final Date mFecha = new Date();
+    private final String mDesconocido;
+
+    // Constructor. Recibe el contexto y el número de llamadas por página.
+    public LlamadasLoader(Context context, int tamanoPagina) {
+        super(context);
+        mTamanoPagina = tamanoPagina;
+        mObserver = new ForceLoadContentObserver();
+        mFormateadorFechas = new SimpleDateFormat(FORMATO_FECHA_HORA, Locale.getDefault());
+        mDesconocido = context.getString(R.string.desconocido);
+    }
+
+    // Retorna los datos ya preparados de la llamada correspondiente a la
+    // posición actual de un cursor entregado por este cargador.
+    static Llamada getLlamada(Cursor cursor) {
+        return ((PaginasCursor) cursor).getLlamada(cursor.getPosition());
+    }
+
+    // Añade al cursor entregado la página siguiente, si la hay. Se debe llamar
+    // desde el hilo principal.
+    public void cargarMas() {
+        PaginasCursor actual = mCursor;
+        if (actual == null || !actual.hayMas()) {
+            return;
+        }
+        if (actual.getSiguiente() == null) {
+            // La página siguiente aún no está disponible. Se entregará al
+            // recibirla.
+            mPendiente = true;
+            if (!mConsultando) {
+                mConsultando = true;
+                forceLoad();
+            }
+            return;
+        }
+        // Se entrega de inmediato la página que ya estaba consultada...
+        ArrayList<Pagina> paginas = new ArrayList<>(actual.getPaginas());
+        paginas.add(actual.getSiguiente());
+        deliverResult(new PaginasCursor(paginas, null));
+        // ... y se consulta por adelantado la que le sigue.
+        if (paginas.get(paginas.size() - 1).completa) {
+            mConsultando = true;
+            forceLoad();
+        }
+    }
+
+    // Retorna si quedan páginas por cargar.
+    public boolean hayMas() {
+        return mCursor == null || mCursor.hayMas();
+    }
+
+    // Retorna el número total de filas leídas del proveedor.
+    public synchronized int getFilasLeidas() {
+        return mFilasLeidas;
+    }
+
+    // Se ejecuta en un hilo secundario. Retorna el cursor a entregar.
+    @Override
+    public Cursor loadInBackground() {
+        PaginasCursor anterior = mCursor;
+        ArrayList<Pagina> paginas = new ArrayList<>();
+        if (anterior == null || mRecargar) {
+            // Se consultan de nuevo tantas páginas como hubiera cargadas.
+            mRecargar = false;
+            int numPaginas = anterior == null ? 1 : anterior.getPaginas().size();
+            Pagina pagina = null;
+            for (int i = 0; i < numPaginas && (pagina == null || pagina.completa); i++) {
+                pagina = consultarPagina(pagina);
+                paginas.add(pagina);
+            }
+        } else {
+            // Se reutilizan las páginas ya cargadas.
+            paginas.addAll(anterior.getPaginas());
+        }
+        // Se consulta por adelantado la página siguiente.
+        Pagina ultima = paginas.get(paginas.size() - 1);
+        Pagina siguiente = ultima.completa ? consultarPagina(ultima) : null;
+        return new PaginasCursor(paginas, siguiente);
+    }
+
+    // Consulta la página situada tras la recibida (o la primera si es null).
+    private Pagina consultarPagina(Pagina anterior) {
+        String seleccion = null;
+        String[] args = null;
+        if (anterior != null) {
+            seleccion = WHERE_DESPUES_DE;
+            args = new String[]{String.valueOf(anterior.ultimaFecha),
+                                String.valueOf(anterior.ultimaFecha),
+                                String.valueOf(anterior.ultimoId)};
+        }
+        //noinspection MissingPermission
+        Cursor cursor = getContext().getContentResolver().query(CallLog.Calls.CONTENT_URI,
+                CAMPOS, seleccion, args, ORDEN + mTamanoPagina);
+        if (cursor == null) {
+            throw new IllegalStateException("No se ha podido consultar el historial de llamadas");
+        }
+        // Se llena la ventana del cursor, que solo contiene la página.
+        int count = cursor.getCount();
+        cursor.registerContentObserver(mObserver);
+        // Se preparan los datos a mostrar de cada llamada, resolviendo los
+        // índices de las columnas una sola vez para toda la página.
+        int[] indices = MapaColumnas.resolver(cursor, CAMPOS);
+        Llamada[] llamadas = new Llamada[count];
+        for (int i = 0; i < count && cursor.moveToPosition(i); i++) {
+            llamadas[i] = crearLlamada(cursor, indices);
+        }
+        // Se guarda la clave de la última llamada para consultar la siguiente.
+        long ultimaFecha = 0;
+        long ultimoId = 0;
+        if (cursor.moveToLast()) {
+            ultimaFecha = cursor.getLong(indices[COL_FECHA]);
+            ultimoId = cursor.getLong(indices[COL_ID]);
+        }
+        cursor.moveToPosition(-1);
+        synchronized (this) {
+            mFilasLeidas += count;
+            Log.d(TAG, "Página consultada: " + count + " filas leídas (" + mFilasLeidas
+                    + " en total)");
+        }
+        return new Pagina(cursor, llamadas, count == mTamanoPagina, ultimaFecha, ultimoId);
+    }
+
+    // Crea la llamada con los datos ya formateados del registro actual del
+    // cursor. Recibe los índices de CAMPOS en el cursor.
+    private Llamada crearLlamada(Cursor cursor, int[] indices) {
+        String nombre = cursor.getString(indices[COL_NOMBRE]);
+        if (TextUtils.isEmpty(nombre)) {
+            nombre = mDesconocido;
+        }
+        mFecha.setTime(cursor.getLong(indices[COL_FECHA]));
+        int resIdTipo;
+        int resIdFondoTipo;
+        switch (cursor.getInt(indices[COL_TIPO])) {
+            case CallLog.Calls.INCOMING_TYPE:
+                resIdTipo = R.drawable.ic_call_received;
+                resIdFondoTipo = R.drawable.call_received_background;
+                break;
+            case CallLog.Calls.MISSED_TYPE:
+                resIdTipo = R.drawable.ic_call_missed;
+                resIdFondoTipo = R.drawable.call_missed_background;
+                break;
+            case CallLog.Calls.OUTGOING_TYPE:
+                resIdTipo = R.drawable.ic_call_made;
+                resIdFondoTipo = R.drawable.call_made_background;
+                break;
+            default:
+                resIdTipo = R.drawable.ic_call;
+                resIdFondoTipo = R.drawable.call_background;
+                break;
+        }
+        return new Llamada(nombre, cursor.getString(indices[COL_NUMERO]),
+                mFormateadorFechas.format(mFecha),
+                formatearDuracion(cursor.getLong(indices[COL_DURACION])), resIdTipo,
+                resIdFondoTipo);
+    }
+
+    private static String formatearDuracion(long duracion) {
+        long hor = duracion / SEGS_EN_HORA;
+        long min = (duracion - (SEGS_EN_HORA * hor)) / MINS_EN_HORA;
+        long seg = duracion - ((hor * SEGS_EN_HORA) + (min * MINS_EN_HORA));
+        return (hor > 0 ? hor + " h " : "") + (min > 0 ? min + " m " : "") + seg + " s";
+    }
+
+    // Entrega el cursor en el hilo de la UI.
+    @Override
+    public void deliverResult(Cursor cursor) {
+        PaginasCursor nuevo = (PaginasCursor) cursor;
+        // Si han llegado los datos cuando ya se había parado el Loader,
+        // se cierra el cursor y no se entrega nada.
+        if (isReset()) {
+            cerrarPaginasNoUsadas(nuevo, mCursor);
+            return;
+        }
+        PaginasCursor anterior = mCursor;
+        mCursor = nuevo;
+        if (nuevo.getSiguiente() != null || !nuevo.hayMas()) {
+            mConsultando = false;
+        }
+        // Si solo ha cambiado la página consultada por adelantado, el
+        // receptor ya tiene los mismos datos y no se le entrega nada.
+        boolean mismosDatos = anterior != null
+                && anterior.getPaginas().equals(nuevo.getPaginas());
+        if (isStarted() && !mismosDatos) {
+            super.deliverResult(nuevo);
+        }
+        // Se cierran las páginas del cursor anterior que ya no se usan.
+        if (anterior != null && anterior != nuevo) {
+            cerrarPaginasNoUsadas(anterior, nuevo);
+        }
+        // Si se había solicitado la página siguiente, se entrega ahora.
+        if (mPendiente && !mConsultando) {
+            mPendiente = false;
+            cargarMas();
+        }
+    }
+
+    // Cuando se solicitan los datos.
+    @Override
+    protected void onStartLoading() {
+        if (mCursor != null) {
+            deliverResult(mCursor);
+        }
+        if (takeContentChanged() || mCursor == null) {
+            forceLoad();
+        }
+    }
+
+    // Cuando cambian los datos de alguna página.
+    @Override
+    public void onContentChanged() {
+        mRecargar = true;
+        super.onContentChanged();
+    }
+
+    // Cuando se para el Loader.
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    // Cuando se cancela la carga.
+    @Override
+    public void onCanceled(Cursor cursor) {
+        mConsultando = false;
+        if (cursor != null) {
+            cerrarPaginasNoUsadas((PaginasCursor) cursor, mCursor);
+        }
+    }
+
+    // Cuando se resetea el Loader.
+    @Override
+    protected void onReset() {
+        super.onReset();
+        onStopLoading();
+        if (mCursor != null) {
+            cerrarPaginasNoUsadas(mCursor, null);
+        }
+        mCursor = null;
+        mConsultando = false;
+        mPendiente = false;
+    }
+
+    // Cierra las páginas de origen (incluida la siguiente) que no estén en
+    // destino (que puede ser null).
+    private static void cerrarPaginasNoUsadas(PaginasCursor origen, PaginasCursor destino) {
+        ArrayList<Pagina> paginas = new ArrayList<>(origen.getPaginas());
+        if (origen.getSiguiente() != null) {
+            paginas.add(origen.getSiguiente());
+        }
+        for (Pagina pagina : paginas) {
+            if ((destino == null || !destino.contiene(pagina)) && !pagina.cursor.isClosed()) {
+                pagina.cursor.close();
+            }
+        }
+    }
+
+    // Página de llamadas consultada.
+    private static class Pagina {
+
+        final Cursor cursor;
+        // Datos ya preparados de cada fila del cursor.
+        final Llamada[] llamadas;
+        // Si la página está completa (puede haber más a continuación).
+        final boolean completa;
+        final long ultimaFecha;
+        final long ultimoId;
+
+        Pagina(Cursor cursor, Llamada[] llamadas, boolean completa, long ultimaFecha,
+                long ultimoId) {
+            this.cursor = cursor;
+            this.llamadas = llamadas;
+            this.completa = completa;
+            this.ultimaFecha = ultimaFecha;
+            this.ultimoId = ultimoId;
+        }
+
+    }
+
+    // Cursor que une las páginas cargadas. Guarda además la página siguiente,
+    // si ya se ha consultado, aunque no forma parte de los datos del cursor.
+    private static class PaginasCursor extends MergeCursor {
+
+        private final List<Pagina> mPaginas;
+        private final Pagina mSiguiente;
+
+        PaginasCursor(List<Pagina> paginas, Pagina siguiente) {
+            super(toCursores(paginas));
+            mPaginas = paginas;
+            mSiguiente = siguiente;
+        }
+
+        List<Pagina> getPaginas() {
+            return mPaginas;
+        }
+
+        Pagina getSiguiente() {
+            return mSiguiente;
+        }
+
+        // Retorna la llamada que ocupa la posición recibida en el cursor. Se
+        // recorren las páginas por índice para no reservar un iterador.
+        Llamada getLlamada(int posicion) {
+            int relativa = posicion;
+            for (int i = 0; i < mPaginas.size(); i++) {
+                Llamada[] llamadas = mPaginas.get(i).llamadas;
+                if (relativa < llamadas.length) {
+                    return llamadas[relativa];
+                }
+                relativa -= llamadas.length;
+            }
+            throw new IndexOutOfBoundsException("Posición fuera del cursor: " + posicion);
+        }
+
+        boolean contiene(Pagina pagina) {
+            return pagina == mSiguiente || mPaginas.contains(pagina);
+        }
+
+        boolean hayMas() {
+            if (mSiguiente != null) {
+                return mSiguiente.cursor.getCount() > 0;
+            }
+            return !mPaginas.isEmpty() && mPaginas.get(mPaginas.size() - 1).completa;
+        }
+
+        private static Cursor[] toCursores(List<Pagina> paginas) {
+            Cursor[] cursores = new Cursor[paginas.size()];
+            for (int i = 0; i < cursores.length; i++) {
+                cursores[i] = paginas.get(i).cursor;
+            }
+            return cursores;
+        }
+
+    }
+
+}
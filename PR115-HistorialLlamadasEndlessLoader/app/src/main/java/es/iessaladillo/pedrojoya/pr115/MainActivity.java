@@ -12,7 +12,6 @@ import android.provider.Settings;
 import android.support.annotation.NonNull;
 import android.support.design.widget.Snackbar;
 import android.support.v4.app.LoaderManager;
-import android.support.v4.content.CursorLoader;
 import android.support.v4.content.Loader;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
@@ -34,12 +33,10 @@ public class MainActivity extends AppCompatActivity implements EndlessListView.L
 
     private static final int LIMIT = 10;
     private static final int DATOS_LOADER = 0;
-    private static final String ARG_LIMIT = "limit";
 
     @BindView(R.id.lstLlamadas)
     EndlessListView mLstLlamadas;
 
-    private int mOffset;
     private Adaptador mAdaptador;
     private LoaderManager mLoaderManager;
 
@@ -50,16 +47,13 @@ public class MainActivity extends AppCompatActivity implements EndlessListView.L
         ButterKnife.bind(this);
         initVistas();
         mLoaderManager = getSupportLoaderManager();
-        mOffset = 0;
         MainActivityPermissionsDispatcher.initCargadorWithCheck(this);
         //loadData();
     }
 
     @NeedsPermission({Manifest.permission.READ_CALL_LOG, Manifest.permission.READ_CONTACTS})
     void initCargador() {
-        Bundle args = new Bundle();
-        args.putInt(ARG_LIMIT, mOffset + LIMIT);
-        mLoaderManager.initLoader(DATOS_LOADER, args, this);
+        mLoaderManager.initLoader(DATOS_LOADER, null, this);
     }
 
     private void initVistas() {
@@ -72,18 +66,22 @@ public class MainActivity extends AppCompatActivity implements EndlessListView.L
         mLstLlamadas.setLoadAgent(this);
     }
 
-    // Carga más datos.
+    // Carga más datos. El cargador añade la página siguiente (que ya tiene
+    // consultada) sin volver a consultar las anteriores. Si ya no quedan
+    // páginas se indica a la lista que ha terminado la carga.
     @Override
     public void loadData() {
-        MainActivityPermissionsDispatcher.restartCargadorWithCheck(this);
-        mOffset += LIMIT;
+        Loader<Cursor> loader = mLoaderManager.getLoader(DATOS_LOADER);
+        if (loader != null && ((LlamadasLoader) loader).hayMas()) {
+            ((LlamadasLoader) loader).cargarMas();
+        } else {
+            mLstLlamadas.setLoaded(false);
+        }
     }
 
     @NeedsPermission({Manifest.permission.READ_CALL_LOG, Manifest.permission.READ_CONTACTS})
     void restartCargador() {
-        Bundle args = new Bundle();
-        args.putInt(ARG_LIMIT, mOffset + LIMIT);
-        mLoaderManager.restartLoader(0, args, this);
+        mLoaderManager.restartLoader(DATOS_LOADER, null, this);
     }
 
     @OnShowRationale({Manifest.permission.READ_CALL_LOG, Manifest.permission.READ_CONTACTS})
@@ -168,34 +166,26 @@ public class MainActivity extends AppCompatActivity implements EndlessListView.L
     // Recibe el id del cargador y sus argumentos.
     @Override
     public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        // Se obtienen los argumentos.
-        int limit = LIMIT;
-        if (args != null) {
-            limit = args.getInt(ARG_LIMIT);
-        }
-
-        // Se crea el cargador, que realiza una consulta al content provider.
-        // Recibe: contexto, uri del content provider, array de nombres de campos
-        // a seleccionar, condición where, parámetros del where y orden.
-        String[] campos = {CallLog.Calls._ID, CallLog.Calls.NUMBER, CallLog.Calls.CACHED_NAME,
-                           CallLog.Calls.TYPE, CallLog.Calls.CACHED_NUMBER_LABEL, CallLog.Calls
-                                   .DATE, CallLog.Calls.DURATION};
-        String orden = CallLog.Calls.DATE + " DESC LIMIT " + 0 + "," + limit;
-        return new CursorLoader(this, CallLog.Calls.CONTENT_URI, campos, null, null, orden);
+        // Se crea el cargador, que consulta el historial de llamadas por
+        // páginas.
+        return new LlamadasLoader(this, LIMIT);
     }
 
     // Cuando terminan de cargarse los datos en el cargador.
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
         // Se cambia el cursor del adaptador por el que tiene los datos cargados.
-        mAdaptador.changeCursor(data);
-        mLstLlamadas.setLoaded();
+        // No se cierra el anterior, ya que sus páginas forman parte del nuevo.
+        // Si la última página tiene menos llamadas que el tamaño de página no
+        // quedan más por cargar.
+        mAdaptador.swapCursor(data);
+        mLstLlamadas.setLoaded(((LlamadasLoader) loader).hayMas());
     }
 
     // Cuando se resetea el cargador.
     @Override
     public void onLoaderReset(Loader<Cursor> loader) {
         // Se vacía de datos el adaptador asignándole un cursor nulo.
-        mAdaptador.changeCursor(null);
+        mAdaptador.swapCursor(null);
     }
 }
@@ -1,7 +1,6 @@
 package es.iessaladillo.pedrojoya.pr116;
 
 import android.content.Context;
-import android.provider.CallLog;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,29 +8,20 @@ import android.widget.ArrayAdapter;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.Locale;
 
 import butterknife.ButterKnife;
 import butterknife.InjectView;
 
 class Adaptador extends ArrayAdapter {
 
-    private static final String FORMATO_FECHA_HORA = "dd/MM HH:mm";
-    private static final long SEGS_EN_HORA = 3600;
-    private static final long MINS_EN_HORA = 60;
-
     private final Context mContext;
     private final ArrayList<Llamada> mDatos;
-    private final SimpleDateFormat mFormateadorFechas;
 
     public Adaptador(Context context, ArrayList<Llamada> datos) {
         super(context, 0, datos);
         mContext = context;
         mDatos = datos;
-        mFormateadorFechas = new SimpleDateFormat(FORMATO_FECHA_HORA, Locale.getDefault());
     }
 
     @Override
@@ -50,37 +40,16 @@ class Adaptador extends ArrayAdapter {
         return vista;
     }
 
-    // Cuando debe escribirse el registro en la vista-fila.
+    // Cuando debe escribirse el registro en la vista-fila. Los textos ya vienen
+    // formateados en la llamada.
     public void bindView(View view, Context context, int position) {
         ViewHolder viewHolder = (ViewHolder) view.getTag();
         Llamada llamada = mDatos.get(position);
         viewHolder.mLblNombre.setText(llamada.getNombre());
         viewHolder.mLblNumero.setText(llamada.getNumero());
-        viewHolder.mLblDuracion.setText(formatearDuracion(llamada.getDuracion()));
-        viewHolder.mLblFecha.setText(mFormateadorFechas.format(new Date(llamada.getFecha())));
-        int resIdTipoLlamada;
-        switch (llamada.getTipo()) {
-            case CallLog.Calls.INCOMING_TYPE:
-                resIdTipoLlamada = android.R.drawable.sym_call_incoming;
-                break;
-            case CallLog.Calls.MISSED_TYPE:
-                resIdTipoLlamada = android.R.drawable.sym_call_missed;
-                break;
-            case CallLog.Calls.OUTGOING_TYPE:
-                resIdTipoLlamada = android.R.drawable.sym_call_outgoing;
-                break;
-            default:
-                resIdTipoLlamada = android.R.drawable.sym_action_call;
-                break;
-        }
-        viewHolder.mImgTipoLlamada.setImageResource(resIdTipoLlamada);
-    }
-
-    private String formatearDuracion(long duracion) {
-        long hor = duracion / SEGS_EN_HORA;
-        long min = (duracion - (SEGS_EN_HORA * hor)) / MINS_EN_HORA;
-        long seg = duracion - ((hor * SEGS_EN_HORA) + (min * MINS_EN_HORA));
-        return (hor > 0 ? hor + " h " : "") + (min > 0 ? min + " m " : "") + seg + " s";
+        viewHolder.mLblDuracion.setText(llamada.getTextoDuracion());
+        viewHolder.mLblFecha.setText(llamada.getTextoFecha());
+        viewHolder.mImgTipoLlamada.setImageResource(llamada.getResIdTipo());
     }
 
     static class ViewHolder {
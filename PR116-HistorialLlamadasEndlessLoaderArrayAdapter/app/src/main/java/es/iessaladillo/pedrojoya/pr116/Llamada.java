@@ -4,26 +4,53 @@ import android.database.Cursor;
 import android.provider.CallLog;
 import android.text.TextUtils;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.Locale;
 
 public class Llamada {
 
+    private static final String FORMATO_FECHA_HORA = "dd/MM HH:mm";
+    private static final long SEGS_EN_HORA = 3600;
+    private static final long MINS_EN_HORA = 60;
+
+    // Columnas leídas del cursor, y su posición en el array.
+    private static final String[] COLUMNAS = {CallLog.Calls.CACHED_NAME, CallLog.Calls.NUMBER,
+                                              CallLog.Calls.DURATION, CallLog.Calls.DATE,
+                                              CallLog.Calls.TYPE};
+    private static final int COL_NOMBRE = 0;
+    private static final int COL_NUMERO = 1;
+    private static final int COL_DURACION = 2;
+    private static final int COL_FECHA = 3;
+    private static final int COL_TIPO = 4;
+
     private String numero;
     private String nombre;
     private int tipo;
     private long fecha;
     private long duracion;
-
-    public Llamada(Cursor cursor) {
-        String sNombre = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls.CACHED_NAME));
+    // Datos ya preparados para mostrarse en la lista.
+    private String textoFecha;
+    private String textoDuracion;
+    private int resIdTipo;
+
+    // Constructor. Recibe el cursor en el registro a convertir, los índices de
+    // COLUMNAS en él, y el formateador y la fecha a reutilizar.
+    private Llamada(Cursor cursor, int[] indices, SimpleDateFormat formateador, Date aux) {
+        String sNombre = cursor.getString(indices[COL_NOMBRE]);
         if (TextUtils.isEmpty(sNombre)) {
             sNombre = "Desconocido";
         }
         nombre = sNombre;
-        numero = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls.NUMBER));
-        duracion = cursor.getLong(cursor.getColumnIndexOrThrow(CallLog.Calls.DURATION));
-        fecha = cursor.getLong(cursor.getColumnIndexOrThrow(CallLog.Calls.DATE));
-        tipo = cursor.getInt(cursor.getColumnIndexOrThrow(CallLog.Calls.TYPE));
+        numero = cursor.getString(indices[COL_NUMERO]);
+        duracion = cursor.getLong(indices[COL_DURACION]);
+        fecha = cursor.getLong(indices[COL_FECHA]);
+        tipo = cursor.getInt(indices[COL_TIPO]);
+        aux.setTime(fecha);
+        textoFecha = formateador.format(aux);
+        textoDuracion = formatearDuracion(duracion);
+        resIdTipo = getResIdTipo(tipo);
     }
 
     public String getNumero() {
@@ -66,13 +93,53 @@ public class Llamada {
         this.duracion = duracion;
     }
 
+    public String getTextoFecha() {
+        return textoFecha;
+    }
+
+    public String getTextoDuracion() {
+        return textoDuracion;
+    }
+
+    public int getResIdTipo() {
+        return resIdTipo;
+    }
+
+    // Convierte los registros del cursor en llamadas con los textos ya
+    // formateados. Se debe llamar desde un hilo secundario.
     public static ArrayList<Llamada> CursorToArrayList(Cursor cursor) {
-        ArrayList<Llamada> lista = new ArrayList<Llamada>();
+        ArrayList<Llamada> lista = new ArrayList<Llamada>(cursor.getCount());
+        // Los índices de las columnas se resuelven una sola vez para todo el
+        // cursor.
+        int[] indices = MapaColumnas.resolver(cursor, COLUMNAS);
+        SimpleDateFormat formateador = new SimpleDateFormat(FORMATO_FECHA_HORA,
+                Locale.getDefault());
+        Date aux = new Date();
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
-            lista.add(new Llamada(cursor));
+            lista.add(new Llamada(cursor, indices, formateador, aux));
             cursor.moveToNext();
         }
         return lista;
     }
+
+    private static String formatearDuracion(long duracion) {
+        long hor = duracion / SEGS_EN_HORA;
+        long min = (duracion - (SEGS_EN_HORA * hor)) / MINS_EN_HORA;
+        long seg = duracion - ((hor * SEGS_EN_HORA) + (min * MINS_EN_HORA));
+        return (hor > 0 ? hor + " h " : "") + (min > 0 ? min + " m " : "") + seg + " s";
+    }
+
+    private static int getResIdTipo(int tipo) {
+        switch (tipo) {
+            case CallLog.Calls.INCOMING_TYPE:
+                return android.R.drawable.sym_call_incoming;
+            case CallLog.Calls.MISSED_TYPE:
+                return android.R.drawable.sym_call_missed;
+            case CallLog.Calls.OUTGOING_TYPE:
+                return android.R.drawable.sym_call_outgoing;
+            default:
+                return android.R.drawable.sym_action_call;
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package es.iessaladillo.pedrojoya.pr116;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.net.Uri;
+import android.support.v4.content.CursorLoader;
+
+import java.util.ArrayList;
+
+// Cargador que, además de consultar el historial de llamadas, convierte en
+// segundo plano los registros obtenidos en objetos Llamada con los textos ya
+// formateados, en vez de hacerlo en el hilo principal al recibir el cursor.
+class LlamadasLoader extends CursorLoader {
+
+    public LlamadasLoader(Context context, Uri uri, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder) {
+        super(context, uri, projection, selection, selectionArgs, sortOrder);
+    }
+
+    // Se ejecuta en un hilo secundario.
+    @Override
+    public Cursor loadInBackground() {
+        Cursor cursor = super.loadInBackground();
+        if (cursor == null) {
+            return null;
+        }
+        return new LlamadasCursor(cursor, Llamada.CursorToArrayList(cursor));
+    }
+
+    // Cursor que lleva además las llamadas ya convertidas.
+    static class LlamadasCursor extends CursorWrapper {
+
+        private final ArrayList<Llamada> mLlamadas;
+
+        LlamadasCursor(Cursor cursor, ArrayList<Llamada> llamadas) {
+            super(cursor);
+            mLlamadas = llamadas;
+        }
+
+        public ArrayList<Llamada> getLlamadas() {
+            return mLlamadas;
+        }
+
+    }
+
+}
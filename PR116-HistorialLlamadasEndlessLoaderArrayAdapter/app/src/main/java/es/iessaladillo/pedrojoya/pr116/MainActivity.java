@@ -4,7 +4,6 @@ import android.database.Cursor;
 import android.os.Bundle;
 import android.provider.CallLog;
 import android.support.v4.app.LoaderManager;
-import android.support.v4.content.CursorLoader;
 import android.support.v4.content.Loader;
 import android.support.v7.app.AppCompatActivity;
 import android.widget.ListView;
@@ -78,14 +77,15 @@ public class MainActivity extends AppCompatActivity implements LoaderManager
         String[] campos = {CallLog.Calls._ID, CallLog.Calls.NUMBER, CallLog.Calls.CACHED_NAME,
                            CallLog.Calls.TYPE, CallLog.Calls.DATE, CallLog.Calls.DURATION};
         String orden = CallLog.Calls.DATE + " DESC LIMIT " + offset + "," + LIMIT;
-        return new CursorLoader(this, CallLog.Calls.CONTENT_URI, campos, null, null, orden);
+        return new LlamadasLoader(this, CallLog.Calls.CONTENT_URI, campos, null, null, orden);
     }
 
     // Cuando terminan de cargarse los datos en el cargador.
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
-        // Se añaden los datos obtenidos al adaptador.
-        mAdaptador.addAll(Llamada.CursorToArrayList(data));
+        // Se añaden al adaptador las llamadas, que el cargador ya ha convertido
+        // en segundo plano.
+        mAdaptador.addAll(((LlamadasLoader.LlamadasCursor) data).getLlamadas());
     }
 
     // Cuando se resetea el cargador.
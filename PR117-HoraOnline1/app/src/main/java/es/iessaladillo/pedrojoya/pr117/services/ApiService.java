@@ -9,10 +9,6 @@ import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.lang.reflect.Type;
 
 import es.iessaladillo.pedrojoya.pr117.data.utctime.UtctimeColumns;
 import es.iessaladillo.pedrojoya.pr117.data.utctime.UtctimeContentValues;
@@ -60,12 +56,9 @@ public class ApiService extends IntentService {
                 Log.d(SERVICE_NAME, error.toString());
             }
         };
-        // Se crea la petición.
-        Gson gson = new Gson();
-        Type tipo = new TypeToken<UTCTime>() {}.getType();
+        // Se crea la petición (con el Gson compartido).
         GsonObjectRequest<UTCTime> peticion = new GsonObjectRequest<UTCTime>(
-                Request.Method.GET, URL_DATOS, tipo, listener, errorListener,
-                gson);
+                Request.Method.GET, URL_DATOS, UTCTime.class, listener, errorListener);
         // Se añade la petición a la cola de Volley.
         colaPeticiones.add(peticion);
     }
@@ -6,39 +6,72 @@ import com.android.volley.Request;
 import com.android.volley.Response;
 import com.android.volley.toolbox.HttpHeaderParser;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 
 // Petición de un objeto JSON que será procesado por la librería GSON.
+// El JSON se procesa en streaming, leyendo directamente de los bytes de la
+// respuesta en vez de copiarlos antes en un String. Gson guarda internamente
+// los TypeAdapter que crea, por lo que se debe reutilizar la misma instancia
+// (ver getGson()) en todas las peticiones.
 public class GsonObjectRequest<T> extends Request<T> {
 
+    private static Gson sGson;
+
     private final Response.Listener<T> listener;
-    private Gson gson;
-    private Type type;
+    private final TypeAdapter<T> adapter;
 
+    @SuppressWarnings("unchecked")
     public GsonObjectRequest(int method, String url, Type type,
                              Response.Listener<T> listener, Response.ErrorListener errorListener, Gson gson) {
         super(method, url, errorListener);
-        this.type = type;
         this.listener = listener;
-        this.gson = gson;
+        this.adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(type));
+    }
+
+    public GsonObjectRequest(int method, String url, Type type,
+                             Response.Listener<T> listener, Response.ErrorListener errorListener) {
+        this(method, url, type, listener, errorListener, getGson());
+    }
+
+    // Retorna la instancia de Gson compartida.
+    public static synchronized Gson getGson() {
+        if (sGson == null) {
+            sGson = new Gson();
+        }
+        return sGson;
     }
 
     // Procesa la respuesta.
     @Override
     protected Response<T> parseNetworkResponse(NetworkResponse response) {
+        JsonReader reader = null;
         try {
-            // Se obtiene la cadena JSON a partir de la respuesta (con el
-            // charset adecuado).
-            String json = new String(response.data,
-                    HttpHeaderParser.parseCharset(response.headers));
-            // Se procesa la cadena JSON.
-            T datos = gson.fromJson(json, type);
+            // Se lee de los bytes de la respuesta (con el charset adecuado).
+            reader = new JsonReader(new InputStreamReader(
+                    new ByteArrayInputStream(response.data),
+                    HttpHeaderParser.parseCharset(response.headers)));
+            // Se procesa el JSON.
+            T datos = adapter.read(reader);
             // Se crea y retorna la respuesta.
             return Response.success(datos,
                     HttpHeaderParser.parseCacheHeaders(response));
         } catch (Exception e) {
             return Response.error(new ParseError(e));
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
@@ -0,0 +1,207 @@
+package es.iessaladillo.pedrojoya.pr120.datos;
+
+import android.app.SearchManager;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+// Compara la latencia de las sugerencias con la consulta anterior (LIKE
+// '%termino%' sobre la tabla) y con el índice de texto completo, a medida que
+// crece el número de alumnos hasta 100.000. Los tiempos solo se registran en
+// el log; lo que se comprueba es que las sugerencias son las esperadas y que
+// el plan de la consulta no recorre la tabla de alumnos.
+@RunWith(AndroidJUnit4.class)
+public class SugerenciasBenchmarkTest {
+
+    private static final String TAG = "SugerenciasBenchmark";
+    private static final int[] TAMANOS = {1000, 10000, 100000};
+    private static final int NUM_CONSULTAS = 100;
+    private static final int NUM_CALENTAMIENTO = 10;
+    private static final int NUM_COMPROBACIONES = 20;
+    private static final String[] NOMBRES = {"Janet", "Hawkins", "María", "José", "Lucía",
+                                             "Antonio", "Carmen", "Manuel", "Elena", "Pedro"};
+    private static final String[] APELLIDOS = {"Curry", "Malone", "García", "Pérez", "López",
+                                               "Sánchez", "Romero", "Navarro", "Torres", "Ruiz"};
+    private static final String SQL_LIKE = "SELECT " + InstitutoContract.Alumno._ID + ", "
+            + InstitutoContract.Alumno.NOMBRE + ", " + InstitutoContract.Alumno.CURSO + ", "
+            + InstitutoContract.Alumno.FOTO + " FROM " + InstitutoContract.Alumno.TABLA
+            + " WHERE " + InstitutoContract.Alumno.NOMBRE + " LIKE ?";
+    private static final String SQL_NOMBRES = "SELECT " + InstitutoContract.Alumno.NOMBRE
+            + " FROM " + InstitutoContract.Alumno.TABLA;
+    // Paso del plan que recorre entera la tabla de alumnos (según la versión
+    // de SQLite, con o sin "TABLE" y con el nombre de la tabla o su alias).
+    private static final Pattern RECORRIDO_ALUMNOS = Pattern.compile(
+            "^SCAN (TABLE )?(" + InstitutoContract.Alumno.TABLA + "|a)( .*)?$");
+    private static final Pattern SEPARADOR_PALABRAS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SQLiteDatabase mBd;
+    private final Random mRandom = new Random(42);
+
+    @Before
+    public void setUp() {
+        mBd = SQLiteDatabase.create(null);
+        InstitutoHelper.crearTablas(mBd);
+    }
+
+    @After
+    public void tearDown() {
+        mBd.close();
+    }
+
+    @Test
+    public void benchmarkSugerencias() {
+        int insertados = 0;
+        for (int tamano : TAMANOS) {
+            insertarAlumnos(tamano - insertados);
+            insertados = tamano;
+            comprobarSugerencias();
+            double msLike = medir(false);
+            double msFts = medir(true);
+            Log.i(TAG, String.format("%d alumnos: LIKE %.3f ms, FTS %.3f ms", tamano, msLike,
+                    msFts));
+        }
+    }
+
+    @Test
+    public void planNoRecorreLaTablaDeAlumnos() {
+        insertarAlumnos(TAMANOS[0]);
+        Cursor cursor = mBd.rawQuery("EXPLAIN QUERY PLAN " + InstitutoProvider.SQL_SUGERENCIAS,
+                new String[]{"^Ma*", "Ma*"});
+        try {
+            int columna = cursor.getColumnIndexOrThrow("detail");
+            assertTrue(cursor.getCount() > 0);
+            while (cursor.moveToNext()) {
+                String paso = cursor.getString(columna);
+                assertFalse(paso, RECORRIDO_ALUMNOS.matcher(paso).matches());
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Comprueba que las sugerencias de varios términos coinciden con las
+    // calculadas recorriendo todos los nombres: primero aquellos cuya primera
+    // palabra empieza por el término y después aquellos en los que lo hace
+    // otra palabra, cada grupo por nombre.
+    private void comprobarSugerencias() {
+        List<String> nombres = new ArrayList<>();
+        Cursor todos = mBd.rawQuery(SQL_NOMBRES, null);
+        try {
+            while (todos.moveToNext()) {
+                nombres.add(todos.getString(0));
+            }
+        } finally {
+            todos.close();
+        }
+        for (int i = 0; i < NUM_COMPROBACIONES; i++) {
+            String termino = getTermino();
+            assertEquals(termino, esperadas(nombres, termino), obtenidas(termino));
+        }
+    }
+
+    private static List<String> esperadas(List<String> nombres, String termino) {
+        String prefijo = termino.toLowerCase(Locale.US);
+        List<String> anclados = new ArrayList<>();
+        List<String> otros = new ArrayList<>();
+        for (String nombre : nombres) {
+            String[] palabras = SEPARADOR_PALABRAS.split(nombre.toLowerCase(Locale.US));
+            if (palabras[0].startsWith(prefijo)) {
+                anclados.add(nombre);
+            } else {
+                for (String palabra : palabras) {
+                    if (palabra.startsWith(prefijo)) {
+                        otros.add(nombre);
+                        break;
+                    }
+                }
+            }
+        }
+        Collections.sort(anclados);
+        Collections.sort(otros);
+        anclados.addAll(otros);
+        return anclados.subList(0, Math.min(anclados.size(), InstitutoProvider.MAX_SUGERENCIAS));
+    }
+
+    private List<String> obtenidas(String termino) {
+        List<String> sugerencias = new ArrayList<>();
+        Cursor cursor = InstitutoProvider.consultarSugerencias(mBd, termino);
+        try {
+            int columna = cursor.getColumnIndexOrThrow(SearchManager.SUGGEST_COLUMN_TEXT_1);
+            while (cursor.moveToNext()) {
+                sugerencias.add(cursor.getString(columna));
+            }
+        } finally {
+            cursor.close();
+        }
+        return sugerencias;
+    }
+
+    // Retorna la media en ms de las consultas de sugerencias para términos de
+    // 1 a 3 letras, como los que se producen al ir escribiendo.
+    private double medir(boolean fts) {
+        for (int i = 0; i < NUM_CALENTAMIENTO; i++) {
+            consultar(fts, getTermino());
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < NUM_CONSULTAS; i++) {
+            consultar(fts, getTermino());
+        }
+        return (System.nanoTime() - inicio) / 1e6 / NUM_CONSULTAS;
+    }
+
+    private void consultar(boolean fts, String termino) {
+        Cursor cursor = fts ? InstitutoProvider.consultarSugerencias(mBd, termino)
+                : mBd.rawQuery(SQL_LIKE, new String[]{"%" + termino + "%"});
+        // getCount() obliga a ejecutar la consulta completa.
+        int filas = cursor.getCount();
+        cursor.close();
+        if (fts) {
+            assertTrue(filas <= InstitutoProvider.MAX_SUGERENCIAS);
+        }
+    }
+
+    private String getTermino() {
+        String nombre = NOMBRES[mRandom.nextInt(NOMBRES.length)];
+        return nombre.substring(0, 1 + mRandom.nextInt(3));
+    }
+
+    private void insertarAlumnos(int cantidad) {
+        SQLiteStatement stmt = mBd.compileStatement("INSERT INTO "
+                + InstitutoContract.Alumno.TABLA + " (" + InstitutoContract.Alumno.NOMBRE + ", "
+                + InstitutoContract.Alumno.CURSO + ", " + InstitutoContract.Alumno.TELEFONO
+                + ") VALUES (?, ?, ?)");
+        mBd.beginTransaction();
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                stmt.bindString(1, NOMBRES[mRandom.nextInt(NOMBRES.length)] + " "
+                        + APELLIDOS[mRandom.nextInt(APELLIDOS.length)] + " " + i);
+                stmt.bindString(2, "1º CFGM");
+                stmt.bindString(3, "(803) 493-3041");
+                stmt.executeInsert();
+            }
+            mBd.setTransactionSuccessful();
+        } finally {
+            mBd.endTransaction();
+            stmt.close();
+        }
+    }
+
+}
@@ -6,7 +6,7 @@ public class InstitutoContract {
 
     // Constantes generales de la BD.
     public static final String BD_NOMBRE = "instituto";
-    public static final int BD_VERSION = 1;
+    public static final int BD_VERSION = 2;
 
     // Tabla Alumno.
     public abstract static class Alumno implements BaseColumns {
@@ -19,6 +19,15 @@ public class InstitutoContract {
         public static final String[] TODOS = new String[]{_ID, NOMBRE, CURSO, TELEFONO, DIRECCION, FOTO};
     }
 
+    // Índice de texto completo (FTS4) sobre el nombre de los alumnos. No
+    // guarda el contenido, sino que lo toma de la tabla alumnos (docid = _id),
+    // y se mantiene sincronizado con ella mediante triggers.
+    public abstract static class AlumnoFts {
+        public static final String TABLA = "alumnos_fts";
+        public static final String DOCID = "docid";
+        public static final String NOMBRE = Alumno.NOMBRE;
+    }
+
     // Constructor privado para que NO pueda instanciarse.
     private InstitutoContract() {
     }
@@ -22,8 +22,41 @@ public class InstitutoHelper extends SQLiteOpenHelper {
                     + InstitutoContract.Alumno.TELEFONO + " text not null, "
                     + InstitutoContract.Alumno.DIRECCION + " text, " + InstitutoContract.Alumno.FOTO
                     + " text);";
-    private static final String TBL_ALUMNO_DROP =
-            "drop table if exists " + InstitutoContract.Alumno.TABLA;
+    // Índice de texto completo con contenido externo (el de la tabla alumnos).
+    private static final String TBL_ALUMNO_FTS_CREATE =
+            "create virtual table " + InstitutoContract.AlumnoFts.TABLA + " using fts4(content=\""
+                    + InstitutoContract.Alumno.TABLA + "\", " + InstitutoContract.AlumnoFts.NOMBRE
+                    + ");";
+    private static final String TBL_ALUMNO_FTS_DROP =
+            "drop table if exists " + InstitutoContract.AlumnoFts.TABLA;
+    // Reconstruye el índice a partir de los datos actuales de la tabla.
+    private static final String TBL_ALUMNO_FTS_REBUILD =
+            "insert into " + InstitutoContract.AlumnoFts.TABLA + "("
+                    + InstitutoContract.AlumnoFts.TABLA + ") values('rebuild');";
+    // Triggers que mantienen el índice sincronizado con la tabla. Al tener
+    // contenido externo, las entradas antiguas se deben borrar antes de que
+    // cambie la fila (BEFORE) y las nuevas añadirse después (AFTER).
+    private static final String[] TRG_ALUMNO_FTS_CREATE = {
+            "create trigger alumnos_fts_bd before delete on " + InstitutoContract.Alumno.TABLA
+                    + " begin delete from " + InstitutoContract.AlumnoFts.TABLA + " where "
+                    + InstitutoContract.AlumnoFts.DOCID + " = old." + InstitutoContract.Alumno._ID
+                    + "; end;",
+            "create trigger alumnos_fts_bu before update of " + InstitutoContract.Alumno.NOMBRE
+                    + " on " + InstitutoContract.Alumno.TABLA + " begin delete from "
+                    + InstitutoContract.AlumnoFts.TABLA + " where "
+                    + InstitutoContract.AlumnoFts.DOCID + " = old." + InstitutoContract.Alumno._ID
+                    + "; end;",
+            "create trigger alumnos_fts_au after update of " + InstitutoContract.Alumno.NOMBRE
+                    + " on " + InstitutoContract.Alumno.TABLA + " begin insert into "
+                    + InstitutoContract.AlumnoFts.TABLA + "(" + InstitutoContract.AlumnoFts.DOCID
+                    + ", " + InstitutoContract.AlumnoFts.NOMBRE + ") values(new."
+                    + InstitutoContract.Alumno._ID + ", new." + InstitutoContract.Alumno.NOMBRE
+                    + "); end;",
+            "create trigger alumnos_fts_ai after insert on " + InstitutoContract.Alumno.TABLA
+                    + " begin insert into " + InstitutoContract.AlumnoFts.TABLA + "("
+                    + InstitutoContract.AlumnoFts.DOCID + ", " + InstitutoContract.AlumnoFts.NOMBRE
+                    + ") values(new." + InstitutoContract.Alumno._ID + ", new."
+                    + InstitutoContract.Alumno.NOMBRE + "); end;"};
     private final Context mContexto;
 
     public InstitutoHelper(Context ctx) {
@@ -33,10 +66,26 @@ public class InstitutoHelper extends SQLiteOpenHelper {
 
     @Override
     public void onCreate(SQLiteDatabase db) {
-        db.execSQL(TBL_ALUMNO_CREATE);
+        crearTablas(db);
         insertarDatosIniciales(db);
     }
 
+    // Crea la tabla de alumnos y su índice de texto completo.
+    static void crearTablas(SQLiteDatabase db) {
+        db.execSQL(TBL_ALUMNO_CREATE);
+        crearIndiceBusqueda(db);
+    }
+
+    // Crea el índice de texto completo y los triggers que lo mantienen, y lo
+    // llena con los alumnos que ya hubiera.
+    private static void crearIndiceBusqueda(SQLiteDatabase db) {
+        db.execSQL(TBL_ALUMNO_FTS_CREATE);
+        for (String trigger : TRG_ALUMNO_FTS_CREATE) {
+            db.execSQL(trigger);
+        }
+        db.execSQL(TBL_ALUMNO_FTS_REBUILD);
+    }
+
     // Inserta los registros iniciales a partir de un fichero json.
     private void insertarDatosIniciales(SQLiteDatabase db) {
         try {
@@ -56,9 +105,12 @@ public class InstitutoHelper extends SQLiteOpenHelper {
     // Método de callback para cuando la BD debe se actualizada de versión
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Se eliminan las tablas y se recrean de nuevo.
-        db.execSQL(TBL_ALUMNO_DROP);
-        db.execSQL(TBL_ALUMNO_CREATE);
+        if (oldVersion < 2) {
+            // La versión 2 solo añade el índice de búsqueda, que se crea a
+            // partir de los alumnos existentes sin perderlos.
+            db.execSQL(TBL_ALUMNO_FTS_DROP);
+            crearIndiceBusqueda(db);
+        }
     }
 
     @SuppressWarnings("ResultOfMethodCallIgnored")
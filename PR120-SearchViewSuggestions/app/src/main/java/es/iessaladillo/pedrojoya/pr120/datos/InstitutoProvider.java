@@ -15,8 +15,8 @@ import android.support.annotation.NonNull;
 import android.text.TextUtils;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Locale;
 
 @SuppressWarnings({"ConstantConditions", "SameParameterValue"})
 public class InstitutoProvider extends ContentProvider {
@@ -39,7 +39,38 @@ public class InstitutoProvider extends ContentProvider {
             + "/vnd.es.iessaladillo.instituto.alumno"; // Tipo MIME alumno.
 
     // Constantes para las sugerencias.
-
+    // Número máximo de sugerencias retornadas.
+    static final int MAX_SUGERENCIAS = 10;
+    // Consulta de sugerencias sobre el índice de texto completo. Se obtienen
+    // los MAX_SUGERENCIAS primeros alumnos por nombre cuyo nombre empieza por
+    // el término (rango 0) y otros tantos en los que alguna palabra empieza por
+    // él (rango 1). Cada rama se ordena por nombre antes de limitarla, para que
+    // el límite no se quede con coincidencias arbitrarias; así el coste depende
+    // del número de coincidencias y no del de alumnos. Se muestran primero los
+    // de menor rango y después por nombre. Recibe como parámetros la expresión
+    // MATCH anclada al inicio y la expresión general.
+    static final String SQL_SUGERENCIAS = "SELECT a." + InstitutoContract.Alumno._ID
+            + " AS " + BaseColumns._ID + ", a." + InstitutoContract.Alumno.NOMBRE + " AS "
+            + SearchManager.SUGGEST_COLUMN_TEXT_1 + ", a." + InstitutoContract.Alumno.CURSO
+            + " AS " + SearchManager.SUGGEST_COLUMN_TEXT_2 + ", a." + InstitutoContract.Alumno.FOTO
+            + " AS " + SearchManager.SUGGEST_COLUMN_ICON_1 + ", a." + InstitutoContract.Alumno._ID
+            + " AS " + SearchManager.SUGGEST_COLUMN_INTENT_DATA_ID
+            + " FROM (SELECT docid, MIN(rango) AS rango FROM ("
+            + "SELECT * FROM (SELECT docid, 0 AS rango FROM " + InstitutoContract.AlumnoFts.TABLA
+            + " WHERE " + InstitutoContract.AlumnoFts.TABLA + " MATCH ? ORDER BY "
+            + InstitutoContract.AlumnoFts.NOMBRE + " LIMIT " + MAX_SUGERENCIAS
+            + ") UNION ALL "
+            + "SELECT * FROM (SELECT docid, 1 AS rango FROM " + InstitutoContract.AlumnoFts.TABLA
+            + " WHERE " + InstitutoContract.AlumnoFts.TABLA + " MATCH ? ORDER BY "
+            + InstitutoContract.AlumnoFts.NOMBRE + " LIMIT " + MAX_SUGERENCIAS
+            + ")) GROUP BY docid) r"
+            + " JOIN " + InstitutoContract.Alumno.TABLA + " a ON a." + InstitutoContract.Alumno._ID
+            + " = r.docid ORDER BY r.rango, a." + InstitutoContract.Alumno.NOMBRE + " LIMIT "
+            + MAX_SUGERENCIAS;
+    // Operadores de la sintaxis MATCH, que no deben tomarse como tales si los
+    // escribe el usuario.
+    private static final HashSet<String> OPERADORES_MATCH = new HashSet<>(
+            Arrays.asList("AND", "OR", "NOT", "NEAR"));
 
     // Constantes para tipos de Uris (deben tener todos un valor diferente).
     private static final int URI_TYPE_ALUMNOS_LIST = 10; // Tipo para alumnos.
@@ -136,29 +167,12 @@ public class InstitutoProvider extends ContentProvider {
                 } else if (selectionArgs.length == 0 || selectionArgs[0].length() == 0) {
                     return null;
                 }
-                // Se establece la tabla para la consulta.
-                builder.setTables(InstitutoContract.Alumno.TABLA);
-                // Se crea un mapa de renombrado (AS) de los campos del SELECT, ya que debemos
-                // proporcionar los nombres que espera el SearchView.
-                String[] campos = new String[]{"ROWID", InstitutoContract.Alumno._ID,
-                                               InstitutoContract.Alumno.NOMBRE, InstitutoContract
-                                                       .Alumno.CURSO, InstitutoContract.Alumno
-                                                       .FOTO};
-                HashMap<String, String> mapa = new HashMap<>();
-                mapa.put("ROWID", BaseColumns._ID);
-                mapa.put(InstitutoContract.Alumno.NOMBRE, InstitutoContract.Alumno.NOMBRE + " AS "
-                        + SearchManager.SUGGEST_COLUMN_TEXT_1);
-                mapa.put(InstitutoContract.Alumno.CURSO, InstitutoContract.Alumno.CURSO + " AS "
-                        + SearchManager.SUGGEST_COLUMN_TEXT_2);
-                mapa.put(InstitutoContract.Alumno.FOTO, InstitutoContract.Alumno.FOTO + " AS "
-                        + SearchManager.SUGGEST_COLUMN_ICON_1);
-                mapa.put(InstitutoContract.Alumno._ID, InstitutoContract.Alumno._ID + " AS "
-                        + SearchManager.SUGGEST_COLUMN_INTENT_DATA_ID);
-                builder.setProjectionMap(mapa);
-                String termino = selectionArgs[0];
-                String criterio = InstitutoContract.Alumno.NOMBRE + " LIKE '%" + termino + "%'";
-                // Se realiza la consulta.
-                cursor = builder.query(bd, campos, criterio, null, null, null, sortOrder);
+                // Se consulta el índice de texto completo con parámetros, por
+                // lo que la sentencia compilada se reutiliza en cada pulsación.
+                cursor = consultarSugerencias(bd, selectionArgs[0]);
+                if (cursor == null) {
+                    return null;
+                }
                 break;
             default:
                 throw new IllegalArgumentException("URI desconocida: " + uri);
@@ -168,6 +182,29 @@ public class InstitutoProvider extends ContentProvider {
         return cursor;
     }
 
+    // Retorna el cursor con las sugerencias para el término recibido, o null
+    // si el término no contiene ninguna palabra.
+    static Cursor consultarSugerencias(SQLiteDatabase bd, String termino) {
+        String[] palabras = termino.trim().split("[^\\p{L}\\p{N}]+");
+        StringBuilder general = new StringBuilder();
+        for (String palabra : palabras) {
+            if (palabra.length() > 0) {
+                if (OPERADORES_MATCH.contains(palabra)) {
+                    palabra = palabra.toLowerCase(Locale.US);
+                }
+                // Cada palabra se busca como prefijo.
+                general.append(general.length() > 0 ? " " : "").append(palabra).append('*');
+            }
+        }
+        if (general.length() == 0) {
+            return null;
+        }
+        // La expresión anclada exige que la primera palabra sea el inicio
+        // del nombre.
+        String anclada = "^" + general;
+        return bd.rawQuery(SQL_SUGERENCIAS, new String[]{anclada, general.toString()});
+    }
+
     // Retorna el número de registros eliminados. Recibe los parámetros recibido
     // por el método delete del ContentResolver.
     @Override
@@ -1,6 +1,8 @@
 package es.iessaladillo.pedrojoya.pr129;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 import android.view.View.OnClickListener;
@@ -14,10 +16,22 @@ import java.util.Locale;
 public class MainActivity extends AppCompatActivity implements OnClickListener {
 
     private Button btnIniciar;
-    private Thread hiloSecundario;
+    // El reloj no hace trabajo en segundo plano, así que no ocupa ningún
+    // hilo: cada tic se programa en el hilo principal para el comienzo del
+    // siguiente segundo.
+    private final Handler mHandler = new Handler();
+    private final Runnable mTic = new Runnable() {
+        @Override
+        public void run() {
+            actualizarHora();
+            programarTic();
+        }
+    };
     private TextView lblTiempo;
     private final SimpleDateFormat mFormateador = new SimpleDateFormat("HH:mm:ss",
             Locale.getDefault());
+    // Se reutiliza en cada tic del reloj.
+    private final Date mHora = new Date();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -28,7 +42,7 @@ public class MainActivity extends AppCompatActivity implements OnClickListener {
 
     private void initVistas() {
         lblTiempo = (TextView) this.findViewById(R.id.lblTiempo);
-        lblTiempo.setText(mFormateador.format(new Date()));
+        actualizarHora();
         btnIniciar = (Button) this.findViewById(R.id.btnIniciar);
         if (btnIniciar != null) {
             btnIniciar.setOnClickListener(this);
@@ -52,61 +66,34 @@ public class MainActivity extends AppCompatActivity implements OnClickListener {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Al destruirse la actividad debemos interrumpir el hilo secundario.
-        // Si no lo paráramos, se produciría un memory leak.
+        // Al destruirse la actividad debemos retirar el tic pendiente. Si no
+        // lo retiráramos, se produciría un memory leak.
         parar();
     }
 
     private void iniciar() {
-        // Se crea el hilo pasándole el tiempo guardado al objeto Crono.
-        hiloSecundario = new Thread(new Reloj());
-        // Se inicia el hilo.
-        hiloSecundario.start();
+        actualizarHora();
+        programarTic();
         // Se cambia el texto del botón.
         btnIniciar.setText(R.string.parar);
     }
 
-    private void actualizarHora(String cadena) {
-        lblTiempo.setText(cadena);
+    // Programa el siguiente tic al empezar el siguiente segundo.
+    private void programarTic() {
+        long ahora = System.currentTimeMillis();
+        mHandler.postAtTime(mTic, SystemClock.uptimeMillis() + 1000 - ahora % 1000);
+    }
+
+    private void actualizarHora() {
+        mHora.setTime(System.currentTimeMillis());
+        lblTiempo.setText(mFormateador.format(mHora));
     }
 
     private void parar() {
-        // Se interrumple el hilo.
-        hiloSecundario.interrupt();
+        // Se retira el tic pendiente, que referencia a la actividad.
+        mHandler.removeCallbacks(mTic);
         // Se cambia el texto del botón.
         btnIniciar.setText(R.string.iniciar);
     }
 
-    private class Reloj implements Runnable {
-
-        final SimpleDateFormat formateador = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-
-        @Override
-        public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                final String cadena = formateador.format(new Date());
-                // Se crea la tarea de actualización.
-                Runnable tarea = new Runnable() {
-
-                    @Override
-                    public void run() {
-                        actualizarHora(cadena);
-                    }
-
-                };
-                // Se ejecuta en el hilo principal.
-                runOnUiThread(tarea);
-                // Espera un segundo.
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    // Se finaliza el hilo si se produce la interrupción
-                    // mientras se duerme.
-                    return;
-                }
-            }
-        }
-
-    }
-
 }
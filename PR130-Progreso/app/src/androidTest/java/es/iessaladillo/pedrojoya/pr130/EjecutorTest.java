@@ -0,0 +1,264 @@
+package es.iessaladillo.pedrojoya.pr130;
+
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Comprueba que tras 1.000 ciclos de lanzar y cancelar tareas no quedan hilos
+// vivos, que las tareas pendientes empiezan por orden de prioridad y que
+// publicar el progreso no reserva memoria por cada tic.
+@RunWith(AndroidJUnit4.class)
+public class EjecutorTest {
+
+    private static final int NUM_HILOS = 4;
+    private static final long INACTIVIDAD_MS = 200;
+    private static final int NUM_CICLOS = 1000;
+    private static final int POCOS_TICS = 1000;
+    private static final int MUCHOS_TICS = 100000;
+    // Reservas que se admiten de más con muchos tics, por las que pueda
+    // hacer el sistema en el hilo.
+    private static final int MARGEN_RESERVAS = 50;
+    private static final long TIEMPO_MAXIMO_SEGUNDOS = 30;
+
+    @Test
+    public void noQuedanHilosTrasLanzarYCancelar() throws InterruptedException {
+        final Ejecutor ejecutor = new Ejecutor(NUM_HILOS, INACTIVIDAD_MS, TimeUnit.MILLISECONDS);
+        final AtomicInteger cancelados = new AtomicInteger();
+        final CountDownLatch terminados = new CountDownLatch(NUM_CICLOS);
+        final Ejecutor.Receptor<Void> receptor = new Receptor<Void>() {
+            @Override
+            public void onResultado(Void resultado) {
+                terminados.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                terminados.countDown();
+            }
+
+            @Override
+            public void onCancelado() {
+                cancelados.incrementAndGet();
+                terminados.countDown();
+            }
+        };
+        for (int i = 0; i < NUM_CICLOS; i++) {
+            final Ejecutor.Prioridad prioridad =
+                    Ejecutor.Prioridad.values()[i % Ejecutor.Prioridad.values().length];
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    ejecutor.ejecutar(new TareaBloqueante(), prioridad, receptor).cancelar();
+                }
+            });
+        }
+        assertTrue(terminados.await(TIEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS));
+        assertEquals(NUM_CICLOS, cancelados.get());
+        assertTrue(ejecutor.getMaxHilos() <= NUM_HILOS);
+        // Los hilos terminan tras el tiempo de inactividad.
+        long limite = SystemClock.elapsedRealtime() + TimeUnit.SECONDS.toMillis(
+                TIEMPO_MAXIMO_SEGUNDOS);
+        while (ejecutor.getNumHilos() > 0 && SystemClock.elapsedRealtime() < limite) {
+            SystemClock.sleep(INACTIVIDAD_MS);
+        }
+        assertEquals(0, ejecutor.getNumHilos());
+    }
+
+    @Test
+    public void pendientesEmpiezanPorPrioridad() throws InterruptedException {
+        // Con un solo hilo, ocupado por la primera tarea, el resto queda
+        // pendiente y debe empezar de mayor a menor prioridad.
+        final Ejecutor ejecutor = new Ejecutor(1, INACTIVIDAD_MS, TimeUnit.MILLISECONDS);
+        final CountDownLatch liberar = new CountDownLatch(1);
+        final CountDownLatch terminados = new CountDownLatch(4);
+        final List<Ejecutor.Prioridad> orden =
+                Collections.synchronizedList(new ArrayList<Ejecutor.Prioridad>());
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                ejecutor.ejecutar(new TareaEspera(liberar, null, orden),
+                        Ejecutor.Prioridad.BAJA, new ReceptorFin(terminados));
+                for (Ejecutor.Prioridad prioridad : new Ejecutor.Prioridad[]{
+                        Ejecutor.Prioridad.BAJA, Ejecutor.Prioridad.NORMAL,
+                        Ejecutor.Prioridad.ALTA}) {
+                    ejecutor.ejecutar(new TareaEspera(null, prioridad, orden), prioridad,
+                            new ReceptorFin(terminados));
+                }
+            }
+        });
+        liberar.countDown();
+        assertTrue(terminados.await(TIEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(Ejecutor.Prioridad.ALTA, Ejecutor.Prioridad.NORMAL,
+                Ejecutor.Prioridad.BAJA), orden);
+    }
+
+    @Test
+    public void publicarProgresoNoReservaMemoriaPorTic() throws InterruptedException {
+        Ejecutor ejecutor = new Ejecutor(NUM_HILOS, INACTIVIDAD_MS, TimeUnit.MILLISECONDS);
+        // Calentamiento.
+        medirReservas(ejecutor, POCOS_TICS);
+        long pocos = medirReservas(ejecutor, POCOS_TICS);
+        long muchos = medirReservas(ejecutor, MUCHOS_TICS);
+        assertTrue(String.format("Reservas en el hilo secundario: %d con %d tics, %d con %d "
+                        + "tics", pocos, POCOS_TICS, muchos, MUCHOS_TICS),
+                muchos <= pocos + MARGEN_RESERVAS);
+    }
+
+    // Retorna las reservas de memoria que hace el hilo secundario al publicar
+    // los tics, tras esperar a que el último llegue al hilo principal.
+    private static long medirReservas(final Ejecutor ejecutor, final int numTics)
+            throws InterruptedException {
+        final AtomicLong reservas = new AtomicLong();
+        final AtomicInteger ultimo = new AtomicInteger();
+        final CountDownLatch terminado = new CountDownLatch(1);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                ejecutor.ejecutar(new TareaTics(numTics), Ejecutor.Prioridad.NORMAL,
+                        new Receptor<Long>() {
+                            @Override
+                            public void onProgreso(int progreso) {
+                                ultimo.set(progreso);
+                            }
+
+                            @Override
+                            public void onResultado(Long resultado) {
+                                reservas.set(resultado);
+                                terminado.countDown();
+                            }
+                        });
+            }
+        });
+        assertTrue(terminado.await(TIEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS));
+        // El último progreso llega antes que el resultado.
+        assertEquals(numTics, ultimo.get());
+        return reservas.get();
+    }
+
+    // Espera hasta que se cancela.
+    private static class TareaBloqueante implements Ejecutor.Tarea<Void> {
+
+        @Override
+        public Void ejecutar(Trabajo<Void> trabajo) throws InterruptedException {
+            while (!trabajo.isCancelado()) {
+                Thread.sleep(10);
+            }
+            return null;
+        }
+
+    }
+
+    // Espera a que se libere el cerrojo, si lo hay, y anota su prioridad, si
+    // la tiene.
+    private static class TareaEspera implements Ejecutor.Tarea<Void> {
+
+        private final CountDownLatch mCerrojo;
+        private final Ejecutor.Prioridad mPrioridad;
+        private final List<Ejecutor.Prioridad> mOrden;
+
+        TareaEspera(CountDownLatch cerrojo, Ejecutor.Prioridad prioridad,
+                List<Ejecutor.Prioridad> orden) {
+            mCerrojo = cerrojo;
+            mPrioridad = prioridad;
+            mOrden = orden;
+        }
+
+        @Override
+        public Void ejecutar(Trabajo<Void> trabajo) throws InterruptedException {
+            if (mCerrojo != null) {
+                mCerrojo.await();
+            }
+            if (mPrioridad != null) {
+                mOrden.add(mPrioridad);
+            }
+            return null;
+        }
+
+    }
+
+    // Publica los tics y retorna las reservas de memoria que ha hecho el hilo
+    // mientras tanto.
+    private static class TareaTics implements Ejecutor.Tarea<Long> {
+
+        private final int mNumTics;
+
+        TareaTics(int numTics) {
+            mNumTics = numTics;
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public Long ejecutar(Trabajo<Long> trabajo) {
+            Debug.startAllocCounting();
+            try {
+                int inicio = Debug.getThreadAllocCount();
+                for (int i = 1; i <= mNumTics; i++) {
+                    trabajo.publicarProgreso(i);
+                }
+                return (long) (Debug.getThreadAllocCount() - inicio);
+            } finally {
+                Debug.stopAllocCounting();
+            }
+        }
+
+    }
+
+    // Receptor que descuenta el cerrojo al terminar la tarea.
+    private static class ReceptorFin extends Receptor<Void> {
+
+        private final CountDownLatch mTerminados;
+
+        ReceptorFin(CountDownLatch terminados) {
+            mTerminados = terminados;
+        }
+
+        @Override
+        public void onResultado(Void resultado) {
+            mTerminados.countDown();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            mTerminados.countDown();
+        }
+
+    }
+
+    // Receptor que no hace nada, para sobrescribir solo lo necesario.
+    private static class Receptor<R> implements Ejecutor.Receptor<R> {
+
+        @Override
+        public void onProgreso(int progreso) {
+        }
+
+        @Override
+        public void onResultado(R resultado) {
+        }
+
+        @Override
+        public void onError(Exception e) {
+        }
+
+        @Override
+        public void onCancelado() {
+        }
+
+    }
+
+}
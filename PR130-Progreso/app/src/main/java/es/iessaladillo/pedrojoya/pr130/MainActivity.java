@@ -1,22 +1,15 @@
 package es.iessaladillo.pedrojoya.pr130;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
-import java.lang.ref.WeakReference;
-
 public class MainActivity extends AppCompatActivity {
 
-    // Constantes (se definen con esos nombres para introducir las AsyncTasks).
-    private static final int onPreExecute = 0;
-    private static final int onProgressUpdate = 1;
-    private static final int onPostExecute = 2;
+    // Constantes.
     private static final int NUM_PASOS = 10;
 
     private ProgressBar prbBarra;
@@ -24,17 +17,53 @@ public class MainActivity extends AppCompatActivity {
     private ProgressBar prbCirculo;
     private Button btnIniciar;
 
-    private Manejador mManejador;
+    private Trabajo<Integer> mTrabajo;
+
+    // Recibe en el hilo principal el progreso y el resultado de la tarea
+    // secundaria.
+    private final Ejecutor.Receptor<Integer> mReceptor = new Ejecutor.Receptor<Integer>() {
+        @Override
+        public void onProgreso(int progreso) {
+            // Se actualizan las barras.
+            actualizarBarras(progreso);
+        }
+
+        @Override
+        public void onResultado(Integer tareas) {
+            // Se informa al usuario y se resetean las vistas.
+            mTrabajo = null;
+            mostrarRealizadas(tareas);
+            resetearVistas();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            mTrabajo = null;
+            resetearVistas();
+        }
+
+        @Override
+        public void onCancelado() {
+            mTrabajo = null;
+            resetearVistas();
+        }
+    };
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
-        // Se crea el manejador, que estará asociado al hilo desde el que se crea
-        // (hilo IU). Se le pasa la actividad, para que al manejar los mensajes ejecute métodos
-        // de la misma.
-        mManejador = new Manejador(this);
         initVistas();
+        // Si la actividad se recrea por un cambio de configuración, se
+        // recupera la tarea en curso y se pasa a recibir su progreso y su
+        // resultado, aunque haya terminado mientras tanto.
+        //noinspection unchecked
+        mTrabajo = (Trabajo<Integer>) getLastCustomNonConfigurationInstance();
+        if (mTrabajo != null) {
+            btnIniciar.setEnabled(false);
+            mostrarBarras();
+            mTrabajo.setReceptor(mReceptor);
+        }
     }
 
     // Obtiene e inicializa las vistas.
@@ -51,11 +80,32 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    public Object onRetainCustomNonConfigurationInstance() {
+        return mTrabajo;
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mTrabajo != null) {
+            // Se suelta el receptor para no retener la actividad. Si no va a
+            // recrearse, la tarea ya no tiene quien la reciba y se cancela.
+            mTrabajo.setReceptor(null);
+            if (!isChangingConfigurations()) {
+                mTrabajo.cancelar();
+            }
+        }
+        super.onDestroy();
+    }
+
     // Cuando se hace click en btnIniciar.
     private void iniciar() {
         btnIniciar.setEnabled(false);
-        // Se crea la tarea secundaria, un hilo para ella y se inicia.
-        (new Thread(new TareaSecundaria(mManejador))).start();
+        // Se hacen visibles las vistas para el progreso.
+        mostrarBarras();
+        // Se ejecuta la tarea secundaria en el ejecutor.
+        mTrabajo = Ejecutor.getInstance().ejecutar(new TareaSecundaria(),
+                Ejecutor.Prioridad.NORMAL, mReceptor);
     }
 
     // Hace visibles las vistas relacionadas con el progreso.
@@ -87,104 +137,24 @@ public class MainActivity extends AppCompatActivity {
     }
 
     // Clase interna para la tarea secundaria. Debe ser static para evitar memory leaks.
-    private static class TareaSecundaria implements Runnable {
-
-        // El manejador no genera memory leaks porque posee una referencia fuerte a la actividad,
-        // sino tan solo una referencia débil.
-        private final Manejador manejador;
-
-        public TareaSecundaria(Manejador manejador) {
-            this.manejador = manejador;
-        }
+    private static class TareaSecundaria implements Ejecutor.Tarea<Integer> {
 
         @Override
-        public void run() {
-            // Crea y envía el mensaje de inicio de ejecución al manejador.
-            enviarMensajeInicio();
-            for (int i = 0; i < NUM_PASOS; i++) {
+        public Integer ejecutar(Trabajo<Integer> trabajo) throws InterruptedException {
+            for (int i = 0; i < NUM_PASOS && !trabajo.isCancelado(); i++) {
                 // Se pone a trabajar.
                 trabajar();
-                // Crea y envía un mensaje de actualización al manejador.
-                enviarMensajeProgreso(i);
+                // Se publica el progreso, que llega al hilo principal a
+                // través de un mensaje reutilizado.
+                trabajo.publicarProgreso(i + 1);
             }
-            // Crea y envía el mensaje de fin de ejecución al manejador.
-            enviarMensajeFin();
+            return NUM_PASOS;
         }
 
-        private void enviarMensajeInicio() {
-            Message msgInicio = new Message();
-            msgInicio.what = onPreExecute;
-            manejador.sendMessage(msgInicio);
-        }
-
-        private void enviarMensajeProgreso(int i) {
-            Message msgProgreso = new Message();
-            msgProgreso.what = onProgressUpdate;
-            msgProgreso.arg1 = i + 1;
-            manejador.sendMessage(msgProgreso);
-        }
-
-        private void enviarMensajeFin() {
-            Message msgFin = new Message();
-            msgFin.what = onPostExecute;
-            msgFin.arg1 = NUM_PASOS;
-            manejador.sendMessage(msgFin);
-        }
-
-        // Simula un trabajo de 1 segundo.
-        private void trabajar() {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-
-    }
-
-    // Clase interna para el Manejador. Debe ser static para no generar memory leaks.
-    static class Manejador extends Handler {
-
-        private final WeakReference<MainActivity>
-                mActivityWeakReference;
-
-        Manejador(MainActivity activity) {
-            // Se llama implícitamente al constructor por defecto de la clase {{Handler}}, que es
-            // Handler(), que asocia el handler al looper del hilo desde el que se está creando (en
-            // este caso el hilo de la interfaz de usuario).
-
-            // Se almacena una referencia débil de la actividad.
-            mActivityWeakReference = new WeakReference<>(activity);
-        }
-
-        // Debemos sobrescribir este método para recibir mensajes.
-        @Override
-        public void handleMessage(Message mensaje) {
-            // Se obtiene la actividad (si aún existe).
-            MainActivity activity = mActivityWeakReference.get();
-            if (activity != null) {
-                // Dependiendo del mensaje recibido.
-                switch (mensaje.what) {
-                    // Mensaje de inicio del hilo secundario.
-                    case onPreExecute:
-                        // Se hacen visibles las vistas para el progreso.
-                        activity.mostrarBarras();
-                        break;
-                    // Mensaje de progreso del hilo secundario.
-                    case onProgressUpdate:
-                        // Se actualizan las barras.
-                        int progreso = mensaje.arg1;
-                        activity.actualizarBarras(progreso);
-                        break;
-                    // Mensaje de fin del hilo secundario.
-                    case onPostExecute:
-                        // Se informa al usuario y se resetean las vistas.
-                        int tareas = mensaje.arg1;
-                        activity.mostrarRealizadas(tareas);
-                        activity.resetearVistas();
-                        break;
-                }
-            }
+        // Simula un trabajo de 1 segundo. Si se cancela la tarea, el sueño se
+        // interrumpe.
+        private void trabajar() throws InterruptedException {
+            Thread.sleep(1000);
         }
 
     }
@@ -0,0 +1,169 @@
+package es.iessaladillo.pedrojoya.pr130;
+
+import android.os.Handler;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ejecución de una tarea en el Ejecutor. Sirve a la tarea para comprobar si
+// se ha cancelado y publicar su progreso, y a quien la lanza para cancelarla
+// y para cambiar de receptor, por ejemplo al recrearse la actividad. Si la
+// tarea termina sin receptor, el resultado se guarda y se entrega al
+// siguiente que se asigne.
+public class Trabajo<R> implements Runnable, Comparable<Trabajo<?>> {
+
+    private static final int SIN_PROGRESO = -1;
+    private static final AtomicLong sSecuencia = new AtomicLong();
+
+    private final Ejecutor mEjecutor;
+    private final Handler mEntregador;
+    private final Ejecutor.Tarea<R> mTarea;
+    private final Ejecutor.Prioridad mPrioridad;
+    private final long mSecuencia = sSecuencia.getAndIncrement();
+
+    // Accedidos desde cualquier hilo.
+    private volatile boolean mCancelado;
+    private volatile int mProgreso = SIN_PROGRESO;
+    // Si hay un mensaje de progreso pendiente de entregar. Mientras lo haya,
+    // el progreso publicado solo actualiza el valor que se entregará.
+    private final AtomicBoolean mProgresoPendiente = new AtomicBoolean();
+    // Hilo que ejecuta la tarea, para interrumpirlo al cancelar.
+    private Thread mHilo;
+
+    // Asignados por el hilo secundario antes de enviar el mensaje de fin.
+    private R mResultado;
+    private Exception mError;
+
+    // Accedidos solo desde el hilo principal.
+    private Ejecutor.Receptor<R> mReceptor;
+    private boolean mTerminado;
+    private boolean mEntregado;
+
+    Trabajo(Ejecutor ejecutor, Ejecutor.Tarea<R> tarea, Ejecutor.Prioridad prioridad) {
+        mEjecutor = ejecutor;
+        mEntregador = ejecutor.getEntregador();
+        mTarea = tarea;
+        mPrioridad = prioridad;
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (mCancelado) {
+                return;
+            }
+            mHilo = Thread.currentThread();
+        }
+        try {
+            mResultado = mTarea.ejecutar(this);
+        } catch (Exception e) {
+            mError = e;
+        } finally {
+            synchronized (this) {
+                mHilo = null;
+                // Una interrupción por cancelación no debe afectar a la
+                // siguiente tarea que ejecute el hilo.
+                Thread.interrupted();
+            }
+            mEntregador.obtainMessage(Ejecutor.MENSAJE_FIN, this).sendToTarget();
+        }
+    }
+
+    @Override
+    public int compareTo(Trabajo<?> otro) {
+        int comparacion = mPrioridad.compareTo(otro.mPrioridad);
+        if (comparacion != 0) {
+            return comparacion;
+        }
+        return mSecuencia < otro.mSecuencia ? -1 : (mSecuencia == otro.mSecuencia ? 0 : 1);
+    }
+
+    // Publica el progreso de la tarea. Se llama desde el hilo secundario y no
+    // reserva memoria: si el anterior aún no se ha entregado, se entrega este
+    // en su lugar.
+    public void publicarProgreso(int progreso) {
+        mProgreso = progreso;
+        if (mProgresoPendiente.compareAndSet(false, true)) {
+            mEntregador.obtainMessage(Ejecutor.MENSAJE_PROGRESO, this).sendToTarget();
+        }
+    }
+
+    // Cancela la tarea. Si aún no ha empezado se retira de la cola y si se
+    // está ejecutando se interrumpe su hilo. El receptor recibe onCancelado()
+    // en vez del resultado, aunque la tarea llegue a terminar.
+    public void cancelar() {
+        synchronized (this) {
+            if (mCancelado) {
+                return;
+            }
+            mCancelado = true;
+            if (mHilo != null) {
+                mHilo.interrupt();
+            }
+        }
+        mEjecutor.retirar(this);
+        mEntregador.removeMessages(Ejecutor.MENSAJE_PROGRESO, this);
+        mEntregador.obtainMessage(Ejecutor.MENSAJE_FIN, this).sendToTarget();
+    }
+
+    public boolean isCancelado() {
+        return mCancelado;
+    }
+
+    // Retorna si ya se ha entregado, o se entregará al siguiente receptor, el
+    // fin de la tarea. Debe llamarse desde el hilo principal.
+    public boolean isTerminado() {
+        return mTerminado;
+    }
+
+    // Cambia el receptor, que puede ser null mientras no haya quien lo
+    // reciba. Si la tarea ya ha terminado se le entrega el fin y si no, el
+    // último progreso publicado. Debe llamarse desde el hilo principal.
+    public void setReceptor(Ejecutor.Receptor<R> receptor) {
+        mReceptor = receptor;
+        if (receptor == null) {
+            return;
+        }
+        if (mTerminado) {
+            entregarFin();
+        } else if (mProgreso != SIN_PROGRESO && !mCancelado) {
+            receptor.onProgreso(mProgreso);
+        }
+    }
+
+    void entregarProgreso() {
+        mProgresoPendiente.set(false);
+        if (!mTerminado && !mCancelado && mReceptor != null) {
+            mReceptor.onProgreso(mProgreso);
+        }
+    }
+
+    void terminar() {
+        // Si se cancela mientras termina, llegan dos mensajes de fin.
+        if (mTerminado) {
+            return;
+        }
+        mTerminado = true;
+        mEntregador.removeMessages(Ejecutor.MENSAJE_PROGRESO, this);
+        entregarFin();
+    }
+
+    private void entregarFin() {
+        if (mReceptor == null || mEntregado) {
+            return;
+        }
+        mEntregado = true;
+        // Se libera el receptor, que suele tener una referencia a la
+        // actividad.
+        Ejecutor.Receptor<R> receptor = mReceptor;
+        mReceptor = null;
+        if (mCancelado) {
+            receptor.onCancelado();
+        } else if (mError != null) {
+            receptor.onError(mError);
+        } else {
+            receptor.onResultado(mResultado);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package es.iessaladillo.pedrojoya.pr131;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ejecuta tareas en un número limitado de hilos secundarios, de mayor a menor
+// prioridad y, con la misma prioridad, en orden de llegada. Los hilos se
+// crean cuando hacen falta y terminan tras un tiempo sin trabajo, de manera
+// que no queda ninguno vivo si no hay tareas. El progreso y el resultado de
+// cada tarea se entregan en el hilo principal a su receptor, a través de
+// mensajes reutilizados del pool de Message.
+// Los trabajos no se pasan al ThreadPoolExecutor, que mientras no tiene
+// todos sus hilos entrega cada tarea nueva directamente a un hilo nuevo sin
+// pasar por la cola. Se guardan en una cola de prioridad propia y al pool se
+// le pasa por cada uno un aviso que, al ejecutarse, atiende el trabajo más
+// prioritario pendiente en ese momento.
+// PR130-Progreso tiene una copia idéntica de esta clase y de Trabajo; los
+// cambios deben llevarse a las dos.
+public class Ejecutor {
+
+    // Prioridades de las tareas, de mayor a menor.
+    public enum Prioridad {
+        ALTA, NORMAL, BAJA
+    }
+
+    // Interfaz que deben implementar las tareas. Se ejecuta en un hilo
+    // secundario y recibe su trabajo, para comprobar si se ha cancelado y
+    // publicar el progreso.
+    public interface Tarea<R> {
+        R ejecutar(Trabajo<R> trabajo) throws Exception;
+    }
+
+    // Interfaz que debe implementar quien recibe el progreso y el resultado
+    // de una tarea. Se llama en el hilo principal y, de los tres últimos
+    // métodos, solo a uno y una sola vez.
+    public interface Receptor<R> {
+        void onProgreso(int progreso);
+
+        void onResultado(R resultado);
+
+        void onError(Exception e);
+
+        void onCancelado();
+    }
+
+    static final int MENSAJE_PROGRESO = 0;
+    static final int MENSAJE_FIN = 1;
+
+    private static final int NUM_HILOS = Math.max(2,
+            Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+    private static final long SEGUNDOS_INACTIVIDAD = 30;
+
+    private static Ejecutor instance = null;
+
+    private final ThreadPoolExecutor mPool;
+    // Trabajos pendientes de empezar, de mayor a menor prioridad.
+    private final PriorityBlockingQueue<Trabajo<?>> mPendientes = new PriorityBlockingQueue<>();
+    // Aviso que se pasa al pool por cada trabajo encolado. Hay siempre al
+    // menos tantos avisos como trabajos pendientes, por lo que ninguno se
+    // queda sin ejecutar; los que sobran al retirar trabajos no hacen nada.
+    private final Runnable mAtender = new Runnable() {
+        @Override
+        public void run() {
+            Trabajo<?> trabajo = mPendientes.poll();
+            if (trabajo != null) {
+                trabajo.run();
+            }
+        }
+    };
+    private final Handler mEntregador = new Entregador();
+
+    public static synchronized Ejecutor getInstance() {
+        if (instance == null) {
+            instance = new Ejecutor(NUM_HILOS, SEGUNDOS_INACTIVIDAD, TimeUnit.SECONDS);
+        }
+        return instance;
+    }
+
+    // Constructor. Recibe el número máximo de hilos y el tiempo sin trabajo
+    // tras el que termina cada uno.
+    Ejecutor(int numHilos, long inactividad, TimeUnit unidad) {
+        mPool = new ThreadPoolExecutor(numHilos, numHilos, inactividad, unidad,
+                new LinkedBlockingQueue<Runnable>(), new FabricaHilos());
+        mPool.allowCoreThreadTimeOut(true);
+    }
+
+    // Encola la tarea y retorna su trabajo, con el que se puede cancelar y
+    // cambiar de receptor. Debe llamarse desde el hilo principal.
+    public <R> Trabajo<R> ejecutar(Tarea<R> tarea, Prioridad prioridad, Receptor<R> receptor) {
+        Trabajo<R> trabajo = new Trabajo<>(this, tarea, prioridad);
+        trabajo.setReceptor(receptor);
+        mPendientes.offer(trabajo);
+        mPool.execute(mAtender);
+        return trabajo;
+    }
+
+    Handler getEntregador() {
+        return mEntregador;
+    }
+
+    // Retira de la cola el trabajo, si aún no ha empezado.
+    void retirar(Trabajo<?> trabajo) {
+        mPendientes.remove(trabajo);
+    }
+
+    // Retorna el número de hilos vivos.
+    int getNumHilos() {
+        return mPool.getPoolSize();
+    }
+
+    // Retorna el máximo número de hilos que ha llegado a haber vivos a la vez.
+    int getMaxHilos() {
+        return mPool.getLargestPoolSize();
+    }
+
+    // Entrega en el hilo principal los mensajes de los trabajos.
+    private static class Entregador extends Handler {
+
+        Entregador() {
+            super(Looper.getMainLooper());
+        }
+
+        @Override
+        public void handleMessage(Message mensaje) {
+            Trabajo<?> trabajo = (Trabajo<?>) mensaje.obj;
+            switch (mensaje.what) {
+                case MENSAJE_PROGRESO:
+                    trabajo.entregarProgreso();
+                    break;
+                case MENSAJE_FIN:
+                    trabajo.terminar();
+                    break;
+            }
+        }
+
+    }
+
+    // Crea los hilos con nombre y con prioridad de segundo plano, para que no
+    // compitan con el hilo principal.
+    private static class FabricaHilos implements ThreadFactory {
+
+        private final AtomicInteger mNumHilo = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "ejecutor-" + mNumHilo.incrementAndGet());
+        }
+
+    }
+
+}
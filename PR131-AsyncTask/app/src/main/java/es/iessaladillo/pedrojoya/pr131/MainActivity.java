@@ -1,6 +1,5 @@
 package es.iessaladillo.pedrojoya.pr131;
 
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.view.View;
@@ -56,7 +55,7 @@ public class MainActivity extends AppCompatActivity implements
         // Si el fragmento existe y la tarea está aún ejecutándose.
         TareaSecundariaFragment frg = (TareaSecundariaFragment) getSupportFragmentManager().findFragmentByTag(TAG_TAREA);
         if(frg != null) {
-            if (frg.getTareaSecundaria().getStatus() == AsyncTask.Status.RUNNING) {
+            if (frg.isEjecutando()) {
                 prbBarra.setVisibility(View.VISIBLE);
                 lblMensaje.setVisibility(View.VISIBLE);
                 prbCirculo.setVisibility(View.VISIBLE);
@@ -79,8 +78,8 @@ public class MainActivity extends AppCompatActivity implements
     private void cancelar() {
         TareaSecundariaFragment frg = (TareaSecundariaFragment) getSupportFragmentManager().findFragmentByTag(TAG_TAREA);
         if (frg != null) {
-            if (frg.getTareaSecundaria().getStatus() == AsyncTask.Status.RUNNING) {
-                frg.getTareaSecundaria().cancel(true);
+            if (frg.isEjecutando()) {
+                frg.cancelar();
             }
         }
     }
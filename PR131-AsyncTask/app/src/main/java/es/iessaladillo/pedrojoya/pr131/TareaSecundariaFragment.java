@@ -1,7 +1,6 @@
 package es.iessaladillo.pedrojoya.pr131;
 
 import android.content.Context;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 
@@ -9,7 +8,7 @@ public class TareaSecundariaFragment extends Fragment {
 
     private static final String ARG_NUMPASOS = "numpasos";
 
-    private TareaSecundaria mTareaSecundaria;
+    private Trabajo<Integer> mTrabajo;
 
     // Definimos una interfaz para que la actividad sea informada cuando se
     // produzca algún evento en la tarea secundaria.
@@ -38,8 +37,15 @@ public class TareaSecundariaFragment extends Fragment {
         super.onCreate(savedInstanceState);
         // El fragmento no será destruido si se cambia la orientación.
         setRetainInstance(true);
-        mTareaSecundaria = new TareaSecundaria();
-        mTareaSecundaria.execute(getArguments().getInt(ARG_NUMPASOS));
+        if (mListener != null) {
+            // Se informa al listener antes de lanzar la tarea.
+            mListener.onPreExecute();
+        }
+        // La tarea se ejecuta en el ejecutor compartido, en vez de en el
+        // único hilo que usan por defecto las AsyncTask.
+        mTrabajo = Ejecutor.getInstance().ejecutar(
+                new TareaSecundaria(getArguments().getInt(ARG_NUMPASOS)),
+                Ejecutor.Prioridad.NORMAL, mReceptor);
     }
 
     @Override
@@ -53,92 +59,109 @@ public class TareaSecundariaFragment extends Fragment {
         }
     }
 
+    @Override
+    public void onActivityCreated(Bundle savedInstanceState) {
+        super.onActivityCreated(savedInstanceState);
+        // Al recrearse la actividad se vuelve a recibir el progreso y el
+        // resultado, aunque la tarea haya terminado mientras tanto. Se hace
+        // aquí y no en onAttach() porque la entrega es inmediata y la
+        // actividad aún no tendría sus vistas.
+        mTrabajo.setReceptor(mReceptor);
+    }
+
     @Override
     public void onDetach() {
         super.onDetach();
+        // Mientras no haya actividad, el resultado queda pendiente en el
+        // trabajo.
+        if (mTrabajo != null) {
+            mTrabajo.setReceptor(null);
+        }
         // Al ponerlo a null se evitan memory leaks de la actividad.
         mListener = null;
     }
 
-    public TareaSecundaria getTareaSecundaria() {
-        return mTareaSecundaria;
+    @Override
+    public void onDestroy() {
+        // Si el fragmento se destruye de verdad, la tarea ya no tiene quien
+        // reciba su resultado.
+        mTrabajo.cancelar();
+        super.onDestroy();
+    }
+
+    // Retorna si la tarea se está ejecutando. Debe llamarse desde el hilo
+    // principal.
+    public boolean isEjecutando() {
+        return !mTrabajo.isTerminado() && !mTrabajo.isCancelado();
     }
 
-    // Clase interna para la Tarea Secundaria. Tipos recibidos:
-    // - Entrada: El tipo del valor recibido por doInBackground y que se pasa en
-    // el método execute().
-    // - Progreso: El tipo del valor recibido por onProgressUpdate y que se pasa
-    // al hacer publishProgress().
-    // - Salida: El tipo del valor recibido por onPostExecute y que corresponde
-    // al valor de retorno del doInBackground.
-    public class TareaSecundaria extends AsyncTask<Integer, Integer, Integer> {
-
-        // Llamado antes de lanzar el hilo secundario. Se ejecuta en el hilo
-        // principal.
+    // Cancela la tarea, interrumpiendo su hilo.
+    public void cancelar() {
+        mTrabajo.cancelar();
+    }
+
+    // Reenvía al listener, en el hilo principal, el progreso y el resultado
+    // de la tarea.
+    private final Ejecutor.Receptor<Integer> mReceptor = new Ejecutor.Receptor<Integer>() {
         @Override
-        protected void onPreExecute() {
+        public void onProgreso(int progreso) {
             if (mListener != null) {
                 // Se informa al listener.
-                mListener.onPreExecute();
+                mListener.onProgressUpdate(progreso);
             }
         }
 
-        // Llamado al lanzar el hilo secundario y corresponde al código que éste
-        // ejecuta. Recibe lo que se le pase al método execute() cuando se
-        // ejecute la tarea asíncrona. Se puede informar del progreso mediante
-        // el método publishProgress().
         @Override
-        protected Integer doInBackground(Integer... params) {
-            int numTrabajos = params[0];
-            // Se realizan los pasos.
-            for (int i = 0; i < numTrabajos && !isCancelled(); i++) {
-                // Se pone a trabajar.
-                trabajar();
-                // Informa del progreso.
-                publishProgress(i + 1);
+        public void onResultado(Integer resultado) {
+            if (mListener != null) {
+                mListener.onPostExecute(resultado);
             }
-            // Se retorna el número de trabajos realizados.
-            return numTrabajos;
         }
 
-        // Cada vez que se llama a publishProgress()
         @Override
-        protected void onProgressUpdate(Integer... values) {
-            if (mListener != null) {
-                // Se informa al listener.
-                mListener.onProgressUpdate(values[0]);
-            }
+        public void onError(Exception e) {
+            onCancelado();
         }
 
         @Override
-        protected void onCancelled() {
+        public void onCancelado() {
             if (mListener != null) {
                 // Se informa al listener.
                 mListener.onCancelled();
             }
-            // Se libera el mListener.
-            mListener = null;
+        }
+    };
+
+    // Clase interna para la Tarea Secundaria. Debe ser static para evitar
+    // memory leaks. Recibe el número de trabajos a realizar y retorna el de
+    // trabajos realizados. Publica el progreso a través de su trabajo.
+    private static class TareaSecundaria implements Ejecutor.Tarea<Integer> {
+
+        private final int mNumTrabajos;
+
+        TareaSecundaria(int numTrabajos) {
+            mNumTrabajos = numTrabajos;
         }
 
-        // Es lanzado automáticamente cuando se termina de ejecutar
-        // doInBackground. Recibe lo que haya retornado éste. Se ejecuta en el
-        // hilo principal.
         @Override
-        protected void onPostExecute(Integer result) {
-            if (mListener != null) {
-                mListener.onPostExecute(result);
+        public Integer ejecutar(Trabajo<Integer> trabajo) throws InterruptedException {
+            // Se realizan los pasos.
+            for (int i = 0; i < mNumTrabajos && !trabajo.isCancelado(); i++) {
+                // Se pone a trabajar.
+                trabajar();
+                // Informa del progreso.
+                trabajo.publicarProgreso(i + 1);
             }
+            // Se retorna el número de trabajos realizados.
+            return mNumTrabajos;
         }
 
-        // Simula un trabajo de 1 segundo.
-        private void trabajar() {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+        // Simula un trabajo de 1 segundo. Si se cancela la tarea, el sueño se
+        // interrumpe.
+        private void trabajar() throws InterruptedException {
+            Thread.sleep(1000);
         }
 
     }
 
-}
\ No newline at end of file
+}
@@ -3,12 +3,8 @@ package es.iessaladillo.pedrojoya.pr140;
 
 import android.content.Context;
 
-import com.facebook.stetho.okhttp3.StethoInterceptor;
-import com.readystatesoftware.chuck.ChuckInterceptor;
-
 import es.iessaladillo.pedrojoya.pr140.data.Escrutinio_sitio;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.simplexml.SimpleXmlConverterFactory;
@@ -56,18 +52,8 @@ class APIClient {
 
     // Construye y retorna el cliente de acceso a la API a través de Retrofit.
     private static ApiInterface buildApiClient(Context context) {
-        // Se crea un interceptor para los logs.
-        HttpLoggingInterceptor logInterceptor = new HttpLoggingInterceptor();
-        logInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-        // Se crea el constructor del cliente OkHttpClient.
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        // Se añade el interceptor de logs.
-        builder.addInterceptor(logInterceptor);
-        // Se añade el interceptor para Stetho.
-        builder.addInterceptor(new StethoInterceptor());
-        builder.addInterceptor(new ChuckInterceptor(context));
-        // Se crea el cliente OkHttp.
-        OkHttpClient client = builder.build();
+        // Se usa el cliente OkHttp compartido por toda la aplicación.
+        OkHttpClient client = OkHttpInstance.getInstance(context).getClient();
         // Se construye el objeto Retrofit y a partir de él se retorna el
         // servicio de acceso a la API.
         Retrofit retrofit = new Retrofit.Builder().baseUrl(BASE_URL).addConverterFactory(
@@ -0,0 +1,171 @@
+package es.iessaladillo.pedrojoya.pr158.db;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import es.iessaladillo.pedrojoya.pr158.db.entities.Alumno;
+import es.iessaladillo.pedrojoya.pr158.db.entities.Asignatura;
+import io.realm.Realm;
+import io.realm.RealmConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// Comprueba las transacciones con las que escribe la aplicación: fallan si se
+// ejecutan en el hilo principal, guardan y eliminan alumnos con
+// executeTransactionAsync() y los datos iniciales no sobrescriben las
+// asignaturas existentes.
+@RunWith(AndroidJUnit4.class)
+public class TransaccionSegundoPlanoTest {
+
+    private static final long TIEMPO_MAXIMO_SEGUNDOS = 10;
+    private static final String ID_ALUMNO = "alumno";
+
+    private RealmConfiguration mConfig;
+
+    // La base de datos se guarda en un fichero (y no en memoria) para poder
+    // abrirla de nuevo en el hilo de la prueba y ver las escrituras
+    // asíncronas.
+    @Before
+    public void setUp() {
+        Realm.init(InstrumentationRegistry.getTargetContext());
+        mConfig = new RealmConfiguration.Builder().name("test.realm")
+                .initialData(new DatosIniciales()).build();
+        Realm.deleteRealm(mConfig);
+    }
+
+    @After
+    public void tearDown() {
+        Realm.deleteRealm(mConfig);
+    }
+
+    @Test
+    public void guardarEnHiloPrincipalFalla() {
+        final Throwable[] error = new Throwable[1];
+        final long[] alumnos = new long[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Realm realm = Realm.getInstance(mConfig);
+                try {
+                    realm.executeTransaction(crearGuardado("Janet", 1));
+                } catch (IllegalStateException e) {
+                    error[0] = e;
+                } finally {
+                    alumnos[0] = realm.where(Alumno.class).count();
+                    realm.close();
+                }
+            }
+        });
+        assertNotNull(error[0]);
+        // La transacción se ha cancelado.
+        assertEquals(0, alumnos[0]);
+    }
+
+    @Test
+    public void guardarAsincronoCreaYActualizaElAlumno() throws InterruptedException {
+        assertNull(ejecutarAsincrona(crearGuardado("Janet", 1)));
+        assertNull(ejecutarAsincrona(crearGuardado("Janet Curry", 2)));
+        Realm realm = Realm.getInstance(mConfig);
+        try {
+            Alumno alumno = realm.where(Alumno.class).equalTo("id", ID_ALUMNO).findFirst();
+            assertNotNull(alumno);
+            assertEquals("Janet Curry", alumno.getNombre());
+            // El timestamp solo se establece al crearlo.
+            assertEquals(1, alumno.getTimestamp());
+            // La asignatura inexistente se ignora.
+            assertEquals(1, alumno.getAsignaturas().size());
+            assertEquals("PMDMO", alumno.getAsignaturas().first().getId());
+        } finally {
+            realm.close();
+        }
+    }
+
+    @Test
+    public void eliminarAsincronoBorraElAlumno() throws InterruptedException {
+        assertNull(ejecutarAsincrona(crearGuardado("Janet", 1)));
+        assertNull(ejecutarAsincrona(new EliminarAlumno(ID_ALUMNO)));
+        Realm realm = Realm.getInstance(mConfig);
+        try {
+            assertEquals(0, realm.where(Alumno.class).count());
+            // Las asignaturas no se eliminan con el alumno.
+            assertEquals(3, realm.where(Asignatura.class).count());
+        } finally {
+            realm.close();
+        }
+    }
+
+    @Test
+    public void datosInicialesNoSobrescribenLasAsignaturas() {
+        Realm realm = Realm.getInstance(mConfig);
+        try {
+            realm.executeTransaction(new Realm.Transaction() {
+                @Override
+                public void execute(Realm bd) {
+                    bd.where(Asignatura.class).equalTo("id", "PMDMO").findFirst()
+                            .setNombre("Programación multimedia");
+                }
+            });
+            realm.executeTransaction(new DatosIniciales());
+            assertEquals(3, realm.where(Asignatura.class).count());
+            assertEquals("Programación multimedia", realm.where(Asignatura.class)
+                    .equalTo("id", "PMDMO").findFirst().getNombre());
+        } finally {
+            realm.close();
+        }
+    }
+
+    private static GuardarAlumno crearGuardado(String nombre, long timestamp) {
+        return new GuardarAlumno(ID_ALUMNO, nombre, "Dirección", null, timestamp,
+                Arrays.asList("PMDMO", "NOEXISTE"));
+    }
+
+    // Ejecuta la transacción con executeTransactionAsync() desde el hilo
+    // principal, como la aplicación, y espera a que termine. Retorna el error
+    // producido o null.
+    private Throwable ejecutarAsincrona(final Realm.Transaction transaccion)
+            throws InterruptedException {
+        final CountDownLatch fin = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
+        final Realm[] realm = new Realm[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                realm[0] = Realm.getInstance(mConfig);
+                realm[0].executeTransactionAsync(transaccion,
+                        new Realm.Transaction.OnSuccess() {
+                            @Override
+                            public void onSuccess() {
+                                fin.countDown();
+                            }
+                        }, new Realm.Transaction.OnError() {
+                            @Override
+                            public void onError(Throwable e) {
+                                error[0] = e;
+                                fin.countDown();
+                            }
+                        });
+            }
+        });
+        assertTrue(fin.await(TIEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS));
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                realm[0].close();
+            }
+        });
+        return error[0];
+    }
+
+}
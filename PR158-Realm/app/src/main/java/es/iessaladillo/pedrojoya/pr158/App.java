@@ -5,8 +5,8 @@ import android.app.Application;
 import com.facebook.stetho.Stetho;
 import com.uphyca.stetho_realm.RealmInspectorModulesProvider;
 
+import es.iessaladillo.pedrojoya.pr158.db.DatosIniciales;
 import es.iessaladillo.pedrojoya.pr158.db.DbMigration;
-import es.iessaladillo.pedrojoya.pr158.db.entities.Asignatura;
 import io.realm.Realm;
 import io.realm.RealmConfiguration;
 
@@ -22,15 +22,13 @@ public class App extends Application {
         RealmConfiguration config = new RealmConfiguration.Builder()
                 //.name("instituto.realm")
                 .schemaVersion(DB_VERSION)
-                .initialData(new Realm.Transaction() {
-                    @Override
-                    public void execute(Realm realm) {
-                        addInitialData(realm);
-                    }
-                })
+                .initialData(new DatosIniciales())
                 .migration(new DbMigration())
                 .build();
         Realm.setDefaultConfiguration(config);
+        // Realm se abre por primera vez (creando el fichero y los datos
+        // iniciales, que son solo tres asignaturas) al obtener la instancia en
+        // MainActivity.
         // Se configura Stetho para que trabaje con Realm.
         Stetho.initialize(
                 Stetho.newInitializerBuilder(this)
@@ -39,19 +37,4 @@ public class App extends Application {
                         .build());
     }
 
-    private void addInitialData(Realm realm) {
-        Asignatura asignatura = new Asignatura();
-        asignatura.setId("PMDMO");
-        asignatura.setNombre("Android");
-        realm.copyToRealmOrUpdate(asignatura);
-        Asignatura asignatura2 = new Asignatura();
-        asignatura2.setId("PSPRO");
-        asignatura2.setNombre("Multihilo");
-        realm.copyToRealmOrUpdate(asignatura2);
-        Asignatura asignatura3 = new Asignatura();
-        asignatura3.setId("HLC");
-        asignatura3.setNombre("Horas de libre configuración");
-        realm.copyToRealmOrUpdate(asignatura3);
-    }
-
 }
@@ -0,0 +1,30 @@
+package es.iessaladillo.pedrojoya.pr158.db;
+
+import es.iessaladillo.pedrojoya.pr158.db.entities.Asignatura;
+import io.realm.Realm;
+
+// Transacción con los datos iniciales de la base de datos (las asignaturas).
+// Si ya hay asignaturas no hace nada, para no sobrescribir las existentes si
+// Realm vuelve a ejecutarla.
+public class DatosIniciales implements Realm.Transaction {
+
+    @Override
+    public void execute(Realm realm) {
+        if (realm.where(Asignatura.class).count() > 0) {
+            return;
+        }
+        Asignatura asignatura = new Asignatura();
+        asignatura.setId("PMDMO");
+        asignatura.setNombre("Android");
+        realm.copyToRealmOrUpdate(asignatura);
+        Asignatura asignatura2 = new Asignatura();
+        asignatura2.setId("PSPRO");
+        asignatura2.setNombre("Multihilo");
+        realm.copyToRealmOrUpdate(asignatura2);
+        Asignatura asignatura3 = new Asignatura();
+        asignatura3.setId("HLC");
+        asignatura3.setNombre("Horas de libre configuración");
+        realm.copyToRealmOrUpdate(asignatura3);
+    }
+
+}
@@ -0,0 +1,23 @@
+package es.iessaladillo.pedrojoya.pr158.db;
+
+import es.iessaladillo.pedrojoya.pr158.db.entities.Alumno;
+import io.realm.Realm;
+
+// Transacción que elimina el alumno con el id recibido, si existe.
+public class EliminarAlumno extends TransaccionSegundoPlano {
+
+    private final String mId;
+
+    public EliminarAlumno(String id) {
+        mId = id;
+    }
+
+    @Override
+    protected void ejecutar(Realm realm) {
+        Alumno alumno = realm.where(Alumno.class).equalTo("id", mId).findFirst();
+        if (alumno != null) {
+            alumno.deleteFromRealm();
+        }
+    }
+
+}
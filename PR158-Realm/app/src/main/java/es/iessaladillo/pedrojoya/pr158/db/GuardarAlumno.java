@@ -0,0 +1,56 @@
+package es.iessaladillo.pedrojoya.pr158.db;
+
+import java.util.List;
+
+import es.iessaladillo.pedrojoya.pr158.db.entities.Alumno;
+import es.iessaladillo.pedrojoya.pr158.db.entities.Asignatura;
+import io.realm.Realm;
+import io.realm.RealmList;
+
+// Transacción que crea el alumno, si no existe, o lo actualiza con los datos
+// recibidos. Los datos se copian de las vistas en el hilo principal, ya que
+// la transacción se ejecuta en segundo plano.
+public class GuardarAlumno extends TransaccionSegundoPlano {
+
+    private final String mId;
+    private final String mNombre;
+    private final String mDireccion;
+    private final String mUrlFoto;
+    private final long mTimestamp;
+    private final List<String> mIdsAsignaturas;
+
+    // Constructor. El timestamp solo se usa si el alumno es nuevo.
+    public GuardarAlumno(String id, String nombre, String direccion, String urlFoto,
+            long timestamp, List<String> idsAsignaturas) {
+        mId = id;
+        mNombre = nombre;
+        mDireccion = direccion;
+        mUrlFoto = urlFoto;
+        mTimestamp = timestamp;
+        mIdsAsignaturas = idsAsignaturas;
+    }
+
+    @Override
+    protected void ejecutar(Realm realm) {
+        Alumno alumno = realm.where(Alumno.class).equalTo("id", mId).findFirst();
+        if (alumno == null) {
+            // Si es un alumno nuevo.
+            alumno = realm.createObject(Alumno.class, mId);
+            alumno.setTimestamp(mTimestamp);
+        }
+        alumno.setNombre(mNombre);
+        alumno.setDireccion(mDireccion);
+        alumno.setUrlFoto(mUrlFoto);
+        // Se le añaden las asignaturas
+        RealmList<Asignatura> asignaturas = alumno.getAsignaturas();
+        asignaturas.clear();
+        for (String idAsignatura : mIdsAsignaturas) {
+            Asignatura asignatura = realm.where(Asignatura.class).equalTo("id",
+                    idAsignatura).findFirst();
+            if (asignatura != null) {
+                asignaturas.add(asignatura);
+            }
+        }
+    }
+
+}
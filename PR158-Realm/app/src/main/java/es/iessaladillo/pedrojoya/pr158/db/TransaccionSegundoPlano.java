@@ -0,0 +1,26 @@
+package es.iessaladillo.pedrojoya.pr158.db;
+
+import android.os.Looper;
+
+import es.iessaladillo.pedrojoya.pr158.BuildConfig;
+import io.realm.Realm;
+
+// Transacción de Realm que solo debe ejecutarse fuera del hilo principal, con
+// executeTransactionAsync(). En las versiones de depuración lanza una
+// excepción si se ejecuta en el hilo principal, de manera que cualquier
+// escritura que pueda bloquear la interfaz se detecta al probar la
+// aplicación.
+public abstract class TransaccionSegundoPlano implements Realm.Transaction {
+
+    @Override
+    public final void execute(Realm realm) {
+        if (BuildConfig.DEBUG && Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("Transacción de Realm en el hilo principal");
+        }
+        ejecutar(realm);
+    }
+
+    // Realiza las escrituras de la transacción.
+    protected abstract void ejecutar(Realm realm);
+
+}
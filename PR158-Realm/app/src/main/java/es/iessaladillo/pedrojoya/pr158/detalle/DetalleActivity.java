@@ -38,10 +38,12 @@ import butterknife.OnClick;
 import butterknife.OnEditorAction;
 import butterknife.OnFocusChange;
 import es.iessaladillo.pedrojoya.pr158.R;
+import es.iessaladillo.pedrojoya.pr158.db.GuardarAlumno;
 import es.iessaladillo.pedrojoya.pr158.db.entities.Alumno;
 import es.iessaladillo.pedrojoya.pr158.db.entities.Asignatura;
 import es.iessaladillo.pedrojoya.pr158.utils.ClickToMultipleSelectEditText;
 import io.realm.Realm;
+import io.realm.RealmAsyncTask;
 import io.realm.RealmList;
 import io.realm.RealmResults;
 
@@ -73,6 +75,8 @@ public class DetalleActivity extends AppCompatActivity implements ClickToMultipl
     FloatingActionButton fabAccion;
 
     private Realm mRealm;
+    // Guardado en curso, que se cancela si se destruye la actividad.
+    private RealmAsyncTask mGuardado;
     private String mIdAlumno;
     private Alumno mAlumno;
     private Random mAleatorio;
@@ -104,7 +108,6 @@ public class DetalleActivity extends AppCompatActivity implements ClickToMultipl
             setTitle(R.string.actualizar_alumno);
         } else {
             // Se crea un nuevo alumno con foto aleatoria.
-            mAlumno = new Alumno();
             mUrlFoto = getFotoAleatoria();
             setTitle(R.string.agregar_alumno);
             txtAsignaturas.setSelection(integerListToArray(new ArrayList<Integer>()));
@@ -233,46 +236,48 @@ public class DetalleActivity extends AppCompatActivity implements ClickToMultipl
                 txtDireccion.getText().toString())) {
             return;
         }
-        mRealm.executeTransaction(new Realm.Transaction() {
+        // Los datos se obtienen de las vistas en el hilo principal y se
+        // escriben en segundo plano.
+        String id = TextUtils.isEmpty(mIdAlumno) ? UUID.randomUUID().toString() : mIdAlumno;
+        String nombre = txtNombre.getText().toString();
+        String direccion = txtDireccion.getText().toString();
+        ArrayList<String> idsAsignaturas = new ArrayList<>();
+        @SuppressWarnings("unchecked") List<Integer> indicesAsignaturasAlumno =
+                txtAsignaturas.getSelectedIndices();
+        if (indicesAsignaturasAlumno != null) {
+            for (int i = 0; i < indicesAsignaturasAlumno.size(); i++) {
+                idsAsignaturas.add(mAsignaturas.get(indicesAsignaturasAlumno.get(i)).getId());
+            }
+        }
+        // Se evita guardar dos veces mientras tanto.
+        fabAccion.setEnabled(false);
+        mGuardado = mRealm.executeTransactionAsync(new GuardarAlumno(id, nombre, direccion,
+                mUrlFoto, System.currentTimeMillis(), idsAsignaturas), new Realm.Transaction.OnSuccess() {
             @Override
-            public void execute(Realm realm) {
-                if (TextUtils.isEmpty(mIdAlumno)) {
-                    // Si es un alumno nuevo.
-                    mAlumno.setId(UUID.randomUUID().toString());
-                    mAlumno.setNombre(txtNombre.getText().toString());
-                    mAlumno.setDireccion(txtDireccion.getText().toString());
-                    mAlumno.setUrlFoto(mUrlFoto);
-                    mAlumno.setTimestamp(System.currentTimeMillis());
-                } else {
-                    // Si se está actualizando.
-                    mAlumno.setNombre(txtNombre.getText().toString());
-                    mAlumno.setDireccion(txtDireccion.getText().toString());
-                    mAlumno.setUrlFoto(mUrlFoto);
-                }
-                // Se añade o actualiza el alumno a la base de datos (en el hilo secundario).
-                Alumno realmAlumno = realm.copyToRealmOrUpdate(mAlumno);
-                // Se le añaden las asignaturas
-                realmAlumno.getAsignaturas().clear();
-                @SuppressWarnings("unchecked") List<Integer> indicesAsignaturasAlumno =
-                        txtAsignaturas
-                        .getSelectedIndices();
-                if (indicesAsignaturasAlumno != null) {
-                    for (int i = 0; i < indicesAsignaturasAlumno.size(); i++) {
-                        realmAlumno.getAsignaturas().add(
-                                mAsignaturas.get(indicesAsignaturasAlumno.get(i)));
-                    }
-                }
-                //realm.copyToRealmOrUpdate(realmAlumno);
+            public void onSuccess() {
+                mGuardado = null;
+                setResult(RESULT_OK);
+                // Se finaliza la actividad.
+                ActivityCompat.finishAfterTransition(DetalleActivity.this);
+            }
+        }, new Realm.Transaction.OnError() {
+            @Override
+            public void onError(Throwable error) {
+                mGuardado = null;
+                fabAccion.setEnabled(true);
             }
         });
-        setResult(RESULT_OK);
-        // Se finaliza la actividad.
-        ActivityCompat.finishAfterTransition(DetalleActivity.this);
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // Se cancela el guardado pendiente, para que sus callbacks no lleguen
+        // a la actividad ya destruida.
+        if (mGuardado != null) {
+            mGuardado.cancel();
+            mGuardado = null;
+        }
         // Se cierra la base de datos.
         mRealm.close();
     }
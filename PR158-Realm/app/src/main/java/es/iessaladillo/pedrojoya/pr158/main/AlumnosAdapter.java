@@ -15,11 +15,13 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import de.hdodenhof.circleimageview.CircleImageView;
 import es.iessaladillo.pedrojoya.pr158.R;
+import es.iessaladillo.pedrojoya.pr158.db.EliminarAlumno;
 import es.iessaladillo.pedrojoya.pr158.db.entities.Alumno;
 import es.iessaladillo.pedrojoya.pr158.db.entities.Asignatura;
 import io.realm.OrderedCollectionChangeSet;
 import io.realm.OrderedRealmCollectionChangeListener;
 import io.realm.Realm;
+import io.realm.RealmAsyncTask;
 import io.realm.RealmList;
 import io.realm.RealmResults;
 
@@ -28,6 +30,8 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
 
     private final RealmResults<Alumno> mDatos;
     private final Realm mRealm;
+    // Eliminaciones en curso, que se cancelan al destruir el adaptador.
+    private final ArrayList<RealmAsyncTask> mEliminaciones = new ArrayList<>();
     private OnItemClickListener onItemClickListener;
 
     public AlumnosAdapter(Realm realm, RealmResults<Alumno> datos) {
@@ -75,11 +79,29 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
         return mDatos.get(position).getTimestamp();
     }
 
+    // Elimina de la base de datos el alumno de la posición recibida. La
+    // escritura se realiza en segundo plano y la lista se actualiza cuando
+    // Realm notifica el cambio.
     public void removeItem(int position) {
-        // Se elimina el alumno de la base de datos.
-        mRealm.beginTransaction();
-        mDatos.deleteFromRealm(position);
-        mRealm.commitTransaction();
+        final RealmAsyncTask[] eliminacion = new RealmAsyncTask[1];
+        eliminacion[0] = mRealm.executeTransactionAsync(
+                new EliminarAlumno(mDatos.get(position).getId()),
+                new Realm.Transaction.OnSuccess() {
+                    @Override
+                    public void onSuccess() {
+                        mEliminaciones.remove(eliminacion[0]);
+                    }
+                }, new Realm.Transaction.OnError() {
+                    @Override
+                    public void onError(Throwable error) {
+                        mEliminaciones.remove(eliminacion[0]);
+                        // Se vuelve a mostrar el elemento que se había deslizado.
+                        notifyDataSetChanged();
+                    }
+                });
+        // Los callbacks se ejecutan más tarde en este mismo hilo, por lo que
+        // la tarea ya estará en la lista.
+        mEliminaciones.add(eliminacion[0]);
     }
 
     // Establece el listener a informar cuando se hace click sobre un elemento de la lista.
@@ -114,6 +136,10 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
 
     public void onDestroy() {
         mDatos.removeChangeListener(this);
+        for (RealmAsyncTask eliminacion : mEliminaciones) {
+            eliminacion.cancel();
+        }
+        mEliminaciones.clear();
     }
 
     @SuppressWarnings("unused")
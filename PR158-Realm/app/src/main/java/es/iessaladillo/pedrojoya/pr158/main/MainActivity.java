@@ -79,6 +79,12 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
         mAdaptador = new AlumnosAdapter(mRealm, mData);
         mAdaptador.setOnItemClickListener(MainActivity.this);
         mObservador = new RecyclerView.AdapterDataObserver() {
+            // Cuando termina la consulta inicial.
+            @Override
+            public void onChanged() {
+                checkAdapterIsEmpty();
+            }
+
             @Override
             public void onItemRangeInserted(int positionStart, int itemCount) {
                 checkAdapterIsEmpty();
@@ -101,11 +107,14 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
 
                     @Override
                     public void onSwiped(RecyclerView.ViewHolder viewHolder, int direction) {
-                        // Se elimina el elemento
+                        // Se elimina el elemento (el adaptador se actualiza cuando
+                        // Realm notifica el cambio).
                         mAdaptador.removeItem(viewHolder.getAdapterPosition());
-                        checkAdapterIsEmpty();
                     }
                 });
+        // Como la consulta y las escrituras son asíncronas, se comprueba si
+        // la lista está vacía cada vez que cambian los datos del adaptador.
+        mAdaptador.registerAdapterDataObserver(mObservador);
         itemTouchHelper.attachToRecyclerView(lstAlumnos);
         lstAlumnos.setAdapter(mAdaptador);
         checkAdapterIsEmpty();
@@ -117,8 +126,10 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
         checkAdapterIsEmpty();
     }
 
+    // Retorna los alumnos ordenados por nombre. La consulta se realiza en
+    // segundo plano y el adaptador es notificado cuando termina.
     private RealmResults<Alumno> getAlumnos() {
-        return mRealm.where(Alumno.class).findAllSorted("nombre");
+        return mRealm.where(Alumno.class).findAllSortedAsync("nombre");
     }
 
     private void checkAdapterIsEmpty() {
@@ -134,6 +145,7 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
 
     @Override
     protected void onDestroy() {
+        mAdaptador.unregisterAdapterDataObserver(mObservador);
         mAdaptador.onDestroy();
         mRealm.close();
         super.onDestroy();
@@ -0,0 +1,167 @@
+package es.iessaladillo.pedrojoya.pr165;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Comprueba sobre ProductosAdapter que importar una lista de la compra con
+// addItems() y eliminar varios productos con removeItems() agrupan las
+// notificaciones al RecyclerView, y compara importar 5.000 productos en
+// bloque con añadirlos uno a uno con addItem(). Se comprueban las
+// notificaciones, que no dependen del dispositivo; el tiempo solo se
+// registra.
+@RunWith(AndroidJUnit4.class)
+public class ProductosAdapterBenchmarkTest {
+
+    private static final String TAG = ProductosAdapterBenchmarkTest.class.getSimpleName();
+    private static final int NUM_PRODUCTOS = 5000;
+    private static final int NUM_EXISTENTES = 100;
+    private static final int NUM_PASADAS = 5;
+    private static final String LETRAS = "aábcdeéfghiíjlmnñoóprstuúvz";
+
+    private final Random mRandom = new Random(42);
+    // Sufijo que hace único cada nombre, para que SortedList no los fusione.
+    private int mSecuencia;
+
+    // Cuenta las notificaciones que recibe el RecyclerView.
+    private static class Contador extends RecyclerView.AdapterDataObserver {
+
+        private int mNotificaciones;
+
+        @Override
+        public void onChanged() {
+            mNotificaciones++;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mNotificaciones++;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mNotificaciones++;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mNotificaciones++;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mNotificaciones++;
+        }
+
+    }
+
+    @Test
+    public void importarEnListaVaciaNotificaUnaVez() {
+        ProductosAdapter adaptador = new ProductosAdapter(null);
+        Contador contador = new Contador();
+        adaptador.registerAdapterDataObserver(contador);
+        adaptador.addItems(crearProductos(NUM_PRODUCTOS));
+        assertEquals(NUM_PRODUCTOS, adaptador.getItemCount());
+        assertEquals(1, contador.mNotificaciones);
+        comprobarOrden(adaptador.getData());
+    }
+
+    @Test
+    public void importarEnListaConDatosAgrupaNotificaciones() {
+        ProductosAdapter adaptador = new ProductosAdapter(crearProductos(NUM_EXISTENTES));
+        Contador contador = new Contador();
+        adaptador.registerAdapterDataObserver(contador);
+        adaptador.addItems(crearProductos(NUM_PRODUCTOS));
+        // Como mucho un rango insertado entre cada dos productos existentes.
+        assertTrue(contador.mNotificaciones <= NUM_EXISTENTES + 1);
+        comprobarOrden(adaptador.getData());
+    }
+
+    @Test
+    public void eliminarConsecutivosNotificaUnaVez() {
+        ProductosAdapter adaptador = new ProductosAdapter(crearProductos(NUM_PRODUCTOS));
+        Contador contador = new Contador();
+        adaptador.registerAdapterDataObserver(contador);
+        ArrayList<Producto> eliminar = new ArrayList<>(
+                adaptador.getData().subList(NUM_EXISTENTES, 2 * NUM_EXISTENTES));
+        assertEquals(NUM_EXISTENTES, adaptador.removeItems(eliminar));
+        assertEquals(NUM_PRODUCTOS - NUM_EXISTENTES, adaptador.getItemCount());
+        assertEquals(1, contador.mNotificaciones);
+    }
+
+    @Test
+    public void importarEnBloqueNotificaUnaVezFrenteAUnaPorProducto() {
+        List<ArrayList<Producto>> compras = new ArrayList<>(NUM_PASADAS);
+        for (int i = 0; i < NUM_PASADAS; i++) {
+            compras.add(crearProductos(NUM_PRODUCTOS));
+        }
+        // Calentamiento.
+        importar(compras.get(0), false, new Contador());
+        importar(compras.get(0), true, new Contador());
+        long unoAUno = 0;
+        long enBloque = 0;
+        Contador notificacionesUnoAUno = new Contador();
+        Contador notificacionesEnBloque = new Contador();
+        for (ArrayList<Producto> compra : compras) {
+            unoAUno += importar(compra, false, notificacionesUnoAUno);
+            enBloque += importar(compra, true, notificacionesEnBloque);
+        }
+        Log.d(TAG, String.format("Importar %d productos: uno a uno %.2f ms, en bloque %.2f ms",
+                NUM_PRODUCTOS, unoAUno / 1e6 / NUM_PASADAS, enBloque / 1e6 / NUM_PASADAS));
+        // Uno a uno se notifica cada producto y en bloque una vez por compra.
+        assertEquals(NUM_PASADAS * NUM_PRODUCTOS, notificacionesUnoAUno.mNotificaciones);
+        assertEquals(NUM_PASADAS, notificacionesEnBloque.mNotificaciones);
+    }
+
+    // Importa los productos en un adaptador vacío, cuyas notificaciones se
+    // cuentan en el contador recibido. Retorna los nanosegundos empleados.
+    private long importar(ArrayList<Producto> compra, boolean enBloque, Contador contador) {
+        ProductosAdapter adaptador = new ProductosAdapter(null);
+        adaptador.registerAdapterDataObserver(contador);
+        long inicio = System.nanoTime();
+        if (enBloque) {
+            adaptador.addItems(compra);
+        } else {
+            for (Producto producto : compra) {
+                adaptador.addItem(producto);
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static void comprobarOrden(List<Producto> productos) {
+        for (int i = 1; i < productos.size(); i++) {
+            assertTrue(productos.get(i - 1).getClave().compareTo(productos.get(i).getClave()) <= 0);
+        }
+    }
+
+    private ArrayList<Producto> crearProductos(int cantidad) {
+        ArrayList<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            productos.add(new Producto(nuevoNombre(), 1 + mRandom.nextInt(10), "unidades"));
+        }
+        return productos;
+    }
+
+    private String nuevoNombre() {
+        int longitud = 6 + mRandom.nextInt(10);
+        StringBuilder nombre = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            char letra = LETRAS.charAt(mRandom.nextInt(LETRAS.length()));
+            nombre.append(i == 0 || mRandom.nextInt(5) == 0 ? Character.toUpperCase(letra)
+                    : letra);
+        }
+        return nombre.append(' ').append(mSecuencia++).toString();
+    }
+
+}
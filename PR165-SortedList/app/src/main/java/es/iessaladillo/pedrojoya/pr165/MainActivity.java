@@ -10,6 +10,8 @@ import android.support.v7.widget.DividerItemDecoration;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.Toolbar;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 
 import java.util.ArrayList;
@@ -79,7 +81,9 @@ public class MainActivity extends AppCompatActivity
         mEstadoLista = mLayoutManager.onSaveInstanceState();
         // Se almacena el estado de la lista y sus datos.
         outState.putParcelable(STATE_LISTA, mEstadoLista);
-        outState.putParcelableArrayList(STATE_DATOS, mAdaptador.getData());
+        // (SortedList no puede almacenarse en un Bundle, por lo que se copia
+        // en un ArrayList).
+        outState.putParcelableArrayList(STATE_DATOS, new ArrayList<>(mAdaptador.getData()));
     }
 
     @Override
@@ -91,6 +95,46 @@ public class MainActivity extends AppCompatActivity
         }
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.activity_main, menu);
+        return super.onCreateOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.mnuImportar:
+                importarLista();
+                return true;
+            case R.id.mnuEliminarComprados:
+                eliminarComprados();
+                return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    // Añade de una vez a la lista los productos de una lista de la compra.
+    private void importarLista() {
+        ArrayList<Producto> productos = getListaImportada();
+        mAdaptador.addItems(productos);
+        Snackbar.make(lstTareas, getString(R.string.se_han_importado, productos.size()),
+                Snackbar.LENGTH_SHORT).show();
+    }
+
+    // Elimina de una vez de la lista todos los productos ya comprados.
+    private void eliminarComprados() {
+        ArrayList<Producto> comprados = new ArrayList<>();
+        for (Producto producto : mAdaptador.getData()) {
+            if (producto.isComprado()) {
+                comprados.add(producto);
+            }
+        }
+        int eliminados = mAdaptador.removeItems(comprados);
+        Snackbar.make(lstTareas, getString(R.string.se_han_eliminado, eliminados),
+                Snackbar.LENGTH_SHORT).show();
+    }
+
     // Retorna los datos iniciales para la lista.
     private ArrayList<Producto> getDatosIniciales() {
         ArrayList<Producto> datos = new ArrayList<>();
@@ -100,6 +144,19 @@ public class MainActivity extends AppCompatActivity
         return datos;
     }
 
+    // Retorna la lista de la compra a importar.
+    private ArrayList<Producto> getListaImportada() {
+        ArrayList<Producto> datos = new ArrayList<>();
+        datos.add(new Producto("Leche semidesnatada", 6, "litros"));
+        datos.add(new Producto("Huevos camperos", 12, "unidades"));
+        datos.add(new Producto("Pan integral", 1, "barra"));
+        datos.add(new Producto("Tomates pera", 2, "kg"));
+        datos.add(new Producto("Café molido", 2, "paquetes"));
+        datos.add(new Producto("Arroz redondo", 1, "kg"));
+        datos.add(new Producto("Yogures naturales", 8, "unidades"));
+        return datos;
+    }
+
     // Cuando se hace click sobre un elemento de la lista.
     @Override
     public void onItemClick(View view, Producto producto, int position) {
@@ -3,16 +3,27 @@ package es.iessaladillo.pedrojoya.pr165;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import java.text.CollationKey;
+import java.text.Collator;
+
 @SuppressWarnings("unused")
 public class Producto implements Parcelable {
 
+    // Compara los nombres sin distinguir mayúsculas de minúsculas (pero sí
+    // acentos). No es seguro usarlo desde varios hilos a la vez, por lo que
+    // se sincroniza.
+    private static final Collator sCollator = crearCollator();
+
     private String nombre;
+    // Clave de ordenación del nombre. Se calcula una sola vez, de manera que
+    // comparar productos no crea objetos.
+    private CollationKey clave;
     private float cantidad;
     private String unidad;
     private boolean comprado;
 
     public Producto(String nombre, float cantidad, String unidad) {
-        this.nombre = nombre;
+        setNombre(nombre);
         this.cantidad = cantidad;
         this.unidad = unidad;
         this.comprado = false;
@@ -32,6 +43,12 @@ public class Producto implements Parcelable {
 
     public void setNombre(String nombre) {
         this.nombre = nombre;
+        this.clave = getClave(nombre);
+    }
+
+    // Retorna la clave de ordenación del nombre.
+    public CollationKey getClave() {
+        return clave;
     }
 
     public String getUnidad() {
@@ -69,12 +86,24 @@ public class Producto implements Parcelable {
     }
 
     protected Producto(Parcel in) {
-        this.nombre = in.readString();
+        setNombre(in.readString());
         this.cantidad = in.readFloat();
         this.unidad = in.readString();
         this.comprado = in.readByte() != 0;
     }
 
+    private static Collator crearCollator() {
+        Collator collator = Collator.getInstance();
+        collator.setStrength(Collator.SECONDARY);
+        return collator;
+    }
+
+    private static CollationKey getClave(String nombre) {
+        synchronized (sCollator) {
+            return sCollator.getCollationKey(nombre != null ? nombre : "");
+        }
+    }
+
     public static final Parcelable.Creator<Producto> CREATOR = new Parcelable.Creator<Producto>() {
         public Producto createFromParcel(Parcel source) {
             return new Producto(source);
@@ -8,7 +8,10 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public class ProductosAdapter extends RecyclerView.Adapter<ProductosAdapter.ViewHolder> {
 
@@ -23,6 +26,18 @@ public class ProductosAdapter extends RecyclerView.Adapter<ProductosAdapter.View
     }
 
     private final SortedList<Producto> mDatos;
+    // Vista de solo lectura de la lista ordenada.
+    private final List<Producto> mVistaDatos = new AbstractList<Producto>() {
+        @Override
+        public Producto get(int location) {
+            return mDatos.get(location);
+        }
+
+        @Override
+        public int size() {
+            return mDatos.size();
+        }
+    };
     private OnItemClickListener mOnItemClickListener;
     private OnItemLongClickListener mOnItemLongClickListener;
 
@@ -30,15 +45,7 @@ public class ProductosAdapter extends RecyclerView.Adapter<ProductosAdapter.View
     public ProductosAdapter(ArrayList<Producto> datos) {
         // Se crea y configura el SortedList y el objeto listener se será notificado
         // cada vez que se vaya a realizar una operación sobre la lista..
-        mDatos = new SortedList<>(Producto.class, new SortedList.Callback<Producto>() {
-
-            // Cuando se deben comparar dos productos para ordenarlos en la lista.
-            @Override
-            public int compare(Producto item1, Producto item2) {
-                // Los items se ordendarán alfabéticamente por su nombre no distinguiendo
-                // entre mayúsculas y minúsculas..
-                return item1.getNombre().toUpperCase().compareTo(item2.getNombre().toUpperCase());
-            }
+        mDatos = new SortedList<>(Producto.class, new ProductosCallback() {
 
             // Cuando se inserta un producto en la lista ordenada.
             @Override
@@ -64,27 +71,10 @@ public class ProductosAdapter extends RecyclerView.Adapter<ProductosAdapter.View
                 notifyItemRangeChanged(position, count);
             }
 
-            // Cuando se debe comprobar si los contenidos de dos productos son
-            // los mismos. Retorna true si son iguales todos los campos.
-            @Override
-            public boolean areContentsTheSame(Producto oldItem, Producto newItem) {
-                return oldItem.getNombre().toUpperCase().equals(newItem.getNombre().toUpperCase()
-                ) && oldItem.getCantidad() == newItem.getCantidad() && oldItem.getUnidad()
-                        .toUpperCase().equals(newItem.getUnidad().toUpperCase());
-            }
-
-            // Cuando se debe comprobar si dos productos son el mismo.
-            // Retorna true si son iguales.
-            // Al añadir, si son el mismo producto pero con distintos datos, lo actualiza.
-            @Override
-            public boolean areItemsTheSame(Producto item1, Producto item2) {
-                return item1.getNombre().toUpperCase().equals(item2.getNombre().toUpperCase());
-            }
-
         });
         // Se escriben los datos iniciales en la lista ordenada.
         if (datos != null) {
-            mDatos.addAll(datos);
+            addItems(datos);
         }
     }
 
@@ -141,11 +131,44 @@ public class ProductosAdapter extends RecyclerView.Adapter<ProductosAdapter.View
         return mDatos.add(producto);
     }
 
+    // Añade varios elementos a la lista ordenada (por ejemplo, al importar
+    // una lista de la compra). Se ordenan y mezclan con los existentes de una
+    // vez, y las notificaciones al RecyclerView se agrupan en rangos en vez
+    // de enviarse una por elemento.
+    public void addItems(Collection<Producto> productos) {
+        mDatos.beginBatchedUpdates();
+        try {
+            // Se crea un array que la lista ordenada puede reordenar sin
+            // copiarlo de nuevo.
+            mDatos.addAll(productos.toArray(new Producto[productos.size()]), true);
+        } finally {
+            mDatos.endBatchedUpdates();
+        }
+    }
+
     // Elimina un elemento de la lista ordenada.
     public boolean removeItem(Producto producto) {
         return mDatos.remove(producto);
     }
 
+    // Elimina varios elementos de la lista ordenada, agrupando las
+    // notificaciones de los que ocupen posiciones consecutivas. Retorna el
+    // número de elementos eliminados.
+    public int removeItems(Collection<Producto> productos) {
+        int eliminados = 0;
+        mDatos.beginBatchedUpdates();
+        try {
+            for (Producto producto : productos) {
+                if (mDatos.remove(producto)) {
+                    eliminados++;
+                }
+            }
+        } finally {
+            mDatos.endBatchedUpdates();
+        }
+        return eliminados;
+    }
+
     // Conmuta el estado de compra del producto situado en la posición recibida.
     public void toggleComprado(int position) {
         Producto producto = mDatos.get(position);
@@ -153,15 +176,10 @@ public class ProductosAdapter extends RecyclerView.Adapter<ProductosAdapter.View
         notifyItemChanged(position);
     }
 
-    // Retorna un ArrayList con los datos de la lista (útil ya que SortedList
-    // no puede almacenarse como extra de un Bundle, por ejemplo en un
-    // cambio de orientación).
-    public ArrayList<Producto> getData() {
-        ArrayList<Producto> productos = new ArrayList<>();
-        for (int i = 0; i < mDatos.size(); i++) {
-            productos.add(mDatos.get(i));
-        }
-        return productos;
+    // Retorna una vista de solo lectura de los datos de la lista ordenada,
+    // sin copiarlos.
+    public List<Producto> getData() {
+        return mVistaDatos;
     }
 
     // Establece el listener a informar cuando se hace click sobre un
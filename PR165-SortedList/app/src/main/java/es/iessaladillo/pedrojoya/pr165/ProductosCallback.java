@@ -0,0 +1,34 @@
+package es.iessaladillo.pedrojoya.pr165;
+
+import android.support.v7.util.SortedList;
+
+// Callback de la lista ordenada de productos. Los ordena alfabéticamente por
+// su nombre, no distinguiendo entre mayúsculas y minúsculas, usando la clave
+// precalculada de cada producto en vez de pasar los nombres a mayúsculas en
+// cada comparación. Las notificaciones de cambios las implementa cada
+// subclase.
+abstract class ProductosCallback extends SortedList.Callback<Producto> {
+
+    // Cuando se deben comparar dos productos para ordenarlos en la lista.
+    @Override
+    public int compare(Producto item1, Producto item2) {
+        return item1.getClave().compareTo(item2.getClave());
+    }
+
+    // Cuando se debe comprobar si los contenidos de dos productos son
+    // los mismos. Retorna true si son iguales todos los campos.
+    @Override
+    public boolean areContentsTheSame(Producto oldItem, Producto newItem) {
+        return areItemsTheSame(oldItem, newItem) && oldItem.getCantidad() == newItem.getCantidad()
+                && oldItem.getUnidad().equalsIgnoreCase(newItem.getUnidad());
+    }
+
+    // Cuando se debe comprobar si dos productos son el mismo.
+    // Retorna true si son iguales.
+    // Al añadir, si son el mismo producto pero con distintos datos, lo actualiza.
+    @Override
+    public boolean areItemsTheSame(Producto item1, Producto item2) {
+        return item1.getClave().compareTo(item2.getClave()) == 0;
+    }
+
+}
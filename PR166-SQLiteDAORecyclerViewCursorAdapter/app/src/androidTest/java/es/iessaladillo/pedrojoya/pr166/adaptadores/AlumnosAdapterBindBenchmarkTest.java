@@ -0,0 +1,111 @@
+package es.iessaladillo.pedrojoya.pr166.adaptadores;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.MatrixCursor;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import es.iessaladillo.pedrojoya.pr166.R;
+import es.iessaladillo.pedrojoya.pr166.bd.Instituto;
+
+import static org.junit.Assert.assertEquals;
+
+// Mide el tiempo y las reservas de memoria por cada onBindViewHolder() del
+// adaptador real, y comprueba que los índices de las columnas se resuelven
+// una sola vez por cursor y no en cada bind.
+@RunWith(AndroidJUnit4.class)
+public class AlumnosAdapterBindBenchmarkTest {
+
+    private static final String TAG = AlumnosAdapterBindBenchmarkTest.class.getSimpleName();
+    private static final int NUM_ALUMNOS = 500;
+    private static final int NUM_PASADAS = 10;
+    // Columnas que muestra el adaptador (nombre, curso y dirección).
+    private static final int COLUMNAS_MOSTRADAS = 3;
+
+    @Test
+    public void bindResuelveLasColumnasUnaVezPorCursor() {
+        Context contexto = new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(),
+                R.style.AppTheme);
+        AlumnosAdapter adaptador = new AlumnosAdapter();
+        ContadorCursor cursor = new ContadorCursor(crearCursor());
+        adaptador.swapCursor(cursor);
+        AlumnosAdapter.ViewHolder holder = adaptador.onCreateViewHolder(
+                new FrameLayout(contexto), 0);
+        // Calentamiento.
+        for (int i = 0; i < NUM_ALUMNOS; i++) {
+            adaptador.onBindViewHolder(holder, i);
+        }
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            long inicio = System.nanoTime();
+            for (int pasada = 0; pasada < NUM_PASADAS; pasada++) {
+                for (int i = 0; i < NUM_ALUMNOS; i++) {
+                    adaptador.onBindViewHolder(holder, i);
+                }
+            }
+            long duracion = System.nanoTime() - inicio;
+            int reservas = Debug.getThreadAllocCount();
+            int binds = NUM_PASADAS * NUM_ALUMNOS;
+            Log.d(TAG, String.format("onBindViewHolder: %.0f ns/bind, %.1f reservas/bind",
+                    (double) duracion / binds, (double) reservas / binds));
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        assertEquals(COLUMNAS_MOSTRADAS, cursor.getBusquedas());
+        // Con un cursor nuevo se vuelven a resolver.
+        ContadorCursor nuevo = new ContadorCursor(crearCursor());
+        adaptador.swapCursor(nuevo);
+        for (int i = 0; i < NUM_ALUMNOS; i++) {
+            adaptador.onBindViewHolder(holder, i);
+        }
+        assertEquals(COLUMNAS_MOSTRADAS, nuevo.getBusquedas());
+        nuevo.close();
+    }
+
+    private static Cursor crearCursor() {
+        MatrixCursor cursor = new MatrixCursor(Instituto.Alumno.TODOS, NUM_ALUMNOS);
+        for (int i = 0; i < NUM_ALUMNOS; i++) {
+            cursor.addRow(new Object[]{i, "Alumno " + i, "2º CFGS DAM", "666 " + i,
+                    "Calle " + i});
+        }
+        return cursor;
+    }
+
+    // Cursor que cuenta las búsquedas de columnas por su nombre.
+    private static class ContadorCursor extends CursorWrapper {
+
+        private int mBusquedas;
+
+        ContadorCursor(Cursor cursor) {
+            super(cursor);
+        }
+
+        @Override
+        public int getColumnIndex(String columnName) {
+            mBusquedas++;
+            return super.getColumnIndex(columnName);
+        }
+
+        @Override
+        public int getColumnIndexOrThrow(String columnName) {
+            mBusquedas++;
+            return super.getColumnIndexOrThrow(columnName);
+        }
+
+        int getBusquedas() {
+            return mBusquedas;
+        }
+
+    }
+
+}
@@ -17,11 +17,20 @@ import java.util.ArrayList;
 
 import es.iessaladillo.pedrojoya.pr166.R;
 import es.iessaladillo.pedrojoya.pr166.bd.Instituto;
+import es.iessaladillo.pedrojoya.pr166.utils.MapaColumnas;
 
 @SuppressWarnings("unused")
 public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHolder> {
 
+    // Posición de cada columna en el mapa de columnas.
+    private static final int COL_NOMBRE = 0;
+    private static final int COL_CURSO = 1;
+    private static final int COL_DIRECCION = 2;
+
     private final TextDrawable.IBuilder mDrawableBuilder;
+    // Índices de las columnas mostradas, resueltos una vez por cursor.
+    private final MapaColumnas mColumnas = new MapaColumnas(Instituto.Alumno.NOMBRE,
+            Instituto.Alumno.CURSO, Instituto.Alumno.DIRECCION);
 
     // Interfaz que debe implementar el listener para cuando se haga click
     // sobre un elemento.
@@ -112,12 +121,10 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
         // Se obtiene el alumno correspondiente y se escriben sus datos.
         if (mDatos != null) {
             mDatos.moveToPosition(position);
-            String nombre = mDatos.getString(mDatos.getColumnIndexOrThrow(Instituto.Alumno.NOMBRE));
+            String nombre = mDatos.getString(mColumnas.get(mDatos, COL_NOMBRE));
             holder.lblNombre.setText(nombre);
-            holder.lblCurso.setText(
-                    mDatos.getString(mDatos.getColumnIndexOrThrow(Instituto.Alumno.CURSO)));
-            holder.lblDireccion.setText(
-                    mDatos.getString(mDatos.getColumnIndexOrThrow(Instituto.Alumno.DIRECCION)));
+            holder.lblCurso.setText(mDatos.getString(mColumnas.get(mDatos, COL_CURSO)));
+            holder.lblDireccion.setText(mDatos.getString(mColumnas.get(mDatos, COL_DIRECCION)));
             holder.itemView.setActivated(mSelectedItems.get(position, false));
             holder.imgAvatar.setImageDrawable(mDrawableBuilder.build(
                     holder.itemView.isActivated() ? "\u2713" : nombre.substring(0, 1),
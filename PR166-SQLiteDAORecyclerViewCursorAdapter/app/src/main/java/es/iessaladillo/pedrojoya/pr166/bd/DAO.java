@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import es.iessaladillo.pedrojoya.pr166.modelos.Alumno;
+import es.iessaladillo.pedrojoya.pr166.utils.MapaColumnas;
 
 /**
  * Clase de acceso a los datos de la base de datps. Utiliza un objeto de un
@@ -20,6 +21,17 @@ import es.iessaladillo.pedrojoya.pr166.modelos.Alumno;
 @SuppressWarnings("unused")
 public class DAO {
 
+    // Columnas leídas al convertir un registro en un Alumno, y su posición en
+    // el array.
+    private static final String[] COLUMNAS_ALUMNO = {Instituto.Alumno._ID,
+            Instituto.Alumno.NOMBRE, Instituto.Alumno.CURSO, Instituto.Alumno.TELEFONO,
+            Instituto.Alumno.DIRECCION};
+    private static final int COL_ID = 0;
+    private static final int COL_NOMBRE = 1;
+    private static final int COL_CURSO = 2;
+    private static final int COL_TELEFONO = 3;
+    private static final int COL_DIRECCION = 4;
+
     // Variables a nivel de clase.
     private final Helper mHelper; // Ayudante para la creación y gestión de la BD.
 
@@ -136,10 +148,13 @@ public class DAO {
         List<Alumno> lista = new ArrayList<>();
         // Se consultan todos los alumnos en la BD y obtiene un cursor.
         Cursor cursor = this.queryAllAlumnos(bd);
+        // Los índices de las columnas se resuelven una sola vez para todo el
+        // cursor.
+        int[] indices = MapaColumnas.resolver(cursor, COLUMNAS_ALUMNO);
         // Se convierte cada registro del cursor en un elemento de la lista.
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
-            Alumno alumno = cursorToAlumno(cursor);
+            Alumno alumno = cursorToAlumno(cursor, indices);
             lista.add(alumno);
             cursor.moveToNext();
         }
@@ -155,19 +170,20 @@ public class DAO {
     // el cursor y retorna un nuevo objeto Alumno cargado con los datos del
     // registro actual del cursor.
     public static Alumno cursorToAlumno(Cursor cursorAlumno) {
+        return cursorToAlumno(cursorAlumno, MapaColumnas.resolver(cursorAlumno, COLUMNAS_ALUMNO));
+    }
+
+    // Igual que el anterior, pero recibe los índices de COLUMNAS_ALUMNO en el
+    // cursor ya resueltos.
+    private static Alumno cursorToAlumno(Cursor cursorAlumno, int[] indices) {
         // Crea un objeto Alumno y guarda los valores provenientes
         // del registro actual del cursor.
         Alumno alumno = new Alumno();
-        alumno.setId(
-                cursorAlumno.getLong(cursorAlumno.getColumnIndexOrThrow(Instituto.Alumno._ID)));
-        alumno.setNombre(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(Instituto.Alumno.NOMBRE)));
-        alumno.setCurso(
-                cursorAlumno.getString(cursorAlumno.getColumnIndexOrThrow(Instituto.Alumno.CURSO)));
-        alumno.setTelefono(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(Instituto.Alumno.TELEFONO)));
-        alumno.setDireccion(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(Instituto.Alumno.DIRECCION)));
+        alumno.setId(cursorAlumno.getLong(indices[COL_ID]));
+        alumno.setNombre(cursorAlumno.getString(indices[COL_NOMBRE]));
+        alumno.setCurso(cursorAlumno.getString(indices[COL_CURSO]));
+        alumno.setTelefono(cursorAlumno.getString(indices[COL_TELEFONO]));
+        alumno.setDireccion(cursorAlumno.getString(indices[COL_DIRECCION]));
         // Se retorna el objeto Alumno.
         return alumno;
     }
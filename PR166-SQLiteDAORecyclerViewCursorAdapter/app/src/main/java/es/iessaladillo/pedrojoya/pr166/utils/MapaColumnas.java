@@ -0,0 +1,57 @@
+package es.iessaladillo.pedrojoya.pr166.utils;
+
+import android.database.Cursor;
+
+import java.lang.ref.WeakReference;
+
+// Mapa de índices de columnas de un cursor. Al igual que
+// AbstractCursor.getCachedColumnIndexOrThrow(), evita buscar cada columna por
+// su nombre en cada fila, pero guarda los índices en un array de enteros (sin
+// HashMap ni autoboxing) que se resuelve una sola vez por cursor.
+// No es thread-safe: cada hilo debe usar su propio mapa.
+// PR027-SQLiteDAO, PR115-HistorialLlamadasEndlessLoader,
+// PR116-HistorialLlamadasEndlessLoaderArrayAdapter y
+// PR166-SQLiteDAORecyclerViewCursorAdapter tienen una copia de esta clase
+// idéntica salvo por el paquete; los cambios deben llevarse a las cuatro.
+public class MapaColumnas {
+
+    private final String[] mColumnas;
+    private final int[] mIndices;
+    // Cursor para el que están resueltos los índices. Se guarda con una
+    // referencia débil para no retener el último cursor (y su ventana) una vez
+    // cerrado y descartado por quien lo usa.
+    private WeakReference<Cursor> mCursor;
+
+    // Constructor. Recibe los nombres de las columnas. La posición de cada una
+    // es la que se usa después para obtener su índice.
+    public MapaColumnas(String... columnas) {
+        mColumnas = columnas;
+        mIndices = new int[columnas.length];
+    }
+
+    // Retorna el índice en el cursor de la columna que ocupa la posición
+    // recibida en el mapa. Los índices solo se resuelven la primera vez que se
+    // recibe cada cursor.
+    public int get(Cursor cursor, int columna) {
+        if (mCursor == null || mCursor.get() != cursor) {
+            resolver(cursor, mColumnas, mIndices);
+            mCursor = new WeakReference<>(cursor);
+        }
+        return mIndices[columna];
+    }
+
+    // Retorna los índices en el cursor de las columnas recibidas, en el mismo
+    // orden.
+    public static int[] resolver(Cursor cursor, String... columnas) {
+        int[] indices = new int[columnas.length];
+        resolver(cursor, columnas, indices);
+        return indices;
+    }
+
+    private static void resolver(Cursor cursor, String[] columnas, int[] indices) {
+        for (int i = 0; i < columnas.length; i++) {
+            indices[i] = cursor.getColumnIndexOrThrow(columnas[i]);
+        }
+    }
+
+}
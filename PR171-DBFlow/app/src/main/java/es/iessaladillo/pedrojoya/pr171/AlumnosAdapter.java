@@ -11,11 +11,10 @@ import android.widget.TextView;
 import com.bumptech.glide.Glide;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 import es.iessaladillo.pedrojoya.pr171.db.Alumno;
-import es.iessaladillo.pedrojoya.pr171.db.Asignatura_Alumno;
+import es.iessaladillo.pedrojoya.pr171.db.Curso;
 
 // Adaptador para la lista.
 class AlumnosAdapter extends ArrayAdapter<Alumno> {
@@ -60,23 +59,14 @@ class AlumnosAdapter extends ArrayAdapter<Alumno> {
         Alumno alumno = mAlumnos.get(position);
         // Se escriben los datos del alumno en las vistas.
         holder.lblNombre.setText(alumno.getNombre());
-        if (alumno.getCurso() != null) {
-            holder.lblCurso.setText(alumno.getCurso().getNombre());
-        }
+        // El curso y las asignaturas ya vienen cargados, por lo que no se
+        // accede a la base de datos.
+        Curso curso = alumno.getCurso();
+        holder.lblCurso.setText(curso != null ? curso.getNombre() : null);
         holder.lblDireccion.setText(alumno.getDireccion());
-        // Se obtienen las asignaturas del alumno.
-        List<Asignatura_Alumno> asignaturas = alumno.getAsignaturas();
-        String texto;
-        if (asignaturas != null && !asignaturas.isEmpty()) {
-            texto = "";
-            for (Asignatura_Alumno asignatura_alumno : asignaturas) {
-                texto = texto + (TextUtils.isEmpty(texto)?"":" | ") + asignatura_alumno.getAsignatura().getNombre();
-            }
-        }
-        else {
-            texto = getContext().getString(R.string.sin_asignaturas);
-        }
-        holder.lblAsignaturas.setText(texto);
+        String asignaturas = alumno.getNombresAsignaturas();
+        holder.lblAsignaturas.setText(TextUtils.isEmpty(asignaturas) ? getContext().getString(
+                R.string.sin_asignaturas) : asignaturas);
         Glide.with(getContext()).load(
                 alumno.getAvatar())
                 .into(holder.imgAvatar);
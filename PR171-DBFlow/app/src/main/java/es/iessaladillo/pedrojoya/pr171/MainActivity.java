@@ -14,15 +14,17 @@ import android.widget.ListView;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
-import com.raizlabs.android.dbflow.sql.language.SQLite;
+import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.structure.database.transaction.Transaction;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import es.iessaladillo.pedrojoya.pr171.db.Alumno;
+import es.iessaladillo.pedrojoya.pr171.db.ConsultaAlumnos;
+import es.iessaladillo.pedrojoya.pr171.db.Instituto;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -34,6 +36,8 @@ public class MainActivity extends AppCompatActivity {
     RelativeLayout rlListaVacia;
 
     private AlumnosAdapter mAdaptador;
+    // Carga de alumnos en curso, si la hay.
+    private Transaction mCarga;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -141,11 +145,37 @@ public class MainActivity extends AppCompatActivity {
         cargarAlumnos();
     }
 
-    // Carga en la lista los alumnos de la base de datos.
+    @Override
+    protected void onPause() {
+        // Si aún no ha terminado la carga, se cancela.
+        if (mCarga != null) {
+            mCarga.cancel();
+            mCarga = null;
+        }
+        super.onPause();
+    }
+
+    // Carga en la lista los alumnos de la base de datos. La consulta se
+    // realiza en segundo plano y obtiene también el curso y las asignaturas
+    // de cada alumno, de manera que el adaptador no tenga que consultarlos.
     private void cargarAlumnos() {
-        List<Alumno> alumnos = SQLite.select().from(Alumno.class).queryList();
-        mAdaptador.clear();
-        mAdaptador.addAll(alumnos);
+        final ConsultaAlumnos consulta = new ConsultaAlumnos();
+        mCarga = FlowManager.getDatabase(Instituto.class)
+                .beginTransactionAsync(consulta)
+                .success(new Transaction.Success() {
+                    // Se ejecuta en el hilo principal.
+                    @Override
+                    public void onSuccess(Transaction transaction) {
+                        mCarga = null;
+                        // Se notifica un solo cambio al adaptador.
+                        mAdaptador.setNotifyOnChange(false);
+                        mAdaptador.clear();
+                        mAdaptador.addAll(consulta.getAlumnos());
+                        mAdaptador.notifyDataSetChanged();
+                    }
+                })
+                .build();
+        mCarga.execute();
     }
 
     // Retorna un ArrayList con los elementos seleccionados. Recibe la lista y
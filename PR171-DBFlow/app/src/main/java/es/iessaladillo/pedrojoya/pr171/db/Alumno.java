@@ -29,8 +29,16 @@ public class Alumno extends BaseModel implements Parcelable {
     @ForeignKey(stubbedRelationship = true)
     Curso curso;
 
+    // Nombres de las asignaturas ya preparados para mostrarse en la lista
+    // (ver ConsultaAlumnos). No se almacena en la base de datos.
+    private String nombresAsignaturas;
+
+    // Retorna el curso. La relación solo contiene el id, por lo que se carga
+    // de la base de datos la primera vez si no se ha establecido ya completo.
     public Curso getCurso() {
-        curso.load();
+        if (curso != null && curso.getNombre() == null) {
+            curso.load();
+        }
         return curso;
     }
 
@@ -50,6 +58,14 @@ public class Alumno extends BaseModel implements Parcelable {
         return asignaturas;
     }
 
+    public String getNombresAsignaturas() {
+        return nombresAsignaturas;
+    }
+
+    public void setNombresAsignaturas(String nombresAsignaturas) {
+        this.nombresAsignaturas = nombresAsignaturas;
+    }
+
     public Alumno() {
     }
 
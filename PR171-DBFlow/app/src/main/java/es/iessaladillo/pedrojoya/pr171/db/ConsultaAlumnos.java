@@ -0,0 +1,113 @@
+package es.iessaladillo.pedrojoya.pr171.db;
+
+import android.database.Cursor;
+import android.support.v4.util.LongSparseArray;
+
+import com.raizlabs.android.dbflow.sql.language.SQLite;
+import com.raizlabs.android.dbflow.structure.database.DatabaseWrapper;
+import com.raizlabs.android.dbflow.structure.database.transaction.ITransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Transacción que obtiene todos los alumnos con los datos que muestra la
+// lista (el curso y los nombres de las asignaturas) ya cargados, de manera
+// que mostrarlos no requiera más consultas. Se hace una consulta por tabla en
+// vez de una por alumno y relación. Debe ejecutarse en segundo plano.
+public class ConsultaAlumnos implements ITransaction {
+
+    private static final String SEPARADOR_ASIGNATURAS = " | ";
+
+    private List<Alumno> mAlumnos;
+
+    @Override
+    public void execute(DatabaseWrapper databaseWrapper) {
+        mAlumnos = SQLite.select().from(Alumno.class).queryList(databaseWrapper);
+        LongSparseArray<Alumno> alumnosPorId = new LongSparseArray<>(mAlumnos.size());
+        LongSparseArray<Curso> cursosPorId = new LongSparseArray<>();
+        for (Alumno alumno : mAlumnos) {
+            alumnosPorId.put(alumno.getId(), alumno);
+            alumno.setNombresAsignaturas("");
+            if (alumno.curso != null) {
+                cursosPorId.put(alumno.curso.getId(), null);
+            }
+        }
+        cargarCursos(databaseWrapper, cursosPorId);
+        cargarAsignaturas(databaseWrapper, alumnosPorId);
+    }
+
+    // Retorna los alumnos obtenidos.
+    public List<Alumno> getAlumnos() {
+        return mAlumnos;
+    }
+
+    // Carga con una sola consulta los cursos cuyo id recibe y los establece
+    // en los alumnos, sustituyendo a los que solo tienen el id.
+    private void cargarCursos(DatabaseWrapper databaseWrapper,
+            LongSparseArray<Curso> cursosPorId) {
+        if (cursosPorId.size() == 0) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(cursosPorId.size());
+        for (int i = 0; i < cursosPorId.size(); i++) {
+            ids.add(cursosPorId.keyAt(i));
+        }
+        List<Curso> cursos = SQLite.select().from(Curso.class).where(Curso_Table.id.in(ids))
+                .queryList(databaseWrapper);
+        for (Curso curso : cursos) {
+            cursosPorId.put(curso.getId(), curso);
+        }
+        for (Alumno alumno : mAlumnos) {
+            if (alumno.curso != null) {
+                Curso curso = cursosPorId.get(alumno.curso.getId());
+                if (curso != null) {
+                    alumno.setCurso(curso);
+                }
+            }
+        }
+    }
+
+    // Obtiene con una sola consulta los nombres de las asignaturas de todos
+    // los alumnos (ordenados por alumno gracias al índice de alumno_id) y los
+    // establece en cada alumno separados por SEPARADOR_ASIGNATURAS.
+    private void cargarAsignaturas(DatabaseWrapper databaseWrapper,
+            LongSparseArray<Alumno> alumnosPorId) {
+        Cursor cursor = SQLite.select(Asignatura_Alumno_Table.alumno_id, Asignatura_Table.nombre)
+                .from(Asignatura_Alumno.class)
+                .innerJoin(Asignatura.class)
+                .on(Asignatura_Alumno_Table.asignatura_id.eq(Asignatura_Table.id))
+                .orderBy(Asignatura_Alumno_Table.alumno_id, true)
+                .query(databaseWrapper);
+        if (cursor == null) {
+            return;
+        }
+        try {
+            StringBuilder nombres = new StringBuilder();
+            Alumno alumno = null;
+            // Los ids empiezan en 1.
+            long idAlumno = -1;
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                if (id != idAlumno) {
+                    // Se pasa al siguiente alumno.
+                    if (alumno != null) {
+                        alumno.setNombresAsignaturas(nombres.toString());
+                    }
+                    alumno = alumnosPorId.get(id);
+                    idAlumno = id;
+                    nombres.setLength(0);
+                }
+                if (nombres.length() > 0) {
+                    nombres.append(SEPARADOR_ASIGNATURAS);
+                }
+                nombres.append(cursor.getString(1));
+            }
+            if (alumno != null) {
+                alumno.setNombresAsignaturas(nombres.toString());
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+}
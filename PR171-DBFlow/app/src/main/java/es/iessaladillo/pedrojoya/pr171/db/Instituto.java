@@ -9,7 +9,7 @@ import com.raizlabs.android.dbflow.structure.database.DatabaseWrapper;
 public class Instituto {
 
     public static final String BD_NOMBRE = "instituto";
-    public static final int BD_VERSION = 1;
+    public static final int BD_VERSION = 2;
 
     private Instituto() { }
 
@@ -30,4 +30,17 @@ public class Instituto {
 
     }
 
+    @Migration(version = 2, database = Instituto.class)
+    public static class Migration2 extends BaseMigration {
+
+        @Override
+        public void migrate(DatabaseWrapper database) {
+            // Índice para obtener las asignaturas de un alumno sin recorrer
+            // toda la tabla.
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_Asignatura_Alumno_alumno_id "
+                    + "ON Asignatura_Alumno(alumno_id)");
+        }
+
+    }
+
 }
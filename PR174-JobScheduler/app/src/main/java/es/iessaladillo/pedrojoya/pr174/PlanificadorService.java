@@ -11,7 +11,6 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.os.PersistableBundle;
-import android.preference.PreferenceManager;
 import android.support.v4.app.NotificationCompat;
 import android.widget.Toast;
 
@@ -83,12 +82,12 @@ public class PlanificadorService extends JobService {
                 Context.JOB_SCHEDULER_SERVICE);
         int trabajoId = planificador.schedule(builder.build());
         if (trabajoId > 0) {
-            // Se guardan las preferencias.
-            SharedPrefHelper prefs = new SharedPrefHelper(context.getResources(),
-                    PreferenceManager.getDefaultSharedPreferences(context));
-            prefs.applyString(R.string.pref_mensaje, mensaje);
-            prefs.applyInt(R.string.pref_intervalo, intervalo);
-            prefs.applyBoolean(R.string.pref_activo, true);
+            // Se guardan las preferencias, con una sola escritura en disco.
+            Preferencias.getInstance(context).edit()
+                    .putString(R.string.pref_mensaje, mensaje)
+                    .putInt(R.string.pref_intervalo, intervalo)
+                    .putBoolean(R.string.pref_activo, true)
+                    .apply();
         }
         return trabajoId;
     }
@@ -101,9 +100,9 @@ public class PlanificadorService extends JobService {
         // Se cancela.
         planificador.cancel(trabajoId);
         // Se guarda la preferencia.
-        SharedPrefHelper prefs = new SharedPrefHelper(context.getResources(),
-                PreferenceManager.getDefaultSharedPreferences(context));
-        prefs.applyBoolean(R.string.pref_activo, false);
+        Preferencias.getInstance(context).edit()
+                .putBoolean(R.string.pref_activo, false)
+                .apply();
     }
 
 }
@@ -0,0 +1,265 @@
+package es.iessaladillo.pedrojoya.pr174;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Resources;
+import android.preference.PreferenceManager;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Acceso a las preferencias por id de recurso de su clave. Cada clave se
+// obtiene de los recursos una sola vez. Las claves y los valores se leen sin
+// sincronizar de copias en memoria que no se modifican, sino que se
+// sustituyen. Los cambios se agrupan en ediciones que se escriben en disco
+// de una sola vez, y cada edición sustituye la copia de los valores una sola
+// vez, aunque cambie varias preferencias.
+// PR175-GCMNetworkManager y PR193-FirebaseJobDispatcher tienen una copia idéntica de esta
+// clase; los cambios deben llevarse a las tres.
+public class Preferencias {
+
+    // Interfaz que debe implementar quien quiera saber cuándo cambia una
+    // preferencia. Se llama desde el hilo principal.
+    public interface Observador {
+        void onCambio(String clave);
+    }
+
+    private static Preferencias instance = null;
+
+    private final Resources mRes;
+    private final SharedPreferences mPref;
+    // Claves ya obtenidas, por id de recurso. No se modifica, se sustituye.
+    private volatile SparseArray<String> mClaves = new SparseArray<>();
+    // Copia de los valores. No se modifica, se sustituye.
+    private volatile Map<String, ?> mValores;
+    private final CopyOnWriteArrayList<Observador> mObservadores =
+            new CopyOnWriteArrayList<>();
+    // Las preferencias solo guardan una referencia débil al listener, por lo
+    // que debe conservarse aquí.
+    private final SharedPreferences.OnSharedPreferenceChangeListener mListener =
+            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                @Override
+                public void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+                        String key) {
+                    // Se informa una vez por cada preferencia cambiada. Solo
+                    // se recarga si la copia aún no refleja el cambio, lo que
+                    // ocurre con la primera preferencia de cada edición que
+                    // no se ha hecho a través de esta clase.
+                    if (key == null || !isReflejada(sharedPreferences, key)) {
+                        recargar();
+                    }
+                    for (Observador observador : mObservadores) {
+                        observador.onCambio(key);
+                    }
+                }
+            };
+
+    public static synchronized Preferencias getInstance(Context context) {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            instance = new Preferencias(app.getResources(),
+                    PreferenceManager.getDefaultSharedPreferences(app));
+        }
+        return instance;
+    }
+
+    Preferencias(Resources res, SharedPreferences preferences) {
+        mRes = res;
+        mPref = preferences;
+        mPref.registerOnSharedPreferenceChangeListener(mListener);
+        recargar();
+    }
+
+    // Retorna la clave correspondiente al id de recurso.
+    public String getClave(int resId) {
+        String clave = mClaves.get(resId);
+        return clave != null ? clave : anadirClave(resId);
+    }
+
+    // Obtiene la clave de los recursos y la añade a una nueva copia de las
+    // claves, que sustituye a la anterior.
+    private synchronized String anadirClave(int resId) {
+        String clave = mClaves.get(resId);
+        if (clave == null) {
+            clave = mRes.getString(resId);
+            SparseArray<String> claves = mClaves.clone();
+            claves.put(resId, clave);
+            mClaves = claves;
+        }
+        return clave;
+    }
+
+    public boolean contains(int resId) {
+        return mValores.containsKey(getClave(resId));
+    }
+
+    public String getString(int resId, String defValue) {
+        Object valor = mValores.get(getClave(resId));
+        return valor instanceof String ? (String) valor : defValue;
+    }
+
+    public boolean getBoolean(int resId, boolean defValue) {
+        Object valor = mValores.get(getClave(resId));
+        return valor instanceof Boolean ? (Boolean) valor : defValue;
+    }
+
+    public int getInt(int resId, int defValue) {
+        Object valor = mValores.get(getClave(resId));
+        return valor instanceof Integer ? (Integer) valor : defValue;
+    }
+
+    public long getLong(int resId, long defValue) {
+        Object valor = mValores.get(getClave(resId));
+        return valor instanceof Long ? (Long) valor : defValue;
+    }
+
+    public float getFloat(int resId, float defValue) {
+        Object valor = mValores.get(getClave(resId));
+        return valor instanceof Float ? (Float) valor : defValue;
+    }
+
+    // Retorna una edición en la que agrupar cambios, que no se aplican hasta
+    // llamar a su apply() o commit().
+    public Editor edit() {
+        return new Editor();
+    }
+
+    public void addObservador(Observador observador) {
+        mObservadores.add(observador);
+    }
+
+    public void removeObservador(Observador observador) {
+        mObservadores.remove(observador);
+    }
+
+    // Sustituye la copia de los valores por los actuales.
+    private void recargar() {
+        // getAll() ya retorna una copia.
+        mValores = mPref.getAll();
+    }
+
+    // Retorna si la copia de los valores ya tiene el valor actual de la
+    // preferencia.
+    private boolean isReflejada(SharedPreferences pref, String clave) {
+        Object valor = mValores.get(clave);
+        if (!pref.contains(clave)) {
+            return valor == null;
+        }
+        try {
+            if (valor instanceof String) {
+                return valor.equals(pref.getString(clave, null));
+            } else if (valor instanceof Boolean) {
+                return valor.equals(pref.getBoolean(clave, false));
+            } else if (valor instanceof Integer) {
+                return valor.equals(pref.getInt(clave, 0));
+            } else if (valor instanceof Long) {
+                return valor.equals(pref.getLong(clave, 0));
+            } else if (valor instanceof Float) {
+                return valor.equals(pref.getFloat(clave, 0));
+            }
+        } catch (ClassCastException e) {
+            // Ha cambiado el tipo de la preferencia.
+        }
+        return false;
+    }
+
+    // Edición de las preferencias. Los cambios se aplican todos juntos, con
+    // una sola escritura en disco.
+    public class Editor {
+
+        // Un valor null indica que se elimina la preferencia.
+        private final Map<String, Object> mCambios = new HashMap<>();
+
+        private Editor() {
+        }
+
+        public Editor putString(int resId, String value) {
+            mCambios.put(getClave(resId), value);
+            return this;
+        }
+
+        public Editor putBoolean(int resId, boolean value) {
+            mCambios.put(getClave(resId), value);
+            return this;
+        }
+
+        public Editor putInt(int resId, int value) {
+            mCambios.put(getClave(resId), value);
+            return this;
+        }
+
+        public Editor putLong(int resId, long value) {
+            mCambios.put(getClave(resId), value);
+            return this;
+        }
+
+        public Editor putFloat(int resId, float value) {
+            mCambios.put(getClave(resId), value);
+            return this;
+        }
+
+        public Editor remove(int resId) {
+            mCambios.put(getClave(resId), null);
+            return this;
+        }
+
+        // Aplica los cambios en memoria y los escribe en disco en segundo
+        // plano.
+        public void apply() {
+            actualizarValores();
+            escribir().apply();
+        }
+
+        // Aplica los cambios y los escribe en disco antes de retornar. Retorna
+        // si se han escrito correctamente.
+        public boolean commit() {
+            actualizarValores();
+            boolean escritos = escribir().commit();
+            if (!escritos) {
+                recargar();
+            }
+            return escritos;
+        }
+
+        // Sustituye la copia de los valores por una con los cambios aplicados,
+        // antes de escribirlos, de manera que el listener encuentre todos los
+        // cambios de esta edición ya reflejados y no vuelva a recargar.
+        private void actualizarValores() {
+            Map<String, Object> valores = new HashMap<>(mValores);
+            for (Map.Entry<String, Object> cambio : mCambios.entrySet()) {
+                if (cambio.getValue() == null) {
+                    valores.remove(cambio.getKey());
+                } else {
+                    valores.put(cambio.getKey(), cambio.getValue());
+                }
+            }
+            mValores = valores;
+        }
+
+        private SharedPreferences.Editor escribir() {
+            SharedPreferences.Editor editor = mPref.edit();
+            for (Map.Entry<String, Object> cambio : mCambios.entrySet()) {
+                String clave = cambio.getKey();
+                Object valor = cambio.getValue();
+                if (valor == null) {
+                    editor.remove(clave);
+                } else if (valor instanceof String) {
+                    editor.putString(clave, (String) valor);
+                } else if (valor instanceof Boolean) {
+                    editor.putBoolean(clave, (Boolean) valor);
+                } else if (valor instanceof Integer) {
+                    editor.putInt(clave, (Integer) valor);
+                } else if (valor instanceof Long) {
+                    editor.putLong(clave, (Long) valor);
+                } else {
+                    editor.putFloat(clave, (Float) valor);
+                }
+            }
+            return editor;
+        }
+
+    }
+
+}
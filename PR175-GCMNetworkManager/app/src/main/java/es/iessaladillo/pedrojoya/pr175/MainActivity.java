@@ -1,7 +1,6 @@
 package es.iessaladillo.pedrojoya.pr175;
 
 import android.os.Bundle;
-import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.SwitchCompat;
 import android.text.TextUtils;
@@ -36,8 +35,7 @@ public class MainActivity extends AppCompatActivity {
 
     // Carga los datos a mostar en las vista a partir de las preferencias.
     private void cargarDatos() {
-        SharedPrefHelper prefs = new SharedPrefHelper(getResources(),
-                PreferenceManager.getDefaultSharedPreferences(this));
+        Preferencias prefs = Preferencias.getInstance(this);
         txtMensaje.setText(prefs.getString(R.string.pref_mensaje,
                 getString(R.string.quillo_ponte_ya_a_currar)));
         txtIntervalo.setText(String.valueOf(
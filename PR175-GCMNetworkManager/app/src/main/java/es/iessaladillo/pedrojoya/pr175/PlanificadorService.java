@@ -6,7 +6,6 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
 import android.support.v4.app.NotificationCompat;
 
 import com.google.android.gms.common.ConnectionResult;
@@ -31,8 +30,7 @@ public class PlanificadorService extends GcmTaskService {
     public void onInitializeTasks() {
         super.onInitializeTasks();
         // Volvemos a planificar la tarea.
-        SharedPrefHelper prefs = new SharedPrefHelper(getResources(),
-                PreferenceManager.getDefaultSharedPreferences(this));
+        Preferencias prefs = Preferencias.getInstance(this);
         if (prefs.getBoolean(R.string.pref_activo, false)) {
             planificarTrabajo(this, prefs.getString(R.string.pref_mensaje,
                     getString(R.string.quillo_ponte_ya_a_currar)),
@@ -92,12 +90,12 @@ public class PlanificadorService extends GcmTaskService {
         if (GoogleApiAvailability.getInstance().isGooglePlayServicesAvailable(context)
                 == ConnectionResult.SUCCESS) {
             GcmNetworkManager.getInstance(context).schedule(task);
-            SharedPrefHelper prefs = new SharedPrefHelper(context.getResources(),
-                    PreferenceManager.getDefaultSharedPreferences(context));
-            // Se almacenan las preferencias.
-            prefs.applyString(R.string.pref_mensaje, mensaje);
-            prefs.applyInt(R.string.pref_intervalo, intervalo);
-            prefs.applyBoolean(R.string.pref_activo, true);
+            // Se guardan las preferencias, con una sola escritura en disco.
+            Preferencias.getInstance(context).edit()
+                    .putString(R.string.pref_mensaje, mensaje)
+                    .putInt(R.string.pref_intervalo, intervalo)
+                    .putBoolean(R.string.pref_activo, true)
+                    .apply();
             return true;
         } else {
             return false;
@@ -110,9 +108,9 @@ public class PlanificadorService extends GcmTaskService {
         GcmNetworkManager.getInstance(context)
                 .cancelTask(PlanificadorService.TRABAJO_MENSAJE_TAG, PlanificadorService.class);
         // Se guarda la preferencia.
-        SharedPrefHelper prefs = new SharedPrefHelper(context.getResources(),
-                PreferenceManager.getDefaultSharedPreferences(context));
-        prefs.applyBoolean(R.string.pref_activo, false);
+        Preferencias.getInstance(context).edit()
+                .putBoolean(R.string.pref_activo, false)
+                .apply();
     }
 
 }
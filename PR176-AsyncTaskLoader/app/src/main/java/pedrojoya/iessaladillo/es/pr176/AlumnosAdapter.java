@@ -8,15 +8,14 @@ import android.widget.TextView;
 
 import com.squareup.picasso.Picasso;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
 // Adaptador para la lista de alumnos.
 public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHolder> {
 
-    private ArrayList<Alumno> mDatos;
+    private List<Alumno> mDatos;
     private OnItemLongClickListener onItemLongClickListener;
     private OnItemClickListener onItemClickListener;
 
@@ -76,38 +75,31 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
         }
     }
 
-    // Establece los datos.
-    public void setData(ArrayList<Alumno> data) {
+    // Establece los datos, que no se pueden modificar.
+    public void setData(List<Alumno> data) {
         mDatos = data;
         notifyDataSetChanged();
     }
 
-    // Elimina un elemento de la lista.
-    public void removeItem(int position) {
-        if (mDatos != null) {
-            mDatos.remove(position);
-            notifyItemRemoved(position);
+    // Establece los datos, que resultan de aplicar los cambios recibidos a
+    // los actuales, y notifica cada uno de ellos en orden. Si no se reciben
+    // cambios, o aún no se tienen datos, se considera que todos son nuevos.
+    // Si se reciben los mismos datos que ya se tienen, no se hace nada.
+    public void setData(List<Alumno> data, List<DB.Cambio> cambios) {
+        if (data == mDatos) {
+            return;
         }
-    }
-
-    // Añade un elemento a la lista.
-    public void addItem(Alumno alumno) {
-        if (mDatos != null) {
-            // Se añade el elemento.
-            mDatos.add(alumno);
-            // Se notifica que se ha insertado un elemento en la última posición.
-            notifyItemInserted(mDatos.size() - 1);
+        if (cambios == null || mDatos == null) {
+            setData(data);
+            return;
         }
-    }
-
-    // Intercambia dos elementos de la lista.
-    @SuppressWarnings("unused")
-    void swapItems(int from, int to) {
-        if (mDatos != null) {
-            // Se realiza el intercambio.
-            Collections.swap(mDatos, from, to);
-            // Se notifica el movimiento.
-            notifyItemMoved(from, to);
+        mDatos = data;
+        for (DB.Cambio cambio : cambios) {
+            if (cambio.getTipo() == DB.Cambio.INSERCION) {
+                notifyItemInserted(cambio.getPosicion());
+            } else {
+                notifyItemRemoved(cambio.getPosicion());
+            }
         }
     }
 
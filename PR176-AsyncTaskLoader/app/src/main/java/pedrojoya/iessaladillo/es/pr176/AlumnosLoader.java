@@ -1,14 +1,27 @@
 package pedrojoya.iessaladillo.es.pr176;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v4.content.AsyncTaskLoader;
 import android.util.Log;
 
-import java.util.ArrayList;
+import java.util.List;
 
-class AlumnosLoader extends AsyncTaskLoader<ArrayList<Alumno>> {
+// Carga los alumnos de la BD. La primera vez obtiene todos y después, cuando
+// cambia la versión de la BD, solo los cambios respecto a lo último entregado.
+class AlumnosLoader extends AsyncTaskLoader<AlumnosLoader.Resultado> {
 
-    private ArrayList<Alumno> mDatos;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    // La BD informa desde el hilo que hace el cambio, pero onContentChanged()
+    // debe llamarse desde el principal.
+    private final DB.Observador mObservador = instantanea -> mHandler.post(
+            this::onContentChanged);
+
+    private Resultado mDatos;
+    // Versión de lo último entregado, que se consulta desde el hilo secundario.
+    private volatile DB.Instantanea mEntregada;
+    private boolean mObservando;
 
     public AlumnosLoader(Context context) {
         super(context);
@@ -16,28 +29,90 @@ class AlumnosLoader extends AsyncTaskLoader<ArrayList<Alumno>> {
 
     @Override
     protected void onStartLoading() {
-        // Si no se dispone de datos o está activa la bandera de recarga, se recarga.
-        if (takeContentChanged() || mDatos == null) {
+        if (!mObservando) {
+            DB.addObservador(mObservador);
+            mObservando = true;
+        }
+        if (mDatos != null) {
+            // Se vuelven a entregar los mismos datos, sin crear otro
+            // resultado. El LoaderManager no informa al cliente que ya los
+            // tiene y uno nuevo, sin datos, los toma completos.
+            deliverResult(mDatos);
+        }
+        // Si no se dispone de datos o ha cambiado la versión de la BD, se
+        // recarga.
+        boolean cambiados = takeContentChanged();
+        if (mDatos == null || (cambiados
+                && DB.getVersion() != mDatos.getInstantanea().getVersion())) {
             Log.d(getContext().getString(R.string.app_name), "forceLoad");
             forceLoad();
-        } else {
-            // Se entregan los datos disponibles.
-            deliverResult(mDatos);
         }
     }
 
     @Override
-    public ArrayList<Alumno> loadInBackground() {
-        // Se obtienen los datos y se retornan.
-        return DB.getAlumnos();
+    public Resultado loadInBackground() {
+        DB.Instantanea entregada = mEntregada;
+        if (entregada == null) {
+            // Se obtienen todos los datos.
+            DB.getAlumnos();
+            return new Resultado(DB.getInstantanea(), null);
+        }
+        // Se obtienen solo los cambios, salvo que sean tantos que ya no se
+        // conserven.
+        DB.Instantanea actual = DB.getInstantanea();
+        return new Resultado(actual, actual.getCambiosDesde(entregada.getVersion()));
     }
 
     @Override
-    public void deliverResult(ArrayList<Alumno> data) {
+    public void deliverResult(Resultado data) {
+        if (isReset()) {
+            return;
+        }
         // Se hace la copia local de los datos.
         mDatos = data;
-        // Se entregan los datos a los clientes.
-        super.deliverResult(data);
+        mEntregada = data.getInstantanea();
+        if (isStarted()) {
+            // Se entregan los datos a los clientes.
+            super.deliverResult(data);
+        }
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelLoad();
+        if (mObservando) {
+            DB.removeObservador(mObservador);
+            mObservando = false;
+        }
+        mDatos = null;
+        mEntregada = null;
+    }
+
+    // Datos entregados. Si los cambios son null, la lista es completamente
+    // nueva y si no, resulta de aplicarlos en orden a la anterior.
+    static class Resultado {
+
+        private final DB.Instantanea mInstantanea;
+        private final List<DB.Cambio> mCambios;
+
+        Resultado(DB.Instantanea instantanea, List<DB.Cambio> cambios) {
+            mInstantanea = instantanea;
+            mCambios = cambios;
+        }
+
+        public DB.Instantanea getInstantanea() {
+            return mInstantanea;
+        }
+
+        public List<Alumno> getAlumnos() {
+            return mInstantanea.getAlumnos();
+        }
+
+        public List<DB.Cambio> getCambios() {
+            return mCambios;
+        }
+
     }
 
 }
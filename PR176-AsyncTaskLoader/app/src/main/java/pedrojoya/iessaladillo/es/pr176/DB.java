@@ -1,61 +1,225 @@
 package pedrojoya.iessaladillo.es.pr176;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-// Simula un BD.
+// Simula un BD. Los datos se guardan en instantáneas inmutables, de manera que
+// leer no requiere bloqueos y cada escritura crea una nueva instantánea y la
+// sustituye atómicamente. Cada instantánea tiene un número de versión y los
+// últimos cambios que la han producido, para que quien tenga una versión
+// anterior pueda aplicar solo las diferencias.
 @SuppressWarnings("unused")
 class DB {
 
     private static final long MILISEGUNDOS_ESPERA = 1000;
+    // Número de cambios que se conservan en cada instantánea.
+    static final int MAX_CAMBIOS = 64;
 
-    // Lista de alumnos.
-    private static final ArrayList<Alumno> datos;
-    private static int next = 1;
+    // Interfaz que debe implementar quien quiera saber cuándo cambian los
+    // datos. Se llama desde el hilo que realiza el cambio.
+    public interface Observador {
+        void onCambio(Instantanea instantanea);
+    }
+
+    // Instantánea de los alumnos.
+    private static final AtomicReference<Instantanea> instantanea;
+    private static final AtomicInteger next = new AtomicInteger(1);
     private static final Random aleatorio = new Random();
+    private static final CopyOnWriteArrayList<Observador> observadores =
+            new CopyOnWriteArrayList<>();
 
     // Inicialización.
     static {
-        datos = new ArrayList<>();
+        ArrayList<Alumno> datos = new ArrayList<>();
         for (int i = 0; i < 15; i++) {
             datos.add(getNextAlumno());
         }
+        instantanea = new AtomicReference<>(new Instantanea(datos, 0, new Cambio[0]));
     }
 
     private DB() { }
 
-    // Retorna la lista de alumnos.
-    public static ArrayList<Alumno> getAlumnos() {
+    // Retorna la lista de alumnos, que no se puede modificar.
+    public static List<Alumno> getAlumnos() {
         try {
             Thread.sleep(MILISEGUNDOS_ESPERA);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
-        return datos;
+        return instantanea.get().getAlumnos();
+    }
+
+    // Retorna la instantánea actual, sin esperas ni bloqueos.
+    public static Instantanea getInstantanea() {
+        return instantanea.get();
+    }
+
+    public static long getVersion() {
+        return instantanea.get().getVersion();
     }
 
     // Agrega un alumno a la lista.
     public static void addAlumno(Alumno alumno) {
-        datos.add(alumno);
+        modificar(actual -> actual.con(new Cambio(Cambio.INSERCION,
+                actual.getAlumnos().size(), alumno)));
     }
 
-    // Elimina un alumno de la lista.
-    public static void removeAlumno(int position) {
-        datos.remove(position);
+    // Elimina un alumno de la lista. Retorna si estaba en ella.
+    public static boolean removeAlumno(Alumno alumno) {
+        Instantanea anterior = modificar(actual -> {
+            int posicion = actual.indexOf(alumno.getId());
+            return posicion < 0 ? actual : actual.con(new Cambio(Cambio.ELIMINACION, posicion,
+                    alumno));
+        });
+        return anterior != null;
     }
 
     public static int getAlumnosCount() {
-        return datos.size();
+        return instantanea.get().getAlumnos().size();
+    }
+
+    public static void addObservador(Observador observador) {
+        observadores.add(observador);
+    }
+
+    public static void removeObservador(Observador observador) {
+        observadores.remove(observador);
     }
 
     private static int getNext() {
-        return next++;
+        return next.getAndIncrement();
     }
 
     public static Alumno getNextAlumno() {
-        int num = next++;
-        return new Alumno("Alumno " + num, "c/ Su casa, nº " + num, aleatorio.nextInt(9) + 20,
+        int num = getNext();
+        return new Alumno(num, "Alumno " + num, "c/ Su casa, nº " + num,
+                aleatorio.nextInt(9) + 20,
                 "http://lorempixel.com/100/100/abstract/" + (num % 10 + 1) + "/");
     }
 
+    // Sustituye la instantánea actual por la que resulta de aplicarle la
+    // modificación, reintentando si otro hilo la ha sustituido mientras
+    // tanto. Retorna la instantánea sustituida, o null si la modificación no
+    // cambia nada.
+    private static Instantanea modificar(Modificacion modificacion) {
+        while (true) {
+            Instantanea actual = instantanea.get();
+            Instantanea nueva = modificacion.aplicar(actual);
+            if (nueva == actual) {
+                return null;
+            }
+            if (instantanea.compareAndSet(actual, nueva)) {
+                for (Observador observador : observadores) {
+                    observador.onCambio(nueva);
+                }
+                return actual;
+            }
+        }
+    }
+
+    // Obtiene la nueva instantánea a partir de la actual, sin modificarla.
+    private interface Modificacion {
+        Instantanea aplicar(Instantanea actual);
+    }
+
+    // Cambio que produce una versión a partir de la anterior. La posición es
+    // la del alumno en la lista de la versión anterior (si se elimina) o en
+    // la de la nueva (si se inserta).
+    static final class Cambio {
+
+        static final int INSERCION = 0;
+        static final int ELIMINACION = 1;
+
+        private final int tipo;
+        private final int posicion;
+        private final Alumno alumno;
+
+        Cambio(int tipo, int posicion, Alumno alumno) {
+            this.tipo = tipo;
+            this.posicion = posicion;
+            this.alumno = alumno;
+        }
+
+        public int getTipo() {
+            return tipo;
+        }
+
+        public int getPosicion() {
+            return posicion;
+        }
+
+        public Alumno getAlumno() {
+            return alumno;
+        }
+
+    }
+
+    // Lista de alumnos en una versión concreta, junto a los últimos cambios
+    // que la han producido. No se modifica nunca.
+    static final class Instantanea {
+
+        private final List<Alumno> alumnos;
+        private final long version;
+        // De más antiguo a más reciente. El último produce esta versión.
+        private final Cambio[] cambios;
+
+        private Instantanea(List<Alumno> alumnos, long version, Cambio[] cambios) {
+            this.alumnos = Collections.unmodifiableList(alumnos);
+            this.version = version;
+            this.cambios = cambios;
+        }
+
+        public List<Alumno> getAlumnos() {
+            return alumnos;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        // Retorna los cambios que llevan de la versión recibida a ésta, en
+        // orden, o null si ya no se conservan todos.
+        public List<Cambio> getCambiosDesde(long desde) {
+            long numCambios = version - desde;
+            if (numCambios < 0 || numCambios > cambios.length) {
+                return null;
+            }
+            return Collections.unmodifiableList(Arrays.asList(cambios).subList(
+                    cambios.length - (int) numCambios, cambios.length));
+        }
+
+        int indexOf(long id) {
+            for (int i = 0; i < alumnos.size(); i++) {
+                if (alumnos.get(i).getId() == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Retorna la instantánea que resulta de aplicar el cambio a ésta.
+        Instantanea con(Cambio cambio) {
+            ArrayList<Alumno> nuevos = new ArrayList<>(alumnos.size() + 1);
+            nuevos.addAll(alumnos);
+            if (cambio.getTipo() == Cambio.INSERCION) {
+                nuevos.add(cambio.getPosicion(), cambio.getAlumno());
+            } else {
+                nuevos.remove(cambio.getPosicion());
+            }
+            int conservados = Math.min(cambios.length, MAX_CAMBIOS - 1);
+            Cambio[] nuevosCambios = new Cambio[conservados + 1];
+            System.arraycopy(cambios, cambios.length - conservados, nuevosCambios, 0,
+                    conservados);
+            nuevosCambios[conservados] = cambio;
+            return new Instantanea(nuevos, version + 1, nuevosCambios);
+        }
+
+    }
+
 }
@@ -16,12 +16,10 @@ import android.util.Log;
 import android.view.View;
 import android.widget.TextView;
 
-import java.util.ArrayList;
-
 
 public class MainActivity extends AppCompatActivity implements AlumnosAdapter
         .OnItemClickListener, AlumnosAdapter.OnItemLongClickListener, LoaderManager
-        .LoaderCallbacks<ArrayList<Alumno>>, SwipeRefreshLayout.OnRefreshListener {
+        .LoaderCallbacks<AlumnosLoader.Resultado>, SwipeRefreshLayout.OnRefreshListener {
 
     private static final int LOADER_ID = 1;
     private static final int RC_AGREGAR = 1;
@@ -128,14 +126,6 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
         mEmptyView.setVisibility(mAdaptador.getItemCount() == 0 ? View.VISIBLE : View.INVISIBLE);
     }
 
-    // Agrega un alumno a la ArrayLista.
-    @SuppressWarnings("unused")
-    private void agregarAlumno(Alumno alumno) {
-        // Se agrega el alumno.
-        mAdaptador.addItem(alumno);
-        lstAlumnos.scrollToPosition(mAdaptador.getItemCount() - 1);
-    }
-
     // Cuando se hace click sobre un elemento de la ArrayLista.
     @Override
     public void onItemClick(View view, Alumno alumno, int position) {
@@ -146,22 +136,23 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
     // Cuando se hace long click sobre un elemento de la ArrayLista.
     @Override
     public void onItemLongClick(View view, Alumno alumno, int position) {
-        // Se elimina el alumno.
-        mAdaptador.removeItem(position);
+        // Se elimina el alumno de la BD. El cargador recibe el cambio y se lo
+        // entrega al adaptador.
+        DB.removeAlumno(alumno);
     }
 
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         if (requestCode == RC_AGREGAR && resultCode == RESULT_OK) {
             Log.d(getString(R.string.app_name), "onActivityResult: ");
-            // Se reinicia el cargador.
-            getSupportLoaderManager().restartLoader(LOADER_ID, null, this);
+            // No hace falta reiniciar el cargador, que observa la BD y
+            // entrega solo el alumno agregado.
         }
     }
 
     // Cuando se debe crear el loader. Retorna el cargador.
     @Override
-    public Loader<ArrayList<Alumno>> onCreateLoader(int id, Bundle args) {
+    public Loader<AlumnosLoader.Resultado> onCreateLoader(int id, Bundle args) {
         Log.d(getString(R.string.app_name), "onCreateLoader");
         // Se retorna el loader.
         return new AlumnosLoader(this);
@@ -169,10 +160,12 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
 
     // Cuando el loader entrega datos.
     @Override
-    public void onLoadFinished(Loader<ArrayList<Alumno>> loader, ArrayList<Alumno> data) {
+    public void onLoadFinished(Loader<AlumnosLoader.Resultado> loader,
+            AlumnosLoader.Resultado data) {
         Log.d(getString(R.string.app_name), "onLoaderFinished");
-        // Se actualizan los datos del adaptador.
-        mAdaptador.setData(data);
+        // Se actualizan los datos del adaptador, aplicando solo los cambios
+        // si es posible.
+        mAdaptador.setData(data.getAlumnos(), data.getCambios());
         // Se comprueba si hay que mostrar la emptyview.
         checkAdapterIsEmpty();
         // Se cancela la animación del panel.
@@ -180,7 +173,7 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
     }
 
     @Override
-    public void onLoaderReset(Loader<ArrayList<Alumno>> loader) {
+    public void onLoaderReset(Loader<AlumnosLoader.Resultado> loader) {
         Log.d(getString(R.string.app_name), "onLoaderReset");
         // Se anulan los datos del adaptador.
         mAdaptador.setData(null);
@@ -0,0 +1,183 @@
+package pedrojoya.iessaladillo.es.pr176;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+// Lanza a la vez varios hilos que agregan y eliminan alumnos y varios que leen
+// instantáneas, comprobando que cada lectura es coherente, que los cambios de
+// una versión a otra reproducen la lista nueva y que no se pierde ninguna
+// escritura. Solo se comprueban cuentas, que no dependen de la máquina; el
+// tiempo solo se informa.
+public class DBStressTest {
+
+    private static final int NUM_ESCRITORES = 4;
+    private static final int NUM_LECTORES = 4;
+    private static final int ESCRITURAS_POR_HILO = 20000;
+
+    @Test
+    public void lectoresYEscritoresConcurrentes() throws Throwable {
+        DB.Instantanea inicial = DB.getInstantanea();
+        final AtomicInteger insertados = new AtomicInteger();
+        final AtomicInteger eliminados = new AtomicInteger();
+        final AtomicInteger notificaciones = new AtomicInteger();
+        final AtomicLong lecturas = new AtomicLong();
+        final AtomicLong diferenciasAplicadas = new AtomicLong();
+        final AtomicLong recargasCompletas = new AtomicLong();
+        final AtomicBoolean escribiendo = new AtomicBoolean(true);
+        final AtomicReference<Throwable> fallo = new AtomicReference<>();
+        final CountDownLatch salida = new CountDownLatch(1);
+        DB.Observador observador = instantanea -> notificaciones.incrementAndGet();
+        DB.addObservador(observador);
+        List<Thread> escritores = new ArrayList<>();
+        List<Thread> lectores = new ArrayList<>();
+        try {
+            for (int i = 0; i < NUM_ESCRITORES; i++) {
+                final Random aleatorio = new Random(i);
+                escritores.add(new Thread(() -> ejecutar(salida, fallo, () -> {
+                    for (int j = 0; j < ESCRITURAS_POR_HILO; j++) {
+                        List<Alumno> alumnos = DB.getInstantanea().getAlumnos();
+                        if (aleatorio.nextBoolean() || alumnos.isEmpty()) {
+                            DB.addAlumno(DB.getNextAlumno());
+                            insertados.incrementAndGet();
+                        } else if (DB.removeAlumno(alumnos.get(aleatorio.nextInt(
+                                alumnos.size())))) {
+                            // Otro escritor puede haberlo eliminado antes.
+                            eliminados.incrementAndGet();
+                        }
+                    }
+                })));
+            }
+            for (int i = 0; i < NUM_LECTORES; i++) {
+                lectores.add(new Thread(() -> ejecutar(salida, fallo, () -> {
+                    DB.Instantanea anterior = DB.getInstantanea();
+                    while (escribiendo.get()) {
+                        DB.Instantanea actual = DB.getInstantanea();
+                        assertTrue(actual.getVersion() >= anterior.getVersion());
+                        comprobarIdsUnicos(actual.getAlumnos());
+                        List<DB.Cambio> cambios = actual.getCambiosDesde(
+                                anterior.getVersion());
+                        if (cambios != null) {
+                            assertEquals(ids(actual.getAlumnos()),
+                                    ids(aplicar(anterior.getAlumnos(), cambios)));
+                            diferenciasAplicadas.incrementAndGet();
+                        } else {
+                            assertTrue(actual.getVersion() - anterior.getVersion()
+                                    > DB.MAX_CAMBIOS);
+                            recargasCompletas.incrementAndGet();
+                        }
+                        anterior = actual;
+                        lecturas.incrementAndGet();
+                    }
+                })));
+            }
+            long inicio = System.nanoTime();
+            for (Thread hilo : lectores) {
+                hilo.start();
+            }
+            for (Thread hilo : escritores) {
+                hilo.start();
+            }
+            salida.countDown();
+            for (Thread hilo : escritores) {
+                hilo.join();
+            }
+            escribiendo.set(false);
+            for (Thread hilo : lectores) {
+                hilo.join();
+            }
+            long nanos = System.nanoTime() - inicio;
+            if (fallo.get() != null) {
+                throw fallo.get();
+            }
+            DB.Instantanea fin = DB.getInstantanea();
+            int escrituras = insertados.get() + eliminados.get();
+            String medidas = String.format("%d escrituras y %d lecturas (%d con diferencias, "
+                            + "%d completas) en %.0f ms", escrituras, lecturas.get(),
+                    diferenciasAplicadas.get(), recargasCompletas.get(), nanos / 1e6);
+            System.out.println(medidas);
+            // Cada lectura aplica las diferencias o, si ya no se conservan,
+            // recarga la lista completa.
+            assertEquals(medidas, lecturas.get(),
+                    diferenciasAplicadas.get() + recargasCompletas.get());
+            assertEquals(medidas, inicial.getVersion() + escrituras, fin.getVersion());
+            assertEquals(medidas, inicial.getAlumnos().size() + insertados.get()
+                    - eliminados.get(), fin.getAlumnos().size());
+            assertEquals(medidas, escrituras, notificaciones.get());
+            comprobarIdsUnicos(fin.getAlumnos());
+        } finally {
+            DB.removeObservador(observador);
+        }
+    }
+
+    @Test
+    public void cambiosDesdeVersionesNoConservadas() {
+        DB.Instantanea inicial = DB.getInstantanea();
+        for (int i = 0; i <= DB.MAX_CAMBIOS; i++) {
+            DB.addAlumno(DB.getNextAlumno());
+        }
+        DB.Instantanea actual = DB.getInstantanea();
+        assertNull(actual.getCambiosDesde(inicial.getVersion()));
+        assertEquals(DB.MAX_CAMBIOS, actual.getCambiosDesde(inicial.getVersion() + 1).size());
+        assertTrue(actual.getCambiosDesde(actual.getVersion()).isEmpty());
+        assertNull(actual.getCambiosDesde(actual.getVersion() + 1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void lasInstantaneasNoSePuedenModificar() {
+        DB.getInstantanea().getAlumnos().clear();
+    }
+
+    // Ejecuta la tarea cuando se dé la salida, guardando el primer fallo.
+    private static void ejecutar(CountDownLatch salida, AtomicReference<Throwable> fallo,
+            Runnable tarea) {
+        try {
+            salida.await();
+            tarea.run();
+        } catch (Throwable t) {
+            fallo.compareAndSet(null, t);
+        }
+    }
+
+    private static List<Alumno> aplicar(List<Alumno> alumnos, List<DB.Cambio> cambios) {
+        List<Alumno> resultado = new ArrayList<>(alumnos);
+        for (DB.Cambio cambio : cambios) {
+            if (cambio.getTipo() == DB.Cambio.INSERCION) {
+                resultado.add(cambio.getPosicion(), cambio.getAlumno());
+            } else {
+                assertEquals(cambio.getAlumno().getId(),
+                        resultado.remove(cambio.getPosicion()).getId());
+            }
+        }
+        return resultado;
+    }
+
+    private static List<Long> ids(List<Alumno> alumnos) {
+        List<Long> ids = new ArrayList<>(alumnos.size());
+        for (Alumno alumno : alumnos) {
+            ids.add(alumno.getId());
+        }
+        return ids;
+    }
+
+    private static void comprobarIdsUnicos(List<Alumno> alumnos) {
+        Set<Long> ids = new HashSet<>();
+        for (Alumno alumno : alumnos) {
+            assertTrue(ids.add(alumno.getId()));
+        }
+    }
+
+}
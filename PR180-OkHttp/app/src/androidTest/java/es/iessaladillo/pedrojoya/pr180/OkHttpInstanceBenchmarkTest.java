@@ -0,0 +1,127 @@
+package es.iessaladillo.pedrojoya.pr180;
+
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.facebook.stetho.okhttp3.StethoInterceptor;
+import com.readystatesoftware.chuck.ChuckInterceptor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Compara los objetos reservados por petición usando el cliente compartido de
+// OkHttpInstance frente a crear un cliente nuevo en cada petición, con los
+// mismos interceptores, como hacían las tareas asíncronas. La latencia solo se
+// registra en el log, ya que una única medida de tiempo no es fiable.
+@RunWith(AndroidJUnit4.class)
+public class OkHttpInstanceBenchmarkTest {
+
+    private static final String TAG = OkHttpInstanceBenchmarkTest.class.getSimpleName();
+    private static final int NUM_PETICIONES = 200;
+    private static final int CALENTAMIENTO = 20;
+    private static final String CUERPO = "Aproximadamente 1.234 resultados";
+
+    private MockWebServer mServidor;
+    private Context mContexto;
+
+    // Crea el cliente a usar en cada petición.
+    private interface FabricaCliente {
+        OkHttpClient crear();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mContexto = InstrumentationRegistry.getTargetContext();
+        mServidor = new MockWebServer();
+        mServidor.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServidor.shutdown();
+    }
+
+    // Resultado de una medida.
+    private static class Medida {
+
+        double msPorPeticion;
+        double reservasPorPeticion;
+
+    }
+
+    @Test
+    public void clienteCompartidoReservaMenosQueClientePorPeticion() throws IOException {
+        OkHttpClient compartido = OkHttpInstance.getInstance(mContexto).getClient();
+        Medida conCompartido = medir(() -> compartido);
+        Medida conPorPeticion = medir(() -> new OkHttpClient.Builder()
+                .addNetworkInterceptor(new StethoInterceptor())
+                .addInterceptor(new ChuckInterceptor(mContexto))
+                .build());
+        String cifras = String.format(
+                "Compartido %.3f ms y %.1f objetos/petición, "
+                        + "por petición %.3f ms y %.1f objetos/petición",
+                conCompartido.msPorPeticion, conCompartido.reservasPorPeticion,
+                conPorPeticion.msPorPeticion, conPorPeticion.reservasPorPeticion);
+        Log.d(TAG, cifras);
+        assertTrue(cifras, conCompartido.reservasPorPeticion < conPorPeticion.reservasPorPeticion);
+    }
+
+    @Test
+    public void clienteCompartidoReutilizaLaConexion() throws IOException {
+        OkHttpClient compartido = OkHttpInstance.getInstance(mContexto).getClient();
+        int conexionesAntes = compartido.connectionPool().connectionCount();
+        medir(() -> compartido);
+        // Todas las peticiones al servidor han reutilizado la misma conexión.
+        assertEquals(conexionesAntes + 1, compartido.connectionPool().connectionCount());
+    }
+
+    // Retorna los milisegundos y los objetos reservados en el hilo actual por
+    // petición con los clientes de la fábrica. execute() recorre la cadena de
+    // interceptores en el hilo que lo llama, por lo que se cuentan sus
+    // reservas.
+    private Medida medir(FabricaCliente fabrica) throws IOException {
+        for (int i = 0; i < CALENTAMIENTO + NUM_PETICIONES; i++) {
+            mServidor.enqueue(new MockResponse().setBody(CUERPO));
+        }
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            realizarPeticion(fabrica.crear());
+        }
+        Medida medida = new Medida();
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            long inicio = System.nanoTime();
+            for (int i = 0; i < NUM_PETICIONES; i++) {
+                realizarPeticion(fabrica.crear());
+            }
+            medida.msPorPeticion = (System.nanoTime() - inicio) / 1e6 / NUM_PETICIONES;
+            medida.reservasPorPeticion = (double) Debug.getThreadAllocCount() / NUM_PETICIONES;
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return medida;
+    }
+
+    private void realizarPeticion(OkHttpClient cliente) throws IOException {
+        Request request = new Request.Builder().url(mServidor.url("/search")).build();
+        Response response = cliente.newCall(request).execute();
+        assertEquals(CUERPO, response.body().string());
+    }
+
+}
@@ -3,9 +3,6 @@ package es.iessaladillo.pedrojoya.pr180;
 import android.content.Context;
 import android.os.AsyncTask;
 
-import com.facebook.stetho.okhttp3.StethoInterceptor;
-import com.readystatesoftware.chuck.ChuckInterceptor;
-
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLEncoder;
@@ -33,9 +30,8 @@ class BuscarAsyncTask extends AsyncTask<String, Void, String> {
     // Constructor.
     public BuscarAsyncTask(Callbacks listener, Context context) {
         this.listener = listener;
-        mOkHttpClient = new OkHttpClient.Builder().addNetworkInterceptor(new StethoInterceptor())
-                .addInterceptor(new ChuckInterceptor(context))
-                .build();
+        // Se usa el cliente compartido por toda la aplicación.
+        mOkHttpClient = OkHttpInstance.getInstance(context).getClient();
     }
 
     // Realiza el procesamiento en segundo plano.
@@ -57,6 +53,9 @@ class BuscarAsyncTask extends AsyncTask<String, Void, String> {
                 String contenido = response.body().string();
                 // Se busca en el contenido la palabra Aproximadamente.
                 resultado = extractResultado(contenido);
+            } else {
+                // Se cierra el cuerpo para que la conexión vuelva al pool.
+                response.body().close();
             }
         } catch (IOException e) {
             e.printStackTrace();
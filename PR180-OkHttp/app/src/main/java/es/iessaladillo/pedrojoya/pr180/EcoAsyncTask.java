@@ -3,9 +3,6 @@ package es.iessaladillo.pedrojoya.pr180;
 import android.content.Context;
 import android.os.AsyncTask;
 
-import com.facebook.stetho.okhttp3.StethoInterceptor;
-import com.readystatesoftware.chuck.ChuckInterceptor;
-
 import java.io.IOException;
 import java.net.URL;
 import java.text.SimpleDateFormat;
@@ -43,9 +40,8 @@ class EcoAsyncTask extends AsyncTask<String, Void, String> {
     public EcoAsyncTask(Callbacks listener, Context context) {
         this.listener = listener;
         formateador = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss", Locale.getDefault());
-        mOkHttpClient = new OkHttpClient.Builder().addNetworkInterceptor(new StethoInterceptor())
-                .addInterceptor(new ChuckInterceptor(context))
-                .build();
+        // Se usa el cliente compartido por toda la aplicación.
+        mOkHttpClient = OkHttpInstance.getInstance(context).getClient();
     }
 
     // Realiza el procesamiento en segundo plano.
@@ -64,6 +60,9 @@ class EcoAsyncTask extends AsyncTask<String, Void, String> {
             Response response = mOkHttpCall.execute();
             if (response.isSuccessful()) {
                 resultado = response.body().string().trim();
+            } else {
+                // Se cierra el cuerpo para que la conexión vuelva al pool.
+                response.body().close();
             }
         } catch (IOException e) {
             e.printStackTrace();
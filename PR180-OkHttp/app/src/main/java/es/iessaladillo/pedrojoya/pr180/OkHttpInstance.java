@@ -0,0 +1,73 @@
+package es.iessaladillo.pedrojoya.pr180;
+
+import android.content.Context;
+
+import com.facebook.stetho.okhttp3.StethoInterceptor;
+import com.readystatesoftware.chuck.ChuckInterceptor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+// Clase singleton con el cliente OkHttp de la aplicación. Todas las peticiones
+// comparten así el pool de conexiones (y las conexiones HTTP/2, que multiplexan
+// varias peticiones) y el dispatcher. Los interceptores de depuración, que
+// copian el cuerpo de cada respuesta, solo se añaden en las versiones debug.
+// PR140-RetrofitXML, PR180-OkHttp y PR195-RetrofitRxJava tienen una copia de
+// esta clase idéntica salvo por el paquete; los cambios deben llevarse a las tres.
+class OkHttpInstance {
+
+    // Constantes.
+    private static final int MAX_CONEXIONES_INACTIVAS = 5;
+    private static final long KEEP_ALIVE_MINUTOS = 5;
+    private static final int MAX_PETICIONES_POR_HOST = 5;
+    private static final long TIMEOUT_SEGUNDOS = 15;
+
+    private static OkHttpInstance mInstance = null;
+    private final OkHttpClient mOkHttpClient;
+
+    // Constructor privado (no será posible usar new).
+    private OkHttpInstance(Context context) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_PETICIONES_POR_HOST);
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_CONEXIONES_INACTIVAS,
+                        KEEP_ALIVE_MINUTOS, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(TIMEOUT_SEGUNDOS, TimeUnit.SECONDS)
+                .readTimeout(TIMEOUT_SEGUNDOS, TimeUnit.SECONDS)
+                .writeTimeout(TIMEOUT_SEGUNDOS, TimeUnit.SECONDS);
+        if (BuildConfig.DEBUG) {
+            // Interceptor para los logs.
+            HttpLoggingInterceptor logInterceptor = new HttpLoggingInterceptor();
+            logInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            builder.addInterceptor(logInterceptor);
+            // Interceptores para Stetho (de red, para ver las cabeceras reales)
+            // y Chuck.
+            builder.addNetworkInterceptor(new StethoInterceptor());
+            builder.addInterceptor(new ChuckInterceptor(context));
+        }
+        mOkHttpClient = builder.build();
+    }
+
+    // Método factoría que construye el objeto OkHttpInstance.
+    public static synchronized OkHttpInstance getInstance(Context context) {
+        // Si no existe ya la instancia, se crea (en el contexto global).
+        if (mInstance == null) {
+            mInstance = new OkHttpInstance(context.getApplicationContext());
+        }
+        return mInstance;
+    }
+
+    // Retorna el cliente OkHttp.
+    public OkHttpClient getClient() {
+        return mOkHttpClient;
+    }
+
+}
@@ -0,0 +1,157 @@
+package es.iessaladillo.pedrojoya.pr187;
+
+import android.os.Looper;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.greenrobot.eventbus.EventBus;
+import org.greenrobot.eventbus.Subscribe;
+import org.greenrobot.eventbus.ThreadMode;
+import org.greenrobot.eventbus.meta.SubscriberInfo;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import es.iessaladillo.pedrojoya.pr187.events.ProgressEvent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// Comprueba que el índice generado contiene todos los métodos @Subscribe de
+// MainFragment, de manera que registrarlo no los busca por reflexión, y
+// cuántos mensajes llegan al hilo principal cuando un hilo secundario publica
+// 100.000 eventos de progreso directamente en el bus y a través del canal de
+// progreso. Lo que cuesta registrar en frío MainFragment por reflexión y con
+// el índice, y los tiempos de publicación, solo se registran.
+@RunWith(AndroidJUnit4.class)
+public class EventBusBenchmarkTest {
+
+    private static final String TAG = EventBusBenchmarkTest.class.getSimpleName();
+    private static final int NUM_REGISTROS = 200;
+    private static final int NUM_EVENTOS = 100000;
+    private static final long TIEMPO_MAXIMO_SEGUNDOS = 60;
+
+    @Test
+    public void benchmarkRegistro() {
+        MainFragment fragmento = new MainFragment();
+        // Calentamiento.
+        registrarEnFrio(EventBus.builder().ignoreGeneratedIndex(true).build(), fragmento);
+        registrarEnFrio(EventBus.builder().addIndex(new EventBusIndex()).build(), fragmento);
+        long reflexion = 0;
+        long indice = 0;
+        for (int i = 0; i < NUM_REGISTROS; i++) {
+            reflexion += registrarEnFrio(EventBus.builder().ignoreGeneratedIndex(true).build(),
+                    fragmento);
+            indice += registrarEnFrio(EventBus.builder().addIndex(new EventBusIndex()).build(),
+                    fragmento);
+        }
+        Log.d(TAG, String.format("Registro en frío de MainFragment: %.1f µs por reflexión, "
+                        + "%.1f µs con el índice", reflexion / 1e3 / NUM_REGISTROS,
+                indice / 1e3 / NUM_REGISTROS));
+    }
+
+    @Test
+    public void indiceContieneLosSuscriptoresDeMainFragment() {
+        // Si el índice no tuviera la clase, EventBus buscaría sus métodos
+        // @Subscribe por reflexión.
+        SubscriberInfo info = new EventBusIndex().getSubscriberInfo(MainFragment.class);
+        assertNotNull(info);
+        int anotados = 0;
+        for (Method metodo : MainFragment.class.getDeclaredMethods()) {
+            if (metodo.isAnnotationPresent(Subscribe.class)) {
+                anotados++;
+            }
+        }
+        assertTrue(anotados > 0);
+        assertEquals(anotados, info.getSubscriberMethods().length);
+    }
+
+    @Test
+    public void benchmarkProgresoDirecto() throws InterruptedException {
+        EventBus bus = EventBus.builder().build();
+        Suscriptor suscriptor = medirProgreso(bus, () -> {
+            for (int i = 1; i <= NUM_EVENTOS; i++) {
+                bus.post(new ProgressEvent(i));
+            }
+        }, "directamente en el bus");
+        // Cada evento supone un mensaje en el hilo principal.
+        assertEquals(NUM_EVENTOS, suscriptor.mRecibidos.get());
+    }
+
+    @Test
+    public void benchmarkProgresoCanal() throws InterruptedException {
+        EventBus bus = EventBus.builder().build();
+        CanalProgreso<ProgressEvent> canal = new CanalProgreso<>(bus);
+        Suscriptor suscriptor = medirProgreso(bus, () -> {
+            for (int i = 1; i <= NUM_EVENTOS; i++) {
+                canal.publicar(new ProgressEvent(i));
+            }
+        }, "a través del canal");
+        // Como mucho uno por frame.
+        assertTrue(suscriptor.mRecibidos.get() < NUM_EVENTOS / 100);
+    }
+
+    // Retorna los nanosegundos que tarda en registrarse el suscriptor en el
+    // bus, sin la información de suscriptores que EventBus guarda en caché.
+    private static long registrarEnFrio(EventBus bus, Object suscriptor) {
+        EventBus.clearCaches();
+        long inicio = System.nanoTime();
+        bus.register(suscriptor);
+        long duracion = System.nanoTime() - inicio;
+        bus.unregister(suscriptor);
+        return duracion;
+    }
+
+    // Publica los eventos desde un hilo secundario y espera a que el último
+    // llegue al hilo principal.
+    private static Suscriptor medirProgreso(EventBus bus, Runnable publicacion, String modo)
+            throws InterruptedException {
+        Suscriptor suscriptor = new Suscriptor();
+        bus.register(suscriptor);
+        try {
+            long inicio = System.nanoTime();
+            Thread hilo = new Thread(publicacion);
+            hilo.start();
+            hilo.join();
+            long publicado = System.nanoTime();
+            assertTrue(suscriptor.mUltimo.await(TIEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS));
+            long fin = System.nanoTime();
+            assertFalse(suscriptor.mFueraDelHiloPrincipal);
+            Log.d(TAG, String.format("%d eventos de progreso %s: %d mensajes en el hilo "
+                            + "principal, %.1f ms publicando, %.1f ms hasta recibir el último",
+                    NUM_EVENTOS, modo, suscriptor.mRecibidos.get(), (publicado - inicio) / 1e6,
+                    (fin - inicio) / 1e6));
+        } finally {
+            bus.unregister(suscriptor);
+        }
+        return suscriptor;
+    }
+
+    // Cuenta los eventos de progreso que recibe en el hilo principal.
+    public static class Suscriptor {
+
+        private final AtomicInteger mRecibidos = new AtomicInteger();
+        private final CountDownLatch mUltimo = new CountDownLatch(1);
+        private volatile boolean mFueraDelHiloPrincipal;
+
+        @SuppressWarnings("unused")
+        @Subscribe(threadMode = ThreadMode.MAIN)
+        public void onProgressEvent(ProgressEvent event) {
+            if (Looper.myLooper() != Looper.getMainLooper()) {
+                mFueraDelHiloPrincipal = true;
+            }
+            mRecibidos.incrementAndGet();
+            if (event.getNumTrabajo() == NUM_EVENTOS) {
+                mUltimo.countDown();
+            }
+        }
+
+    }
+
+}
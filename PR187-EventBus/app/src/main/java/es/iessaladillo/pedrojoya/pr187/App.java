@@ -0,0 +1,17 @@
+package es.iessaladillo.pedrojoya.pr187;
+
+import android.app.Application;
+
+import org.greenrobot.eventbus.EventBus;
+
+public class App extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // El bus por defecto usa el índice de suscriptores generado en
+        // compilación en vez de buscarlos por reflexión al registrarlos.
+        EventBus.builder().addIndex(new EventBusIndex()).installDefaultEventBus();
+    }
+
+}
@@ -0,0 +1,75 @@
+package es.iessaladillo.pedrojoya.pr187;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import org.greenrobot.eventbus.EventBus;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Canal para publicar eventos de progreso desde un hilo secundario. Se pueden
+// publicar tan rápido como se quiera, pero al hilo principal llega como mucho
+// uno por frame: el último publicado, que se envía al bus desde el propio hilo
+// principal. Los anteriores que no hayan llegado a entregarse se descartan.
+public class CanalProgreso<E> {
+
+    // Programa la ejecución de una tarea en el hilo principal.
+    interface Programador {
+        void programar(Runnable tarea);
+    }
+
+    private final EventBus mBus;
+    private final Programador mProgramador;
+    // Último evento publicado y aún no entregado.
+    private final AtomicReference<E> mPendiente = new AtomicReference<>();
+    private final Runnable mEntrega = this::entregar;
+
+    // Constructor. Recibe el bus en el que se entregan los eventos.
+    public CanalProgreso(EventBus bus) {
+        this(bus, new ProgramadorFrames());
+    }
+
+    // Constructor. Recibe además cuándo ejecutar las entregas.
+    CanalProgreso(EventBus bus, Programador programador) {
+        mBus = bus;
+        mProgramador = programador;
+    }
+
+    // Publica el evento, que sustituye al pendiente de entregar, si lo hay.
+    // Solo se programa una entrega si no había ya una pendiente.
+    public void publicar(E evento) {
+        if (mPendiente.getAndSet(evento) == null) {
+            mProgramador.programar(mEntrega);
+        }
+    }
+
+    // Descarta el evento pendiente de entregar, si lo hay. Debe llamarse antes
+    // de publicar en el bus un evento que no deba llegar antes que él, como
+    // el de finalización.
+    public void descartar() {
+        mPendiente.set(null);
+    }
+
+    private void entregar() {
+        E evento = mPendiente.getAndSet(null);
+        if (evento != null) {
+            mBus.post(evento);
+        }
+    }
+
+    // Ejecuta las tareas en el hilo principal al inicio del siguiente frame.
+    private static class ProgramadorFrames implements Programador {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void programar(Runnable tarea) {
+            // El Choreographer debe obtenerse en el hilo principal.
+            mHandler.post(() -> Choreographer.getInstance().postFrameCallback(
+                    frameTimeNanos -> tarea.run()));
+        }
+
+    }
+
+}
@@ -20,6 +20,9 @@ public class TareaService extends IntentService {
     private static final String EXTRA_CANCELAR = "extra_cancelar";
 
     private boolean isCancelled;
+    // Los eventos de progreso llegan al hilo principal como mucho uno por
+    // frame, por muy rápido que se publiquen.
+    private CanalProgreso<ProgressEvent> mCanalProgreso;
 
     // Constructor.
     @SuppressWarnings("WeakerAccess")
@@ -41,6 +44,12 @@ public class TareaService extends IntentService {
         context.startService(intent);
     }
 
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        mCanalProgreso = new CanalProgreso<>(EventBus.getDefault());
+    }
+
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         // Se comprueba si se quiere cancelar.
@@ -82,10 +91,12 @@ public class TareaService extends IntentService {
     }
 
     private void publishProgress(int numTrabajo) {
-        EventBus.getDefault().post(new ProgressEvent(numTrabajo));
+        mCanalProgreso.publicar(new ProgressEvent(numTrabajo));
     }
 
     private void publishPostExecute() {
+        // El progreso pendiente no debe llegar después de la finalización.
+        mCanalProgreso.descartar();
         EventBus.getDefault().post(new PostExecuteEvent());
     }
 
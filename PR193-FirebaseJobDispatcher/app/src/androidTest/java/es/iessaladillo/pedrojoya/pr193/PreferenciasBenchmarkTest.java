@@ -0,0 +1,223 @@
+package es.iessaladillo.pedrojoya.pr193;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Resources;
+import android.os.Debug;
+import android.os.FileObserver;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// Compara el acceso a las preferencias como lo hacía SharedPrefHelper, que
+// obtenía la clave de los recursos en cada acceso y escribía cada valor por
+// separado, con Preferencias. Cuenta las escrituras en disco del archivo de
+// las preferencias al guardar los tres valores de una planificación,
+// observándolo con un FileObserver, y las reservas de memoria al leerlos. El
+// tiempo de lectura solo se registra.
+@RunWith(AndroidJUnit4.class)
+public class PreferenciasBenchmarkTest {
+
+    private static final String TAG = PreferenciasBenchmarkTest.class.getSimpleName();
+    private static final String NOMBRE_PREFERENCIAS = "benchmark";
+    private static final String NOMBRE_CENTINELA = "benchmark_centinela";
+    private static final String CLAVE_CENTINELA = "marca";
+    private static final String DIRECTORIO_PREFERENCIAS = "shared_prefs";
+    private static final String EXTENSION = ".xml";
+    private static final int NUM_LECTURAS = 100000;
+    private static final long TIEMPO_MAXIMO_SEGUNDOS = 5;
+    // Reservas que se admiten al leer con Preferencias, por las que pueda
+    // hacer el sistema en el hilo.
+    private static final int MARGEN_RESERVAS = 50;
+
+    private Context mContext;
+    private Resources mRes;
+    private SharedPreferences mPref;
+
+    @Before
+    public void setUp() {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mRes = mContext.getResources();
+        mPref = mContext.getSharedPreferences(NOMBRE_PREFERENCIAS, Context.MODE_PRIVATE);
+        mPref.edit().clear().commit();
+    }
+
+    @After
+    public void tearDown() {
+        mPref.edit().clear().commit();
+        mContext.getSharedPreferences(NOMBRE_CENTINELA, Context.MODE_PRIVATE).edit().clear()
+                .commit();
+    }
+
+    @Test
+    public void benchmarkEscrituras() throws InterruptedException {
+        // Como lo hacía SharedPrefHelper.
+        int anteriores = contarEscrituras(new Runnable() {
+            @Override
+            public void run() {
+                mPref.edit().putString(mRes.getString(R.string.pref_mensaje), "Hola").apply();
+                mPref.edit().putInt(mRes.getString(R.string.pref_intervalo), 1000).apply();
+                mPref.edit().putBoolean(mRes.getString(R.string.pref_activo), true).apply();
+            }
+        });
+        final Preferencias preferencias = new Preferencias(mRes, mPref);
+        int actuales = contarEscrituras(new Runnable() {
+            @Override
+            public void run() {
+                preferencias.edit()
+                        .putString(R.string.pref_mensaje, "Hasta luego")
+                        .putInt(R.string.pref_intervalo, 2000)
+                        .putBoolean(R.string.pref_activo, false)
+                        .apply();
+                // Los valores se leen inmediatamente después de aplicarlos.
+                assertEquals("Hasta luego", preferencias.getString(R.string.pref_mensaje,
+                        null));
+                assertEquals(2000, preferencias.getInt(R.string.pref_intervalo, 0));
+                assertFalse(preferencias.getBoolean(R.string.pref_activo, true));
+            }
+        });
+        String medidas = String.format("Escrituras en disco al planificar: %d con "
+                + "SharedPrefHelper, %d con Preferencias", anteriores, actuales);
+        Log.d(TAG, medidas);
+        assertEquals(medidas, 1, actuales);
+        // Desde Android 8 el sistema puede agrupar en una sola escritura
+        // varios apply() seguidos, así que antes podía haber de 1 a 3.
+        assertTrue(medidas, anteriores >= actuales);
+    }
+
+    @Test
+    public void benchmarkLecturas() {
+        Preferencias preferencias = new Preferencias(mRes, mPref);
+        preferencias.edit()
+                .putString(R.string.pref_mensaje, "Hola")
+                .putInt(R.string.pref_intervalo, 1000)
+                .putBoolean(R.string.pref_activo, true)
+                .commit();
+        // Calentamiento.
+        leerComoAntes();
+        leer(preferencias);
+        long antes;
+        long ahora;
+        int reservasAntes;
+        int reservasAhora;
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            long inicio = System.nanoTime();
+            leerComoAntes();
+            antes = System.nanoTime() - inicio;
+            reservasAntes = Debug.getThreadAllocCount();
+            Debug.resetThreadAllocCount();
+            inicio = System.nanoTime();
+            leer(preferencias);
+            ahora = System.nanoTime() - inicio;
+            reservasAhora = Debug.getThreadAllocCount();
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        String medidas = String.format("%d lecturas: %.0f ns/lectura y %d reservas con "
+                        + "SharedPrefHelper, %.0f ns/lectura y %d reservas con Preferencias",
+                NUM_LECTURAS, (double) antes / NUM_LECTURAS, reservasAntes,
+                (double) ahora / NUM_LECTURAS, reservasAhora);
+        Log.d(TAG, medidas);
+        // Las claves y los valores ya están en memoria, así que leer no
+        // reserva nada, sea cual sea el número de lecturas.
+        assertTrue(medidas, reservasAhora <= MARGEN_RESERVAS);
+    }
+
+    @Test
+    public void observadorRecibeCambiosExternos() throws InterruptedException {
+        final Preferencias preferencias = new Preferencias(mRes, mPref);
+        final String clave = preferencias.getClave(R.string.pref_mensaje);
+        final CountDownLatch recibido = new CountDownLatch(1);
+        preferencias.addObservador(new Preferencias.Observador() {
+            @Override
+            public void onCambio(String cambiada) {
+                if (clave.equals(cambiada)) {
+                    recibido.countDown();
+                }
+            }
+        });
+        // Se modifica sin pasar por Preferencias.
+        mPref.edit().putString(clave, "Externo").commit();
+        assertTrue(recibido.await(TIEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS));
+        assertEquals("Externo", preferencias.getString(R.string.pref_mensaje, null));
+    }
+
+    private void leerComoAntes() {
+        for (int i = 0; i < NUM_LECTURAS; i += 3) {
+            mPref.getString(mRes.getString(R.string.pref_mensaje), null);
+            mPref.getInt(mRes.getString(R.string.pref_intervalo), 0);
+            mPref.getBoolean(mRes.getString(R.string.pref_activo), false);
+        }
+    }
+
+    private static void leer(Preferencias preferencias) {
+        for (int i = 0; i < NUM_LECTURAS; i += 3) {
+            preferencias.getString(R.string.pref_mensaje, null);
+            preferencias.getInt(R.string.pref_intervalo, 0);
+            preferencias.getBoolean(R.string.pref_activo, false);
+        }
+    }
+
+    // Retorna las veces que se ha escrito en disco el archivo de las
+    // preferencias mientras se ejecutaba la acción. Antes de dejar de
+    // observar se espera a que terminen las escrituras pendientes de apply()
+    // y a que lleguen sus eventos.
+    private int contarEscrituras(Runnable accion) throws InterruptedException {
+        ObservadorEscrituras observador = new ObservadorEscrituras(
+                new File(mContext.getApplicationInfo().dataDir, DIRECTORIO_PREFERENCIAS));
+        observador.startWatching();
+        try {
+            accion.run();
+            // Un commit() sin cambios espera a las escrituras pendientes sin
+            // volver a escribir.
+            mPref.edit().commit();
+            // Los eventos llegan en orden, así que cuando llega el de otro
+            // archivo escrito después ya han llegado todos los anteriores.
+            mContext.getSharedPreferences(NOMBRE_CENTINELA, Context.MODE_PRIVATE).edit()
+                    .putLong(CLAVE_CENTINELA, System.nanoTime()).commit();
+            assertTrue(observador.mCentinela.await(TIEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS));
+            return observador.mEscrituras.get();
+        } finally {
+            observador.stopWatching();
+        }
+    }
+
+    // Observa el directorio de las preferencias y cuenta las veces que se
+    // termina de escribir el archivo de las preferencias del test.
+    private static class ObservadorEscrituras extends FileObserver {
+
+        private final AtomicInteger mEscrituras = new AtomicInteger();
+        private final CountDownLatch mCentinela = new CountDownLatch(1);
+
+        ObservadorEscrituras(File directorio) {
+            super(directorio.getPath(), CLOSE_WRITE);
+        }
+
+        @Override
+        public void onEvent(int event, String path) {
+            if ((NOMBRE_PREFERENCIAS + EXTENSION).equals(path)) {
+                mEscrituras.incrementAndGet();
+            } else if ((NOMBRE_CENTINELA + EXTENSION).equals(path)) {
+                mCentinela.countDown();
+            }
+        }
+
+    }
+
+}
@@ -1,7 +1,6 @@
 package es.iessaladillo.pedrojoya.pr193;
 
 import android.os.Bundle;
-import android.preference.PreferenceManager;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.SwitchCompat;
 import android.text.TextUtils;
@@ -31,8 +30,7 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_main);
         ButterKnife.bind(this);
         // Se establecen los valores a partir de las preferencias.
-        SharedPrefHelper prefs = new SharedPrefHelper(getResources(),
-                PreferenceManager.getDefaultSharedPreferences(this));
+        Preferencias prefs = Preferencias.getInstance(this);
         txtMensaje.setText(prefs.getString(R.string.pref_mensaje,
                 getString(R.string.quillo_ponte_ya_a_currar)));
         txtIntervalo.setText(String.valueOf(
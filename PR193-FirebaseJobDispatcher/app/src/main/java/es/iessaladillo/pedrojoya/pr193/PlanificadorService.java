@@ -6,7 +6,6 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
 import android.support.v4.app.NotificationCompat;
 import android.widget.Toast;
 
@@ -93,12 +92,12 @@ public class PlanificadorService extends JobService {
         // Se planifica el trabajo.
         try {
             planificador.mustSchedule(builder.build());
-            // Se guardan las preferencias.
-            SharedPrefHelper prefs = new SharedPrefHelper(context.getResources(),
-                    PreferenceManager.getDefaultSharedPreferences(context));
-            prefs.applyString(R.string.pref_mensaje, mensaje);
-            prefs.applyInt(R.string.pref_intervalo, intervalo);
-            prefs.applyBoolean(R.string.pref_activo, true);
+            // Se guardan las preferencias, con una sola escritura en disco.
+            Preferencias.getInstance(context).edit()
+                    .putString(R.string.pref_mensaje, mensaje)
+                    .putInt(R.string.pref_intervalo, intervalo)
+                    .putBoolean(R.string.pref_activo, true)
+                    .apply();
             // Se retorna el tag con el que se identifica.
             return TRABAJO_MENSAJE_TAG;
         } catch (Exception e) {
@@ -116,9 +115,9 @@ public class PlanificadorService extends JobService {
         // Se cancela el trabajo.
         planificador.cancel(trabajoTag);
         // Se guarda la preferencia.
-        SharedPrefHelper prefs = new SharedPrefHelper(context.getResources(),
-                PreferenceManager.getDefaultSharedPreferences(context));
-        prefs.applyBoolean(R.string.pref_activo, false);
+        Preferencias.getInstance(context).edit()
+                .putBoolean(R.string.pref_activo, false)
+                .apply();
     }
 
 }
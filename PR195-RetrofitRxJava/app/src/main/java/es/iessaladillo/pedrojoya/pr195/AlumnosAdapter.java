@@ -13,6 +13,7 @@ import android.widget.TextView;
 import com.squareup.picasso.Picasso;
 
 import java.util.ArrayList;
+import java.util.List;
 
 class AlumnosAdapter extends ArrayAdapter<Alumno> {
 
@@ -119,5 +120,14 @@ class AlumnosAdapter extends ArrayAdapter<Alumno> {
         return mDatos;
     }
 
+    // Sustituye los datos del adaptador.
+    public void swapData(List<Alumno> alumnos) {
+        mDatos.clear();
+        if (alumnos != null) {
+            mDatos.addAll(alumnos);
+        }
+        notifyDataSetChanged();
+    }
+
 }
 
@@ -1,33 +1,62 @@
 package es.iessaladillo.pedrojoya.pr195;
 
 import android.content.Context;
-
-import com.facebook.stetho.okhttp3.StethoInterceptor;
-import com.readystatesoftware.chuck.ChuckInterceptor;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Function;
 import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
+import okhttp3.Request;
+import okhttp3.Response;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 
 // Clase contrato con las claves de Instagram.
 class Api {
 
     // Constantes.
     private static final String BASE_URL = "https://dl.dropboxusercontent.com/u/67422/Android/json/";
+    // Límites del tamaño de la caché HTTP y fracción del espacio libre en
+    // disco que se le dedica.
+    private static final long MIN_CACHE_SIZE = 5 * 1024 * 1024;
+    private static final long MAX_CACHE_SIZE = 50 * 1024 * 1024;
+    private static final int FRACCION_ESPACIO_LIBRE = 50;
+    // Tiempo durante el que una respuesta se considera fresca y se sirve de
+    // la caché sin acceder a la red.
+    private static final int MAX_AGE_MINUTOS = 5;
+    // Cabecera para obtener la copia en caché, aunque esté caducada, sin
+    // acceder a la red (si no hay copia se obtiene una respuesta 504).
+    private static final String CACHE_CONTROL_SOLO_CACHE = new CacheControl.Builder()
+            .onlyIfCached()
+            .maxStale(Integer.MAX_VALUE, TimeUnit.SECONDS)
+            .build()
+            .toString();
+    // Cabecera para que la copia en caché se revalide siempre con el servidor
+    // (petición condicional con If-None-Match, que puede responder 304).
+    private static final String CACHE_CONTROL_REVALIDAR = new CacheControl.Builder()
+            .maxAge(0, TimeUnit.SECONDS)
+            .build()
+            .toString();
 
     // Interfaz de trabajo de Retrofit contra la API.
     @SuppressWarnings("SameParameterValue")
     public interface ApiInterface {
+        // Si cacheControl es null se omite la cabecera.
         @GET("datos.json")
-        Observable<List<Alumno>> getAlumnos();
+        Observable<List<Alumno>> getAlumnos(@Header("Cache-Control") String cacheControl);
     }
 
     // Constructor privado para que NO pueda instanciarse.
@@ -56,21 +85,37 @@ class Api {
         }
     }
 
+    // Retorna un observable que emite primero la lista de alumnos en caché (si
+    // la hay, aunque esté caducada) y después la obtenida de la red (que puede
+    // ser la misma si sigue fresca o el servidor responde 304). Si la respuesta
+    // de la red llega antes, no se emite la copia en caché. Si revalidar es
+    // true se consulta al servidor aunque la copia en caché siga fresca.
+    public static Observable<List<Alumno>> getAlumnos(Context context, boolean revalidar) {
+        final ApiInterface api = getApiInterface(context);
+        Observable<List<Alumno>> red = api.getAlumnos(
+                revalidar ? CACHE_CONTROL_REVALIDAR : null);
+        return red.publish(new Function<Observable<List<Alumno>>, ObservableSource<List<Alumno>>>() {
+            @Override
+            public ObservableSource<List<Alumno>> apply(Observable<List<Alumno>> red) {
+                Observable<List<Alumno>> cache = api.getAlumnos(CACHE_CONTROL_SOLO_CACHE)
+                        .onErrorResumeNext(Observable.<List<Alumno>>empty());
+                return Observable.mergeDelayError(red, cache.takeUntil(red));
+            }
+        });
+    }
+
     // Construye y retorna el cliente de acceso a la API a través de Retrofit.
     private static ApiInterface buildApiClient(Context context) {
-        // Interceptor para los logs.
-        HttpLoggingInterceptor logInterceptor = new HttpLoggingInterceptor();
-        logInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-        // Se obtiene el constructor del cliente HTTP.
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        // Se parte del cliente compartido por toda la aplicación (comparte así
+        // su pool de conexiones y su dispatcher).
+        OkHttpClient.Builder builder = OkHttpInstance.getInstance(context).getClient()
+                .newBuilder();
         // Se establece la caché.
         builder.cache(createCache(context));
-        // Se añade el interceptor para los logs.
-        builder.addInterceptor(logInterceptor);
-        // Se añade el interceptor para Stetho.
-        builder.addInterceptor(new StethoInterceptor());
-        // Se añade el interceptor para Chuck.
-        builder.addInterceptor(new ChuckInterceptor(context));
+        // Sin conexión se usa la caché aunque esté caducada.
+        builder.addInterceptor(new OfflineCacheInterceptor(context));
+        // Las respuestas se guardan en caché con un tiempo de frescura.
+        builder.addNetworkInterceptor(new MaxAgeInterceptor());
         // Se construye el cliente HTTP.
         OkHttpClient client = builder.build();
         // Se construye el objeto Retrofit y a partir de él se retorna el
@@ -89,8 +134,71 @@ class Api {
         // Se crea el archivo para la caché en el directorio correspondiente.
         File httpCacheDirectory = new File(context.getApplicationContext()
                 .getCacheDir().getAbsolutePath(), "HttpCache");
-        // Se crea y retorna la caché, indicando el directorio y el tamaño (10 megas)
-        return new Cache(httpCacheDirectory, 10 * 1024);
+        // Se crea y retorna la caché, indicando el directorio y el tamaño.
+        return new Cache(httpCacheDirectory, calcularTamanoCache(context.getCacheDir()));
+    }
+
+    // Retorna el tamaño de la caché: una fracción del espacio libre en el
+    // disco, dentro de unos límites.
+    private static long calcularTamanoCache(File directorio) {
+        long tamano = directorio.getUsableSpace() / FRACCION_ESPACIO_LIBRE;
+        return Math.max(Math.min(tamano, MAX_CACHE_SIZE), MIN_CACHE_SIZE);
+    }
+
+    // Retorna si hay conexión a la red.
+    private static boolean hayConexion(Context context) {
+        ConnectivityManager gestorConectividad = (ConnectivityManager) context.getSystemService(
+                Context.CONNECTIVITY_SERVICE);
+        NetworkInfo infoRed = gestorConectividad.getActiveNetworkInfo();
+        return infoRed != null && infoRed.isConnected();
+    }
+
+    // Interceptor que, si no hay conexión, obliga a usar la copia en caché
+    // aunque esté caducada.
+    private static class OfflineCacheInterceptor implements Interceptor {
+
+        private final Context mContext;
+
+        OfflineCacheInterceptor(Context context) {
+            mContext = context.getApplicationContext();
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            if (!hayConexion(mContext)) {
+                request = request.newBuilder()
+                        .cacheControl(CacheControl.FORCE_CACHE)
+                        .build();
+            }
+            return chain.proceed(request);
+        }
+
+    }
+
+    // Interceptor de red que establece el tiempo de frescura de las respuestas
+    // que no lo indican, para que OkHttp las sirva desde la caché durante ese
+    // tiempo. Pasado éste, OkHttp revalida la copia con If-None-Match (usando
+    // el ETag guardado) y el servidor puede responder 304 sin cuerpo.
+    private static class MaxAgeInterceptor implements Interceptor {
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Response response = chain.proceed(chain.request());
+            CacheControl cacheControl = response.cacheControl();
+            if (!response.isSuccessful() || cacheControl.noStore()
+                    || cacheControl.maxAgeSeconds() != -1) {
+                return response;
+            }
+            return response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", new CacheControl.Builder()
+                            .maxAge(MAX_AGE_MINUTOS, TimeUnit.MINUTES)
+                            .build()
+                            .toString())
+                    .build();
+        }
+
     }
 
 }
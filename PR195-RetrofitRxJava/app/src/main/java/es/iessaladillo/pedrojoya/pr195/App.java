@@ -7,6 +7,9 @@ import com.facebook.stetho.Stetho;
 public class App extends Application {
     public void onCreate() {
         super.onCreate();
-        Stetho.initializeWithDefaults(this);
+        // Stetho solo se usa para depurar.
+        if (BuildConfig.DEBUG) {
+            Stetho.initializeWithDefaults(this);
+        }
     }
 }
@@ -13,6 +13,7 @@ import java.util.List;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Action;
 import io.reactivex.functions.Consumer;
 import io.reactivex.schedulers.Schedulers;
 
@@ -40,13 +41,13 @@ public class MainActivity extends AppCompatActivity implements
                 @Override
                 public void run() {
                     swlPanel.setRefreshing(true);
-                    loadAlumnos();
+                    loadAlumnos(false);
                 }
             });
         } else {
             ArrayList<Alumno> alumnos = savedInstanceState.getParcelableArrayList(STATE_LIST_DATA);
             if (alumnos != null) {
-                mAdaptador.addAll(alumnos);
+                mAdaptador.swapData(alumnos);
             }
         }
     }
@@ -72,20 +73,22 @@ public class MainActivity extends AppCompatActivity implements
 
     @Override
     public void onRefresh() {
-        // Se reinicia el cargador.
-        loadAlumnos();
+        // Se vuelven a cargar los datos, consultando al servidor.
+        loadAlumnos(true);
     }
 
-    private void loadAlumnos() {
-        Api.ApiInterface api = Api.getApiInterface(this);
-        Disposable disposable = api.getAlumnos()
+    private void loadAlumnos(boolean revalidar) {
+        // Se cancela la carga anterior, si sigue en curso.
+        mCompositeDisposable.clear();
+        // Se recibe primero la copia en caché y después la de la red. Cada
+        // emisión sustituye a la anterior.
+        Disposable disposable = Api.getAlumnos(this, revalidar)
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribeOn(Schedulers.io())
                 .subscribe(new Consumer<List<Alumno>>() {
                     @Override
                     public void accept(List<Alumno> alumnos) throws Exception {
-                        mAdaptador.addAll(alumnos);
-                        swlPanel.setRefreshing(false);
+                        mAdaptador.swapData(alumnos);
                     }
                 }, new Consumer<Throwable>() {
                     @Override
@@ -94,6 +97,11 @@ public class MainActivity extends AppCompatActivity implements
                                 Toast.LENGTH_SHORT).show();
                         swlPanel.setRefreshing(false);
                     }
+                }, new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        swlPanel.setRefreshing(false);
+                    }
                 });
         mCompositeDisposable.add(disposable);
     }
@@ -1,6 +1,5 @@
 package es.iessaladillo.pedrojoya.pr196.actividades;
 
-import android.content.Intent;
 import android.os.Bundle;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v4.app.DialogFragment;
@@ -108,16 +107,4 @@ public class MainActivity extends AppCompatActivity implements
         btnAgregar.hide();
     }
 
-    @Override
-    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
-        if (resultCode == RESULT_OK) {
-            ListaAlumnosFragment frg = (ListaAlumnosFragment) getSupportFragmentManager()
-                    .findFragmentByTag(TAG_LISTA_FRAGMENT);
-            if (frg != null) {
-                frg.cargarAlumnos();
-            }
-        }
-        super.onActivityResult(requestCode, resultCode, data);
-    }
-
 }
@@ -66,6 +66,13 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
         notifyDataSetChanged();
     }
 
+    // Añade al final de la lista los elementos recibidos.
+    public void addData(List<Alumno> datos) {
+        int posicion = mDatos.size();
+        mDatos.addAll(datos);
+        notifyItemRangeInserted(posicion, datos.size());
+    }
+
     // Cuando se debe crear una nueva vista para el elemento.
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
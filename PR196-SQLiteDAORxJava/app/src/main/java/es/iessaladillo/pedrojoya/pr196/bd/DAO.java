@@ -3,16 +3,32 @@ package es.iessaladillo.pedrojoya.pr196.bd;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import es.iessaladillo.pedrojoya.pr196.modelos.Alumno;
+import io.reactivex.BackpressureStrategy;
 import io.reactivex.Completable;
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableEmitter;
+import io.reactivex.FlowableOnSubscribe;
 import io.reactivex.Single;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Clase de acceso a los datos de la base de datos. Utiliza un objeto de un
@@ -24,6 +40,18 @@ import io.reactivex.Single;
 @SuppressWarnings({"WeakerAccess", "unused"})
 public class Dao {
 
+    // Sentencias SQL parametrizadas para las operaciones masivas.
+    private static final String SQL_INSERT = "INSERT INTO " + DbContract.Alumno.TABLA + " ("
+            + DbContract.Alumno.NOMBRE + ", " + DbContract.Alumno.CURSO + ", "
+            + DbContract.Alumno.TELEFONO + ", " + DbContract.Alumno.DIRECCION
+            + ") VALUES (?, ?, ?, ?)";
+    private static final String SQL_UPDATE = "UPDATE " + DbContract.Alumno.TABLA + " SET "
+            + DbContract.Alumno.NOMBRE + " = ?, " + DbContract.Alumno.CURSO + " = ?, "
+            + DbContract.Alumno.TELEFONO + " = ?, " + DbContract.Alumno.DIRECCION + " = ? WHERE "
+            + DbContract.Alumno._ID + " = ?";
+    private static final String SQL_DELETE = "DELETE FROM " + DbContract.Alumno.TABLA + " WHERE "
+            + DbContract.Alumno._ID + " = ?";
+
     private static Dao sInstance;
 
     private final DbHelper mHelper; // Ayudante para la creación y gestión de la BD.
@@ -133,6 +161,157 @@ public class Dao {
         });
     }
 
+    // Operaciones masivas. Se realizan en una única transacción con una
+    // sentencia precompilada, y se notifica una sola vez al confirmarla.
+
+    // Inserta en la BD una colección de alumnos. Retorna el número de alumnos
+    // insertados. Si alguna inserción falla se deshace toda la operación.
+    private int createAlumnos(Collection<Alumno> alumnos) {
+        int insertados = 0;
+        // Se abre la base de datos.
+        SQLiteDatabase bd = mHelper.getWritableDatabase();
+        SQLiteStatement stmt = bd.compileStatement(SQL_INSERT);
+        bd.beginTransaction();
+        try {
+            for (Alumno alumno : alumnos) {
+                stmt.clearBindings();
+                bindAlumno(stmt, alumno);
+                long id = stmt.executeInsert();
+                if (id == -1) {
+                    throw new SQLException("No se ha podido insertar el alumno "
+                            + alumno.getNombre());
+                }
+                alumno.setId(id);
+                insertados++;
+            }
+            bd.setTransactionSuccessful();
+        } finally {
+            bd.endTransaction();
+            stmt.close();
+            // Se cierra la base de datos.
+            mHelper.close();
+        }
+        // Se notifica una única vez.
+        if (insertados > 0) {
+            mContentResolver.notifyChange(Uri.parse(DbContract.Alumno.URI), null);
+        }
+        return insertados;
+    }
+
+    public Single<Integer> createAlumnosRx(final Collection<Alumno> alumnos) {
+        return Single.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return createAlumnos(alumnos);
+            }
+        });
+    }
+
+    // Actualiza en la BD los datos de una colección de alumnos. Retorna el
+    // número de alumnos actualizados.
+    private int updateAlumnos(Collection<Alumno> alumnos) {
+        int actualizados = 0;
+        // Se abre la base de datos.
+        SQLiteDatabase bd = mHelper.getWritableDatabase();
+        SQLiteStatement stmt = bd.compileStatement(SQL_UPDATE);
+        bd.beginTransaction();
+        try {
+            for (Alumno alumno : alumnos) {
+                stmt.clearBindings();
+                bindAlumno(stmt, alumno);
+                stmt.bindLong(5, alumno.getId());
+                actualizados += stmt.executeUpdateDelete();
+            }
+            bd.setTransactionSuccessful();
+        } finally {
+            bd.endTransaction();
+            stmt.close();
+            // Se cierra la base de datos.
+            mHelper.close();
+        }
+        // Se notifica una única vez.
+        if (actualizados > 0) {
+            mContentResolver.notifyChange(Uri.parse(DbContract.Alumno.URI), null);
+        }
+        return actualizados;
+    }
+
+    public Single<Integer> updateAlumnosRx(final Collection<Alumno> alumnos) {
+        return Single.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return updateAlumnos(alumnos);
+            }
+        });
+    }
+
+    // Borra de la BD los alumnos cuyos _id se reciben. Retorna el número de
+    // alumnos eliminados.
+    private int deleteAlumnos(long[] ids) {
+        int eliminados = 0;
+        // Se abre la base de datos.
+        SQLiteDatabase bd = mHelper.getWritableDatabase();
+        SQLiteStatement stmt = bd.compileStatement(SQL_DELETE);
+        bd.beginTransaction();
+        try {
+            for (long id : ids) {
+                stmt.clearBindings();
+                stmt.bindLong(1, id);
+                eliminados += stmt.executeUpdateDelete();
+            }
+            bd.setTransactionSuccessful();
+        } finally {
+            bd.endTransaction();
+            stmt.close();
+            // Se cierra la base de datos.
+            mHelper.close();
+        }
+        // Se notifica una única vez.
+        if (eliminados > 0) {
+            mContentResolver.notifyChange(Uri.parse(DbContract.Alumno.URI), null);
+        }
+        return eliminados;
+    }
+
+    public Single<Integer> deleteAlumnosRx(final long[] ids) {
+        return Single.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return deleteAlumnos(ids);
+            }
+        });
+    }
+
+    // Variantes que solo informan de la finalización de la operación.
+    public Completable createAlumnosCompletable(Collection<Alumno> alumnos) {
+        return createAlumnosRx(alumnos).toCompletable();
+    }
+
+    public Completable updateAlumnosCompletable(Collection<Alumno> alumnos) {
+        return updateAlumnosRx(alumnos).toCompletable();
+    }
+
+    public Completable deleteAlumnosCompletable(long[] ids) {
+        return deleteAlumnosRx(ids).toCompletable();
+    }
+
+    // Establece los valores del alumno en los cuatro primeros parámetros de
+    // la sentencia, en el mismo orden que en SQL_INSERT y SQL_UPDATE.
+    private static void bindAlumno(SQLiteStatement stmt, Alumno alumno) {
+        bindStringOrNull(stmt, 1, alumno.getNombre());
+        bindStringOrNull(stmt, 2, alumno.getCurso());
+        bindStringOrNull(stmt, 3, alumno.getTelefono());
+        bindStringOrNull(stmt, 4, alumno.getDireccion());
+    }
+
+    private static void bindStringOrNull(SQLiteStatement stmt, int index, String valor) {
+        if (valor == null) {
+            stmt.bindNull(index);
+        } else {
+            stmt.bindString(index, valor);
+        }
+    }
+
     // Consulta en la BD los datos de un alumno. Recibe el _id del alumno a
     // consultar. Retorna el objeto Alumno o null si no existe.
     private Alumno queryAlumno(long id) {
@@ -201,12 +380,178 @@ public class Dao {
         });
     }
 
+    // Consulta en la BD todos los alumnos y los emite uno a uno según los
+    // vaya solicitando el suscriptor (con backpressure), sin cargar antes la
+    // lista completa en memoria. El cursor se cierra al terminar o cancelar.
+    public Flowable<Alumno> getAlumnosFlowable() {
+        return Flowable.generate(new Callable<LectorAlumnos>() {
+            @Override
+            public LectorAlumnos call() throws Exception {
+                return new LectorAlumnos(mHelper.getWritableDatabase());
+            }
+        }, new BiFunction<LectorAlumnos, Emitter<Alumno>, LectorAlumnos>() {
+            @Override
+            public LectorAlumnos apply(LectorAlumnos lector, Emitter<Alumno> emitter)
+                    throws Exception {
+                Alumno alumno = lector.siguiente();
+                if (alumno != null) {
+                    emitter.onNext(alumno);
+                } else {
+                    emitter.onComplete();
+                }
+                return lector;
+            }
+        }, new Consumer<LectorAlumnos>() {
+            @Override
+            public void accept(LectorAlumnos lector) throws Exception {
+                lector.cerrar();
+            }
+        });
+    }
+
+    // Consulta en la BD todos los alumnos y los emite en páginas de como
+    // máximo tamanoPagina elementos, recorriendo el cursor por ventanas. Así
+    // la primera página puede mostrarse sin esperar al resto.
+    public Flowable<List<Alumno>> getAlumnosPaginadosFlowable(final int tamanoPagina) {
+        if (tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        return Flowable.generate(new Callable<LectorAlumnos>() {
+            @Override
+            public LectorAlumnos call() throws Exception {
+                return new LectorAlumnos(mHelper.getWritableDatabase());
+            }
+        }, new BiFunction<LectorAlumnos, Emitter<List<Alumno>>, LectorAlumnos>() {
+            @Override
+            public LectorAlumnos apply(LectorAlumnos lector, Emitter<List<Alumno>> emitter)
+                    throws Exception {
+                ArrayList<Alumno> pagina = new ArrayList<>(tamanoPagina);
+                Alumno alumno;
+                while (pagina.size() < tamanoPagina && (alumno = lector.siguiente()) != null) {
+                    pagina.add(alumno);
+                }
+                if (!pagina.isEmpty()) {
+                    emitter.onNext(pagina);
+                }
+                if (pagina.size() < tamanoPagina) {
+                    emitter.onComplete();
+                }
+                return lector;
+            }
+        }, new Consumer<LectorAlumnos>() {
+            @Override
+            public void accept(LectorAlumnos lector) throws Exception {
+                lector.cerrar();
+            }
+        });
+    }
+
+    // Emite los alumnos por páginas al suscribirse y de nuevo cada vez que
+    // cambia DbContract.Alumno.URI. Los cambios que llegan en ráfaga se
+    // agrupan (debounce) para hacer una única consulta, y si llega un cambio
+    // mientras se está consultando se descarta la consulta anterior, cerrando
+    // su cursor.
+    public Flowable<PaginaAlumnos> observeAlumnos(final int tamanoPagina, long debounce,
+            TimeUnit unidad) {
+        return cambiosAlumnos()
+                .debounce(debounce, unidad, Schedulers.computation())
+                .startWith(Boolean.TRUE)
+                .switchMap(new Function<Boolean, Flowable<PaginaAlumnos>>() {
+                    @Override
+                    public Flowable<PaginaAlumnos> apply(Boolean cambio) throws Exception {
+                        return getPaginasAlumnos(tamanoPagina).subscribeOn(Schedulers.io());
+                    }
+                });
+    }
+
+    // Recorre la consulta de todos los alumnos por páginas, indicando cuál es
+    // la primera y cuál la última. Siempre se emite al menos una página, la
+    // última, que está vacía.
+    private Flowable<PaginaAlumnos> getPaginasAlumnos(final int tamanoPagina) {
+        return Flowable.defer(new Callable<Flowable<PaginaAlumnos>>() {
+            @Override
+            public Flowable<PaginaAlumnos> call() throws Exception {
+                final boolean[] primera = {true};
+                return getAlumnosPaginadosFlowable(tamanoPagina)
+                        .map(new Function<List<Alumno>, PaginaAlumnos>() {
+                            @Override
+                            public PaginaAlumnos apply(List<Alumno> alumnos) throws Exception {
+                                PaginaAlumnos pagina = new PaginaAlumnos(alumnos, primera[0],
+                                        false);
+                                primera[0] = false;
+                                return pagina;
+                            }
+                        })
+                        .concatWith(Flowable.fromCallable(new Callable<PaginaAlumnos>() {
+                            @Override
+                            public PaginaAlumnos call() throws Exception {
+                                return new PaginaAlumnos(new ArrayList<Alumno>(), primera[0],
+                                        true);
+                            }
+                        }));
+            }
+        });
+    }
+
+    // Emite un elemento cada vez que se notifica un cambio en los alumnos.
+    private Flowable<Boolean> cambiosAlumnos() {
+        return Flowable.create(new FlowableOnSubscribe<Boolean>() {
+            @Override
+            public void subscribe(final FlowableEmitter<Boolean> emitter) throws Exception {
+                final ContentObserver observador = new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        emitter.onNext(Boolean.TRUE);
+                    }
+                };
+                mContentResolver.registerContentObserver(Uri.parse(DbContract.Alumno.URI), true,
+                        observador);
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        mContentResolver.unregisterContentObserver(observador);
+                    }
+                });
+            }
+        }, BackpressureStrategy.LATEST);
+    }
+
+    // Página de alumnos emitida por observeAlumnos(). La primera de cada
+    // consulta sustituye a los alumnos anteriores y las demás se añaden.
+    public static class PaginaAlumnos {
+
+        private final List<Alumno> mAlumnos;
+        private final boolean mPrimera;
+        private final boolean mUltima;
+
+        PaginaAlumnos(List<Alumno> alumnos, boolean primera, boolean ultima) {
+            mAlumnos = alumnos;
+            mPrimera = primera;
+            mUltima = ultima;
+        }
+
+        public List<Alumno> getAlumnos() {
+            return mAlumnos;
+        }
+
+        public boolean isPrimera() {
+            return mPrimera;
+        }
+
+        public boolean isUltima() {
+            return mUltima;
+        }
+
+    }
+
     public static ArrayList<Alumno> cursorToAlumnos(Cursor cursor) {
-        ArrayList<Alumno> lista = new ArrayList<>();
+        ArrayList<Alumno> lista = new ArrayList<>(Math.max(cursor.getCount(), 0));
+        // Los índices de las columnas se obtienen una sola vez.
+        Columnas columnas = new Columnas(cursor);
         // Se convierte cada registro del cursor en un elemento de la lista.
         cursor.moveToFirst();
         while (!cursor.isAfterLast()) {
-            Alumno alumno = cursorToAlumno(cursor);
+            Alumno alumno = cursorToAlumno(cursor, columnas);
             lista.add(alumno);
             cursor.moveToNext();
         }
@@ -218,21 +563,69 @@ public class Dao {
     // el cursor y retorna un nuevo objeto Alumno cargado con los datos del
     // registro actual del cursor.
     public static Alumno cursorToAlumno(Cursor cursorAlumno) {
+        return cursorToAlumno(cursorAlumno, new Columnas(cursorAlumno));
+    }
+
+    // Igual que el anterior, pero con los índices de las columnas ya resueltos.
+    private static Alumno cursorToAlumno(Cursor cursorAlumno, Columnas columnas) {
         // Crea un objeto Alumno y guarda los valores provenientes
         // del registro actual del cursor.
         Alumno alumno = new Alumno();
-        alumno.setId(cursorAlumno.getLong(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno._ID)));
-        alumno.setNombre(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.NOMBRE)));
-        alumno.setCurso(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.CURSO)));
-        alumno.setTelefono(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.TELEFONO)));
-        alumno.setDireccion(cursorAlumno.getString(
-                cursorAlumno.getColumnIndexOrThrow(DbContract.Alumno.DIRECCION)));
+        alumno.setId(cursorAlumno.getLong(columnas.id));
+        alumno.setNombre(cursorAlumno.getString(columnas.nombre));
+        alumno.setCurso(cursorAlumno.getString(columnas.curso));
+        alumno.setTelefono(cursorAlumno.getString(columnas.telefono));
+        alumno.setDireccion(cursorAlumno.getString(columnas.direccion));
         // Se retorna el objeto Alumno.
         return alumno;
     }
 
+    // Índices de las columnas de la tabla de alumnos en un cursor.
+    private static class Columnas {
+
+        final int id;
+        final int nombre;
+        final int curso;
+        final int telefono;
+        final int direccion;
+
+        Columnas(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(DbContract.Alumno._ID);
+            nombre = cursor.getColumnIndexOrThrow(DbContract.Alumno.NOMBRE);
+            curso = cursor.getColumnIndexOrThrow(DbContract.Alumno.CURSO);
+            telefono = cursor.getColumnIndexOrThrow(DbContract.Alumno.TELEFONO);
+            direccion = cursor.getColumnIndexOrThrow(DbContract.Alumno.DIRECCION);
+        }
+
+    }
+
+    // Recorre el cursor de todos los alumnos registro a registro. Mantiene
+    // una referencia a la base de datos para que no se libere mientras el
+    // cursor siga abierto, aunque otra operación cierre el helper.
+    private static class LectorAlumnos {
+
+        private final SQLiteDatabase mBd;
+        private final Cursor mCursor;
+        private final Columnas mColumnas;
+
+        LectorAlumnos(SQLiteDatabase bd) {
+            mBd = bd;
+            mBd.acquireReference();
+            mCursor = bd.query(DbContract.Alumno.TABLA, DbContract.Alumno.TODOS, null, null,
+                    null, null, DbContract.Alumno.NOMBRE);
+            mColumnas = new Columnas(mCursor);
+        }
+
+        // Retorna el siguiente alumno o null si no hay más.
+        Alumno siguiente() {
+            return mCursor.moveToNext() ? cursorToAlumno(mCursor, mColumnas) : null;
+        }
+
+        void cerrar() {
+            mCursor.close();
+            mBd.releaseReference();
+        }
+
+    }
+
 }
@@ -19,6 +19,7 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
 
 import es.iessaladillo.pedrojoya.pr196.R;
 import es.iessaladillo.pedrojoya.pr196.adaptadores.AlumnosAdapter;
@@ -26,14 +27,17 @@ import es.iessaladillo.pedrojoya.pr196.bd.Dao;
 import es.iessaladillo.pedrojoya.pr196.modelos.Alumno;
 import es.iessaladillo.pedrojoya.pr196.utils.HidingScrollListener;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Consumer;
-import io.reactivex.schedulers.Schedulers;
 
 public class ListaAlumnosFragment extends Fragment implements AlumnosAdapter
         .OnItemLongClickListener, ActionMode.Callback, AlumnosAdapter.OnItemClickListener {
 
     private static final String STATE_LISTA = "state_lista";
 //    private static final int DATOS_LOADER = 0;
+    private static final int TAMANO_PAGINA = 50;
+    // Tiempo sin cambios en los alumnos antes de volver a consultarlos.
+    private static final long DEBOUNCE_MS = 300;
 
     private TextView lblNuevoAlumno;
     private AlumnosAdapter mAdaptador;
@@ -43,6 +47,7 @@ public class ListaAlumnosFragment extends Fragment implements AlumnosAdapter
     private LinearLayoutManager mLayoutManager;
     private Parcelable mEstadoLista;
     private RecyclerView.AdapterDataObserver mObservador;
+    private Disposable mSuscripcion;
 
     // Interfaz de comunicación con la actividad.
     public interface OnListaAlumnosFragmentListener {
@@ -72,6 +77,10 @@ public class ListaAlumnosFragment extends Fragment implements AlumnosAdapter
         super.onActivityCreated(savedInstanceState);
         initVistas(getView());
         mDao = Dao.getInstance(getActivity());
+        if (savedInstanceState != null) {
+            mEstadoLista = savedInstanceState.getParcelable(STATE_LISTA);
+        }
+        observarAlumnos();
     }
 
     // Obtiene e inicializa las vistas.
@@ -152,32 +161,41 @@ public class ListaAlumnosFragment extends Fragment implements AlumnosAdapter
     @Override
     public void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
-        // Se salva el estado del RecyclerView.
-        mEstadoLista = mLayoutManager.onSaveInstanceState();
-        outState.putParcelable(STATE_LISTA, mEstadoLista);
-    }
-
-    @Override
-    public void onResume() {
-        super.onResume();
-        cargarAlumnos();
-        // Se retaura el estado de la lista.
-        if (mEstadoLista != null) {
-            mLayoutManager.onRestoreInstanceState(mEstadoLista);
-        }
+        // Se salva el estado del RecyclerView (o el pendiente de restaurar,
+        // si aún no se han cargado todas las páginas).
+        outState.putParcelable(STATE_LISTA, mEstadoLista != null ? mEstadoLista
+                : mLayoutManager.onSaveInstanceState());
     }
 
-    // Crea el adaptador y carga la lista de alumnos.
-    public void cargarAlumnos() {
-        // Se obtienen los datos de los alumnos a través del Dao.
-        mDao.getAllAlumnosRx()
-                .subscribeOn(Schedulers.computation())
+    // Carga la lista de alumnos y la vuelve a cargar cada vez que cambian en
+    // la base de datos, mientras exista la vista del fragmento. Las páginas se
+    // van añadiendo según se leen, de manera que la primera se muestra sin
+    // esperar al resto.
+    private void observarAlumnos() {
+        mSuscripcion = mDao.observeAlumnos(TAMANO_PAGINA, DEBOUNCE_MS, TimeUnit.MILLISECONDS)
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(new Consumer<ArrayList<Alumno>>() {
+                .subscribe(new Consumer<Dao.PaginaAlumnos>() {
                     @Override
-                    public void accept(ArrayList<Alumno> alumnos) throws Exception {
-                        mAdaptador.swapData(alumnos);
+                    public void accept(Dao.PaginaAlumnos pagina) throws Exception {
+                        if (pagina.isPrimera()) {
+                            // Si no hay un estado pendiente de restaurar se
+                            // guarda la posición actual, que se perdería al
+                            // sustituir la lista.
+                            if (mEstadoLista == null && mAdaptador.getItemCount() > 0) {
+                                mEstadoLista = mLayoutManager.onSaveInstanceState();
+                            }
+                            mAdaptador.swapData(new ArrayList<Alumno>(pagina.getAlumnos()));
+                        } else {
+                            mAdaptador.addData(pagina.getAlumnos());
+                        }
                         checkAdapterIsEmpty();
+                        // Se restaura el estado de la lista una vez cargadas
+                        // todas las páginas, ya que la posición guardada puede
+                        // estar más allá de la primera.
+                        if (pagina.isUltima() && mEstadoLista != null) {
+                            mLayoutManager.onRestoreInstanceState(mEstadoLista);
+                            mEstadoLista = null;
+                        }
                     }
                 });
     }
@@ -314,10 +332,11 @@ public class ListaAlumnosFragment extends Fragment implements AlumnosAdapter
         super.onDestroy();
     }
 
-    @SuppressWarnings("EmptyMethod")
     @Override
     public void onDestroyView() {
 //        mDao.closeDatabase();
+        // Se deja de observar la base de datos (se cierra el cursor en curso).
+        mSuscripcion.dispose();
         super.onDestroyView();
     }
 
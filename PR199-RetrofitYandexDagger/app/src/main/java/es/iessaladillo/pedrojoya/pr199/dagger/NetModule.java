@@ -6,13 +6,20 @@ import com.facebook.stetho.Stetho;
 import com.facebook.stetho.okhttp3.StethoInterceptor;
 import com.readystatesoftware.chuck.ChuckInterceptor;
 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import es.iessaladillo.pedrojoya.pr199.BuildConfig;
 import es.iessaladillo.pedrojoya.pr199.api.Constants;
 import es.iessaladillo.pedrojoya.pr199.api.YandexAPI;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
@@ -21,35 +28,47 @@ import retrofit2.converter.gson.GsonConverterFactory;
 @Module
 public class NetModule {
 
-    @Singleton
-    @Provides
-    public static HttpLoggingInterceptor providesHttpLoggingInterceptor() {
-        HttpLoggingInterceptor logInterceptor = new HttpLoggingInterceptor();
-        logInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-        return logInterceptor;
-    }
+    private static final int MAX_CONEXIONES_INACTIVAS = 5;
+    private static final long KEEP_ALIVE_MINUTOS = 5;
+    private static final int MAX_PETICIONES_POR_HOST = 5;
+    private static final long TIMEOUT_SEGUNDOS = 15;
 
     @Singleton
     @Provides
-    public static StethoInterceptor providesStethoInterceptor(Context context) {
-        Stetho.initializeWithDefaults(context);
-        return new StethoInterceptor();
+    public static ConnectionPool providesConnectionPool() {
+        return new ConnectionPool(MAX_CONEXIONES_INACTIVAS, KEEP_ALIVE_MINUTOS,
+                TimeUnit.MINUTES);
     }
 
     @Singleton
     @Provides
-    public static ChuckInterceptor providesChuckInterceptor(Context context) {
-        return new ChuckInterceptor(context);
+    public static Dispatcher providesDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_PETICIONES_POR_HOST);
+        return dispatcher;
     }
 
+    // Los interceptores de depuración copian el cuerpo de cada respuesta, por
+    // lo que solo se añaden en las versiones debug.
     @Singleton
     @Provides
-    public static OkHttpClient providesOkHttpClient(HttpLoggingInterceptor httpLoggingInterceptor,
-            StethoInterceptor stethoInterceptor, ChuckInterceptor chuckInterceptor) {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        builder.addInterceptor(httpLoggingInterceptor);
-        builder.addInterceptor(stethoInterceptor);
-        builder.addInterceptor(chuckInterceptor);
+    public static OkHttpClient providesOkHttpClient(Context context,
+            ConnectionPool connectionPool, Dispatcher dispatcher) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(TIMEOUT_SEGUNDOS, TimeUnit.SECONDS)
+                .readTimeout(TIMEOUT_SEGUNDOS, TimeUnit.SECONDS)
+                .writeTimeout(TIMEOUT_SEGUNDOS, TimeUnit.SECONDS);
+        if (BuildConfig.DEBUG) {
+            HttpLoggingInterceptor logInterceptor = new HttpLoggingInterceptor();
+            logInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            builder.addInterceptor(logInterceptor);
+            Stetho.initializeWithDefaults(context);
+            builder.addInterceptor(new StethoInterceptor());
+            builder.addInterceptor(new ChuckInterceptor(context));
+        }
         return builder.build();
     }
 
@@ -3,17 +3,23 @@ package pedrojoya.iessaladillo.es.pr201;
 // Modelo Alumno.
 class Alumno {
 
+    private final long id;
     private final String nombre;
     private final String direccion;
     private final String urlFoto;
 
-    public Alumno(String nombre, String direccion, String urlFoto) {
+    public Alumno(long id, String nombre, String direccion, String urlFoto) {
+        this.id = id;
         this.nombre = nombre;
         this.direccion = direccion;
         this.urlFoto = urlFoto;
 
     }
 
+    public long getId() {
+        return id;
+    }
+
     public String getUrlFoto() {
         return urlFoto;
     }
@@ -8,21 +8,24 @@ import android.widget.TextView;
 
 import com.squareup.picasso.Picasso;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
 import de.hdodenhof.circleimageview.CircleImageView;
 
 // Adaptador para la lista de alumnos.
 public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHolder> {
 
-    private final ArrayList<Alumno> mDatos;
+    // Las diferencias entre listas se calculan en segundo plano.
+    private final DiferenciadorListas<Alumno> mDiferenciador;
     private OnItemLongClickListener onItemLongClickListener;
     private OnItemClickListener onItemClickListener;
 
     // Constructor.
-    public AlumnosAdapter(ArrayList<Alumno> datos) {
-        mDatos = datos;
+    public AlumnosAdapter(List<Alumno> datos) {
+        mDiferenciador = new DiferenciadorListas<>(this, new ComparadorAlumnos());
+        mDiferenciador.enviarLista(datos);
+        // Se establece que cada item tiene un id único.
+        setHasStableIds(true);
     }
 
     // Cuando se debe crear una nueva vista para el elemento.
@@ -43,7 +46,8 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
             public void onClick(View v) {
                 if (onItemClickListener != null) {
                     // Se informa al listener.
-                    onItemClickListener.onItemClick(v, mDatos.get(viewHolder.getAdapterPosition()),
+                    onItemClickListener.onItemClick(v,
+                            getData().get(viewHolder.getAdapterPosition()),
                             viewHolder.getAdapterPosition());
                 }
             }
@@ -55,7 +59,7 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
                 if (onItemLongClickListener != null) {
                     // Se informa al listener.
                     onItemLongClickListener.onItemLongClick(v,
-                            mDatos.get(viewHolder.getAdapterPosition()),
+                            getData().get(viewHolder.getAdapterPosition()),
                             viewHolder.getAdapterPosition());
                     return true;
                 } else {
@@ -71,43 +75,54 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
     // vista correspondiente al ítem.
     @Override
     public void onBindViewHolder(AlumnosAdapter.ViewHolder holder, int position) {
-        // Se obtiene el alumno correspondiente.
-        Alumno alumno = mDatos.get(position);
-        // Se escriben los mDatos en la vista.
-        holder.lblNombre.setText(alumno.getNombre());
-        holder.lblDireccion.setText(alumno.getDireccion());
-        Picasso.with(holder.imgAvatar.getContext()).load(alumno.getUrlFoto()).placeholder(
-                R.drawable.ic_user).error(R.drawable.ic_user).into(holder.imgAvatar);
+        bind(holder, getData().get(position), ComparadorAlumnos.CAMBIO_TODO);
+    }
+
+    // Cuando solo han cambiado algunos datos del ítem, que llegan en payloads
+    // (si está vacío se escriben todos).
+    @Override
+    public void onBindViewHolder(AlumnosAdapter.ViewHolder holder, int position,
+            List<Object> payloads) {
+        bind(holder, getData().get(position), ComparadorAlumnos.getCamposCambiados(payloads));
+    }
 
+    // Escribe en las vistas los campos indicados del alumno. La foto solo
+    // se vuelve a cargar si ha cambiado.
+    private void bind(AlumnosAdapter.ViewHolder holder, Alumno alumno, int cambios) {
+        if ((cambios & ComparadorAlumnos.CAMBIO_NOMBRE) != 0) {
+            holder.lblNombre.setText(alumno.getNombre());
+        }
+        if ((cambios & ComparadorAlumnos.CAMBIO_DIRECCION) != 0) {
+            holder.lblDireccion.setText(alumno.getDireccion());
+        }
+        if ((cambios & ComparadorAlumnos.CAMBIO_FOTO) != 0) {
+            Picasso.with(holder.imgAvatar.getContext()).load(alumno.getUrlFoto()).placeholder(
+                    R.drawable.ic_user).error(R.drawable.ic_user).into(holder.imgAvatar);
+        }
     }
 
     // Retorna el número de ítems gestionados.
     @Override
     public int getItemCount() {
-        return mDatos.size();
+        return getData().size();
     }
 
-    // Elimina un elemento de la lista.
-    public void removeItem(int position) {
-        mDatos.remove(position);
-        notifyItemRemoved(position);
+    @Override
+    public long getItemId(int position) {
+        return getData().get(position).getId();
     }
 
-    // Añade un elemento a la lista.
-    public void addItem(Alumno alumno) {
-        // Se añade el elemento.
-        mDatos.add(alumno);
-        // Se notifica que se ha insertado un elemento en la última posición.
-        notifyItemInserted(mDatos.size() - 1);
+    // Establece la nueva lista de alumnos, que no debe modificarse después.
+    // Los cambios respecto a la actual se notifican cuando terminan de
+    // calcularse.
+    public void setData(List<Alumno> alumnos) {
+        mDiferenciador.enviarLista(alumnos);
     }
 
-    // Intercambia dos elementos de la lista.
-    @SuppressWarnings("unused")
-    void swapItems(int from, int to) {
-        // Se realiza el intercambio.
-        Collections.swap(mDatos, from, to);
-        // Se notifica el movimiento.
-        notifyItemMoved(from, to);
+    // Igual que el anterior, pero recibe la acción a ejecutar una vez
+    // notificados los cambios.
+    public void setData(List<Alumno> alumnos, Runnable alTerminar) {
+        mDiferenciador.enviarLista(alumnos, alTerminar);
     }
 
     // Establece el listener a informar cuando se hace click sobre un elemento de la lista.
@@ -152,8 +167,9 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
         void onItemLongClick(View view, Alumno alumno, int position);
     }
 
-    public ArrayList<Alumno> getData() {
-        return mDatos;
+    // Retorna la lista que se está mostrando. No debe modificarse.
+    public List<Alumno> getData() {
+        return mDiferenciador.getLista();
     }
 
 }
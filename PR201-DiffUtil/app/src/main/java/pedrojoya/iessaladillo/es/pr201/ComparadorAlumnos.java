@@ -0,0 +1,68 @@
+package pedrojoya.iessaladillo.es.pr201;
+
+import java.util.List;
+
+// Compara alumnos por su id y, si es el mismo, indica qué campos han cambiado
+// para que el adaptador solo vuelva a escribir las vistas correspondientes.
+// PR201-DiffUtil y PR203-ObjectBox tienen una copia de esta clase idéntica
+// salvo por el paquete; los cambios deben llevarse a las dos.
+class ComparadorAlumnos implements DiferenciadorListas.Comparador<Alumno> {
+
+    // Campos que pueden cambiar, combinables como bits.
+    static final int CAMBIO_NOMBRE = 1;
+    static final int CAMBIO_DIRECCION = 1 << 1;
+    static final int CAMBIO_FOTO = 1 << 2;
+    static final int CAMBIO_TODO = CAMBIO_NOMBRE | CAMBIO_DIRECCION | CAMBIO_FOTO;
+
+    @Override
+    public boolean mismoElemento(Alumno antiguo, Alumno nuevo) {
+        return antiguo.getId() == nuevo.getId();
+    }
+
+    @Override
+    public boolean mismoContenido(Alumno antiguo, Alumno nuevo) {
+        return getCamposCambiados(antiguo, nuevo) == 0;
+    }
+
+    // Retorna los bits de los campos cambiados. Integer.valueOf() no crea
+    // objetos para valores tan pequeños.
+    @Override
+    public Object getCambios(Alumno antiguo, Alumno nuevo) {
+        return getCamposCambiados(antiguo, nuevo);
+    }
+
+    // Retorna los bits de los campos cambiados que contiene la lista de
+    // payloads recibida por el adaptador, o CAMBIO_TODO si está vacía.
+    static int getCamposCambiados(List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            return CAMBIO_TODO;
+        }
+        // Si se han acumulado varios cambios antes de escribir la fila,
+        // llegan todos.
+        int cambios = 0;
+        for (int i = 0; i < payloads.size(); i++) {
+            Object payload = payloads.get(i);
+            cambios |= payload instanceof Integer ? (Integer) payload : CAMBIO_TODO;
+        }
+        return cambios;
+    }
+
+    private static int getCamposCambiados(Alumno antiguo, Alumno nuevo) {
+        int cambios = 0;
+        if (!iguales(antiguo.getNombre(), nuevo.getNombre())) {
+            cambios |= CAMBIO_NOMBRE;
+        }
+        if (!iguales(antiguo.getDireccion(), nuevo.getDireccion())) {
+            cambios |= CAMBIO_DIRECCION;
+        }
+        if (!iguales(antiguo.getUrlFoto(), nuevo.getUrlFoto())) {
+            cambios |= CAMBIO_FOTO;
+        }
+        return cambios;
+    }
+
+    private static boolean iguales(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+}
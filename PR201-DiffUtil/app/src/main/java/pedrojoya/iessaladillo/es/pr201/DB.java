@@ -38,6 +38,10 @@ class DB {
         datos.remove(position);
     }
 
+    public void removeAlumno(Alumno alumno) {
+        datos.remove(alumno);
+    }
+
     public int getAlumnosCount() {
         return datos.size();
     }
@@ -48,7 +52,7 @@ class DB {
 
     public Alumno getNextAlumno() {
         int num = next++;
-        return new Alumno("Alumno " + num, "c/ Su casa, nº " + num,
+        return new Alumno(num, "Alumno " + num, "c/ Su casa, nº " + num,
                 "http://lorempixel.com/100/100/abstract/" + (num % 10 + 1) + "/");
     }
 
@@ -0,0 +1,289 @@
+package pedrojoya.iessaladillo.es.pr201;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Mantiene la lista que muestra un adaptador. Cada vez que se le envía una
+// nueva, calcula las diferencias con la actual en un hilo secundario y
+// notifica al adaptador desde el hilo principal solo los elementos
+// insertados, eliminados, movidos o modificados (indicando qué ha cambiado).
+// Si llega otra lista antes de terminar el cálculo, el resultado anterior se
+// descarta. También puede recibir los cambios ya calculados en otro hilo
+// secundario con aplicarCambios(). Las listas enviadas no deben modificarse
+// después.
+// PR201-DiffUtil y PR203-ObjectBox tienen una copia de esta clase idéntica
+// salvo por el paquete; los cambios deben llevarse a las dos.
+class DiferenciadorListas<T> {
+
+    // Compara los elementos de la lista actual con los de la nueva. Se llama
+    // desde el hilo secundario.
+    interface Comparador<T> {
+        // Retorna si representan el mismo elemento (por ejemplo, el mismo id).
+        boolean mismoElemento(T antiguo, T nuevo);
+
+        // Retorna si el elemento se muestra igual.
+        boolean mismoContenido(T antiguo, T nuevo);
+
+        // Retorna qué ha cambiado en el elemento, que se recibirá en
+        // onBindViewHolder(holder, position, payloads), o null para volver a
+        // escribirlo completo.
+        Object getCambios(T antiguo, T nuevo);
+    }
+
+    // Hilo compartido para el cálculo de diferencias. Al ser uno solo, las
+    // listas se procesan en el orden en que se envían.
+    private static Executor sEjecutorFondo;
+
+    private final ListUpdateCallback mDestino;
+    private final Comparador<T> mComparador;
+    private final Executor mEjecutorFondo;
+    private final Executor mEjecutorPrincipal;
+    // Lista que se está mostrando. Solo se accede desde el hilo principal.
+    private List<T> mLista = Collections.emptyList();
+    // Se incrementa con cada lista enviada para reconocer los resultados
+    // obsoletos.
+    private volatile int mGeneracion;
+    // Secuencia de los últimos cambios aplicados con aplicarCambios().
+    private long mSecuencia;
+
+    // Constructor. Recibe el adaptador a notificar y el comparador.
+    public DiferenciadorListas(RecyclerView.Adapter<?> adaptador, Comparador<T> comparador) {
+        this(new NotificadorAdaptador(adaptador), comparador, getEjecutorFondo(),
+                new EjecutorPrincipal());
+    }
+
+    // Constructor. Recibe además dónde notificar los cambios y los ejecutores
+    // del cálculo y de la notificación.
+    DiferenciadorListas(ListUpdateCallback destino, Comparador<T> comparador,
+            Executor ejecutorFondo, Executor ejecutorPrincipal) {
+        mDestino = destino;
+        mComparador = comparador;
+        mEjecutorFondo = ejecutorFondo;
+        mEjecutorPrincipal = ejecutorPrincipal;
+    }
+
+    private static synchronized Executor getEjecutorFondo() {
+        if (sEjecutorFondo == null) {
+            sEjecutorFondo = Executors.newSingleThreadExecutor();
+        }
+        return sEjecutorFondo;
+    }
+
+    // Retorna la lista que se está mostrando. No debe modificarse.
+    public List<T> getLista() {
+        return mLista;
+    }
+
+    // Envía la nueva lista a mostrar.
+    public void enviarLista(List<T> nueva) {
+        enviarLista(nueva, null);
+    }
+
+    // Envía la nueva lista a mostrar. Recibe además la acción a ejecutar en el
+    // hilo principal una vez notificados los cambios (o null), que no se
+    // ejecuta si el resultado se descarta.
+    public void enviarLista(final List<T> nueva, final Runnable alTerminar) {
+        final int generacion = ++mGeneracion;
+        if (nueva == mLista) {
+            terminar(alTerminar);
+            return;
+        }
+        final List<T> antigua = mLista;
+        // Si una de las dos está vacía no hay nada que calcular.
+        if (nueva == null || nueva.isEmpty()) {
+            mLista = Collections.emptyList();
+            if (!antigua.isEmpty()) {
+                mDestino.onRemoved(0, antigua.size());
+            }
+            terminar(alTerminar);
+            return;
+        }
+        if (antigua.isEmpty()) {
+            mLista = nueva;
+            mDestino.onInserted(0, nueva.size());
+            terminar(alTerminar);
+            return;
+        }
+        mEjecutorFondo.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Si ya se ha enviado otra lista no se calcula.
+                if (generacion != mGeneracion) {
+                    return;
+                }
+                final DiffUtil.DiffResult resultado = DiffUtil.calculateDiff(
+                        new Callback<>(antigua, nueva, mComparador));
+                mEjecutorPrincipal.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generacion == mGeneracion) {
+                            mLista = nueva;
+                            resultado.dispatchUpdatesTo(mDestino);
+                            terminar(alTerminar);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    // Calcula en el hilo actual los cambios de la lista antigua a la nueva,
+    // para aplicarlos después con aplicarCambios(). Permite hacer el cálculo
+    // en un hilo secundario que ya existe, como el que entrega los resultados
+    // de una consulta, sin pasar por el de este diferenciador. No debe
+    // llamarse desde el hilo principal.
+    static <T> Cambios<T> calcularCambios(List<T> antigua, List<T> nueva,
+            Comparador<T> comparador) {
+        if (nueva == null || nueva.isEmpty()) {
+            nueva = Collections.emptyList();
+        }
+        return new Cambios<>(antigua, nueva,
+                DiffUtil.calculateDiff(new Callback<>(antigua, nueva, comparador)));
+    }
+
+    // Aplica los cambios calculados con calcularCambios(), notificándolos
+    // directamente. Si se calcularon respecto a otra lista distinta de la
+    // actual, se envía la nueva como con enviarLista(). Los cambios que
+    // lleguen después de otros posteriores se descartan.
+    public void aplicarCambios(Cambios<T> cambios) {
+        if (cambios.mSecuencia < mSecuencia) {
+            return;
+        }
+        mSecuencia = cambios.mSecuencia;
+        if (cambios.mAntigua != mLista) {
+            enviarLista(cambios.mNueva);
+            return;
+        }
+        // Se descarta cualquier cálculo pendiente.
+        mGeneracion++;
+        mLista = cambios.mNueva;
+        cambios.mResultado.dispatchUpdatesTo(mDestino);
+    }
+
+    private void terminar(Runnable alTerminar) {
+        if (alTerminar != null) {
+            alTerminar.run();
+        }
+    }
+
+    // Cambios de una lista a otra calculados con calcularCambios().
+    static class Cambios<T> {
+
+        // Orden en que se han calculado, para descartar los que lleguen
+        // tarde.
+        private static final AtomicLong sSecuencia = new AtomicLong();
+
+        private final long mSecuencia = sSecuencia.incrementAndGet();
+        private final List<T> mAntigua;
+        private final List<T> mNueva;
+        private final DiffUtil.DiffResult mResultado;
+
+        private Cambios(List<T> antigua, List<T> nueva, DiffUtil.DiffResult resultado) {
+            mAntigua = antigua;
+            mNueva = nueva;
+            mResultado = resultado;
+        }
+
+        // Retorna la nueva lista.
+        List<T> getLista() {
+            return mNueva;
+        }
+
+    }
+
+    // Adapta el comparador a la interfaz de DiffUtil.
+    private static class Callback<T> extends DiffUtil.Callback {
+
+        private final List<T> mAntigua;
+        private final List<T> mNueva;
+        private final Comparador<T> mComparador;
+
+        Callback(List<T> antigua, List<T> nueva, Comparador<T> comparador) {
+            mAntigua = antigua;
+            mNueva = nueva;
+            mComparador = comparador;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mAntigua.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNueva.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mComparador.mismoElemento(mAntigua.get(oldItemPosition),
+                    mNueva.get(newItemPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return mComparador.mismoContenido(mAntigua.get(oldItemPosition),
+                    mNueva.get(newItemPosition));
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            return mComparador.getCambios(mAntigua.get(oldItemPosition),
+                    mNueva.get(newItemPosition));
+        }
+
+    }
+
+    // Notifica los cambios al adaptador.
+    private static class NotificadorAdaptador implements ListUpdateCallback {
+
+        private final RecyclerView.Adapter<?> mAdaptador;
+
+        NotificadorAdaptador(RecyclerView.Adapter<?> adaptador) {
+            mAdaptador = adaptador;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            mAdaptador.notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mAdaptador.notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mAdaptador.notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mAdaptador.notifyItemRangeChanged(position, count, payload);
+        }
+
+    }
+
+    // Ejecuta las tareas en el hilo principal.
+    private static class EjecutorPrincipal implements Executor {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable tarea) {
+            mHandler.post(tarea);
+        }
+
+    }
+
+}
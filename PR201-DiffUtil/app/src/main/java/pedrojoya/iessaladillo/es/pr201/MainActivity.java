@@ -5,7 +5,6 @@ import android.os.Parcelable;
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
 import android.support.v7.app.AppCompatActivity;
-import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.DefaultItemAnimator;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
@@ -73,7 +72,7 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
 
     // Configura el RecyclerView.
     private void configRecyclerView() {
-        mAdaptador = new AlumnosAdapter(DB.getInstance().getAlumnos());
+        mAdaptador = new AlumnosAdapter(getAlumnos());
         mAdaptador.setOnItemClickListener(this);
         mAdaptador.setOnItemLongClickListener(this);
         mAdaptador.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
@@ -105,11 +104,23 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
         mEmptyView.setVisibility(mAdaptador.getItemCount() == 0 ? View.VISIBLE : View.INVISIBLE);
     }
 
+    // Retorna una copia de los alumnos de la base de datos, ya que el
+    // adaptador no admite que se modifique la lista que muestra.
+    private ArrayList<Alumno> getAlumnos() {
+        return new ArrayList<>(DB.getInstance().getAlumnos());
+    }
+
     // Agrega un alumno a la lista.
     private void agregarAlumno(Alumno alumno) {
-        // Se agrega el alumno.
-        mAdaptador.addItem(alumno);
-        lstAlumnos.scrollToPosition(mAdaptador.getItemCount() - 1);
+        // Se agrega el alumno y se muestra cuando el adaptador haya sido
+        // notificado.
+        DB.getInstance().addAlumno(alumno);
+        mAdaptador.setData(getAlumnos(), new Runnable() {
+            @Override
+            public void run() {
+                lstAlumnos.scrollToPosition(mAdaptador.getItemCount() - 1);
+            }
+        });
     }
 
     // Cuando se hace click sobre un elemento de la lista.
@@ -123,7 +134,8 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
     @Override
     public void onItemLongClick(View view, Alumno alumno, int position) {
         // Se elimina el alumno.
-        mAdaptador.removeItem(position);
+        DB.getInstance().removeAlumno(alumno);
+        mAdaptador.setData(getAlumnos());
     }
 
     @Override
@@ -167,21 +179,17 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter
         return super.onOptionsItemSelected(item);
     }
 
+    // Ordena la lista por nombre, alternando el sentido. Las diferencias se
+    // calculan en segundo plano.
     private void cambiarOrden() {
-        ArrayList<Alumno> actual = mAdaptador.getData();
-        ArrayList<Alumno> nueva = new ArrayList<>(actual);
-        //Collections.reverse(nueva);
-        // Se cambia el orden.
-        Collections.sort(actual, new Comparator<Alumno>() {
+        Collections.sort(DB.getInstance().getAlumnos(), new Comparator<Alumno>() {
             @Override
             public int compare(Alumno alumno1, Alumno alumno2) {
                 return mOrden * alumno1.getNombre().compareTo(alumno2.getNombre());
             }
         });
         mOrden = -mOrden;
-        DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
-                new AlumnosDiffUtilCallback(actual, nueva));
-        diffResult.dispatchUpdatesTo(mAdaptador);
+        mAdaptador.setData(getAlumnos());
     }
 
 }
@@ -0,0 +1,357 @@
+package pedrojoya.iessaladillo.es.pr201;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+// Compara el trabajo en el hilo principal al actualizar una lista de 10.000
+// alumnos calculando las diferencias en el propio hilo principal (como hacía
+// cambiarOrden()) con el diferenciador en segundo plano. Se comprueba el
+// número de comparaciones de alumnos que se hacen en el hilo principal, que
+// no depende de la máquina; el tiempo solo se informa.
+public class DiferenciadorListasBenchmarkTest {
+
+    private static final int NUM_ALUMNOS = 10000;
+    // Alumnos modificados, eliminados e insertados en cada actualización.
+    private static final int NUM_CAMBIOS = 100;
+    private static final int NUM_PASADAS = 10;
+    private static final int NUM_CALENTAMIENTO = 3;
+
+    private static ExecutorService sEjecutorFondo;
+    private final Random mRandom = new Random(42);
+    private int mSiguienteId = 1;
+
+    // Hace las veces de cola de mensajes del hilo principal, que es el hilo
+    // del test.
+    private final LinkedBlockingQueue<Runnable> mColaPrincipal = new LinkedBlockingQueue<>();
+
+    @BeforeClass
+    public static void setUpClass() {
+        sEjecutorFondo = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        sEjecutorFondo.shutdown();
+    }
+
+    @Test
+    public void notificaSoloLosCambios() throws InterruptedException {
+        List<Alumno> antigua = crearLista();
+        List<Alumno> nueva = actualizar(antigua);
+        Lista destino = new Lista();
+        DiferenciadorListas<Alumno> diferenciador = crearDiferenciador(destino);
+        diferenciador.enviarLista(antigua);
+        destino.reiniciar(antigua);
+        diferenciador.enviarLista(nueva);
+        ejecutarEnPrincipal(1);
+        // Al aplicar las notificaciones a la lista antigua se obtiene la nueva.
+        assertEquals(nueva.size(), destino.mIds.size());
+        for (int i = 0; i < nueva.size(); i++) {
+            Long id = destino.mIds.get(i);
+            if (id != null) {
+                assertEquals(nueva.get(i).getId(), (long) id);
+            }
+        }
+        assertEquals(NUM_CAMBIOS, destino.mInsertados);
+        assertEquals(NUM_CAMBIOS, destino.mEliminados);
+        // Solo se vuelven a escribir los modificados, y solo su dirección.
+        assertEquals(NUM_CAMBIOS, destino.mModificados);
+        assertEquals(ComparadorAlumnos.CAMBIO_DIRECCION, destino.mCampos);
+        assertTrue(diferenciador.getLista() == nueva);
+    }
+
+    @Test
+    public void descartaResultadosObsoletos() throws InterruptedException {
+        List<Alumno> antigua = crearLista();
+        Lista destino = new Lista();
+        DiferenciadorListas<Alumno> diferenciador = crearDiferenciador(destino);
+        diferenciador.enviarLista(antigua);
+        destino.reiniciar(antigua);
+        // Se envían varias listas seguidas, sin dejar que se notifiquen.
+        List<Alumno> ultima = antigua;
+        for (int i = 0; i < 5; i++) {
+            ultima = actualizar(antigua);
+            diferenciador.enviarLista(ultima);
+        }
+        // Solo la última llega a notificarse, aunque otras se hayan calculado.
+        esperarFondo();
+        Runnable tarea;
+        while ((tarea = mColaPrincipal.poll()) != null) {
+            tarea.run();
+        }
+        assertTrue(diferenciador.getLista() == ultima);
+        assertEquals(NUM_CAMBIOS, destino.mInsertados);
+        assertEquals(NUM_CAMBIOS, destino.mEliminados);
+        assertEquals(ultima.size(), destino.mIds.size());
+    }
+
+    @Test
+    public void benchmarkHiloPrincipal() throws InterruptedException {
+        List<Alumno> antigua = crearLista();
+        for (int i = 0; i < NUM_CALENTAMIENTO; i++) {
+            medirSincrono(antigua, actualizar(antigua), new ContadorComparaciones());
+            medirDiferenciador(antigua, actualizar(antigua), new ContadorComparaciones());
+        }
+        double sincrono = 0;
+        double diferenciador = 0;
+        ContadorComparaciones comparacionesSincrono = new ContadorComparaciones();
+        ContadorComparaciones comparacionesDiferenciador = new ContadorComparaciones();
+        for (int i = 0; i < NUM_PASADAS; i++) {
+            List<Alumno> nueva = actualizar(antigua);
+            sincrono += medirSincrono(antigua, nueva, comparacionesSincrono);
+            diferenciador += medirDiferenciador(antigua, nueva, comparacionesDiferenciador);
+        }
+        sincrono /= NUM_PASADAS;
+        diferenciador /= NUM_PASADAS;
+        String medidas = String.format("%d alumnos: %.3f ms y %d comparaciones en el hilo "
+                        + "principal calculando allí las diferencias, %.3f ms y %d "
+                        + "comparaciones con el diferenciador", NUM_ALUMNOS, sincrono,
+                comparacionesSincrono.mEnPrincipal / NUM_PASADAS, diferenciador,
+                comparacionesDiferenciador.mEnPrincipal / NUM_PASADAS);
+        System.out.println(medidas);
+        // Calculando allí las diferencias, al menos se compara cada alumno.
+        assertTrue(medidas, comparacionesSincrono.mEnPrincipal >= NUM_PASADAS * NUM_ALUMNOS);
+        // Con el diferenciador no se compara ninguno en el hilo principal.
+        assertEquals(medidas, 0, comparacionesDiferenciador.mEnPrincipal);
+        assertTrue(medidas, comparacionesDiferenciador.mEnFondo
+                >= NUM_PASADAS * NUM_ALUMNOS);
+    }
+
+    // Retorna los ms en el hilo principal calculando y notificando las
+    // diferencias en él.
+    private double medirSincrono(final List<Alumno> antigua, final List<Alumno> nueva,
+            final ContadorComparaciones comparador) {
+        Lista destino = new Lista();
+        destino.reiniciar(antigua);
+        long inicio = System.nanoTime();
+        DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return antigua.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return nueva.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return comparador.mismoElemento(antigua.get(oldItemPosition),
+                        nueva.get(newItemPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return comparador.mismoContenido(antigua.get(oldItemPosition),
+                        nueva.get(newItemPosition));
+            }
+        }).dispatchUpdatesTo(destino);
+        long duracion = System.nanoTime() - inicio;
+        assertEquals(nueva.size(), destino.mIds.size());
+        return duracion / 1e6;
+    }
+
+    // Retorna los ms en el hilo principal con el diferenciador: el envío de
+    // la lista y la notificación de los cambios, pero no su cálculo.
+    private double medirDiferenciador(List<Alumno> antigua, List<Alumno> nueva,
+            ContadorComparaciones comparador) throws InterruptedException {
+        Lista destino = new Lista();
+        DiferenciadorListas<Alumno> diferenciador = new DiferenciadorListas<>(destino,
+                comparador, sEjecutorFondo, new Executor() {
+                    @Override
+                    public void execute(Runnable tarea) {
+                        mColaPrincipal.add(tarea);
+                    }
+                });
+        diferenciador.enviarLista(antigua);
+        destino.reiniciar(antigua);
+        long inicio = System.nanoTime();
+        diferenciador.enviarLista(nueva);
+        long duracion = System.nanoTime() - inicio;
+        Runnable notificacion = mColaPrincipal.poll(10, TimeUnit.SECONDS);
+        assertNotNull(notificacion);
+        inicio = System.nanoTime();
+        notificacion.run();
+        duracion += System.nanoTime() - inicio;
+        assertEquals(nueva.size(), destino.mIds.size());
+        return duracion / 1e6;
+    }
+
+    private DiferenciadorListas<Alumno> crearDiferenciador(ListUpdateCallback destino) {
+        return new DiferenciadorListas<>(destino, new ComparadorAlumnos(), sEjecutorFondo,
+                new Executor() {
+                    @Override
+                    public void execute(Runnable tarea) {
+                        mColaPrincipal.add(tarea);
+                    }
+                });
+    }
+
+    // Ejecuta las tareas enviadas al hilo principal, esperando a que lleguen.
+    private void ejecutarEnPrincipal(int tareas) throws InterruptedException {
+        for (int i = 0; i < tareas; i++) {
+            Runnable tarea = mColaPrincipal.poll(10, TimeUnit.SECONDS);
+            assertNotNull(tarea);
+            tarea.run();
+        }
+    }
+
+    // Espera a que el hilo secundario termine lo que tiene pendiente.
+    private void esperarFondo() throws InterruptedException {
+        try {
+            sEjecutorFondo.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private List<Alumno> crearLista() {
+        ArrayList<Alumno> alumnos = new ArrayList<>(NUM_ALUMNOS);
+        for (int i = 0; i < NUM_ALUMNOS; i++) {
+            alumnos.add(nuevoAlumno());
+        }
+        return Collections.unmodifiableList(alumnos);
+    }
+
+    // Retorna una copia de la lista con NUM_CAMBIOS alumnos con otra
+    // dirección, NUM_CAMBIOS eliminados y NUM_CAMBIOS nuevos en posiciones
+    // aleatorias.
+    private List<Alumno> actualizar(List<Alumno> lista) {
+        ArrayList<Alumno> nueva = new ArrayList<>(lista);
+        for (int i = 0; i < NUM_CAMBIOS; i++) {
+            nueva.remove(mRandom.nextInt(nueva.size()));
+        }
+        for (int i = 0; i < NUM_CAMBIOS; i++) {
+            int posicion = mRandom.nextInt(nueva.size());
+            Alumno alumno = nueva.get(posicion);
+            if (alumno.getDireccion().startsWith("Nueva")) {
+                // Ya modificado.
+                i--;
+                continue;
+            }
+            nueva.set(posicion, new Alumno(alumno.getId(), alumno.getNombre(),
+                    "Nueva " + alumno.getDireccion(), alumno.getUrlFoto()));
+        }
+        for (int i = 0; i < NUM_CAMBIOS; i++) {
+            nueva.add(mRandom.nextInt(nueva.size() + 1), nuevoAlumno());
+        }
+        return Collections.unmodifiableList(nueva);
+    }
+
+    private Alumno nuevoAlumno() {
+        int id = mSiguienteId++;
+        return new Alumno(id, "Alumno " + id, "c/ Su casa, nº " + id,
+                "http://lorempixel.com/100/100/abstract/" + (id % 10 + 1) + "/");
+    }
+
+    // Comparador de alumnos que cuenta las comparaciones hechas en el hilo
+    // principal, que es el que lo crea, y en el resto.
+    private static class ContadorComparaciones
+            implements DiferenciadorListas.Comparador<Alumno> {
+
+        private final ComparadorAlumnos mComparador = new ComparadorAlumnos();
+        private final Thread mPrincipal = Thread.currentThread();
+        private volatile long mEnPrincipal;
+        private volatile long mEnFondo;
+
+        @Override
+        public boolean mismoElemento(Alumno antiguo, Alumno nuevo) {
+            contar();
+            return mComparador.mismoElemento(antiguo, nuevo);
+        }
+
+        @Override
+        public boolean mismoContenido(Alumno antiguo, Alumno nuevo) {
+            contar();
+            return mComparador.mismoContenido(antiguo, nuevo);
+        }
+
+        @Override
+        public Object getCambios(Alumno antiguo, Alumno nuevo) {
+            return mComparador.getCambios(antiguo, nuevo);
+        }
+
+        // Solo se compara desde un hilo a la vez.
+        @SuppressWarnings("NonAtomicOperationOnVolatileField")
+        private void contar() {
+            if (Thread.currentThread() == mPrincipal) {
+                mEnPrincipal++;
+            } else {
+                mEnFondo++;
+            }
+        }
+
+    }
+
+    // Aplica las notificaciones a una lista con los ids de los alumnos, como
+    // haría el RecyclerView. Los insertados quedan a null.
+    private static class Lista implements ListUpdateCallback {
+
+        private final ArrayList<Long> mIds = new ArrayList<>();
+        private int mInsertados;
+        private int mEliminados;
+        private int mModificados;
+        private int mCampos;
+
+        // Parte de los alumnos recibidos, sin contar ningún cambio.
+        void reiniciar(List<Alumno> alumnos) {
+            mIds.clear();
+            for (Alumno alumno : alumnos) {
+                mIds.add(alumno.getId());
+            }
+            mInsertados = 0;
+            mEliminados = 0;
+            mModificados = 0;
+            mCampos = 0;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            mIds.addAll(position, Collections.<Long>nCopies(count, null));
+            mInsertados += count;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mIds.subList(position, position + count).clear();
+            mEliminados += count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mIds.add(toPosition, mIds.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mModificados += count;
+            mCampos |= payload instanceof Integer ? (Integer) payload
+                    : ComparadorAlumnos.CAMBIO_TODO;
+        }
+
+    }
+
+}
@@ -0,0 +1,237 @@
+package es.iessaladillo.pedrojoya.pr203;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.util.ListUpdateCallback;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.objectbox.Box;
+import io.objectbox.BoxStore;
+import io.objectbox.reactive.DataObserver;
+import io.objectbox.reactive.DataSubscription;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+// Carga 10.000 alumnos con 5 asignaturas cada uno (50.000 matrículas) y
+// compara las consultas por asignatura resolviendo las relaciones una a una y
+// todas juntas, comprobando que obtienen los mismos alumnos y cuántas
+// relaciones ToOne resuelve cada una, que no depende del dispositivo. También
+// comprueba las notificaciones del observador de la lista de alumnos con el
+// transformador. Los tiempos solo se registran.
+@RunWith(AndroidJUnit4.class)
+public class MatriculasBenchmarkTest {
+
+    private static final String TAG = MatriculasBenchmarkTest.class.getSimpleName();
+    private static final int NUM_ALUMNOS = 10000;
+    private static final int NUM_ASIGNATURAS = 20;
+    private static final int ASIGNATURAS_POR_ALUMNO = 5;
+    private static final int ALUMNOS_POR_ASIGNATURA =
+            NUM_ALUMNOS * ASIGNATURAS_POR_ALUMNO / NUM_ASIGNATURAS;
+    private static final int NUM_PASADAS = 20;
+    private static final long TIEMPO_MAXIMO_SEGUNDOS = 10;
+
+    private BoxStore mBoxStore;
+    private Box<Alumno> mAlumnoBox;
+    private Matriculas mMatriculas;
+    private final List<Long> mIdsAsignaturas = new ArrayList<>(NUM_ASIGNATURAS);
+
+    @Before
+    public void setUp() {
+        mBoxStore = MyObjectBox.builder()
+                .androidContext(InstrumentationRegistry.getTargetContext())
+                .name("benchmark")
+                .build();
+        mAlumnoBox = mBoxStore.boxFor(Alumno.class);
+        mMatriculas = new Matriculas(mBoxStore);
+        long inicio = System.nanoTime();
+        poblar();
+        Log.d(TAG, String.format("Carga de %d matrículas: %.1f ms",
+                NUM_ALUMNOS * ASIGNATURAS_POR_ALUMNO, (System.nanoTime() - inicio) / 1e6));
+    }
+
+    @After
+    public void tearDown() {
+        mBoxStore.close();
+        mBoxStore.deleteAllFiles();
+    }
+
+    @Test
+    public void benchmarkConsultaPorAsignatura() {
+        // Calentamiento.
+        consultarUnaAUna(mMatriculas.getMatriculasDeAsignatura(mIdsAsignaturas.get(0)));
+        consultarJuntas(mMatriculas.getMatriculasDeAsignatura(mIdsAsignaturas.get(0)));
+        long unaAUna = 0;
+        long juntas = 0;
+        for (int i = 0; i < NUM_PASADAS; i++) {
+            long idAsignatura = mIdsAsignaturas.get(i % NUM_ASIGNATURAS);
+            List<AsignaturasAlumnos> matriculas = mMatriculas.getMatriculasDeAsignatura(
+                    idAsignatura);
+            long inicio = System.nanoTime();
+            List<Alumno> esperados = consultarUnaAUna(matriculas);
+            unaAUna += System.nanoTime() - inicio;
+            assertEquals(ALUMNOS_POR_ASIGNATURA, contarResueltas(matriculas));
+            matriculas = mMatriculas.getMatriculasDeAsignatura(idAsignatura);
+            inicio = System.nanoTime();
+            List<Alumno> alumnos = consultarJuntas(matriculas);
+            juntas += System.nanoTime() - inicio;
+            // Se obtienen los mismos alumnos sin resolver ninguna relación.
+            assertEquals(0, contarResueltas(matriculas));
+            assertEquals(ALUMNOS_POR_ASIGNATURA, alumnos.size());
+            for (int j = 0; j < alumnos.size(); j++) {
+                assertEquals(esperados.get(j).getId(), alumnos.get(j).getId());
+            }
+        }
+        Log.d(TAG, String.format("Alumnos de una asignatura (%d): %.2f ms resolviendo cada "
+                        + "ToOne, %.2f ms con una sola lectura", ALUMNOS_POR_ASIGNATURA,
+                unaAUna / 1e6 / NUM_PASADAS, juntas / 1e6 / NUM_PASADAS));
+    }
+
+    @Test
+    public void benchmarkObservador() throws InterruptedException {
+        final LinkedBlockingQueue<DiferenciadorListas.Cambios<Alumno>> recibidos =
+                new LinkedBlockingQueue<>();
+        // Sin on() los resultados se entregan en el hilo de ObjectBox.
+        DataObserver<DiferenciadorListas.Cambios<Alumno>> observador =
+                new DataObserver<DiferenciadorListas.Cambios<Alumno>>() {
+                    @Override
+                    public void onData(DiferenciadorListas.Cambios<Alumno> cambios) {
+                        recibidos.add(cambios);
+                    }
+                };
+        DataSubscription subscripcion = mAlumnoBox.query().order(Alumno_.nombre).build()
+                .subscribe().transform(new TransformadorAlumnos()).observer(observador);
+        try {
+            Contador contador = new Contador();
+            DiferenciadorListas<Alumno> diferenciador = new DiferenciadorListas<>(contador,
+                    new ComparadorAlumnos(), new EjecutorDirecto(), new EjecutorDirecto());
+            // El resultado inicial se entrega al suscribirse.
+            diferenciador.aplicarCambios(recibir(recibidos));
+            assertEquals(NUM_ALUMNOS, diferenciador.getLista().size());
+            long latencia = 0;
+            long principal = 0;
+            for (int i = 0; i < NUM_PASADAS; i++) {
+                contador.mNotificaciones = 0;
+                long inicio = System.nanoTime();
+                mAlumnoBox.put(new Alumno(0, "Nuevo " + i, "c/ Nueva, nº " + i, null));
+                DiferenciadorListas.Cambios<Alumno> cambios = recibir(recibidos);
+                latencia += System.nanoTime() - inicio;
+                // Lo que se haría en el hilo principal.
+                inicio = System.nanoTime();
+                diferenciador.aplicarCambios(cambios);
+                principal += System.nanoTime() - inicio;
+                assertEquals(1, contador.mNotificaciones);
+            }
+            Log.d(TAG, String.format("Observador con %d alumnos: %.2f ms desde la "
+                            + "inserción hasta recibir los cambios, %.3f ms en el hilo principal",
+                    NUM_ALUMNOS, latencia / 1e6 / NUM_PASADAS, principal / 1e6 / NUM_PASADAS));
+        } finally {
+            subscripcion.cancel();
+        }
+    }
+
+    // Como se hacía antes, con getAlumno() para cada matrícula.
+    private static List<Alumno> consultarUnaAUna(List<AsignaturasAlumnos> matriculas) {
+        List<Alumno> alumnos = new ArrayList<>(matriculas.size());
+        for (AsignaturasAlumnos matricula : matriculas) {
+            alumnos.add(matricula.getAlumno());
+        }
+        return alumnos;
+    }
+
+    // Como lo hace getAlumnosDeAsignatura(), con una sola lectura.
+    private List<Alumno> consultarJuntas(List<AsignaturasAlumnos> matriculas) {
+        return mMatriculas.getAlumnos(matriculas);
+    }
+
+    // Retorna cuántas matrículas tienen resuelta la relación con su alumno.
+    private static int contarResueltas(List<AsignaturasAlumnos> matriculas) {
+        int resueltas = 0;
+        for (AsignaturasAlumnos matricula : matriculas) {
+            if (matricula.alumno != null) {
+                resueltas++;
+            }
+        }
+        return resueltas;
+    }
+
+    private static DiferenciadorListas.Cambios<Alumno> recibir(
+            LinkedBlockingQueue<DiferenciadorListas.Cambios<Alumno>> recibidos)
+            throws InterruptedException {
+        DiferenciadorListas.Cambios<Alumno> cambios = recibidos.poll(TIEMPO_MAXIMO_SEGUNDOS,
+                TimeUnit.SECONDS);
+        assertNotNull(cambios);
+        return cambios;
+    }
+
+    // Cada alumno se matricula en ASIGNATURAS_POR_ALUMNO asignaturas
+    // consecutivas, de manera que todas tienen los mismos alumnos.
+    private void poblar() {
+        Box<Asignatura> asignaturaBox = mBoxStore.boxFor(Asignatura.class);
+        for (int i = 0; i < NUM_ASIGNATURAS; i++) {
+            mIdsAsignaturas.add(asignaturaBox.put(new Asignatura(0, "Asignatura " + i)));
+        }
+        List<Alumno> alumnos = new ArrayList<>(NUM_ALUMNOS);
+        for (int i = 0; i < NUM_ALUMNOS; i++) {
+            alumnos.add(new Alumno(0, "Alumno " + i, "c/ Su casa, nº " + i, null));
+        }
+        mAlumnoBox.put(alumnos);
+        List<AsignaturasAlumnos> matriculas = new ArrayList<>(
+                NUM_ALUMNOS * ASIGNATURAS_POR_ALUMNO);
+        for (int i = 0; i < NUM_ALUMNOS; i++) {
+            for (int j = 0; j < ASIGNATURAS_POR_ALUMNO; j++) {
+                matriculas.add(new AsignaturasAlumnos(0, alumnos.get(i).getId(),
+                        mIdsAsignaturas.get((i + j) % NUM_ASIGNATURAS)));
+            }
+        }
+        mBoxStore.boxFor(AsignaturasAlumnos.class).put(matriculas);
+    }
+
+    // Cuenta las notificaciones que recibiría el adaptador.
+    private static class Contador implements ListUpdateCallback {
+
+        private int mNotificaciones;
+
+        @Override
+        public void onInserted(int position, int count) {
+            mNotificaciones++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            mNotificaciones++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            mNotificaciones++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            mNotificaciones++;
+        }
+
+    }
+
+    private static class EjecutorDirecto implements Executor {
+
+        @Override
+        public void execute(Runnable tarea) {
+            tarea.run();
+        }
+
+    }
+
+}
@@ -19,13 +19,15 @@ import de.hdodenhof.circleimageview.CircleImageView;
 @SuppressWarnings("unused")
 public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHolder> {
 
-    private List<Alumno> mDatos;
+    // Las diferencias entre listas se calculan en segundo plano.
+    private final DiferenciadorListas<Alumno> mDiferenciador;
     private OnItemLongClickListener onItemLongClickListener;
     private OnItemClickListener onItemClickListener;
 
     // Constructor.
     public AlumnosAdapter(List<Alumno> datos) {
-        mDatos = datos;
+        mDiferenciador = new DiferenciadorListas<>(this, new ComparadorAlumnos());
+        mDiferenciador.enviarLista(datos);
         // Se establece que cada item tiene un id único.
         setHasStableIds(true);
     }
@@ -49,7 +51,7 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
                 if (onItemClickListener != null) {
                     // Se informa al listener.
                     onItemClickListener.onItemClick(v,
-                            mDatos.get(viewHolder.getAdapterPosition()),
+                            getData().get(viewHolder.getAdapterPosition()),
                             viewHolder.getAdapterPosition());
                 }
             }
@@ -61,7 +63,7 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
                 if (onItemLongClickListener != null) {
                     // Se informa al listener.
                     onItemLongClickListener.onItemLongClick(v,
-                            mDatos.get(viewHolder.getAdapterPosition()),
+                            getData().get(viewHolder.getAdapterPosition()),
                             viewHolder.getAdapterPosition());
                     return true;
                 } else {
@@ -79,27 +81,25 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
     public void onBindViewHolder(AlumnosAdapter.ViewHolder holder, int position) {
         // Se obtiene el alumno correspondiente y se escriben sus datos
         // en las vistas.
-        holder.bind(mDatos.get(position));
+        holder.bind(getData().get(position), ComparadorAlumnos.CAMBIO_TODO);
     }
 
+    // Cuando solo han cambiado algunos datos del ítem, que llegan en payloads
+    // (si está vacío se escriben todos).
     @Override
-    public int getItemCount() {
-        return mDatos.size();
+    public void onBindViewHolder(AlumnosAdapter.ViewHolder holder, int position,
+            List<Object> payloads) {
+        holder.bind(getData().get(position), ComparadorAlumnos.getCamposCambiados(payloads));
     }
 
     @Override
-    public long getItemId(int position) {
-        return mDatos.get(position).getId();
-    }
-
-    public void removeItem(int position) {
-        mDatos.remove(position);
-        notifyItemRemoved(position);
+    public int getItemCount() {
+        return getData().size();
     }
 
-    public void addItem(Alumno alumno) {
-        mDatos.add(alumno);
-        notifyItemInserted(mDatos.size() - 1);
+    @Override
+    public long getItemId(int position) {
+        return getData().get(position).getId();
     }
 
     public void setOnItemClickListener(OnItemClickListener listener) {
@@ -110,9 +110,22 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
         this.onItemLongClickListener = listener;
     }
 
+    // Establece la nueva lista de alumnos, que no debe modificarse después.
+    // Los cambios respecto a la actual se notifican cuando terminan de
+    // calcularse.
     public void setData(List<Alumno> alumnos) {
-        mDatos = alumnos;
-        notifyDataSetChanged();
+        mDiferenciador.enviarLista(alumnos);
+    }
+
+    // Notifica los cambios respecto a la lista actual ya calculados en otro
+    // hilo, que pasan a ser los datos del adaptador.
+    public void setData(DiferenciadorListas.Cambios<Alumno> cambios) {
+        mDiferenciador.aplicarCambios(cambios);
+    }
+
+    // Retorna la lista que se está mostrando. No debe modificarse.
+    public List<Alumno> getData() {
+        return mDiferenciador.getLista();
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -129,10 +142,18 @@ public class AlumnosAdapter extends RecyclerView.Adapter<AlumnosAdapter.ViewHold
             ButterKnife.bind(this, itemView);
         }
 
-        public void bind(Alumno alumno) {
-            // Se escriben los mDatos en la vista.
-            lblNombre.setText(alumno.getNombre());
-            lblDireccion.setText(alumno.getDireccion());
+        // Escribe en las vistas los campos indicados del alumno. La foto solo
+        // se vuelve a cargar si ha cambiado.
+        public void bind(Alumno alumno, int cambios) {
+            if ((cambios & ComparadorAlumnos.CAMBIO_NOMBRE) != 0) {
+                lblNombre.setText(alumno.getNombre());
+            }
+            if ((cambios & ComparadorAlumnos.CAMBIO_DIRECCION) != 0) {
+                lblDireccion.setText(alumno.getDireccion());
+            }
+            if ((cambios & ComparadorAlumnos.CAMBIO_FOTO) == 0) {
+                return;
+            }
             String url = alumno.getUrlFoto();
             Picasso.with(imgAvatar.getContext())
                     .load(url)
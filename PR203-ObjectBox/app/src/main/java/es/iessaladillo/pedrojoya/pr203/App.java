@@ -12,12 +12,14 @@ public class App extends Application {
     private BoxStore mBoxStore;
     private Box<Alumno> mAlumnoBox;
     private Box<Asignatura> mAsignaturasBox;
+    private Matriculas mMatriculas;
 
     @Override
     public void onCreate() {
         super.onCreate();
         mBoxStore = MyObjectBox.builder().androidContext(App.this).build();
         mAsignaturasBox = mBoxStore.boxFor(Asignatura.class);
+        mMatriculas = new Matriculas(mBoxStore);
         createAsignaturas();
     }
 
@@ -25,6 +27,10 @@ public class App extends Application {
         return mBoxStore;
     }
 
+    public Matriculas getMatriculas() {
+        return mMatriculas;
+    }
+
     private void createAsignaturas() {
         Query<Asignatura> queryAsignatura = mAsignaturasBox.query()
                 .equal(Asignatura_.nombre, "")
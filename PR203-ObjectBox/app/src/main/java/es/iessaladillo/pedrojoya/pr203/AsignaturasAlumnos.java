@@ -20,6 +20,7 @@ public class AsignaturasAlumnos {
     @Index
     long alumnoId;
 
+    @Index
     long asignaturaId;
 
     @Relation
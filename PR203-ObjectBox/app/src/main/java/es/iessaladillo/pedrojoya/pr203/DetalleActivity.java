@@ -70,8 +70,7 @@ public class DetalleActivity extends AppCompatActivity {
     private String mUrlFoto;
     private BoxStore mBoxStore;
     private Box<Alumno> mAlumnoBox;
-    private Box<AsignaturasAlumnos> mAsignaturasAlumnosBox;
-    private List<AsignaturasAlumnos> mAsignaturasAlumno;
+    private Matriculas mMatriculas;
 
 
     @Override
@@ -103,7 +102,7 @@ public class DetalleActivity extends AppCompatActivity {
     private void initBD() {
         mBoxStore = ((App) getApplication()).getBoxStore();
         mAlumnoBox = mBoxStore.boxFor(Alumno.class);
-        mAsignaturasAlumnosBox = mBoxStore.boxFor(AsignaturasAlumnos.class);
+        mMatriculas = ((App) getApplication()).getMatriculas();
     }
 
     private void initVistas() {
@@ -115,8 +114,6 @@ public class DetalleActivity extends AppCompatActivity {
         mIdAlumno = getIntent().getLongExtra(EXTRA_ID_ALUMNO, 0);
         mAlumno = mAlumnoBox.get(mIdAlumno);
         mUrlFoto = mAlumno.getUrlFoto();
-        mAsignaturasAlumno = mAsignaturasAlumnosBox.query().equal(AsignaturasAlumnos_.alumnoId,
-                mAlumno.getId()).build().find();
         alumnoToVistas();
         setTitle(R.string.actualizar_alumno);
     }
@@ -159,22 +156,12 @@ public class DetalleActivity extends AppCompatActivity {
     private void alumnoToVistas() {
         txtNombre.setText(mAlumno.getNombre());
         txtDireccion.setText(mAlumno.getDireccion());
-        StringBuilder sb = new StringBuilder();
-        if (mAsignaturasAlumno == null || mAsignaturasAlumno.size() == 0) {
-            sb.append(getString(R.string.ninguna));
+        // Las asignaturas se obtienen todas juntas, no una por matrícula.
+        List<Asignatura> asignaturas = mMatriculas.getAsignaturasDeAlumno(mAlumno.getId());
+        if (asignaturas.size() == 0) {
+            txtAsignaturas.setText(getString(R.string.ninguna));
         } else {
-            boolean primero = true;
-            if (mAsignaturasAlumno != null) {
-                for (AsignaturasAlumnos as : mAsignaturasAlumno) {
-                    if (!primero) {
-                        sb.append(", ");
-                    } else {
-                        primero = false;
-                    }
-                    sb.append(as.getAsignatura());
-                }
-            }
-            txtAsignaturas.setText(sb.toString());
+            txtAsignaturas.setText(TextUtils.join(", ", asignaturas));
         }
     }
 
@@ -215,11 +202,9 @@ public class DetalleActivity extends AppCompatActivity {
         mAlumno.setUrlFoto(mUrlFoto);
         mAlumnoBox.put(mAlumno);
         mIdAlumno = mAlumno.getId();
-        mAsignaturasAlumnosBox.remove(mAsignaturasAlumno);
+        // Solo se cambian las matrículas si se han seleccionado asignaturas.
         if (mAsigSelec != null) {
-            for (Asignatura asig : mAsigSelec) {
-                mAsignaturasAlumnosBox.put(new AsignaturasAlumnos(0, mIdAlumno, asig.getId()));
-            }
+            mMatriculas.setAsignaturas(mIdAlumno, mAsigSelec);
         }
         // Se finaliza la actividad.
         setResult(RESULT_OK);
@@ -13,7 +13,6 @@ import android.view.Window;
 import android.widget.TextView;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
@@ -44,6 +43,7 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
     private AlumnosAdapter mAdaptador;
     private BoxStore mBoxStore;
     private Box<Alumno> mAlumnoBox;
+    private Matriculas mMatriculas;
     private Query<Alumno> mAlumnosQuery;
     private DataSubscription mSubscripcion;
     private RecyclerView.AdapterDataObserver mObservador;
@@ -65,6 +65,7 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
     private void initBD() {
         mBoxStore = ((App) getApplication()).getBoxStore();
         mAlumnoBox = mBoxStore.boxFor(Alumno.class);
+        mMatriculas = ((App) getApplication()).getMatriculas();
         mAlumnosQuery = mAlumnoBox.query().order(Alumno_.nombre).build();
     }
 
@@ -115,14 +116,18 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
 
     private void getAlumnos() {
         // Se ejecuta la consulta en un hilo secundario y se crea un observador que actualiza el
-        // adpatador cuando hay cambios.
-        mSubscripcion = mAlumnosQuery.subscribe().on(AndroidScheduler.mainThread()).observer(
-                new DataObserver<List<Alumno>>() {
+        // adpatador cuando hay cambios. Los cambios respecto al resultado
+        // anterior se calculan también en el hilo secundario, por lo que al
+        // principal solo llega lo que hay que notificar.
+        mSubscripcion = mAlumnosQuery.subscribe()
+                .transform(new TransformadorAlumnos())
+                .on(AndroidScheduler.mainThread())
+                .observer(new DataObserver<DiferenciadorListas.Cambios<Alumno>>() {
                     @Override
-                    public void onData(List<Alumno> alumnos) {
-                        mAdaptador.setData(alumnos);
-                        checkAdapterIsEmpty();
-                        // QUITAR SETDATA Y USAR DIFFUTIL.
+                    public void onData(DiferenciadorListas.Cambios<Alumno> cambios) {
+                        // La vista de lista vacía se actualiza desde el
+                        // observador del adaptador.
+                        mAdaptador.setData(cambios);
                     }
                 });
     }
@@ -145,11 +150,7 @@ public class MainActivity extends AppCompatActivity implements AlumnosAdapter.On
 
     @Override
     public void onItemLongClick(View view, Alumno alumno, int position) {
-        Box<AsignaturasAlumnos> asignaturasAlumnoBox = mBoxStore.boxFor(AsignaturasAlumnos.class);
-        Query<AsignaturasAlumnos> asignaturasAlumnoQuery = asignaturasAlumnoBox.query().equal(
-                AsignaturasAlumnos_.alumnoId, alumno.getId()).build();
-        asignaturasAlumnoQuery.remove();
-        mAlumnoBox.remove(alumno);
+        mMatriculas.eliminarAlumno(alumno);
     }
 
 }
@@ -0,0 +1,106 @@
+package es.iessaladillo.pedrojoya.pr203;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.objectbox.Box;
+import io.objectbox.BoxStore;
+
+// Consultas y operaciones sobre las matrículas, la relación muchos a muchos
+// entre alumnos y asignaturas. Ambas claves ajenas están indexadas, y los
+// alumnos o asignaturas de una lista de matrículas se obtienen con una sola
+// lectura de su caja, en vez de resolviendo cada ToOne por separado.
+public class Matriculas {
+
+    private final BoxStore mBoxStore;
+    private final Box<AsignaturasAlumnos> mMatriculasBox;
+    private final Box<Alumno> mAlumnoBox;
+    private final Box<Asignatura> mAsignaturaBox;
+
+    public Matriculas(BoxStore boxStore) {
+        mBoxStore = boxStore;
+        mMatriculasBox = boxStore.boxFor(AsignaturasAlumnos.class);
+        mAlumnoBox = boxStore.boxFor(Alumno.class);
+        mAsignaturaBox = boxStore.boxFor(Asignatura.class);
+    }
+
+    // Retorna las matrículas del alumno.
+    public List<AsignaturasAlumnos> getMatriculasDeAlumno(long idAlumno) {
+        return mMatriculasBox.query().equal(AsignaturasAlumnos_.alumnoId, idAlumno).build()
+                .find();
+    }
+
+    // Retorna las matrículas de la asignatura.
+    public List<AsignaturasAlumnos> getMatriculasDeAsignatura(long idAsignatura) {
+        return mMatriculasBox.query().equal(AsignaturasAlumnos_.asignaturaId, idAsignatura)
+                .build().find();
+    }
+
+    // Retorna las asignaturas en que está matriculado el alumno.
+    public List<Asignatura> getAsignaturasDeAlumno(long idAlumno) {
+        return getAsignaturas(getMatriculasDeAlumno(idAlumno));
+    }
+
+    // Retorna los alumnos matriculados en la asignatura.
+    public List<Alumno> getAlumnosDeAsignatura(long idAsignatura) {
+        return getAlumnos(getMatriculasDeAsignatura(idAsignatura));
+    }
+
+    // Retorna las asignaturas de las matrículas, en el mismo orden.
+    public List<Asignatura> getAsignaturas(List<AsignaturasAlumnos> matriculas) {
+        List<Long> ids = new ArrayList<>(matriculas.size());
+        for (AsignaturasAlumnos matricula : matriculas) {
+            ids.add(matricula.getAsignaturaId());
+        }
+        return sinNulos(mAsignaturaBox.get(ids));
+    }
+
+    // Retorna los alumnos de las matrículas, en el mismo orden.
+    public List<Alumno> getAlumnos(List<AsignaturasAlumnos> matriculas) {
+        List<Long> ids = new ArrayList<>(matriculas.size());
+        for (AsignaturasAlumnos matricula : matriculas) {
+            ids.add(matricula.getAlumnoId());
+        }
+        return sinNulos(mAlumnoBox.get(ids));
+    }
+
+    // Sustituye las matrículas del alumno por las de las asignaturas
+    // recibidas, en una sola transacción.
+    public void setAsignaturas(final long idAlumno, final List<Asignatura> asignaturas) {
+        mBoxStore.runInTx(new Runnable() {
+            @Override
+            public void run() {
+                mMatriculasBox.remove(getMatriculasDeAlumno(idAlumno));
+                List<AsignaturasAlumnos> matriculas = new ArrayList<>(asignaturas.size());
+                for (Asignatura asignatura : asignaturas) {
+                    matriculas.add(new AsignaturasAlumnos(0, idAlumno, asignatura.getId()));
+                }
+                mMatriculasBox.put(matriculas);
+            }
+        });
+    }
+
+    // Elimina el alumno junto con sus matrículas, en una sola transacción.
+    public void eliminarAlumno(final Alumno alumno) {
+        mBoxStore.runInTx(new Runnable() {
+            @Override
+            public void run() {
+                mMatriculasBox.query().equal(AsignaturasAlumnos_.alumnoId, alumno.getId())
+                        .build().remove();
+                mAlumnoBox.remove(alumno);
+            }
+        });
+    }
+
+    // Quita de la lista los objetos que ya no existen.
+    private static <T> List<T> sinNulos(List<T> lista) {
+        List<T> resultado = new ArrayList<>(lista.size());
+        for (T elemento : lista) {
+            if (elemento != null) {
+                resultado.add(elemento);
+            }
+        }
+        return resultado;
+    }
+
+}
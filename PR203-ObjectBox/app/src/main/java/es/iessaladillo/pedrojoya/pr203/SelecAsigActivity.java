@@ -52,8 +52,8 @@ public class SelecAsigActivity extends AppCompatActivity {
                 .order(Asignatura_.nombre)
                 .build()
                 .find();
-        mAsignaturasAlumno = mBoxStore.boxFor(AsignaturasAlumnos.class).query().equal(
-                AsignaturasAlumnos_.alumnoId, mIdAlumno).build().find();
+        mAsignaturasAlumno = ((App) getApplication()).getMatriculas().getMatriculasDeAlumno(
+                mIdAlumno);
 
     }
 
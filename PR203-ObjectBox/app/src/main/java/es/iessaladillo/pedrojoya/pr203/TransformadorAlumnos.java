@@ -0,0 +1,30 @@
+package es.iessaladillo.pedrojoya.pr203;
+
+import java.util.Collections;
+import java.util.List;
+
+import io.objectbox.reactive.DataTransformer;
+
+// Transforma cada resultado de la consulta de alumnos en los cambios respecto
+// al resultado anterior. ObjectBox lo ejecuta en un hilo secundario, de manera
+// que al hilo principal solo llegan las inserciones, eliminaciones,
+// movimientos y modificaciones que hay que notificar al adaptador, en vez de
+// la lista completa para compararla allí.
+class TransformadorAlumnos implements
+        DataTransformer<List<Alumno>, DiferenciadorListas.Cambios<Alumno>> {
+
+    private final ComparadorAlumnos mComparador = new ComparadorAlumnos();
+    // Último resultado recibido.
+    private List<Alumno> mAnterior = Collections.emptyList();
+
+    // Puede llamarse desde distintos hilos, pero cada resultado debe
+    // compararse con el anterior.
+    @Override
+    public synchronized DiferenciadorListas.Cambios<Alumno> transform(List<Alumno> alumnos) {
+        DiferenciadorListas.Cambios<Alumno> cambios = DiferenciadorListas.calcularCambios(
+                mAnterior, alumnos, mComparador);
+        mAnterior = cambios.getLista();
+        return cambios;
+    }
+
+}